@@ -139,6 +139,9 @@ public class RapidMiner {
     /** The name of the property indicating the default encoding for files. */
     public static final String PROPERTY_RAPIDMINER_GENERAL_DEFAULT_ENCODING = "rapidminer.general.encoding";
 
+	/** The property name for &quot;The maximal size in MB of a distance matrix kept on the heap, larger matrices are stored in a memory mapped file (0: a quarter of the maximal heap size).&quot; */
+	public static final String PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET = "rapidminer.general.distance_matrix.heap_budget";
+
     public static boolean isInitialized = false;
     
 	/**
@@ -156,6 +159,7 @@ public class RapidMiner {
 		registerRapidMinerProperty(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_GENERAL_LOGFILE_FORMAT, "Use unix special characters for logfile highlighting (requires new RapidMiner instance).", false));
 		registerRapidMinerProperty(new ParameterTypeBoolean(PROPERTY_RAPIDMINER_GENERAL_DEBUGMODE, "Indicates if RapidMiner should be used in debug mode (print exception stacks and shows more technical error messages)", false));
 		registerRapidMinerProperty(new ParameterTypeString(PROPERTY_RAPIDMINER_GENERAL_DEFAULT_ENCODING, "The default encoding used for file operations (default: 'SYSTEM' uses the underlying system encoding, 'UTF-8' or 'ISO-8859-1' are other common options)", SYSTEM_ENCODING_NAME));
+		registerRapidMinerProperty(new ParameterTypeInt(PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET, "The maximal size in MB of a distance matrix kept on the heap, larger matrices are stored in a memory mapped file (0: a quarter of the maximal heap size).", 0, Integer.MAX_VALUE, 0));
 	}
 	
 	private static InputHandler inputHandler = new ConsoleInputHandler();
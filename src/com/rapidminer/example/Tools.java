@@ -454,6 +454,8 @@ public class Tools {
 		while (a.hasNext()) {
 			AttributeRole role = a.next();
 			Attribute clone = (Attribute)role.getAttribute().clone(); 
+			// the copied values are already transformed
+			clone.clearTransformations();
 			attributes.add(clone);
 			if (role.isSpecial()) {
 				specialMap.put(clone, role.getSpecialName());
@@ -486,6 +488,8 @@ public class Tools {
 		while (a.hasNext()) {
 			AttributeRole role = a.next();
 			Attribute clone = (Attribute)role.getAttribute().clone(); 
+			// the copied values are already transformed
+			clone.clearTransformations();
 			attributes.add(clone);
 			if (role.isSpecial()) {
 				specialMap.put(clone, role.getSpecialName());
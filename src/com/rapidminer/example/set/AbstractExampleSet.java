@@ -60,6 +60,7 @@ import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.Statistics;
+import com.rapidminer.example.table.ColumnarExampleTable;
 import com.rapidminer.example.table.NumericalAttribute;
 import com.rapidminer.example.table.SparseFormatDataRowReader;
 import com.rapidminer.gui.RapidMinerGUI;
@@ -538,14 +539,41 @@ public abstract class AbstractExampleSet extends ResultObjectAdapter implements
 				}
 			}
 
-			// calculate statistics
-			for (Example example : this) {
+			// calculate statistics: columns of columnar tables are scanned directly
+			List<Attribute> rowAttributes = attributeList;
+			if ((this instanceof SimpleExampleSet) && (getExampleTable() instanceof ColumnarExampleTable)) {
+				ColumnarExampleTable table = (ColumnarExampleTable)getExampleTable();
+				rowAttributes = new ArrayList<Attribute>();
 				for (Attribute attribute : attributeList) {
-					double value = example.getValue(attribute);
-					Iterator<Statistics> stats = attribute.getAllStatistics();
-					while (stats.hasNext()) {
-						Statistics statistics = stats.next();
-						statistics.count(value);
+					if (table.isDirectlyAccessible(attribute)) {
+						List<Statistics> statisticsList = new ArrayList<Statistics>();
+						Iterator<Statistics> stats = attribute.getAllStatistics();
+						while (stats.hasNext()) {
+							statisticsList.add(stats.next());
+						}
+						int tableIndex = attribute.getTableIndex();
+						int size = table.size();
+						for (int r = 0; r < size; r++) {
+							double value = table.getValue(r, tableIndex);
+							for (Statistics statistics : statisticsList) {
+								statistics.count(value);
+							}
+						}
+					} else {
+						rowAttributes.add(attribute);
+					}
+				}
+			}
+			
+			if (rowAttributes.size() > 0) {
+				for (Example example : this) {
+					for (Attribute attribute : rowAttributes) {
+						double value = example.getValue(attribute);
+						Iterator<Statistics> stats = attribute.getAllStatistics();
+						while (stats.hasNext()) {
+							Statistics statistics = stats.next();
+							statistics.count(value);
+						}
 					}
 				}
 			}
@@ -0,0 +1,405 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.tools.jdbc.DatabaseHandler;
+
+/**
+ * This class is another data supplier for example sets which keeps the data in the
+ * database. In contrast to the {@link IndexCachedDatabaseExampleTable}, no index column
+ * or mapping table is created. The rows are ordered by a unique key column and read 
+ * in blocks of a fixed size with keyset paging, i.e. a block consists of the rows with
+ * keys greater than the last key of the preceding block. The keys at the block 
+ * boundaries are remembered, hence a block which was not visited before can be found 
+ * with a single query of the key column.
+ * 
+ * <p>The most recently used blocks are kept in main memory. During sequential scans, the
+ * next block is fetched in the background while the current block is used. Nominal values
+ * are mapped by the thread requesting the data rows. The data rows are not writable.</p>
+ */
+public class BlockCachedDatabaseExampleTable extends AbstractExampleTable {
+
+	private static final long serialVersionUID = 5519233451930327470L;
+
+	public static final int DEFAULT_BLOCK_SIZE = IndexCachedDatabaseExampleTable.DEFAULT_BATCH_SIZE;
+
+	public static final int DEFAULT_CACHED_BLOCKS = 8;
+
+	/** The number of seconds after which an idle prefetcher thread ends. */
+	private static final int PREFETCHER_KEEP_ALIVE = 1;
+
+
+	private class CachedDataRowReader implements DataRowReader {
+
+		private int currentTotalCursor = 0;
+		
+		public boolean hasNext() {
+			return this.currentTotalCursor < size();
+		}
+
+		public DataRow next() {
+			DataRow dataRow = getDataRow(currentTotalCursor);
+			this.currentTotalCursor++;
+			return dataRow;
+		}
+
+		/** Will throw a new {@link UnsupportedOperationException} since {@link DataRowReader} does not have
+		 *  to implement remove. */
+		public void remove() {
+			throw new UnsupportedOperationException("The method 'remove' is not supported by DataRowReaders on databases!");
+		}	
+	}
+
+	/** The values of a block as read from the database. Nominal values are not yet mapped. */
+	private static class RawBlock {
+
+		private final List<double[]> values = new ArrayList<double[]>();
+
+		private final List<String[]> nominalValues = new ArrayList<String[]>();
+	}
+
+	/** Creates the daemon thread of the prefetcher. Refers only to the name, so the table is not kept alive by the thread. */
+	private static class PrefetcherThreadFactory implements ThreadFactory {
+
+		private final String name;
+
+		private PrefetcherThreadFactory(String name) {
+			this.name = name;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+
+	private transient DatabaseHandler databaseHandler;
+	
+	private String openQuote;
+	
+	private String closeQuote;
+	
+	private String tableName;
+
+	private String keyColumn;
+
+	private int dataManagementType;
+
+	private int blockSize;
+
+	private int cachedBlocks;
+
+	private boolean prefetch;
+
+	private int size = -1;
+
+	/** The attributes for the columns of the table in the order of the columns. */
+	private Attribute[] columnAttributes;
+
+	/** The last key of the preceding block for each block whose start is already known. */
+	private transient List<Object> blockBoundaries;
+
+	/** The most recently used blocks. */
+	private transient Map<Integer, DataRow[]> blockCache;
+
+	/** The blocks which are currently fetched in the background. */
+	private transient Map<Integer, Future<RawBlock>> prefetchedBlocks;
+
+	/** Fetches the next block during sequential scans. Its thread ends when idle. Null if no prefetching should be performed. */
+	private transient ThreadPoolExecutor prefetcher;
+
+	/** Serializes the database accesses of the requesting and the prefetching thread. */
+	private transient Object databaseLock;
+
+	private transient int lastBlock;
+
+
+	public BlockCachedDatabaseExampleTable(DatabaseHandler databaseHandler, String tableName, String keyColumn, int dataManagementType) throws SQLException {
+		this(databaseHandler, tableName, keyColumn, dataManagementType, DEFAULT_BLOCK_SIZE, DEFAULT_CACHED_BLOCKS, true);
+	}
+
+	/**
+	 * Creates a new table for the given database table. If the key column is null, the primary key
+	 * of the table is used. The key column must contain unique values. 
+	 */
+	public BlockCachedDatabaseExampleTable(DatabaseHandler databaseHandler, String tableName, String keyColumn, int dataManagementType, int blockSize, int cachedBlocks, boolean prefetch) throws SQLException {
+		super(new ArrayList<Attribute>());
+		this.databaseHandler = databaseHandler;
+		this.openQuote = this.databaseHandler.getProperties().getIdentifierQuoteOpen();
+		this.closeQuote = this.databaseHandler.getProperties().getIdentifierQuoteClose();
+		this.tableName = tableName;
+		this.dataManagementType = dataManagementType;
+		this.blockSize = blockSize;
+		if (keyColumn == null) {
+			keyColumn = getPrimaryKeyName(databaseHandler, tableName);
+			if (keyColumn == null)
+				throw new SQLException("No primary key found for table '" + tableName + "'.");
+		}
+		this.keyColumn = keyColumn;
+		this.cachedBlocks = cachedBlocks;
+		this.prefetch = prefetch;
+
+		initCaches();
+		initAttributes();
+		initSize();
+	}
+
+	/** Creates the caches and the prefetcher, which are not serialized. */
+	private void initCaches() {
+		this.blockBoundaries = new ArrayList<Object>();
+		this.blockBoundaries.add(null);
+		this.blockCache = new LinkedHashMap<Integer, DataRow[]>(cachedBlocks + 1, 0.75f, true) {
+			private static final long serialVersionUID = -4370290412856498234L;
+
+			protected boolean removeEldestEntry(Map.Entry<Integer, DataRow[]> eldest) {
+				return size() > cachedBlocks;
+			}
+		};
+		this.prefetchedBlocks = new HashMap<Integer, Future<RawBlock>>();
+		this.databaseLock = new Object();
+		this.lastBlock = -1;
+		if (prefetch) {
+			this.prefetcher = new ThreadPoolExecutor(1, 1, PREFETCHER_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new PrefetcherThreadFactory("Database prefetcher for " + tableName));
+			this.prefetcher.allowCoreThreadTimeOut(true);
+		}
+	}
+
+	/** Recreates the caches. The database connection is not serialized, hence the data rows cannot be read after deserialization. */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		initCaches();
+	}
+
+	/** Returns the name of the (first) primary key column of the given table or null if the table has no primary key. */
+	public static String getPrimaryKeyName(DatabaseHandler databaseHandler, String tableName) throws SQLException {
+	    DatabaseMetaData meta = databaseHandler.getConnection().getMetaData();
+	    ResultSet primaryKeys = meta.getPrimaryKeys(null, null, tableName);
+	    String primaryKeyName = null;
+	    if (primaryKeys.next())
+	    	primaryKeyName = primaryKeys.getString(4); // name is in the fourth column
+	    primaryKeys.close();
+	    return primaryKeyName;
+	}
+
+	private void initAttributes() throws SQLException {
+		Statement attributeStatement = this.databaseHandler.createStatement(false);
+		ResultSet attributeResultSet = attributeStatement.executeQuery("SELECT * FROM " + openQuote + tableName + closeQuote + " WHERE 0 = 1");
+		List<Attribute> attributes = DatabaseHandler.createAttributes(attributeResultSet);
+		attributeResultSet.close();
+		attributeStatement.close();
+		addAttributes(attributes);
+		this.columnAttributes = new Attribute[attributes.size()];
+		attributes.toArray(this.columnAttributes);
+	}
+
+	private void initSize() throws SQLException {
+		Statement countStatement = this.databaseHandler.createStatement(false);
+		ResultSet countResultSet = countStatement.executeQuery("SELECT count(*) FROM " + openQuote + tableName + closeQuote);
+		countResultSet.next();
+		this.size = countResultSet.getInt(1);
+		countResultSet.close();
+		countStatement.close();
+	}
+
+	public DataRow getDataRow(int index) {
+		int block = index / blockSize;
+		DataRow[] rows = getBlock(block);
+		int blockIndex = index - block * blockSize;
+		if (blockIndex >= rows.length)
+			throw new RuntimeException("Cannot retrieve data from database: row " + index + " does not exist, table '" + tableName + "' was modified.");
+		return rows[blockIndex];
+	}
+
+	public DataRowReader getDataRowReader() {
+		return new CachedDataRowReader();
+	}
+
+	public int size() {
+        return this.size;
+	}
+
+	/**
+	 * Returns the data rows of the given block from the cache, from the prefetcher, or from 
+	 * the database. Starts prefetching the next block if the blocks are visited in order.
+	 */
+	private synchronized DataRow[] getBlock(int block) {
+		DataRow[] rows = blockCache.get(block);
+		if (rows == null) {
+			try {
+				RawBlock rawBlock = null;
+				Future<RawBlock> future = prefetchedBlocks.remove(block);
+				if (future != null) {
+					try {
+						rawBlock = future.get();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Interrupted while retrieving data from database.");
+					} catch (ExecutionException e) {
+						// try again without prefetching
+						rawBlock = null;
+					}
+				}
+				if (rawBlock == null)
+					rawBlock = readBlock(block);
+				rows = createDataRows(rawBlock);
+			} catch (SQLException e) {
+				throw new RuntimeException("Cannot retrieve data from database: " + e, e);
+			}
+			blockCache.put(block, rows);
+		}
+		if ((prefetcher != null) && (block == lastBlock + 1))
+			prefetch(block + 1);
+		lastBlock = block;
+		return rows;
+	}
+
+	private void prefetch(final int block) {
+		if (((long)block * blockSize >= size) || blockCache.containsKey(block) || prefetchedBlocks.containsKey(block))
+			return;
+		prefetchedBlocks.put(block, prefetcher.submit(new Callable<RawBlock>() {
+			public RawBlock call() throws SQLException {
+				return readBlock(block);
+			}
+		}));
+	}
+
+	/** Maps the nominal values and creates the data rows. Must be invoked by the thread requesting the data. */
+	private DataRow[] createDataRows(RawBlock rawBlock) {
+		DataRowFactory factory = new DataRowFactory(dataManagementType, '.');
+		DataRow[] rows = new DataRow[rawBlock.values.size()];
+		for (int r = 0; r < rows.length; r++) {
+			double[] values = rawBlock.values.get(r);
+			String[] nominalValues = rawBlock.nominalValues.get(r);
+			DataRow row = factory.create(columnAttributes.length);
+			for (int i = 0; i < columnAttributes.length; i++) {
+				if (columnAttributes[i].isNominal()) {
+					if (nominalValues[i] == null)
+						row.set(columnAttributes[i], Double.NaN);
+					else
+						row.set(columnAttributes[i], columnAttributes[i].getMapping().mapString(nominalValues[i]));
+				} else {
+					row.set(columnAttributes[i], values[i]);
+				}
+			}
+			row.trim();
+			rows[r] = new NonWritableDataRow(row);
+		}
+		return rows;
+	}
+
+	/** Reads the values of the given block with a single query and remembers the start of the next block. */
+	private RawBlock readBlock(int block) throws SQLException {
+		if (databaseHandler == null)
+			throw new SQLException("The database connection of table '" + tableName + "' is not available after deserialization.");
+		synchronized (databaseLock) {
+			Object lowerKey = getBlockBoundary(block);
+			String query = "SELECT * FROM " + openQuote + tableName + closeQuote;
+			if (block > 0)
+				query += " WHERE " + openQuote + keyColumn + closeQuote + " > ?";
+			query += " ORDER BY " + openQuote + keyColumn + closeQuote;
+			PreparedStatement statement = databaseHandler.createPreparedStatement(query, false);
+			statement.setMaxRows(blockSize);
+			statement.setFetchSize(blockSize);
+			if (block > 0)
+				statement.setObject(1, lowerKey);
+			ResultSet resultSet = statement.executeQuery();
+			RawBlock rawBlock = new RawBlock();
+			Object lastKey = null;
+			while (resultSet.next()) {
+				double[] values = new double[columnAttributes.length];
+				String[] nominalValues = new String[columnAttributes.length];
+				for (int i = 0; i < columnAttributes.length; i++) {
+					if (columnAttributes[i].isNominal()) {
+						nominalValues[i] = resultSet.getString(i + 1);
+					} else {
+						values[i] = resultSet.getDouble(i + 1);
+						if (resultSet.wasNull())
+							values[i] = Double.NaN;
+					}
+				}
+				rawBlock.values.add(values);
+				rawBlock.nominalValues.add(nominalValues);
+				lastKey = resultSet.getObject(keyColumn);
+			}
+			resultSet.close();
+			statement.close();
+			if ((rawBlock.values.size() == blockSize) && (blockBoundaries.size() == block + 1))
+				blockBoundaries.add(lastKey);
+			return rawBlock;
+		}
+	}
+
+	/** 
+	 * Returns the last key of the block preceding the given block. Unknown boundaries are 
+	 * determined by reading the key column starting at the last known boundary.
+	 */
+	private Object getBlockBoundary(int block) throws SQLException {
+		if (block < blockBoundaries.size())
+			return blockBoundaries.get(block);
+		int knownBlock = blockBoundaries.size() - 1;
+		String query = "SELECT " + openQuote + keyColumn + closeQuote + " FROM " + openQuote + tableName + closeQuote;
+		if (knownBlock > 0)
+			query += " WHERE " + openQuote + keyColumn + closeQuote + " > ?";
+		query += " ORDER BY " + openQuote + keyColumn + closeQuote;
+		PreparedStatement statement = databaseHandler.createPreparedStatement(query, false);
+		statement.setMaxRows((block - knownBlock) * blockSize);
+		statement.setFetchSize(blockSize);
+		if (knownBlock > 0)
+			statement.setObject(1, blockBoundaries.get(knownBlock));
+		ResultSet resultSet = statement.executeQuery();
+		int counter = 0;
+		while (resultSet.next()) {
+			counter++;
+			if (counter % blockSize == 0)
+				blockBoundaries.add(resultSet.getObject(1));
+		}
+		resultSet.close();
+		statement.close();
+		if (block >= blockBoundaries.size())
+			throw new SQLException("Block " + block + " of table '" + tableName + "' does not exist.");
+		return blockBoundaries.get(block);
+	}
+}
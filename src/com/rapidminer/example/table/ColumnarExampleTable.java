@@ -0,0 +1,531 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * <p>A column oriented alternative to the {@link MemoryExampleTable}. Instead of
+ * one {@link DataRow} object per example this table stores one primitive array
+ * per attribute. Nominal and integer attributes are stored in <code>int</code>
+ * arrays, all other attributes in <code>double</code> arrays. If a value which
+ * cannot be represented as integer is written into an integer column, the column
+ * is converted into a double column on the fly.</p>
+ *
+ * <p>The data rows delivered by {@link #getDataRow(int)} and {@link #getDataRowReader()}
+ * are lightweight views which only store the row index and read from and write
+ * into the columns of this table. Since the views are created on demand, callers
+ * should not rely on the identity of the returned data rows. Please note that
+ * the row indices of the views are not updated if rows are removed from the table.</p>
+ *
+ * <p>This table can be selected by using the data management type
+ * {@link DataRowFactory#TYPE_COLUMNAR}.</p>
+ *
+ * @see DataRowFactory#createExampleTable(List)
+ */
+public class ColumnarExampleTable extends MemoryExampleTable {
+
+	private static final long serialVersionUID = -2713386262307049837L;
+
+	/** The value used for missing values in integer columns. */
+	private static final int MISSING_INT = Integer.MIN_VALUE;
+
+	/** The initial number of rows for which memory is allocated. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The columns for all attributes stored as doubles. Contains null for integer columns. */
+	private double[][] doubleColumns;
+
+	/** The columns for all attributes stored as integers. Contains null for double columns. */
+	private int[][] intColumns;
+
+	/** The relational values of each row. Will only be created if at least one row contains relational values. */
+	private List<RelationalValueMap> relationalValues;
+
+	/** The number of rows. */
+	private int size;
+
+	/** The number of rows for which memory is allocated in each column. */
+	private int capacity;
+
+	/**
+	 * Creates a new instance of ColumnarExampleTable.
+	 *
+	 * @param attributes
+	 *            List of {@link Attribute} containing the attributes of the
+	 *            columns. None of these must be null.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes) {
+		this(attributes, INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Creates a new instance of ColumnarExampleTable. Memory for the given
+	 * number of rows is allocated in advance.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, int expectedSize) {
+		super(attributes);
+		this.size = 0;
+		this.capacity = Math.max(1, expectedSize);
+		int numberOfColumns = getNumberOfAttributes();
+		this.doubleColumns = new double[numberOfColumns][];
+		this.intColumns = new int[numberOfColumns][];
+		for (int i = 0; i < numberOfColumns; i++) {
+			createColumn(i, getAttribute(i));
+		}
+	}
+
+	/**
+	 * Creates an empty columnar example table and fills it with the data rows
+	 * read from i.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, DataRowReader i) {
+		this(attributes, i, false);
+	}
+
+	/**
+	 * Creates an empty columnar example table and fills it with the data rows
+	 * read from i.
+	 */
+	public ColumnarExampleTable(List<Attribute> attributes, DataRowReader i, boolean permutate) {
+		this(attributes);
+		readExamples(i, permutate);
+	}
+
+	// ------------------------------------------------------------
+
+	/**
+	 * Reads the examples into the columns of this table and permutates the order
+	 * if desired. Removes all old data rows first.
+	 */
+	@Override
+	public void readExamples(DataRowReader i, boolean permutate, Random random) {
+		clear();
+		while (i.hasNext()) {
+			DataRow dataRow = i.next();
+			if ((permutate) && (random != null)) {
+				insertDataRow(random.nextInt(size + 1), dataRow);
+			} else {
+				insertDataRow(size, dataRow);
+			}
+		}
+	}
+
+	/** Returns a new data row reader delivering row views. */
+	@Override
+	public DataRowReader getDataRowReader() {
+		return new ColumnarDataRowReader();
+	}
+
+	/** Returns a view on the data row with the given index. */
+	@Override
+	public DataRow getDataRow(int index) {
+		if ((index < 0) || (index >= size))
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return new ColumnarDataRow(index);
+	}
+
+	/** Returns the size of this example table, i.e. the number of data rows. */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Copies the values of the given data row into the columns of this table.
+	 * Later changes of the given data row will not be reflected by this table.
+	 */
+	@Override
+	public void addDataRow(DataRow dataRow) {
+		insertDataRow(size, dataRow);
+	}
+
+	/**
+	 * Removes the row which is viewed by the given data row. Returns false if the
+	 * given data row is not a view of this table.
+	 */
+	@Override
+	public boolean removeDataRow(DataRow dataRow) {
+		if (dataRow instanceof ColumnarDataRow) {
+			ColumnarDataRow row = (ColumnarDataRow)dataRow;
+			if ((row.getTable() == this) && (row.index < size)) {
+				removeDataRow(row.index);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the row with the given index and returns a detached copy of its
+	 * values. All succeeding rows move up by one.
+	 */
+	@Override
+	public DataRow removeDataRow(int index) {
+		if ((index < 0) || (index >= size))
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		double[] values = new double[getNumberOfAttributes()];
+		for (int c = 0; c < values.length; c++) {
+			values[c] = getValue(index, c);
+		}
+		DataRow removed = new DoubleArrayDataRow(values);
+		int moved = size - index - 1;
+		for (int c = 0; c < doubleColumns.length; c++) {
+			if (doubleColumns[c] != null) {
+				System.arraycopy(doubleColumns[c], index + 1, doubleColumns[c], index, moved);
+			} else if (intColumns[c] != null) {
+				System.arraycopy(intColumns[c], index + 1, intColumns[c], index, moved);
+			}
+		}
+		if (relationalValues != null) {
+			RelationalValueMap relational = relationalValues.remove(index);
+			if (relational != null) {
+				removed.setRelationalValues(relational);
+			}
+		}
+		size--;
+		return removed;
+	}
+
+	/** Clears the table. */
+	@Override
+	public void clear() {
+		size = 0;
+		relationalValues = null;
+	}
+
+	/**
+	 * Sets the number of rows of this table. Rows beyond the new size are removed,
+	 * added rows contain missing values only and can be filled column by column
+	 * with {@link #setValue(int, int, double)}.
+	 */
+	public void setSize(int newSize) {
+		if (newSize < 0)
+			throw new IllegalArgumentException("Size must not be negative: " + newSize);
+		ensureCapacity(newSize);
+		for (int c = 0; c < doubleColumns.length; c++) {
+			if (doubleColumns[c] != null) {
+				Arrays.fill(doubleColumns[c], size, Math.max(size, newSize), Double.NaN);
+			} else if (intColumns[c] != null) {
+				Arrays.fill(intColumns[c], size, Math.max(size, newSize), MISSING_INT);
+			}
+		}
+		if (relationalValues != null) {
+			while (relationalValues.size() > newSize)
+				relationalValues.remove(relationalValues.size() - 1);
+			while (relationalValues.size() < newSize)
+				relationalValues.add(null);
+		}
+		size = newSize;
+	}
+
+	/**
+	 * Adds a new attribute to this example table by invoking the super method
+	 * and creates a new column for it. All values of the new column are missing.
+	 */
+	@Override
+	public synchronized int addAttribute(Attribute attribute) {
+		int index = super.addAttribute(attribute);
+		// called by the super constructor: columns are created later
+		if (doubleColumns == null)
+			return index;
+		if (index >= doubleColumns.length) {
+			int newLength = Math.max(index + 1, getNumberOfAttributes());
+			doubleColumns = Arrays.copyOf(doubleColumns, newLength);
+			intColumns = Arrays.copyOf(intColumns, newLength);
+		}
+		createColumn(index, attribute);
+		return index;
+	}
+
+	/** Removes the attribute and frees the memory of its column. */
+	@Override
+	public void removeAttribute(int index) {
+		super.removeAttribute(index);
+		if ((doubleColumns != null) && (index < doubleColumns.length)) {
+			doubleColumns[index] = null;
+			intColumns[index] = null;
+		}
+	}
+
+	// ------------------------------------------------------------
+
+	/**
+	 * Returns the value of the given row in the column with the given table index.
+	 * In contrast to {@link Attribute#getValue(DataRow)} no attribute transformations
+	 * are applied and no data row view is created. Returns NaN for unused columns.
+	 */
+	public double getValue(int rowIndex, int tableIndex) {
+		double[] doubleColumn = doubleColumns[tableIndex];
+		if (doubleColumn != null)
+			return doubleColumn[rowIndex];
+		int[] intColumn = intColumns[tableIndex];
+		if (intColumn != null) {
+			int value = intColumn[rowIndex];
+			return value == MISSING_INT ? Double.NaN : value;
+		}
+		return Double.NaN;
+	}
+
+	/**
+	 * Sets the value of the given row in the column with the given table index.
+	 * Integer columns are converted into double columns if the value cannot be
+	 * represented as integer.
+	 */
+	public void setValue(int rowIndex, int tableIndex, double value) {
+		double[] doubleColumn = doubleColumns[tableIndex];
+		if (doubleColumn != null) {
+			doubleColumn[rowIndex] = value;
+			return;
+		}
+		int[] intColumn = intColumns[tableIndex];
+		if (intColumn == null)
+			return;
+		if (Double.isNaN(value)) {
+			intColumn[rowIndex] = MISSING_INT;
+		} else {
+			int intValue = (int)value;
+			if ((intValue == value) && (intValue != MISSING_INT)) {
+				intColumn[rowIndex] = intValue;
+			} else {
+				convertToDoubleColumn(tableIndex);
+				doubleColumns[tableIndex][rowIndex] = value;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the column with the given table index is stored as integer
+	 * array. In this case the values can be read with {@link #getValue(int, int)}
+	 * without any loss of precision.
+	 */
+	public boolean isIntegerColumn(int tableIndex) {
+		return intColumns[tableIndex] != null;
+	}
+
+	/**
+	 * Returns true if the values of the given attribute can be read directly by
+	 * {@link #getValue(int, int)}, i.e. if the attribute is stored in a column
+	 * of this table and does neither transform nor combine the stored values.
+	 */
+	public boolean isDirectlyAccessible(Attribute attribute) {
+		if ((attribute.isComplex()) || (attribute instanceof ViewAttribute) || (attribute.getLastTransformation() != null))
+			return false;
+		int tableIndex = attribute.getTableIndex();
+		return (tableIndex >= 0) && (tableIndex < doubleColumns.length) && ((doubleColumns[tableIndex] != null) || (intColumns[tableIndex] != null));
+	}
+
+	// ------------------------------------------------------------
+
+	/** Returns true if the values of the given attribute should be stored as integers. */
+	private static boolean isIntegerType(Attribute attribute) {
+		if (attribute.isComplex())
+			return false;
+		int valueType = attribute.getValueType();
+		return attribute.isNominal() || Ontology.ATTRIBUTE_VALUE_TYPE.isA(valueType, Ontology.INTEGER);
+	}
+
+	/** Creates the column for the attribute with the given index. All values are missing. */
+	private void createColumn(int index, Attribute attribute) {
+		if (attribute == null) {
+			doubleColumns[index] = null;
+			intColumns[index] = null;
+		} else if (isIntegerType(attribute)) {
+			int[] column = new int[capacity];
+			Arrays.fill(column, MISSING_INT);
+			doubleColumns[index] = null;
+			intColumns[index] = column;
+		} else {
+			double[] column = new double[capacity];
+			Arrays.fill(column, Double.NaN);
+			doubleColumns[index] = column;
+			intColumns[index] = null;
+		}
+	}
+
+	/** Replaces the integer column with the given index by a double column. */
+	private void convertToDoubleColumn(int tableIndex) {
+		int[] intColumn = intColumns[tableIndex];
+		double[] doubleColumn = new double[capacity];
+		for (int r = 0; r < capacity; r++) {
+			int value = intColumn[r];
+			doubleColumn[r] = value == MISSING_INT ? Double.NaN : value;
+		}
+		doubleColumns[tableIndex] = doubleColumn;
+		intColumns[tableIndex] = null;
+	}
+
+	/** Ensures that all columns can hold the given number of rows. */
+	private void ensureCapacity(int minCapacity) {
+		if (minCapacity <= capacity)
+			return;
+		int newCapacity = Math.max(minCapacity, capacity + (capacity >> 1) + 1);
+		for (int c = 0; c < doubleColumns.length; c++) {
+			if (doubleColumns[c] != null) {
+				double[] column = Arrays.copyOf(doubleColumns[c], newCapacity);
+				Arrays.fill(column, capacity, newCapacity, Double.NaN);
+				doubleColumns[c] = column;
+			} else if (intColumns[c] != null) {
+				int[] column = Arrays.copyOf(intColumns[c], newCapacity);
+				Arrays.fill(column, capacity, newCapacity, MISSING_INT);
+				intColumns[c] = column;
+			}
+		}
+		capacity = newCapacity;
+	}
+
+	/** Copies the values of the given data row into a new row at the given position. */
+	private void insertDataRow(int index, DataRow dataRow) {
+		ensureCapacity(size + 1);
+		dataRow.ensureNumberOfColumns(doubleColumns.length);
+		int moved = size - index;
+		for (int c = 0; c < doubleColumns.length; c++) {
+			if (moved > 0) {
+				if (doubleColumns[c] != null) {
+					System.arraycopy(doubleColumns[c], index, doubleColumns[c], index + 1, moved);
+				} else if (intColumns[c] != null) {
+					System.arraycopy(intColumns[c], index, intColumns[c], index + 1, moved);
+				}
+			}
+			Attribute attribute = getAttribute(c);
+			if (attribute != null) {
+				setValue(index, c, dataRow.get(c, attribute.getDefault()));
+			}
+		}
+		RelationalValueMap relational = dataRow.getRelationalValueMap();
+		if ((relational != null) || (relationalValues != null)) {
+			if (relationalValues == null) {
+				relationalValues = new ArrayList<RelationalValueMap>(capacity);
+				for (int r = 0; r < size; r++)
+					relationalValues.add(null);
+			}
+			relationalValues.add(index, relational);
+		}
+		size++;
+	}
+
+	/** Returns the relational values of the given row. Might return null. */
+	private RelationalValueMap getRelationalValues(int rowIndex) {
+		if (relationalValues == null)
+			return null;
+		return relationalValues.get(rowIndex);
+	}
+
+	/** Sets the relational values of the given row. */
+	private void setRelationalValues(int rowIndex, RelationalValueMap values) {
+		if (relationalValues == null) {
+			if (values == null)
+				return;
+			relationalValues = new ArrayList<RelationalValueMap>(capacity);
+			for (int r = 0; r < size; r++)
+				relationalValues.add(null);
+		}
+		relationalValues.set(rowIndex, values);
+	}
+
+	// ------------------------------------------------------------
+
+	/** A lightweight view on a single row of the columnar table. */
+	private class ColumnarDataRow extends DataRow {
+
+		private static final long serialVersionUID = 7145087467227893415L;
+
+		/** The index of the viewed row. */
+		private final int index;
+
+		private ColumnarDataRow(int index) {
+			this.index = index;
+		}
+
+		private ColumnarExampleTable getTable() {
+			return ColumnarExampleTable.this;
+		}
+
+		@Override
+		protected double get(int column, double defaultValue) {
+			return getValue(index, column);
+		}
+
+		@Override
+		protected void set(int column, double value, double defaultValue) {
+			setValue(index, column, value);
+		}
+
+		/** Does nothing since all columns are allocated by the table. */
+		@Override
+		protected void ensureNumberOfColumns(int numberOfColumns) {}
+
+		/** Does nothing. */
+		@Override
+		public void trim() {}
+
+		@Override
+		RelationalValueMap getRelationalValueMap() {
+			return getRelationalValues(index);
+		}
+
+		@Override
+		void setRelationalValueMap(RelationalValueMap valueMap) {
+			ColumnarExampleTable.this.setRelationalValues(index, valueMap);
+		}
+
+		/** Returns a string representation of the data row. */
+		@Override
+		public String toString() {
+			StringBuffer result = new StringBuffer();
+			for (int c = 0; c < doubleColumns.length; c++)
+				result.append((c == 0 ? "" : ",") + getValue(index, c));
+			return result.toString();
+		}
+	}
+
+	/** Iterates over all rows of the table and delivers a view for each of them. */
+	private class ColumnarDataRowReader implements DataRowReader {
+
+		private int next = 0;
+
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		public DataRow next() {
+			if (next >= size)
+				throw new NoSuchElementException();
+			return new ColumnarDataRow(next++);
+		}
+
+		/** Will throw a new {@link UnsupportedOperationException} since {@link DataRowReader} does not have
+		 *  to implement remove. */
+		public void remove() {
+			throw new UnsupportedOperationException("The method 'remove' is not supported by DataRowReaders!");
+		}
+	}
+}
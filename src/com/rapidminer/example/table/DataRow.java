@@ -23,8 +23,6 @@
 package com.rapidminer.example.table;
 
 import java.io.Serializable;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 
@@ -50,7 +48,7 @@ public abstract class DataRow implements Serializable {
 	/**
 	 * this map stores value lists for each relational attribute (identified with table index)
 	 */
-	private Map<Integer,double[][]> relValueMap = null;
+	private RelationalValueMap relValueMap = null;
 	
 
 	/** Returns the value for the given index. */
@@ -117,38 +115,73 @@ public abstract class DataRow implements Serializable {
 	}
 	
 	/**
-	 * get tuple instances for relational attribute identified with tableIndex (it is not the id of complexAttributes)
+	 * get tuple instances for relational attribute identified with tableIndex (it is not the id of complexAttributes).
+	 * The returned arrays are a copy of the stored values, use {@link #getRelationalValuesFor(int)} to access
+	 * the stored values directly.
 	 * @param tableIndex
 	 * @return
 	 */
 	public double[][] getRelativeValuesFor(Integer tableIndex) {
-		return relValueMap.get(tableIndex);
+		RelationalValues values = getRelationalValuesFor(tableIndex);
+		return (values == null) ? null : values.toArray();
 	}
 	
+	/**
+	 * Returns the stored tuples of the relational attribute with the given table index or null
+	 * if this row does not contain values for this attribute.
+	 */
+	public RelationalValues getRelationalValuesFor(int tableIndex) {
+		RelationalValueMap map = getRelationalValueMap();
+		return (map == null) ? null : map.get(tableIndex);
+	}
 	
 	/**
 	 * 
 	 * @param valueMap key: tableIndex of relational attribute, values: tuple instances of relational attribute
 	 */
-	public void setRelationalValues(Map<Integer,double[][]>valueMap){
-		this.relValueMap = valueMap;
+	public void setRelationalValues(RelationalValueMap valueMap){
+		setRelationalValueMap(valueMap);
 	}
 	
 	/**
 	 * initialize this map if there are relational attributes, if it is not already initialized
 	 */
 	public void initRelationalMap(){
-		if(relValueMap == null)
-			this.relValueMap = new HashMap<Integer,double[][]>();
+		if(getRelationalValueMap() == null)
+			setRelationalValueMap(new RelationalValueMap());
 	}
 	
 	
 	/**
-	 * 
-	 * @param valueMap key: tableIndex of relational attribute, values: tuple instances of relational attribute
+	 * copies the given tuples and stores them as values of the relational attribute with the given table index
+	 * @param values tuple instances of relational attribute
 	 */
 	public void setRelationalValues(int tableIndex, double[][] values){
-		this.relValueMap.put(tableIndex, values);
+		setRelationalValues(tableIndex, RelationalValues.create(values));
+	}
+	
+	/**
+	 * stores the given tuples as values of the relational attribute with the given table index
+	 */
+	public void setRelationalValues(int tableIndex, RelationalValues values){
+		initRelationalMap();
+		getRelationalValueMap().put(tableIndex, values);
+	}
+	
+	/**
+	 * Returns the map of relational values or null if this data row does not contain relational values.
+	 * Used by example tables which copy the values of data rows into their own storage.
+	 */
+	RelationalValueMap getRelationalValueMap() {
+		return relValueMap;
+	}
+	
+	/**
+	 * Sets the map of relational values. Data rows which are views on the storage of a table
+	 * override this method together with {@link #getRelationalValueMap()}.
+	 */
+	void setRelationalValueMap(RelationalValueMap valueMap) {
+		this.relValueMap = valueMap;
 	}
 }
 
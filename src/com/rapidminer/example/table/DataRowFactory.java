@@ -23,9 +23,7 @@
 package com.rapidminer.example.table;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.tools.LogService;
@@ -52,7 +50,9 @@ public class DataRowFactory {
  		"double_sparse_array", "float_sparse_array", 
  		"long_sparse_array", "int_sparse_array", "short_sparse_array", "byte_sparse_array", 
  		"boolean_sparse_array",
- 		"sparse_map"
+ 		"sparse_map",
+ 		"columnar",
+ 		"memory_mapped"
  	};
 
 	public static final int FIRST_TYPE_INDEX = 0;
@@ -87,16 +87,22 @@ public class DataRowFactory {
 	
 	public static final int TYPE_SPARSE_MAP = 14;
 	
-	public static final int TYPE_RELATIONAL_EXTENDED = 15;
+	public static final int TYPE_COLUMNAR = 15;
 	
-	public static final int LAST_TYPE_INDEX = 15;
+	public static final int TYPE_MEMORY_MAPPED = 16;
+	
+	public static final int TYPE_RELATIONAL_EXTENDED = 17;
+	
+	public static final int LAST_TYPE_INDEX = 17;
 	
 
 	/**
 	 * The type can be one out of 
 	 * TYPE_DOUBLE_ARRAY, TYPE_FLOAT_ARRAY, TYPE_LONG_ARRAY, TYPE_INT_ARRAY, TYPE_SHORT_ARRAY, TYPE_BYTE_ARRAY, TYPE_BOOLEAN_ARRAY,
      * TYPE_DOUBLE_SPARSE_ARRAY, TYPE_FLOAT_SPARSE_ARRAY, TYPE_LONG_SPARSE_ARRAY, TYPE_INT_SPARSE_ARRAY, TYPE_SHORT_SPARSE_ARRAY, TYPE_BYTE_SPARSE_ARRAY, TYPE_BOOLEAN_SPARSE_ARRAY,
-     * or TYPE_SPARSE_MAP.
+     * TYPE_SPARSE_MAP, TYPE_COLUMNAR, or TYPE_MEMORY_MAPPED. For TYPE_COLUMNAR and TYPE_MEMORY_MAPPED
+     * the created data rows are only used for reading and are copied into a {@link ColumnarExampleTable}
+     * or a {@link MappedExampleTable} respectively.
 	 */
 	private int type;
 
@@ -107,6 +113,9 @@ public class DataRowFactory {
 	private final String valueSep = ",";
 	private final String tupleSep = "\n";
 	
+	/** the relational values of all created rows are allocated from this store (not thread safe) */
+	private final RelationalValueStore relationalValueStore = new RelationalValueStore();
+	
 	
 	/**
 	 * @param type
@@ -126,7 +135,7 @@ public class DataRowFactory {
 	 *            must be one out of 
 	 *            TYPE_DOUBLE_ARRAY, TYPE_FLOAT_ARRAY, TYPE_LONG_ARRAY, TYPE_INT_ARRAY, TYPE_SHORT_ARRAY, TYPE_BYTE_ARRAY, TYPE_BOOLEAN_ARRAY, 
 	 *            TYPE_DOUBLE_SPARSE_ARRAY, TYPE_FLOAT_SPARSE_ARRAY, TYPE_LONG_SPARSE_ARRAY, TYPE_INT_SPARSE_ARRAY, TYPE_SHORT_SPARSE_ARRAY, TYPE_BYTE_SPARSE_ARRAY, TYPE_BOOLEAN_SPARSE_ARRAY,
-	 *            or TYPE_SPARSE_MAP.
+	 *            TYPE_SPARSE_MAP, TYPE_COLUMNAR, or TYPE_MEMORY_MAPPED.
 	 * @param decimalPointCharacter the letter for decimal points, usually '.'
 	 */
 	public DataRowFactory(int type, char decimalPointCharacter) {
@@ -185,6 +194,10 @@ public class DataRowFactory {
 			case TYPE_SPARSE_MAP:
 				row = new SparseMapDataRow();
 				break;
+			case TYPE_COLUMNAR:
+			case TYPE_MEMORY_MAPPED:
+				row = new DoubleArrayDataRow(new double[size]);
+				break;
 			default:
 		}
 		return row;
@@ -200,7 +213,7 @@ public class DataRowFactory {
 	public DataRow create(String[] strings, Attribute[] attributes) {
 		DataRow dataRow = create(strings.length);
 		//if null, attribute set contains no relational attributes
-		Map<Integer,double [][]> rlValues = null;
+		RelationalValueMap rlValues = null;
 		for (int i = 0; i < strings.length; i++) {
 			if (strings[i] != null)
 				strings[i] = strings[i].trim();
@@ -210,7 +223,7 @@ public class DataRowFactory {
 				}
 				else if(attributes[i].isRelational()){
 					dataRow.initRelationalMap();
-					if(rlValues == null) rlValues = new HashMap<Integer, double[][]>();
+					if(rlValues == null) rlValues = new RelationalValueMap();
 					//then string[i] contains arbitrary tuples of innerAttributs.size() - number of attributes
 					//saves them as double.. get attribute information from ComplexAttribute.getInnerAttributes.type
 					RelationalAttribute ca = (RelationalAttribute)attributes[i];
@@ -219,20 +232,19 @@ public class DataRowFactory {
 					
 					//separate tuples of relational attribute
 					String[] tuples = strings[i].split(tupleSep);
-					//separate instances of innerAttributes
-					double[][] rlValue = new double[tuples.length][];
-					for(int tpl = 0;tpl<rlValue.length;tpl++)
-						rlValue[tpl] = new double[ca.getInnerAttributes().size()];
-					//now relValues is well instantiated
-					Attribute iAtt = null;
-					for(int ia =0;ia < ca.getInnerAttributes().size();ia++){
-							iAtt = ca.getInnerAttributes().get(ia);
+					//allocate flat storage for all tuples
+					int nrInner = ca.getInnerAttributes().size();
+					RelationalValues rlValue = relationalValueStore.allocate(tuples.length, nrInner);
+					//separate instances of innerAttributes (each tuple is split only once)
+					for(int t=0;t<tuples.length;t++){
+						String[] tupleValues = tuples[t].split(valueSep);
+						for(int ia =0;ia < nrInner;ia++){
+							Attribute iAtt = ca.getInnerAttributes().get(ia);
 							if(iAtt.isNominal())
-								for(int t=0;t<tuples.length;t++)
-								  rlValue[t][ia] = iAtt.getMapping().mapString(tuples[t].split(valueSep)[ia]);
+								rlValue.set(t, ia, iAtt.getMapping().mapString(tupleValues[ia]));
 							else
-								for(int t=0;t<tuples.length;t++)
-								  rlValue[t][ia] = string2Double(tuples[t].split(valueSep)[ia],this.decimalPointCharacter);
+								rlValue.set(t, ia, string2Double(tupleValues[ia],this.decimalPointCharacter));
+						}
 					}
 					// i == tableIndex??
 					rlValues.put(i,rlValue);
@@ -340,14 +352,47 @@ public class DataRowFactory {
 	}
 
 	
+	/**
+	 * Creates a new empty example table for the given attributes. For the type
+	 * TYPE_COLUMNAR a {@link ColumnarExampleTable} and for TYPE_MEMORY_MAPPED a
+	 * {@link MappedExampleTable} using a temporary file is returned, for all other types
+	 * a {@link MemoryExampleTable} holding the data rows created by this factory.
+	 */
+	public MemoryExampleTable createExampleTable(List<Attribute> attributes) {
+		if (type == TYPE_COLUMNAR)
+			return new ColumnarExampleTable(attributes);
+		else if (type == TYPE_MEMORY_MAPPED)
+			return new MappedExampleTable(attributes);
+		else
+			return new MemoryExampleTable(attributes);
+	}
+	
+	/**
+	 * Creates a new example table for the given attributes and fills it with the
+	 * data rows read from the given reader.
+	 * 
+	 * @see #createExampleTable(List)
+	 */
+	public MemoryExampleTable createExampleTable(List<Attribute> attributes, DataRowReader reader, boolean permutate) {
+		MemoryExampleTable table = createExampleTable(attributes);
+		table.readExamples(reader, permutate);
+		return table;
+	}
+	
 	/** Returns the type of the created data rows. */
 	public int getType() {
 		return type;
 	}
 
+	/** Returns the character used as decimal point. */
+	public char getDecimalPointCharacter() {
+		return decimalPointCharacter;
+	}
+
 	// --------------------------------------------------------------------------------
 
-	private static final double string2Double(String str, char decimalPointCharacter) {
+	/** Parses a numerical value. Also used by readers which parse the values outside of the factory. */
+	static final double string2Double(String str, char decimalPointCharacter) {
 		if (str == null)
 			return Double.NaN;
 		try {
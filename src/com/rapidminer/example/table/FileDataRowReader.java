@@ -25,6 +25,7 @@ package com.rapidminer.example.table;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -32,6 +33,19 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.rapidminer.example.Attribute;
@@ -67,6 +81,15 @@ import com.rapidminer.tools.att.AttributeDataSource;
  * Unknown attribute values can be marked with empty strings or &quot;?&quot;.
  * </p>
  * 
+ * <p>
+ * If more than one thread is used, reading is pipelined: a producer thread reads
+ * the lines in batches, worker threads split the lines and parse the numerical
+ * values, and the batches are reassembled in the order of the lines by the thread
+ * requesting the data rows, which also maps the nominal values. Hence the nominal
+ * mappings and the order of the rows are the same as for sequential reading.
+ * Relational attributes are always read sequentially.
+ * </p>
+ * 
  * @author Ingo Mierswa
  * @version $Id: FileDataRowReader.java,v 2.21 2006/03/27 13:21:58 ingomierswa
  *          Exp $
@@ -77,6 +100,9 @@ public class FileDataRowReader extends AbstractDataRowReader {
 
 	private static final int COLUMN_NR = 1;
 
+	/** The number of lines which are split and parsed together by a worker thread. */
+	private static final int BATCH_SIZE = 512;
+
 	/** The file readers. */
 	private BufferedReader[] fileReader;
 
@@ -126,6 +152,24 @@ public class FileDataRowReader extends AbstractDataRowReader {
 	 */
 	private int[][] dataSourceIndex;
 
+	/** The number of threads used for splitting and parsing. If 1, all lines are read by the calling thread. */
+	private int numberOfThreads = 1;
+
+	/** The parsed batches in the order of the lines. Will be created when the first data row is requested. */
+	private BlockingQueue<Future<ParsedBatch>> pipeline;
+
+	/** The workers splitting and parsing the batches. */
+	private ThreadPoolExecutor parserExecutor;
+
+	/** Indicates that the producer should stop reading, e.g. after an error or if the reader was closed. */
+	private final AtomicBoolean pipelineStopped = new AtomicBoolean();
+
+	/** The batch from which the data rows are currently delivered. */
+	private ParsedBatch currentBatch;
+
+	/** The index of the next row of the current batch. */
+	private int currentBatchIndex;
+
 	/**
 	 * Constructs a new FileDataRowReader.
 	 * 
@@ -152,6 +196,16 @@ public class FileDataRowReader extends AbstractDataRowReader {
      *            the random generator used for sampling
 	 */
 	public FileDataRowReader(DataRowFactory factory, List<AttributeDataSource> attributeDataSources, double sampleRatio, int sampleSize, String separatorsRegExpr, char[] commentChars, boolean useQuotes, boolean trimLines, Charset encoding, RandomGenerator random) throws IOException {
+		this(factory, attributeDataSources, sampleRatio, sampleSize, separatorsRegExpr, commentChars, useQuotes, trimLines, encoding, random, 1);
+	}
+
+	/**
+	 * Constructs a new FileDataRowReader which uses the given number of threads
+	 * for splitting the lines and parsing the values. See
+	 * {@link #FileDataRowReader(DataRowFactory, List, double, int, String, char[], boolean, boolean, Charset, RandomGenerator)}
+	 * for the other parameters.
+	 */
+	public FileDataRowReader(DataRowFactory factory, List<AttributeDataSource> attributeDataSources, double sampleRatio, int sampleSize, String separatorsRegExpr, char[] commentChars, boolean useQuotes, boolean trimLines, Charset encoding, RandomGenerator random, int numberOfThreads) throws IOException {
 		super(factory);
 		this.sampleRatio = sampleRatio;
 		this.maxNumber = sampleSize;
@@ -160,6 +214,11 @@ public class FileDataRowReader extends AbstractDataRowReader {
 		this.rapidMinerLineReader = new RapidMinerLineReader(separatorsRegExpr, commentChars, useQuotes, trimLines);
 		this.random = random;
 		initReader(factory, attributeDataSources, sampleSize, separatorsRegExpr, useQuotes, encoding);
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+		for (Attribute attribute : attributes) {
+			if (attribute.isRelational())
+				this.numberOfThreads = 1;
+		}
 	}
 
     /** Skips the next line, if present. */
@@ -245,8 +304,13 @@ public class FileDataRowReader extends AbstractDataRowReader {
 	 * even if this method is invoked more than once.
 	 */
 	public boolean hasNext() {
-		if ((maxNumber > -1) && (linesRead >= maxNumber))
+		if ((maxNumber > -1) && (linesRead >= maxNumber)) {
+			close();
 			return false;
+		}
+
+		if (numberOfThreads > 1)
+			return hasNextParsed();
 
 		if (lineRead)
 			return !eof;
@@ -266,6 +330,13 @@ public class FileDataRowReader extends AbstractDataRowReader {
 	public DataRow next() {
 		if (eof == true)
 			return null;
+		if (numberOfThreads > 1) {
+			if (!hasNext())
+				return null;
+			DataRow dataRow = createDataRow(currentBatch, currentBatchIndex++);
+			linesRead++;
+			return dataRow;
+		}
 		if (!lineRead)
 			if (!hasNext())
 				return null;
@@ -284,4 +355,331 @@ public class FileDataRowReader extends AbstractDataRowReader {
 		lineRead = false;
 		return dataRow;
 	}
+
+	/**
+	 * Stops reading and closes the data files. Further invocations of
+	 * {@link #hasNext()} return false. If several threads are used, the
+	 * producer and parser threads are stopped. They are also stopped if a
+	 * reader is abandoned without being closed, but only after it was
+	 * garbage collected.
+	 */
+	public void close() {
+		eof = true;
+		lineRead = true;
+		if (pipeline != null) {
+			// the producer closes the files
+			stopPipeline();
+		} else {
+			closeReaders(fileReader);
+		}
+	}
+
+	/** Closes the given readers, errors are only logged. */
+	private static void closeReaders(BufferedReader[] readers) {
+		for (BufferedReader reader : readers) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				LogService.getGlobal().log("Cannot close data file: " + e.getMessage(), LogService.WARNING);
+			}
+		}
+	}
+
+	// ------------------------------------------------------------
+
+	/**
+	 * Takes the next parsed batch from the pipeline if the current one is exhausted.
+	 * The pipeline is started on the first invocation.
+	 */
+	private boolean hasNextParsed() {
+		if (eof)
+			return false;
+		if (pipeline == null)
+			startPipeline();
+		while ((currentBatch == null) || (currentBatchIndex >= currentBatch.size)) {
+			try {
+				currentBatch = pipeline.take().get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				LogService.getGlobal().log("Interrupted while reading data.", LogService.ERROR);
+				currentBatch = null;
+			} catch (ExecutionException e) {
+				LogService.getGlobal().log(String.valueOf(e.getCause().getMessage()), LogService.ERROR);
+				currentBatch = null;
+			}
+			currentBatchIndex = 0;
+			// end of data or error
+			if (currentBatch == null) {
+				eof = true;
+				lineRead = true;
+				stopPipeline();
+				return false;
+			}
+		}
+		lineRead = true;
+		return true;
+	}
+
+	/** Creates the data row for the given row of the batch and maps its nominal values. */
+	private DataRow createDataRow(ParsedBatch batch, int row) {
+		DataRow dataRow = getFactory().create(attributes.length);
+		double[] values = batch.values[row];
+		String[] nominalValues = batch.nominalValues[row];
+		for (int i = 0; i < attributes.length; i++) {
+			if (attributes[i].isNominal())
+				dataRow.set(attributes[i], attributes[i].getMapping().mapString(nominalValues[i]));
+			else
+				dataRow.set(attributes[i], values[i]);
+		}
+		dataRow.trim();
+		return dataRow;
+	}
+
+	/**
+	 * Starts the producer and the parser threads. The threads do not refer to this
+	 * reader, so an abandoned reader can be garbage collected, which is noticed by
+	 * the producer.
+	 */
+	private void startPipeline() {
+		pipeline = new ArrayBlockingQueue<Future<ParsedBatch>>(2 * numberOfThreads);
+		parserExecutor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ParserThreadFactory());
+		// idle parsers end even if the pipeline is never stopped
+		parserExecutor.allowCoreThreadTimeOut(true);
+		LineSplitter splitter = new LineSplitter(rapidMinerLineReader, attributes, dataSourceIndex, expectedNumberOfColumns, getFactory().getDecimalPointCharacter());
+		Thread producer = new Thread(new LineProducer(this, splitter), "FileDataRowReader line producer");
+		producer.setDaemon(true);
+		producer.start();
+	}
+
+	private void stopPipeline() {
+		pipelineStopped.set(true);
+		parserExecutor.shutdownNow();
+	}
+
+	/** Returns a completed future delivering null (end of data) or throwing the given exception. */
+	private static Future<ParsedBatch> createFinalFuture(final IOException error) {
+		FutureTask<ParsedBatch> future = new FutureTask<ParsedBatch>(new Callable<ParsedBatch>() {
+			public ParsedBatch call() throws IOException {
+				if (error != null)
+					throw error;
+				return null;
+			}
+		});
+		future.run();
+		return future;
+	}
+
+	/** The split and parsed values of a batch of lines. */
+	private static class ParsedBatch {
+
+		private final int size;
+
+		/** The numerical values of each row. */
+		private final double[][] values;
+
+		/** The nominal values of each row, missing values are empty strings. Null if there are no nominal attributes. */
+		private final String[][] nominalValues;
+
+		private ParsedBatch(int size) {
+			this.size = size;
+			this.values = new double[size][];
+			this.nominalValues = new String[size][];
+		}
+	}
+
+	/** Creates the daemon threads of the parsers, which do not keep the application alive. */
+	private static class ParserThreadFactory implements ThreadFactory {
+
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "FileDataRowReader parser");
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * Reads the lines of all files, applies the sampling and hands batches of lines
+	 * to the parser threads. The futures are queued in the order of the lines. The
+	 * reader is only weakly referenced, so the producer stops if the reader was
+	 * abandoned and garbage collected.
+	 */
+	private static class LineProducer implements Runnable {
+
+		private final WeakReference<FileDataRowReader> owner;
+
+		private final LineSplitter splitter;
+
+		private final BlockingQueue<Future<ParsedBatch>> pipeline;
+
+		private final ExecutorService parserExecutor;
+
+		private final AtomicBoolean pipelineStopped;
+
+		private final BufferedReader[] fileReader;
+
+		private final RapidMinerLineReader rapidMinerLineReader;
+
+		private final int maxNumber;
+
+		private final double sampleRatio;
+
+		private final RandomGenerator random;
+
+		private LineProducer(FileDataRowReader reader, LineSplitter splitter) {
+			this.owner = new WeakReference<FileDataRowReader>(reader);
+			this.splitter = splitter;
+			this.pipeline = reader.pipeline;
+			this.parserExecutor = reader.parserExecutor;
+			this.pipelineStopped = reader.pipelineStopped;
+			this.fileReader = reader.fileReader;
+			this.rapidMinerLineReader = reader.rapidMinerLineReader;
+			this.maxNumber = reader.maxNumber;
+			this.sampleRatio = reader.sampleRatio;
+			this.random = reader.random;
+		}
+
+		public void run() {
+			IOException error = null;
+			try {
+				int lineNumber = rapidMinerLineReader.getLineNumber();
+				int accepted = 0;
+				boolean eofReached = false;
+				while (!eofReached && !pipelineStopped.get()) {
+					String[][] lines = new String[BATCH_SIZE][];
+					int[] lineNumbers = new int[BATCH_SIZE];
+					int size = 0;
+					while (size < BATCH_SIZE) {
+						if ((maxNumber > -1) && (accepted >= maxNumber)) {
+							eofReached = true;
+							break;
+						}
+						String[] record = new String[fileReader.length];
+						for (int i = 0; i < fileReader.length; i++) {
+							record[i] = rapidMinerLineReader.readDataLine(fileReader[i]);
+							if (record[i] == null) {
+								eofReached = true;
+								break;
+							}
+						}
+						if (eofReached)
+							break;
+						// same sampling as for sequential reading
+						if ((maxNumber != -1) || (sampleRatio == 1.0d) || (random.nextDouble() < sampleRatio)) {
+							lines[size] = record;
+							lineNumbers[size] = lineNumber;
+							size++;
+							accepted++;
+						}
+						lineNumber++;
+					}
+					if (size > 0) {
+						try {
+							if (!enqueue(parserExecutor.submit(new LineParser(splitter, lines, lineNumbers, size))))
+								return;
+						} catch (RejectedExecutionException e) {
+							// the pipeline was stopped
+							return;
+						}
+					}
+				}
+			} catch (IOException e) {
+				error = e;
+			} finally {
+				closeReaders(fileReader);
+			}
+			enqueue(createFinalFuture(error));
+		}
+
+		/** Waits until the future can be queued. Returns false if the pipeline was stopped or the reader abandoned. */
+		private boolean enqueue(Future<ParsedBatch> future) {
+			try {
+				while (!pipelineStopped.get()) {
+					if (pipeline.offer(future, 100, TimeUnit.MILLISECONDS))
+						return true;
+					if (owner.get() == null) {
+						pipelineStopped.set(true);
+						parserExecutor.shutdownNow();
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return false;
+		}
+	}
+
+	/** Splits lines and parses the numerical values. Can be used by several threads at the same time. */
+	private static class LineSplitter {
+
+		private final RapidMinerLineReader rapidMinerLineReader;
+
+		private final Attribute[] attributes;
+
+		private final int[][] dataSourceIndex;
+
+		private final int[] expectedNumberOfColumns;
+
+		private final char decimalPointCharacter;
+
+		private LineSplitter(RapidMinerLineReader rapidMinerLineReader, Attribute[] attributes, int[][] dataSourceIndex, int[] expectedNumberOfColumns, char decimalPointCharacter) {
+			this.rapidMinerLineReader = rapidMinerLineReader;
+			this.attributes = attributes;
+			this.dataSourceIndex = dataSourceIndex;
+			this.expectedNumberOfColumns = expectedNumberOfColumns;
+			this.decimalPointCharacter = decimalPointCharacter;
+		}
+
+		private ParsedBatch parse(String[][] lines, int[] lineNumbers, int size) throws IOException {
+			ParsedBatch batch = new ParsedBatch(size);
+			String[][] columns = new String[expectedNumberOfColumns.length][];
+			for (int r = 0; r < size; r++) {
+				for (int i = 0; i < columns.length; i++)
+					columns[i] = rapidMinerLineReader.split(lines[r][i], expectedNumberOfColumns[i], lineNumbers[r]);
+				double[] values = new double[attributes.length];
+				String[] nominalValues = null;
+				for (int i = 0; i < attributes.length; i++) {
+					String token = null;
+					if (dataSourceIndex[i][COLUMN_NR] != -1)
+						token = columns[dataSourceIndex[i][FILE_NR]][dataSourceIndex[i][COLUMN_NR]];
+					if (token != null)
+						token = token.trim();
+					boolean missing = (token == null) || (token.length() == 0) || token.equals("?");
+					if (attributes[i].isNominal()) {
+						if (nominalValues == null)
+							nominalValues = new String[attributes.length];
+						nominalValues[i] = missing ? "" : token;
+					} else {
+						values[i] = missing ? Double.NaN : DataRowFactory.string2Double(token, decimalPointCharacter);
+					}
+				}
+				batch.values[r] = values;
+				batch.nominalValues[r] = nominalValues;
+				lines[r] = null;
+			}
+			return batch;
+		}
+	}
+
+	/** Splits the lines of a batch and parses the numerical values. */
+	private static class LineParser implements Callable<ParsedBatch> {
+
+		private final LineSplitter splitter;
+
+		private final String[][] lines;
+
+		private final int[] lineNumbers;
+
+		private final int size;
+
+		private LineParser(LineSplitter splitter, String[][] lines, int[] lineNumbers, int size) {
+			this.splitter = splitter;
+			this.lines = lines;
+			this.lineNumbers = lineNumbers;
+			this.size = size;
+		}
+
+		public ParsedBatch call() throws IOException {
+			return splitter.parse(lines, lineNumbers, size);
+		}
+	}
 }
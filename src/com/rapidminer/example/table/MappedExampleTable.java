@@ -0,0 +1,457 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.tools.MappedSegments;
+
+
+/**
+ * <p>An example table which stores its values in a memory mapped binary file
+ * instead of the Java heap. Each row is stored as a fixed size record of one
+ * double per column. The file is mapped in segments, so the operating system
+ * pages the data in and out on demand and tables much larger than the heap
+ * can be processed.</p>
+ *
+ * <p>Like the {@link ColumnarExampleTable}, the data rows delivered by
+ * {@link #getDataRow(int)} and {@link #getDataRowReader()} are lightweight views
+ * which only store the row index and read from and write into the mapped file.
+ * Rows can be appended but not removed. The columns of attributes which are added
+ * after the creation of the table (e.g. predictions or cluster assignments) are
+ * kept on the heap.</p>
+ *
+ * <p>The first segment is mapped for the expected number of rows and grows
+ * with the table, so small tables do not occupy a full segment. If no file
+ * is given, a temporary file is used which is deleted by {@link #close()} or
+ * on exit. This table can be selected by using the data management type
+ * {@link DataRowFactory#TYPE_MEMORY_MAPPED}.</p>
+ *
+ * @see DataRowFactory#createExampleTable(List)
+ */
+public class MappedExampleTable extends MemoryExampleTable {
+
+	private static final long serialVersionUID = 8347261938562019137L;
+
+	/** The maximal number of bytes of a single mapped segment. */
+	private static final int SEGMENT_BYTES = 1 << 27;
+
+	/** The initial number of rows for which memory is allocated for the heap columns. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The mapped segments of the file containing the values. Only the last segment might be smaller than rowsPerSegment. */
+	private MappedSegments segments;
+
+	/** Indicates if the file is a temporary file which is deleted by {@link #close()}. */
+	private boolean temporary;
+
+	/** The number of columns stored in the file. */
+	private int numberOfFileColumns;
+
+	/** The number of rows stored in each segment. */
+	private int rowsPerSegment;
+
+	/** The number of rows. */
+	private int size;
+
+	/** The columns of attributes added after the creation of the file, indexed by table index minus the number of file columns. */
+	private double[][] heapColumns;
+
+	/** The number of rows for which memory is allocated in the heap columns. */
+	private int heapCapacity;
+
+	/** The physical row of each row if the rows were permutated, null otherwise. */
+	private int[] order;
+
+	/** The relational values of the rows. Will only be created if at least one row contains relational values. */
+	private Map<Integer, RelationalValueMap> relationalValues;
+
+	/**
+	 * Creates a new memory mapped example table using a temporary file which
+	 * is deleted on exit.
+	 */
+	public MappedExampleTable(List<Attribute> attributes) {
+		this(attributes, INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Creates a new memory mapped example table using a temporary file which
+	 * is deleted on exit. The file is initially mapped for the expected number
+	 * of rows.
+	 */
+	public MappedExampleTable(List<Attribute> attributes, int expectedSize) {
+		this(attributes, createTemporaryFile(), expectedSize);
+		this.temporary = true;
+	}
+
+	/**
+	 * Creates a new memory mapped example table storing the values in the
+	 * given file. The content of the file is overwritten.
+	 */
+	public MappedExampleTable(List<Attribute> attributes, File file) {
+		this(attributes, file, INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Creates a new memory mapped example table storing the values in the
+	 * given file. The content of the file is overwritten. The file is initially
+	 * mapped for the expected number of rows.
+	 */
+	public MappedExampleTable(List<Attribute> attributes, File file, int expectedSize) {
+		super(attributes);
+		this.numberOfFileColumns = Math.max(1, getNumberOfAttributes());
+		this.rowsPerSegment = Math.max(1, SEGMENT_BYTES / (numberOfFileColumns * 8));
+		int initialRows = Math.min(rowsPerSegment, Math.max(INITIAL_CAPACITY, expectedSize));
+		this.segments = new MappedSegments(file, rowsPerSegment * numberOfFileColumns, initialRows * numberOfFileColumns);
+		this.heapColumns = new double[0][];
+		this.heapCapacity = Math.max(INITIAL_CAPACITY, expectedSize);
+		try {
+			RandomAccessFile out = new RandomAccessFile(file, "rw");
+			out.setLength(0);
+			out.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot create file '" + file + "' for memory mapped example table: " + e, e);
+		}
+	}
+
+	/**
+	 * Creates a new memory mapped example table using a temporary file and fills
+	 * it with the data rows read from i.
+	 */
+	public MappedExampleTable(List<Attribute> attributes, DataRowReader i) {
+		this(attributes);
+		readExamples(i, false);
+	}
+
+	/**
+	 * Creates a new memory mapped example table using the given file and fills
+	 * it with the data rows read from i.
+	 */
+	public MappedExampleTable(List<Attribute> attributes, DataRowReader i, File file) {
+		this(attributes, file);
+		readExamples(i, false);
+	}
+
+	// ------------------------------------------------------------
+
+	/**
+	 * Writes the examples into the file of this table and permutates the order
+	 * if desired. Removes all old data rows first.
+	 */
+	@Override
+	public void readExamples(DataRowReader i, boolean permutate, Random random) {
+		clear();
+		while (i.hasNext())
+			appendDataRow(i.next());
+		if (permutate && (random != null)) {
+			// Fisher-Yates shuffle of the physical rows
+			order = new int[size];
+			for (int r = 0; r < size; r++)
+				order[r] = r;
+			for (int r = size - 1; r > 0; r--) {
+				int other = random.nextInt(r + 1);
+				int swap = order[r];
+				order[r] = order[other];
+				order[other] = swap;
+			}
+		}
+	}
+
+	/** Returns a new data row reader delivering row views. */
+	@Override
+	public DataRowReader getDataRowReader() {
+		return new MappedDataRowReader();
+	}
+
+	/** Returns a view on the data row with the given index. */
+	@Override
+	public DataRow getDataRow(int index) {
+		if ((index < 0) || (index >= size))
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return new MappedDataRow(order == null ? index : order[index]);
+	}
+
+	/** Returns the size of this example table, i.e. the number of data rows. */
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Copies the values of the given data row into a new row at the end of this
+	 * table. Later changes of the given data row will not be reflected by this table.
+	 */
+	@Override
+	public void addDataRow(DataRow dataRow) {
+		if (order != null) {
+			if (size == order.length)
+				order = Arrays.copyOf(order, size + (size >> 1) + 1);
+			order[size] = size;
+		}
+		appendDataRow(dataRow);
+	}
+
+	/** Will throw a new {@link UnsupportedOperationException} since rows cannot be removed from the file. */
+	@Override
+	public boolean removeDataRow(DataRow dataRow) {
+		throw new UnsupportedOperationException("Rows cannot be removed from a memory mapped example table!");
+	}
+
+	/** Will throw a new {@link UnsupportedOperationException} since rows cannot be removed from the file. */
+	@Override
+	public DataRow removeDataRow(int index) {
+		throw new UnsupportedOperationException("Rows cannot be removed from a memory mapped example table!");
+	}
+
+	/** Clears the table. The file is reused for the following rows. */
+	@Override
+	public void clear() {
+		size = 0;
+		order = null;
+		relationalValues = null;
+	}
+
+	/**
+	 * Adds a new attribute to this example table by invoking the super method.
+	 * All values of the new column are missing. Columns which are not part of
+	 * the file are kept on the heap.
+	 */
+	@Override
+	public synchronized int addAttribute(Attribute attribute) {
+		int index = super.addAttribute(attribute);
+		// called by the super constructor: the file is created later
+		if (heapColumns == null)
+			return index;
+		if (index < numberOfFileColumns) {
+			// a reused column of the file
+			for (int r = 0; r < size; r++)
+				setValue(r, index, Double.NaN);
+		} else {
+			int heapIndex = index - numberOfFileColumns;
+			if (heapIndex >= heapColumns.length)
+				heapColumns = Arrays.copyOf(heapColumns, heapIndex + 1);
+			double[] column = new double[heapCapacity];
+			Arrays.fill(column, Double.NaN);
+			heapColumns[heapIndex] = column;
+		}
+		return index;
+	}
+
+	/** Removes the attribute and frees the memory of its heap column. */
+	@Override
+	public void removeAttribute(int index) {
+		super.removeAttribute(index);
+		int heapIndex = index - numberOfFileColumns;
+		if ((heapColumns != null) && (heapIndex >= 0) && (heapIndex < heapColumns.length))
+			heapColumns[heapIndex] = null;
+	}
+
+	/** Returns the file containing the values of this table. */
+	public File getFile() {
+		return segments.getFile();
+	}
+
+	/**
+	 * Releases the mapped segments and deletes the file if it is a temporary
+	 * file. The table must not be used afterwards. The operating system frees
+	 * the mapped memory as soon as the segments are garbage collected.
+	 */
+	public synchronized void close() {
+		segments.close();
+		size = 0;
+		order = null;
+		heapColumns = new double[0][];
+		relationalValues = null;
+		if (temporary)
+			segments.getFile().delete();
+	}
+
+	// ------------------------------------------------------------
+
+	/**
+	 * Returns the value of the given physical row in the column with the given
+	 * table index. Returns NaN for unused columns.
+	 */
+	private double getValue(int row, int tableIndex) {
+		if (tableIndex < numberOfFileColumns)
+			return getSegment(row).get((row % rowsPerSegment) * numberOfFileColumns + tableIndex);
+		int heapIndex = tableIndex - numberOfFileColumns;
+		if ((heapIndex < heapColumns.length) && (heapColumns[heapIndex] != null))
+			return heapColumns[heapIndex][row];
+		return Double.NaN;
+	}
+
+	/** Sets the value of the given physical row in the column with the given table index. */
+	private void setValue(int row, int tableIndex, double value) {
+		if (tableIndex < numberOfFileColumns) {
+			getSegment(row).put((row % rowsPerSegment) * numberOfFileColumns + tableIndex, value);
+		} else {
+			int heapIndex = tableIndex - numberOfFileColumns;
+			if ((heapIndex < heapColumns.length) && (heapColumns[heapIndex] != null))
+				heapColumns[heapIndex][row] = value;
+		}
+	}
+
+	/** Returns the segment containing the given physical row and maps or enlarges it if necessary. */
+	private DoubleBuffer getSegment(int row) {
+		return segments.getSegment(row / rowsPerSegment, (row % rowsPerSegment + 1) * numberOfFileColumns);
+	}
+
+	/** Copies the values of the given data row into a new row at the end of the file. */
+	private void appendDataRow(DataRow dataRow) {
+		if (size >= heapCapacity) {
+			int newCapacity = Math.max(size + 1, heapCapacity + (heapCapacity >> 1) + 1);
+			for (int c = 0; c < heapColumns.length; c++) {
+				if (heapColumns[c] != null) {
+					double[] column = Arrays.copyOf(heapColumns[c], newCapacity);
+					Arrays.fill(column, heapCapacity, newCapacity, Double.NaN);
+					heapColumns[c] = column;
+				}
+			}
+			heapCapacity = newCapacity;
+		}
+		int numberOfColumns = getNumberOfAttributes();
+		dataRow.ensureNumberOfColumns(numberOfColumns);
+		for (int c = 0; c < numberOfColumns; c++) {
+			Attribute attribute = getAttribute(c);
+			setValue(size, c, attribute == null ? Double.NaN : dataRow.get(c, attribute.getDefault()));
+		}
+		RelationalValueMap relational = dataRow.getRelationalValueMap();
+		if (relational != null)
+			setRelationalValues(size, relational);
+		size++;
+	}
+
+	/** Returns the relational values of the given physical row. Might return null. */
+	private RelationalValueMap getRelationalValues(int row) {
+		if (relationalValues == null)
+			return null;
+		return relationalValues.get(row);
+	}
+
+	/** Sets the relational values of the given physical row. */
+	private void setRelationalValues(int row, RelationalValueMap values) {
+		if (relationalValues == null) {
+			if (values == null)
+				return;
+			relationalValues = new HashMap<Integer, RelationalValueMap>();
+		}
+		relationalValues.put(row, values);
+	}
+
+	private static File createTemporaryFile() {
+		try {
+			File file = File.createTempFile("rapidminer", ".table");
+			file.deleteOnExit();
+			return file;
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot create temporary file for memory mapped example table: " + e, e);
+		}
+	}
+
+	// ------------------------------------------------------------
+
+	/** A lightweight view on a single row of the mapped table. */
+	private class MappedDataRow extends DataRow {
+
+		private static final long serialVersionUID = -5318207569137705527L;
+
+		/** The physical index of the viewed row. */
+		private final int row;
+
+		private MappedDataRow(int row) {
+			this.row = row;
+		}
+
+		@Override
+		protected double get(int column, double defaultValue) {
+			return getValue(row, column);
+		}
+
+		@Override
+		protected void set(int column, double value, double defaultValue) {
+			setValue(row, column, value);
+		}
+
+		/** Does nothing since all columns are allocated by the table. */
+		@Override
+		protected void ensureNumberOfColumns(int numberOfColumns) {}
+
+		/** Does nothing. */
+		@Override
+		public void trim() {}
+
+		@Override
+		RelationalValueMap getRelationalValueMap() {
+			return getRelationalValues(row);
+		}
+
+		@Override
+		void setRelationalValueMap(RelationalValueMap valueMap) {
+			MappedExampleTable.this.setRelationalValues(row, valueMap);
+		}
+
+		/** Returns a string representation of the data row. */
+		@Override
+		public String toString() {
+			StringBuffer result = new StringBuffer();
+			int numberOfColumns = getNumberOfAttributes();
+			for (int c = 0; c < numberOfColumns; c++)
+				result.append((c == 0 ? "" : ",") + getValue(row, c));
+			return result.toString();
+		}
+	}
+
+	/** Iterates over all rows of the table and delivers a view for each of them. */
+	private class MappedDataRowReader implements DataRowReader {
+
+		private int next = 0;
+
+		public boolean hasNext() {
+			return next < size;
+		}
+
+		public DataRow next() {
+			if (next >= size)
+				throw new NoSuchElementException();
+			int index = next++;
+			return new MappedDataRow(order == null ? index : order[index]);
+		}
+
+		/** Will throw a new {@link UnsupportedOperationException} since {@link DataRowReader} does not have
+		 *  to implement remove. */
+		public void remove() {
+			throw new UnsupportedOperationException("The method 'remove' is not supported by DataRowReaders!");
+		}
+	}
+}
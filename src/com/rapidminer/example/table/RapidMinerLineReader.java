@@ -24,6 +24,8 @@ package com.rapidminer.example.table;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import com.rapidminer.tools.LogService;
@@ -43,6 +45,15 @@ import com.rapidminer.tools.Tools;
  * be used at all. If possible please use and define a column separator which is
  * not part of your data.
  * 
+ * Separator expressions which only consist of alternatives of single characters,
+ * optionally followed by <code>\s*</code>, and of whitespace classes (like the
+ * default expressions &quot;,\s*|;\s*|\s+&quot; or simply &quot;,&quot; or
+ * &quot;\t&quot;) are split without the regular expression engine. The result
+ * is the same as the one of {@link Pattern#split(CharSequence, int)}.
+ * 
+ * Splitting is thread safe, i.e. lines read by {@link #readDataLine(BufferedReader)}
+ * can be split concurrently by {@link #split(String, int, int)}.
+ * 
  * @author Ingo Mierswa
  * @version $Id: RapidMinerLineReader.java,v 1.6 2008/07/03 22:00:40 ingomierswa Exp $
  */
@@ -51,6 +62,9 @@ public class RapidMinerLineReader {
 	/** A regular expression pattern which is used for splitting the columns. */
 	private Pattern separatorPattern;
 
+	/** The alternatives of the separator expression if it can be split without regular expressions, null otherwise. */
+	private SeparatorAlternative[] separatorAlternatives;
+
 	/** The possible character for comment lines. */
 	private String[] commentChars = null;
 
@@ -66,6 +80,7 @@ public class RapidMinerLineReader {
 	/** Indicates if quoting (&quot;) can be used to form. */
 	public RapidMinerLineReader(String separatorsRegExpr, char[] commentChars, boolean useQuotes, boolean trimLines) {
 		this.separatorPattern = Pattern.compile(separatorsRegExpr);	
+		this.separatorAlternatives = parseSimpleSeparators(separatorsRegExpr);
 		if (commentChars != null) {
 			this.commentChars = new String[commentChars.length];
 			for (int i = 0; i < commentChars.length; i++)
@@ -75,6 +90,11 @@ public class RapidMinerLineReader {
 		this.trimLines = trimLines;
 	}
 
+	/** Returns the number of the next line returned by {@link #readLine(BufferedReader, int)}. */
+	public int getLineNumber() {
+		return lineNumber;
+	}
+
 	/**
 	 * Ignores comment and empty lines and returns the first line not starting
 	 * with a comment. Returns null if no such line exists. Throws an
@@ -83,6 +103,20 @@ public class RapidMinerLineReader {
 	 * is -1.
 	 */
 	public String[] readLine(BufferedReader in, int expectedNumberOfColumns) throws IOException {
+		String line = readDataLine(in);
+		if (line == null)
+			return null;
+		String[] columns = split(line, expectedNumberOfColumns, lineNumber);
+		lineNumber++;
+		return columns;
+	}
+
+	/**
+	 * Ignores comment and empty lines and returns the first line not starting
+	 * with a comment without splitting it. Comments are removed and the line is
+	 * trimmed if desired. Returns null if no such line exists.
+	 */
+	public String readDataLine(BufferedReader in) throws IOException {
 		String line = null;
 		while (line == null) {
 			line = in.readLine();
@@ -104,10 +138,16 @@ public class RapidMinerLineReader {
 				line = null;
 			}
 		}
-		if (line == null)
-			return null;
+		return line;
+	}
 
-		String[] columns = separatorPattern.split(line, -1);
+	/**
+	 * Splits the given line into columns. Throws an IOException if the line does
+	 * not provide the given expected number of columns (-1: no check), the given
+	 * line number is used for the error message.
+	 */
+	public String[] split(String line, int expectedNumberOfColumns, int lineNumber) throws IOException {
+		String[] columns = separatorAlternatives != null ? splitSimple(line) : separatorPattern.split(line, -1);
 		
 		if (useQuotes)
 			columns = Tools.mergeQuotedSplits(line, columns, "\"");
@@ -120,7 +160,124 @@ public class RapidMinerLineReader {
 				LogService.getGlobal().log("Possible data format error: a line did not provide the expected number of columns (was: " + columns.length + ", expected: " + expectedNumberOfColumns + ")!", LogService.WARNING);
 			}
 		}
-		lineNumber++;
 		return columns;
 	}
+
+	/** Splits the line at the simple separators like {@link Pattern#split(CharSequence, int)} with a negative limit. */
+	private String[] splitSimple(String line) {
+		List<String> columns = new ArrayList<String>();
+		int length = line.length();
+		int start = 0;
+		int position = 0;
+		while (position < length) {
+			int matchLength = matchSeparator(line, position);
+			if (matchLength > 0) {
+				columns.add(line.substring(start, position));
+				position += matchLength;
+				start = position;
+			} else {
+				position++;
+			}
+		}
+		columns.add(line.substring(start));
+		return columns.toArray(new String[columns.size()]);
+	}
+
+	/** Returns the length of the separator at the given position or 0. The first matching alternative wins like in a regular expression. */
+	private int matchSeparator(String line, int position) {
+		char c = line.charAt(position);
+		for (SeparatorAlternative alternative : separatorAlternatives) {
+			int end = position;
+			if (alternative.whitespace) {
+				if (!isWhitespace(c))
+					continue;
+				end++;
+			} else {
+				if (c != alternative.character)
+					continue;
+				end++;
+			}
+			if (alternative.whitespaceFollows) {
+				while ((end < line.length()) && isWhitespace(line.charAt(end)))
+					end++;
+			}
+			return end - position;
+		}
+		return 0;
+	}
+
+	/** The characters of the regular expression class <code>\s</code>. */
+	private static boolean isWhitespace(char c) {
+		return (c == ' ') || (c == '\t') || (c == '\n') || (c == '\u000B') || (c == '\f') || (c == '\r');
+	}
+
+	/**
+	 * Returns the alternatives of the given separator expression if it only consists of
+	 * alternatives of single (possibly escaped) characters or <code>\s</code>, each optionally
+	 * followed by <code>\s*</code>, or <code>\s+</code>. Returns null for all other expressions.
+	 */
+	private static SeparatorAlternative[] parseSimpleSeparators(String regExpr) {
+		List<SeparatorAlternative> alternatives = new ArrayList<SeparatorAlternative>();
+		int length = regExpr.length();
+		int i = 0;
+		while (i < length) {
+			SeparatorAlternative alternative = new SeparatorAlternative();
+			char c = regExpr.charAt(i);
+			if (c == '\\') {
+				if (i + 1 >= length)
+					return null;
+				char escaped = regExpr.charAt(i + 1);
+				i += 2;
+				switch (escaped) {
+					case 's': alternative.whitespace = true; break;
+					case 't': alternative.character = '\t'; break;
+					case 'n': alternative.character = '\n'; break;
+					case 'r': alternative.character = '\r'; break;
+					case 'f': alternative.character = '\f'; break;
+					default:
+						// escaped meta characters are literals, escaped letters and digits are classes or references
+						if (Character.isLetterOrDigit(escaped))
+							return null;
+						alternative.character = escaped;
+						break;
+				}
+			} else if ("[](){}.*+?^$|".indexOf(c) >= 0) {
+				return null;
+			} else {
+				alternative.character = c;
+				i++;
+			}
+			if (regExpr.startsWith("\\s*", i)) {
+				alternative.whitespaceFollows = true;
+				i += 3;
+			} else if (alternative.whitespace && regExpr.startsWith("+", i)) {
+				alternative.whitespaceFollows = true;
+				i++;
+			}
+			if (i < length) {
+				if ("*+?{".indexOf(regExpr.charAt(i)) >= 0)
+					return null;
+				if (regExpr.charAt(i) != '|')
+					return null;
+				i++;
+				// an empty last alternative would match the empty string
+				if (i == length)
+					return null;
+			}
+			alternatives.add(alternative);
+		}
+		if (alternatives.isEmpty())
+			return null;
+		return alternatives.toArray(new SeparatorAlternative[alternatives.size()]);
+	}
+
+	/** A single character or whitespace separator, optionally followed by arbitrary whitespace. */
+	private static class SeparatorAlternative {
+
+		private char character;
+
+		private boolean whitespace;
+
+		private boolean whitespaceFollows;
+	}
 }
@@ -0,0 +1,70 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.Serializable;
+
+/**
+ * Maps the table indices of the relational attributes of a data row to their
+ * {@link RelationalValues}. Since rows usually contain only a few relational
+ * attributes, the entries are kept in two small arrays.
+ */
+public class RelationalValueMap implements Serializable {
+
+	private static final long serialVersionUID = 5087315926340215093L;
+
+	private int[] tableIndices = new int[0];
+
+	private RelationalValues[] values = new RelationalValues[0];
+
+	/** Returns the values of the relational attribute with the given table index or null. */
+	public RelationalValues get(int tableIndex) {
+		for (int i = 0; i < tableIndices.length; i++)
+			if (tableIndices[i] == tableIndex)
+				return values[i];
+		return null;
+	}
+
+	/** Sets the values of the relational attribute with the given table index. */
+	public void put(int tableIndex, RelationalValues relationalValues) {
+		for (int i = 0; i < tableIndices.length; i++) {
+			if (tableIndices[i] == tableIndex) {
+				values[i] = relationalValues;
+				return;
+			}
+		}
+		int size = tableIndices.length;
+		int[] newIndices = new int[size + 1];
+		RelationalValues[] newValues = new RelationalValues[size + 1];
+		System.arraycopy(tableIndices, 0, newIndices, 0, size);
+		System.arraycopy(values, 0, newValues, 0, size);
+		newIndices[size] = tableIndex;
+		newValues[size] = relationalValues;
+		tableIndices = newIndices;
+		values = newValues;
+	}
+
+	public int size() {
+		return tableIndices.length;
+	}
+}
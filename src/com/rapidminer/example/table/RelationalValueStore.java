@@ -0,0 +1,67 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.Serializable;
+
+/**
+ * Allocates the {@link RelationalValues} of the rows of a table from large
+ * shared arrays (slabs) instead of creating one array per tuple. Values which
+ * are too large for a slab get an array of their own. This class is not
+ * thread safe.
+ */
+public class RelationalValueStore implements Serializable {
+
+	private static final long serialVersionUID = -1628593307116587642L;
+
+	/** The number of doubles of a single slab. */
+	private static final int SLAB_SIZE = 1 << 16;
+
+	/** Values larger than this get an array of their own. */
+	private static final int MAX_SHARED_LENGTH = SLAB_SIZE / 4;
+
+	/** The slab from which values are currently allocated. */
+	private double[] slab;
+
+	/** The number of used doubles of the current slab. */
+	private int used;
+
+	/** Returns new relational values for the given number of tuples. All values are initialized with 0. */
+	public RelationalValues allocate(int numberOfTuples, int tupleSize) {
+		int length = numberOfTuples * tupleSize;
+		if (length > MAX_SHARED_LENGTH)
+			return new RelationalValues(new double[length], 0, numberOfTuples, tupleSize);
+		if ((slab == null) || (used + length > slab.length)) {
+			slab = new double[SLAB_SIZE];
+			used = 0;
+		}
+		RelationalValues values = new RelationalValues(slab, used, numberOfTuples, tupleSize);
+		used += length;
+		return values;
+	}
+
+	/** Copies the given tuples into this store. */
+	public RelationalValues copy(double[][] tuples) {
+		return RelationalValues.create(tuples, this);
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.table;
+
+import java.io.Serializable;
+
+/**
+ * The tuples of a relational attribute for a single data row. The values of
+ * all tuples are stored one after another in a flat array starting at the
+ * given offset, i.e. value <code>i</code> of tuple <code>t</code> is stored at
+ * <code>offset + t * tupleSize + i</code>. The array may be shared with the
+ * relational values of other rows, see {@link RelationalValueStore}. Complex
+ * values can therefore wrap these values without copying them.
+ */
+public class RelationalValues implements Serializable {
+
+	private static final long serialVersionUID = 2754096581722391467L;
+
+	private final double[] data;
+
+	private final int offset;
+
+	private final int numberOfTuples;
+
+	private final int tupleSize;
+
+	public RelationalValues(double[] data, int offset, int numberOfTuples, int tupleSize) {
+		if ((offset < 0) || (offset + (long) numberOfTuples * tupleSize > data.length))
+			throw new IllegalArgumentException("Relational values exceed the given array.");
+		this.data = data;
+		this.offset = offset;
+		this.numberOfTuples = numberOfTuples;
+		this.tupleSize = tupleSize;
+	}
+
+	/** Creates relational values with one value per tuple wrapping the given array. */
+	public RelationalValues(double[] column) {
+		this(column, 0, column.length, 1);
+	}
+
+	/**
+	 * Copies the given tuples into a new flat array. The tuple size is the
+	 * length of the longest tuple, missing values of shorter tuples are NaN.
+	 */
+	public static RelationalValues create(double[][] tuples) {
+		return create(tuples, null);
+	}
+
+	/**
+	 * Copies the given tuples into the given store or into a new array if the
+	 * store is null.
+	 */
+	static RelationalValues create(double[][] tuples, RelationalValueStore store) {
+		int tupleSize = 0;
+		for (double[] tuple : tuples)
+			if (tuple != null)
+				tupleSize = Math.max(tupleSize, tuple.length);
+		RelationalValues values = (store != null) ? store.allocate(tuples.length, tupleSize) : new RelationalValues(new double[tuples.length * tupleSize], 0, tuples.length, tupleSize);
+		for (int t = 0; t < tuples.length; t++) {
+			int length = (tuples[t] != null) ? tuples[t].length : 0;
+			int start = values.offset + t * tupleSize;
+			if (length > 0)
+				System.arraycopy(tuples[t], 0, values.data, start, length);
+			for (int i = length; i < tupleSize; i++)
+				values.data[start + i] = Double.NaN;
+		}
+		return values;
+	}
+
+	public int getNumberOfTuples() {
+		return numberOfTuples;
+	}
+
+	public int getTupleSize() {
+		return tupleSize;
+	}
+
+	/** Returns the number of stored values, i.e. the number of tuples times the tuple size. */
+	public int getLength() {
+		return numberOfTuples * tupleSize;
+	}
+
+	/** Returns the backing array. It must not be modified outside of the range of these values. */
+	public double[] getData() {
+		return data;
+	}
+
+	/** Returns the position of the first value in the backing array. */
+	public int getOffset() {
+		return offset;
+	}
+
+	public double get(int tuple, int index) {
+		return data[offset + tuple * tupleSize + index];
+	}
+
+	public void set(int tuple, int index, double value) {
+		data[offset + tuple * tupleSize + index] = value;
+	}
+
+	/** Returns a copy of the values with the given index of all tuples. */
+	public double[] getColumn(int index) {
+		double[] column = new double[numberOfTuples];
+		for (int t = 0; t < numberOfTuples; t++)
+			column[t] = data[offset + t * tupleSize + index];
+		return column;
+	}
+
+	/** Returns a copy of these values as one array per tuple. */
+	public double[][] toArray() {
+		double[][] tuples = new double[numberOfTuples][tupleSize];
+		for (int t = 0; t < numberOfTuples; t++)
+			System.arraycopy(data, offset + t * tupleSize, tuples[t], 0, tupleSize);
+		return tuples;
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.BlockCachedDatabaseExampleTable;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DataRowReader;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.jdbc.DatabaseHandler;
+import com.rapidminer.tools.jdbc.JDBCProperties;
+
+
+/**
+ * Reads a table of an in-memory HSQLDB database with the block cached database example table.
+ */
+public class BlockCachedDatabaseExampleTableTest extends RapidMinerTestCase {
+
+	private static final int SIZE = 1000;
+
+	private DatabaseHandler databaseHandler;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		Class.forName("org.hsqldb.jdbcDriver");
+		databaseHandler = new DatabaseHandler("jdbc:hsqldb:mem:blockcached", JDBCProperties.createDefaultJDBCProperties());
+		databaseHandler.connect("sa", "", true);
+		Statement statement = databaseHandler.createStatement(false);
+		statement.execute("CREATE TABLE \"DATA\" (\"ID\" INTEGER PRIMARY KEY, \"X\" DOUBLE, \"CLASS\" VARCHAR(10))");
+		statement.close();
+		PreparedStatement insert = databaseHandler.createPreparedStatement("INSERT INTO \"DATA\" VALUES (?, ?, ?)", false);
+		for (int i = 0; i < SIZE; i++) {
+			// keys with gaps and in random order
+			insert.setInt(1, (i * 7919) % SIZE * 3);
+			if (i % 10 == 0)
+				insert.setNull(2, java.sql.Types.DOUBLE);
+			else
+				insert.setDouble(2, getX((i * 7919) % SIZE * 3));
+			insert.setString(3, i % 11 == 0 ? null : "c" + (i % 3));
+			insert.executeUpdate();
+		}
+		insert.close();
+	}
+
+	public void tearDown() throws Exception {
+		Statement statement = databaseHandler.createStatement(false);
+		statement.execute("DROP TABLE \"DATA\"");
+		statement.close();
+		databaseHandler.disconnect();
+		databaseHandler = null;
+		super.tearDown();
+	}
+
+	private static double getX(int id) {
+		return id * 0.5d;
+	}
+
+	private Attribute getAttribute(BlockCachedDatabaseExampleTable table, String name) {
+		for (Attribute attribute : table.getAttributes()) {
+			if (attribute.getName().equals(name))
+				return attribute;
+		}
+		fail("attribute " + name + " not found");
+		return null;
+	}
+
+	private void assertRow(BlockCachedDatabaseExampleTable table, DataRow row, int index) {
+		Attribute id = getAttribute(table, "ID");
+		Attribute x = getAttribute(table, "X");
+		assertEquals("id of row " + index, index * 3.0d, row.get(id));
+		double value = row.get(x);
+		assertTrue("x of row " + index, Double.isNaN(value) || (value == getX(index * 3)));
+	}
+
+	public void testSequentialScan() throws SQLException {
+		BlockCachedDatabaseExampleTable table = new BlockCachedDatabaseExampleTable(databaseHandler, "DATA", null, DataRowFactory.TYPE_DOUBLE_ARRAY, 64, 2, true);
+		assertEquals(SIZE, table.size());
+		DataRowReader reader = table.getDataRowReader();
+		int index = 0;
+		int missing = 0;
+		while (reader.hasNext()) {
+			DataRow row = reader.next();
+			assertRow(table, row, index++);
+			if (Double.isNaN(row.get(getAttribute(table, "CLASS"))))
+				missing++;
+		}
+		assertEquals(SIZE, index);
+		assertEquals(SIZE / 11 + 1, missing);
+		assertEquals(3, getAttribute(table, "CLASS").getMapping().size());
+	}
+
+	public void testRandomAccess() throws SQLException {
+		BlockCachedDatabaseExampleTable table = new BlockCachedDatabaseExampleTable(databaseHandler, "DATA", "ID", DataRowFactory.TYPE_DOUBLE_ARRAY, 50, 3, false);
+		int[] indices = { 17, 999, 0, 512, 511, 998, 250, 750, 50, 49 };
+		for (int index : indices)
+			assertRow(table, table.getDataRow(index), index);
+	}
+
+	private int countPrefetcherThreads() {
+		Thread[] threads = new Thread[Thread.activeCount() + 10];
+		int count = 0;
+		for (int i = Thread.enumerate(threads) - 1; i >= 0; i--) {
+			if (threads[i].getName().startsWith("Database prefetcher for DATA"))
+				count++;
+		}
+		return count;
+	}
+
+	public void testPrefetcherThreadEnds() throws Exception {
+		BlockCachedDatabaseExampleTable table = new BlockCachedDatabaseExampleTable(databaseHandler, "DATA", null, DataRowFactory.TYPE_DOUBLE_ARRAY, 64, 2, true);
+		DataRowReader reader = table.getDataRowReader();
+		while (reader.hasNext())
+			reader.next();
+		// the idle thread ends without closing the table
+		long end = System.currentTimeMillis() + 10000;
+		while ((countPrefetcherThreads() > 0) && (System.currentTimeMillis() < end))
+			Thread.sleep(100);
+		assertEquals("running prefetcher threads", 0, countPrefetcherThreads());
+	}
+
+	public void testSerialization() throws Exception {
+		BlockCachedDatabaseExampleTable table = new BlockCachedDatabaseExampleTable(databaseHandler, "DATA", null, DataRowFactory.TYPE_DOUBLE_ARRAY, 64, 2, true);
+		assertRow(table, table.getDataRow(0), 0);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(table);
+		out.close();
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		BlockCachedDatabaseExampleTable copy = (BlockCachedDatabaseExampleTable) in.readObject();
+		in.close();
+		assertEquals(SIZE, copy.size());
+		assertEquals(3, copy.getNumberOfAttributes());
+		try {
+			copy.getDataRow(0);
+			fail("row was read without connection");
+		} catch (RuntimeException e) {
+			assertTrue("cause", e.getCause() instanceof SQLException);
+		}
+	}
+
+	public void testNotWritable() throws SQLException {
+		BlockCachedDatabaseExampleTable table = new BlockCachedDatabaseExampleTable(databaseHandler, "DATA", null, DataRowFactory.TYPE_DOUBLE_ARRAY);
+		try {
+			table.getDataRow(0).set(getAttribute(table, "X"), 1.0d);
+			fail("row was written");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import java.util.Arrays;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DataRowReader;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests the columnar example table against the row based memory example table.
+ */
+public class ColumnarExampleTableTest extends RapidMinerTestCase {
+
+	private Attribute[] attributes;
+
+	private MemoryExampleTable memoryTable;
+
+	private ColumnarExampleTable columnarTable;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		attributes = ExampleTestTools.createFourAttributes();
+		memoryTable = new MemoryExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(50, attributes));
+		columnarTable = new ColumnarExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(50, attributes));
+	}
+
+	public void tearDown() throws Exception {
+		attributes = null;
+		memoryTable = null;
+		columnarTable = null;
+		super.tearDown();
+	}
+
+	private void assertTablesEqual(String message) {
+		assertEquals(message + " size", memoryTable.size(), columnarTable.size());
+		DataRowReader expectedReader = memoryTable.getDataRowReader();
+		DataRowReader actualReader = columnarTable.getDataRowReader();
+		int row = 0;
+		while (expectedReader.hasNext()) {
+			DataRow expected = expectedReader.next();
+			DataRow actual = actualReader.next();
+			for (Attribute attribute : attributes) {
+				assertEqualsNaN(message + " row " + row + " " + attribute.getName(), expected.get(attribute), actual.get(attribute));
+				assertEqualsNaN(message + " indexed row " + row + " " + attribute.getName(), expected.get(attribute), columnarTable.getDataRow(row).get(attribute));
+			}
+			row++;
+		}
+		assertFalse(message + " reader exhausted", actualReader.hasNext());
+	}
+
+	public void testRead() {
+		assertTablesEqual("read");
+		assertTrue(columnarTable.isIntegerColumn(attributes[2].getTableIndex()));
+		assertFalse(columnarTable.isIntegerColumn(attributes[3].getTableIndex()));
+	}
+
+	public void testSetValues() {
+		for (int i = 0; i < memoryTable.size(); i += 3) {
+			memoryTable.getDataRow(i).set(attributes[3], i);
+			columnarTable.getDataRow(i).set(attributes[3], i);
+			memoryTable.getDataRow(i).set(attributes[1], Double.NaN);
+			columnarTable.getDataRow(i).set(attributes[1], Double.NaN);
+		}
+		assertTablesEqual("set");
+	}
+
+	public void testIntegerColumnConversion() {
+		int tableIndex = attributes[2].getTableIndex();
+		memoryTable.getDataRow(7).set(attributes[2], 2.5d);
+		columnarTable.getDataRow(7).set(attributes[2], 2.5d);
+		assertFalse(columnarTable.isIntegerColumn(tableIndex));
+		assertTablesEqual("conversion");
+	}
+
+	public void testAddAndRemoveRows() {
+		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.');
+		DataRow newRow = factory.create(new String[] { "mouse", "yes", "?", "1.5" }, attributes);
+		memoryTable.addDataRow(newRow);
+		columnarTable.addDataRow(newRow);
+		memoryTable.removeDataRow(3);
+		columnarTable.removeDataRow(3);
+		memoryTable.removeDataRow(0);
+		assertTrue(columnarTable.removeDataRow(columnarTable.getDataRow(0)));
+		assertTablesEqual("add and remove");
+	}
+
+	public void testAddAndRemoveAttributes() {
+		Attribute newAttribute = AttributeFactory.createAttribute("new", Ontology.REAL);
+		columnarTable.addAttribute(newAttribute);
+		for (int i = 0; i < columnarTable.size(); i++) {
+			assertEqualsNaN("new attribute", Double.NaN, columnarTable.getDataRow(i).get(newAttribute));
+			columnarTable.getDataRow(i).set(newAttribute, i * 0.5d);
+		}
+		for (int i = 0; i < columnarTable.size(); i++) {
+			assertEqualsNaN("new attribute", i * 0.5d, columnarTable.getValue(i, newAttribute.getTableIndex()));
+		}
+		columnarTable.removeAttribute(newAttribute);
+		assertFalse(columnarTable.isDirectlyAccessible(newAttribute));
+		assertTablesEqual("attributes");
+	}
+
+	public void testFactory() {
+		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_COLUMNAR, '.');
+		MemoryExampleTable table = factory.createExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(factory, attributes, new String[][] { { "cat", "no", "3", "0.5" } }), false);
+		assertTrue(table instanceof ColumnarExampleTable);
+		assertEquals(1, table.size());
+		assertEqualsNaN("factory", 3.0d, table.getDataRow(0).get(attributes[2]));
+	}
+}
@@ -140,6 +140,34 @@ public class ExampleTestTools {
 		return attributes;
 	}
 
+	/**
+	 * Creates an example set with the regular attributes "a0" to "a3" drawn from a standard
+	 * normal distribution and a nominal label with the given number of classes "class0",
+	 * "class1", ... The label depends on the noisy sum of a0 and a1, the other attributes
+	 * are irrelevant. The examples are generated with a fixed random seed.
+	 */
+	public static ExampleSet createGaussianClassificationSet(int size, int numberOfLabels) {
+		List<Attribute> attributes = new LinkedList<Attribute>();
+		for (int i = 0; i < 4; i++)
+			attributes.add(AttributeFactory.createAttribute("a" + i, Ontology.REAL));
+		Attribute label = AttributeFactory.createAttribute("label", Ontology.NOMINAL);
+		for (int i = 0; i < numberOfLabels; i++)
+			label.getMapping().mapString("class" + i);
+		attributes.add(label);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		Random random = new Random(1);
+		for (int i = 0; i < size; i++) {
+			double[] data = new double[attributes.size()];
+			for (int j = 0; j < 4; j++)
+				data[j] = random.nextGaussian();
+			// classes of equal width within one standard deviation (1.5) of the noisy sum
+			double value = data[0] + data[1] + 0.5 * random.nextGaussian();
+			data[4] = Math.max(0, Math.min(numberOfLabels - 1, (int)Math.floor((value + 1.5) / 3.0 * numberOfLabels)));
+			table.addDataRow(new DoubleArrayDataRow(data));
+		}
+		return table.createExampleSet(label);
+	}
+
 	public static Attribute createPredictedLabel(ExampleSet exampleSet) {
 		Attribute predictedLabel = AttributeFactory.createAttribute(exampleSet.getAttributes().getLabel(), Attributes.PREDICTION_NAME);
 		exampleSet.getExampleTable().addAttribute(predictedLabel);
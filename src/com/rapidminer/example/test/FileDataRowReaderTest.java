@@ -0,0 +1,154 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.FileDataRowReader;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.RandomGenerator;
+import com.rapidminer.tools.att.AttributeDataSource;
+
+/**
+ * Tests that the pipelined reading with several threads delivers the same
+ * rows and nominal mappings as the sequential reading.
+ */
+public class FileDataRowReaderTest extends RapidMinerTestCase {
+
+	private static final String SEPARATORS = ",\\s*|;\\s*|\\s+";
+
+	private File file;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		file = File.createTempFile("data", ".csv");
+		file.deleteOnExit();
+		PrintWriter out = new PrintWriter(new FileWriter(file));
+		Random random = new Random(2001);
+		// several batches with comments, empty lines and missing values
+		for (int i = 0; i < 3000; i++) {
+			if (i % 100 == 0)
+				out.println("# comment " + i);
+			if (i % 250 == 0)
+				out.println();
+			String real = i % 17 == 0 ? "?" : Double.toString(random.nextGaussian());
+			String nominal = i % 23 == 0 ? "" : "\"value " + random.nextInt(50) + "\"";
+			out.println(real + ", " + nominal + ";" + random.nextInt(1000) + " " + i + "# trailing comment");
+		}
+		out.close();
+	}
+
+	public void tearDown() throws Exception {
+		file.delete();
+		file = null;
+		super.tearDown();
+	}
+
+	private FileDataRowReader createReader(Attribute[] attributes, int sampleSize, int numberOfThreads) throws Exception {
+		List<AttributeDataSource> sources = new ArrayList<AttributeDataSource>();
+		for (int i = 0; i < attributes.length; i++)
+			sources.add(new AttributeDataSource(attributes[i], file, i, Attributes.ATTRIBUTE_NAME));
+		return new FileDataRowReader(new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.'), sources, 1.0d, sampleSize, SEPARATORS, new char[] { '#' }, true, false, Charset.defaultCharset(), RandomGenerator.getRandomGenerator(2001), numberOfThreads);
+	}
+
+	private Attribute[] createAttributes() {
+		Attribute[] attributes = new Attribute[] { AttributeFactory.createAttribute("real", Ontology.REAL), AttributeFactory.createAttribute("nominal", Ontology.NOMINAL), AttributeFactory.createAttribute("integer", Ontology.INTEGER), AttributeFactory.createAttribute("index", Ontology.INTEGER) };
+		for (int i = 0; i < attributes.length; i++)
+			attributes[i].setTableIndex(i);
+		return attributes;
+	}
+
+	private List<DataRow> readAll(FileDataRowReader reader) {
+		List<DataRow> rows = new ArrayList<DataRow>();
+		while (reader.hasNext())
+			rows.add(reader.next());
+		return rows;
+	}
+
+	private void assertSameRows(Attribute[] expectedAttributes, List<DataRow> expected, Attribute[] attributes, List<DataRow> rows) {
+		assertEquals("number of rows", expected.size(), rows.size());
+		for (int a = 0; a < attributes.length; a++) {
+			for (int r = 0; r < rows.size(); r++)
+				assertEqualsNaN(attributes[a].getName() + " row " + r, expected.get(r).get(expectedAttributes[a]), rows.get(r).get(attributes[a]));
+			if (attributes[a].isNominal())
+				assertEquals("nominal mapping", expectedAttributes[a].getMapping().getValues(), attributes[a].getMapping().getValues());
+		}
+	}
+
+	public void testThreadedReading() throws Exception {
+		Attribute[] expectedAttributes = createAttributes();
+		List<DataRow> expected = readAll(createReader(expectedAttributes, -1, 1));
+		assertEquals(3000, expected.size());
+		assertEquals("missing nominal value", "", expectedAttributes[1].getMapping().mapIndex((int) expected.get(0).get(expectedAttributes[1])));
+		for (int numberOfThreads : new int[] { 2, 4 }) {
+			Attribute[] attributes = createAttributes();
+			assertSameRows(expectedAttributes, expected, attributes, readAll(createReader(attributes, -1, numberOfThreads)));
+		}
+	}
+
+	public void testSampleSize() throws Exception {
+		Attribute[] expectedAttributes = createAttributes();
+		List<DataRow> expected = readAll(createReader(expectedAttributes, 700, 1));
+		assertEquals(700, expected.size());
+		Attribute[] attributes = createAttributes();
+		assertSameRows(expectedAttributes, expected, attributes, readAll(createReader(attributes, 700, 4)));
+		assertThreadsStopped();
+	}
+
+	public void testClose() throws Exception {
+		FileDataRowReader reader = createReader(createAttributes(), -1, 4);
+		for (int i = 0; i < 10; i++)
+			assertNotNull(reader.next());
+		reader.close();
+		assertFalse("closed", reader.hasNext());
+		assertThreadsStopped();
+	}
+
+	/** Waits until all producer and parser threads have ended. */
+	private void assertThreadsStopped() throws InterruptedException {
+		long end = System.currentTimeMillis() + 10000;
+		while (true) {
+			boolean running = false;
+			for (Thread thread : Thread.getAllStackTraces().keySet())
+				if (thread.isAlive() && thread.getName().startsWith("FileDataRowReader"))
+					running = true;
+			if (!running)
+				return;
+			if (System.currentTimeMillis() > end)
+				fail("reader threads still running");
+			Thread.sleep(50);
+		}
+	}
+}
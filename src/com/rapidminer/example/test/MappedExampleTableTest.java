@@ -0,0 +1,189 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.MappedExampleTable;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DataRowReader;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+
+/**
+ * Tests the memory mapped example table against the row based memory example table.
+ */
+public class MappedExampleTableTest extends RapidMinerTestCase {
+
+	private Attribute[] attributes;
+
+	private MemoryExampleTable memoryTable;
+
+	private MappedExampleTable mappedTable;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		attributes = ExampleTestTools.createFourAttributes();
+		memoryTable = new MemoryExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(50, attributes));
+		mappedTable = new MappedExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(50, attributes));
+	}
+
+	public void tearDown() throws Exception {
+		attributes = null;
+		memoryTable = null;
+		mappedTable.close();
+		mappedTable = null;
+		super.tearDown();
+	}
+
+	private void assertTablesEqual(String message) {
+		assertEquals(message + " size", memoryTable.size(), mappedTable.size());
+		DataRowReader expectedReader = memoryTable.getDataRowReader();
+		DataRowReader actualReader = mappedTable.getDataRowReader();
+		int row = 0;
+		while (expectedReader.hasNext()) {
+			DataRow expected = expectedReader.next();
+			DataRow actual = actualReader.next();
+			for (Attribute attribute : attributes) {
+				assertEqualsNaN(message + " row " + row + " " + attribute.getName(), expected.get(attribute), actual.get(attribute));
+				assertEqualsNaN(message + " indexed row " + row + " " + attribute.getName(), expected.get(attribute), mappedTable.getDataRow(row).get(attribute));
+			}
+			row++;
+		}
+		assertFalse(message + " reader exhausted", actualReader.hasNext());
+	}
+
+	public void testRead() {
+		assertTablesEqual("read");
+	}
+
+	public void testSetValues() {
+		for (int i = 0; i < memoryTable.size(); i += 3) {
+			memoryTable.getDataRow(i).set(attributes[3], i);
+			mappedTable.getDataRow(i).set(attributes[3], i);
+			memoryTable.getDataRow(i).set(attributes[1], Double.NaN);
+			mappedTable.getDataRow(i).set(attributes[1], Double.NaN);
+		}
+		assertTablesEqual("set");
+	}
+
+	public void testAddRows() {
+		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.');
+		DataRow newRow = factory.create(new String[] { "mouse", "yes", "?", "1.5" }, attributes);
+		memoryTable.addDataRow(newRow);
+		mappedTable.addDataRow(newRow);
+		assertTablesEqual("add");
+		try {
+			mappedTable.removeDataRow(0);
+			fail("rows must not be removable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+
+	public void testAddAndRemoveAttributes() {
+		Attribute newAttribute = AttributeFactory.createAttribute("new", Ontology.REAL);
+		mappedTable.addAttribute(newAttribute);
+		for (int i = 0; i < mappedTable.size(); i++) {
+			assertEqualsNaN("new attribute", Double.NaN, mappedTable.getDataRow(i).get(newAttribute));
+			mappedTable.getDataRow(i).set(newAttribute, i * 0.5d);
+		}
+		for (int i = 0; i < mappedTable.size(); i++) {
+			assertEqualsNaN("new attribute", i * 0.5d, mappedTable.getDataRow(i).get(newAttribute));
+		}
+		mappedTable.removeAttribute(newAttribute);
+		assertTablesEqual("attributes");
+	}
+
+	public void testPermutation() {
+		mappedTable.readExamples(ExampleTestTools.createDataRowReader(50, attributes), true, new Random(2001));
+		List<String> permutated = getRows(mappedTable);
+		assertFalse("permutated", getRows(memoryTable).equals(permutated));
+		mappedTable.readExamples(ExampleTestTools.createDataRowReader(50, attributes), true, new Random(2001));
+		assertEquals("same seed", permutated, getRows(mappedTable));
+		List<String> expected = getRows(memoryTable);
+		Collections.sort(expected);
+		Collections.sort(permutated);
+		assertEquals("same rows", expected, permutated);
+	}
+
+	public void testSegmentGrowsWithTable() {
+		assertTrue("small file", mappedTable.getFile().length() < 1024 * 1024);
+		MappedExampleTable table = new MappedExampleTable(Arrays.asList(attributes), 1000);
+		try {
+			table.addDataRow(memoryTable.getDataRow(0));
+			assertEquals("mapped for expected size", 1000 * attributes.length * 8, table.getFile().length());
+			table.readExamples(ExampleTestTools.createDataRowReader(1500, attributes));
+			assertEquals("size", 1500, table.size());
+			assertEquals("grown", 2000 * attributes.length * 8, table.getFile().length());
+		} finally {
+			table.close();
+		}
+	}
+
+	public void testClose() {
+		MappedExampleTable table = new MappedExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(10, attributes));
+		File file = table.getFile();
+		assertTrue("file exists", file.exists());
+		table.close();
+		assertFalse("temporary file deleted", file.exists());
+		try {
+			table.addDataRow(memoryTable.getDataRow(0));
+			fail("closed table must not be usable");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	private List<String> getRows(MemoryExampleTable table) {
+		List<String> rows = new ArrayList<String>();
+		DataRowReader reader = table.getDataRowReader();
+		while (reader.hasNext()) {
+			DataRow row = reader.next();
+			StringBuffer values = new StringBuffer();
+			for (Attribute attribute : attributes)
+				values.append(row.get(attribute) + ",");
+			rows.add(values.toString());
+		}
+		return rows;
+	}
+
+	public void testFactory() {
+		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_MEMORY_MAPPED, '.');
+		MemoryExampleTable table = factory.createExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(factory, attributes, new String[][] { { "cat", "no", "3", "0.5" } }), false);
+		assertTrue(table instanceof MappedExampleTable);
+		((MappedExampleTable) table).getFile().delete();
+		assertEquals(1, table.size());
+		assertEqualsNaN("factory", 3.0d, table.getDataRow(0).get(attributes[2]));
+	}
+}
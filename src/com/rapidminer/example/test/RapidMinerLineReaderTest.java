@@ -0,0 +1,82 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import com.rapidminer.example.table.RapidMinerLineReader;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Tools;
+
+/**
+ * Tests that the splitting of the line reader without regular expressions
+ * delivers the same columns as {@link Pattern#split(CharSequence, int)}.
+ */
+public class RapidMinerLineReaderTest extends RapidMinerTestCase {
+
+	/** Simple separators which are split without regular expressions and some which are not. */
+	private static final String[] SEPARATORS = { ",\\s*|;\\s*|\\s+", ",\\s*|;\\s*", ",", ";", "\\t", " ", "\\s", "\\s+", "\\|", "\\.", "\\s+|,", "\t|\\s+", ",|\\s*", "[,;]", ",+", "a|b\\s*", "::", ";;|,", "ab" };
+
+	private static final String ALPHABET = "ab,;: \t.|x1\r";
+
+	private void assertSplit(String separators, boolean useQuotes, String line) throws Exception {
+		// the quotes are merged after splitting, so they have to be placed at column boundaries
+		RapidMinerLineReader reader = new RapidMinerLineReader(separators, null, useQuotes, false);
+		String[] expected = Pattern.compile(separators).split(line, -1);
+		if (useQuotes)
+			expected = Tools.mergeQuotedSplits(line, expected, "\"");
+		String[] columns = reader.split(line, -1, 1);
+		assertTrue("'" + separators + "' on '" + line + "': " + Arrays.toString(columns) + " instead of " + Arrays.toString(expected), Arrays.equals(expected, columns));
+	}
+
+	public void testDefaultSeparators() throws Exception {
+		String separators = ",\\s*|;\\s*|\\s+";
+		assertSplit(separators, false, "1, 2;3  4\t5");
+		assertSplit(separators, false, ",a,,b, ");
+		assertSplit(separators, false, "");
+		assertSplit(separators, true, "\"a, b\", c;\"d\"");
+		assertSplit(separators, true, "x \"quoted; value\" y");
+	}
+
+	public void testMultiCharacterSeparators() throws Exception {
+		assertSplit("::", false, "a::b:::c::");
+		assertSplit(";;|,", false, "a;;b;c,,d;;;e");
+		assertSplit(",\\s*", false, "a,   b,c,\t\td,");
+		assertSplit("\\s+", true, "\"a  b\"  c\t\"d\"");
+	}
+
+	public void testRandomLines() throws Exception {
+		Random random = new Random(2001);
+		for (String separators : SEPARATORS) {
+			for (int k = 0; k < 5000; k++) {
+				int length = random.nextInt(16);
+				StringBuffer line = new StringBuffer();
+				for (int i = 0; i < length; i++)
+					line.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+				assertSplit(separators, false, line.toString());
+			}
+		}
+	}
+}
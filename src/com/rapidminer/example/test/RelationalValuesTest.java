@@ -0,0 +1,87 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.example.test;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.RelationalValueStore;
+import com.rapidminer.example.table.RelationalValues;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+import de.tud.inf.example.table.RelationalAttribute;
+
+
+/**
+ * Tests the flat storage of relational values.
+ */
+public class RelationalValuesTest extends RapidMinerTestCase {
+
+	public void testCreateAndCopy() {
+		double[][] tuples = new double[][] { { 1, 2 }, { 3 }, { 5, 6 } };
+		RelationalValues values = RelationalValues.create(tuples);
+		assertEquals(3, values.getNumberOfTuples());
+		assertEquals(2, values.getTupleSize());
+		assertEqualsNaN("missing value", Double.NaN, values.get(1, 1));
+		assertEquals(6.0d, values.get(2, 1));
+		double[][] copy = values.toArray();
+		copy[0][0] = 10;
+		assertEquals(1.0d, values.get(0, 0));
+		assertEquals(3.0d, values.getColumn(0)[1]);
+	}
+
+	public void testStoreSharesSlabs() {
+		RelationalValueStore store = new RelationalValueStore();
+		RelationalValues first = store.allocate(10, 2);
+		RelationalValues second = store.allocate(5, 1);
+		assertSame(first.getData(), second.getData());
+		assertEquals(20, second.getOffset());
+		second.set(0, 0, 7);
+		assertEquals(0.0d, first.get(9, 1));
+		RelationalValues large = store.allocate(1 << 16, 1);
+		assertNotSame(first.getData(), large.getData());
+		assertEquals(0, large.getOffset());
+	}
+
+	public void testDataRow() {
+		DataRow row = new DoubleArrayDataRow(new double[1]);
+		assertNull(row.getRelationalValuesFor(0));
+		row.setRelationalValues(0, new double[][] { { 1 }, { 2 } });
+		assertEquals(2, row.getRelationalValuesFor(0).getNumberOfTuples());
+		assertEquals(2.0d, row.getRelativeValuesFor(0)[1][0]);
+
+		RelationalAttribute attribute = (RelationalAttribute)AttributeFactory.createAttribute("relational", Ontology.RELATIONAL);
+		attribute.addInnerAttribute(AttributeFactory.createAttribute("x", Ontology.REAL));
+		attribute.addInnerAttribute(AttributeFactory.createAttribute("y", Ontology.REAL));
+		attribute.setTableIndex(0);
+		DataRowFactory factory = new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, '.');
+		DataRow created = factory.create(new String[] { "1,2\n3,4\n5,6" }, new Attribute[] { attribute });
+		RelationalValues values = created.getRelationalValuesFor(0);
+		assertEquals(3, values.getNumberOfTuples());
+		assertEquals(2, values.getTupleSize());
+		assertEquals(4.0d, values.get(1, 1));
+	}
+}
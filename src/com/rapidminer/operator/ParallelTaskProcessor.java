@@ -0,0 +1,309 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.tools.Tools;
+
+
+/**
+ * Processes a number of tasks with several threads, e.g. the folds of a validation or the
+ * parameter combinations of an optimization. Each thread uses its own worker, usually clones
+ * of the inner operators, which is created once and reused by later runs of this processor.
+ * The threads take the tasks in their order and the results are handled by the calling thread,
+ * also in the order of the tasks. At most two tasks per thread are processed ahead of the
+ * handled one so that only few results are kept in memory.
+ * 
+ * <p>If a task fails, the other threads do not take further tasks and the error is thrown
+ * by {@link #run(int)}. The same happens if the process is stopped while the calling thread
+ * waits for a result. Without an operator, e.g. for the application of a model, the process
+ * is not checked for stop requests.</p>
+ * 
+ * <p>The tasks can record the time spent in named phases in the {@link PhaseMetrics} of the
+ * processor, which are reset for each run.</p>
+ * 
+ * @param <W> the type of the workers
+ * @param <R> the type of the results
+ */
+public abstract class ParallelTaskProcessor<W, R> {
+
+	/** The number of tasks and the time spent in named phases of the tasks. Can be updated by all threads concurrently. */
+	public static class PhaseMetrics {
+
+		/** The number of tasks and the nanoseconds spent for each phase. */
+		private final Map<String, AtomicLong[]> phases = new ConcurrentHashMap<String, AtomicLong[]>();
+
+		private volatile long startTime = 0;
+
+		private volatile long endTime = 0;
+
+		/** Adds a task which spent the given time in the given phase. */
+		public void add(String phase, long nanos) {
+			AtomicLong[] counters = phases.get(phase);
+			if (counters == null) {
+				synchronized (phases) {
+					counters = phases.get(phase);
+					if (counters == null) {
+						counters = new AtomicLong[] { new AtomicLong(), new AtomicLong() };
+						phases.put(phase, counters);
+					}
+				}
+			}
+			counters[0].incrementAndGet();
+			counters[1].addAndGet(nanos);
+		}
+
+		public long getNumberOfTasks(String phase) {
+			AtomicLong[] counters = phases.get(phase);
+			return counters == null ? 0 : counters[0].get();
+		}
+
+		public long getNanos(String phase) {
+			AtomicLong[] counters = phases.get(phase);
+			return counters == null ? 0 : counters[1].get();
+		}
+
+		/** Returns the elapsed wall clock time of the last run. */
+		public long getWallNanos() {
+			return (endTime == 0 ? System.nanoTime() : endTime) - startTime;
+		}
+
+		private void start() {
+			phases.clear();
+			startTime = System.nanoTime();
+			endTime = 0;
+		}
+
+		private void stop() {
+			endTime = System.nanoTime();
+		}
+
+		/** Returns the number of tasks, the average time per task and the throughput for each phase. */
+		public String toString() {
+			List<String> names = new ArrayList<String>(phases.keySet());
+			Collections.sort(names);
+			double wallSeconds = getWallNanos() / 1e9;
+			StringBuffer result = new StringBuffer();
+			for (String name : names) {
+				long tasks = getNumberOfTasks(name);
+				if (result.length() > 0)
+					result.append(", ");
+				result.append(name + ": " + tasks + " tasks, " 
+						+ Tools.formatNumber(getNanos(name) / 1e6 / Math.max(1, tasks)) + " ms per task, " 
+						+ Tools.formatNumber(wallSeconds > 0 ? tasks / wallSeconds : 0.0d) + " tasks/s");
+			}
+			return result.toString();
+		}
+	}
+
+	/** The time in milliseconds after which the stop check is invoked while waiting for a result. */
+	private static final long STOP_CHECK_INTERVAL = 100;
+
+	/** The operator whose process is checked for stop requests, might be null. */
+	private final Operator operator;
+
+	/** Describes the processing of the tasks for log and error messages, e.g. &quot;evaluating the folds&quot;. */
+	private final String description;
+
+	private final int numberOfThreads;
+
+	private final List<W> workers = new ArrayList<W>();
+
+	private final PhaseMetrics metrics = new PhaseMetrics();
+
+	/** The state of one run, which is guarded by the run itself. Threads of an aborted run do not affect later runs. */
+	private class Run {
+
+		private final int numberOfTasks;
+
+		private int nextTask = 0;
+
+		private int handledTasks = 0;
+
+		private final Map<Integer, R> results = new HashMap<Integer, R>();
+
+		/** Indicates that no further tasks should be taken. */
+		private boolean finished = false;
+
+		/** The first error of a task. */
+		private Throwable error = null;
+
+		private Run(int numberOfTasks) {
+			this.numberOfTasks = numberOfTasks;
+		}
+	}
+
+	/** Processes the tasks with the given number of threads, 0 means the number of available processors. */
+	public ParallelTaskProcessor(Operator operator, String description, int numberOfThreads) {
+		this.operator = operator;
+		this.description = description;
+		this.numberOfThreads = getNumberOfThreads(numberOfThreads);
+	}
+
+	/** Returns the number of available processors for 0 and the given number otherwise. */
+	public static int getNumberOfThreads(int numberOfThreads) {
+		return numberOfThreads == 0 ? Runtime.getRuntime().availableProcessors() : numberOfThreads;
+	}
+
+	/** Returns true if the given example set contains relational attributes, which cannot be copied for each thread. */
+	public static boolean containsRelationalAttributes(ExampleSet exampleSet) {
+		Iterator<Attribute> a = exampleSet.getAttributes().allAttributes();
+		while (a.hasNext()) {
+			if (a.next().isRelational())
+				return true;
+		}
+		return false;
+	}
+
+	/** Returns the number of threads, at most this number of tasks is processed at the same time. */
+	public int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	/** Returns the metrics which can be updated by the tasks and which are reset for each run. */
+	public PhaseMetrics getMetrics() {
+		return metrics;
+	}
+
+	/** Creates the worker of one thread. Invoked by the calling thread. */
+	protected abstract W createWorker() throws OperatorException;
+
+	/** 
+	 * Prepares the given task before it is processed. The tasks are prepared in their order 
+	 * and by one thread at a time. The default implementation does nothing.
+	 */
+	protected void prepareTask(int task) throws OperatorException {}
+
+	/** Processes the given task with the worker of the current thread. */
+	protected abstract R process(W worker, int task) throws OperatorException;
+
+	/** Handles the result of the given task. Invoked by the calling thread in the order of the tasks. */
+	protected abstract void handleResult(int task, R result) throws OperatorException;
+
+	/** Processes and handles the given number of tasks. */
+	public void run(int numberOfTasks) throws OperatorException {
+		int threads = Math.min(numberOfThreads, numberOfTasks);
+		while (workers.size() < threads)
+			workers.add(createWorker());
+		Run run = new Run(numberOfTasks);
+		boolean success = false;
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+		metrics.start();
+		try {
+			for (int t = 0; t < threads; t++)
+				executor.execute(new TaskWorker(run, workers.get(t)));
+			for (int task = 0; task < numberOfTasks; task++) {
+				R result;
+				synchronized (run) {
+					while ((run.error == null) && !run.results.containsKey(task)) {
+						run.wait(STOP_CHECK_INTERVAL);
+						if (operator != null)
+							operator.checkForStop();
+					}
+					if (run.error != null) {
+						if (run.error instanceof OperatorException)
+							throw (OperatorException)run.error;
+						throw new OperatorException("Error while " + description + ": " + run.error, run.error);
+					}
+					result = run.results.remove(task);
+					run.handledTasks = task + 1;
+					run.notifyAll();
+				}
+				handleResult(task, result);
+			}
+			success = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperatorException("Interrupted while " + description + ".");
+		} finally {
+			synchronized (run) {
+				run.finished = true;
+				run.results.clear();
+				run.notifyAll();
+			}
+			executor.shutdownNow();
+			metrics.stop();
+			// the workers of an aborted run might still be in use
+			if (!success)
+				workers.clear();
+		}
+	}
+
+	/** Takes the next task until all tasks are taken or the run is finished. */
+	private class TaskWorker implements Runnable {
+
+		private final Run run;
+
+		private final W worker;
+
+		private TaskWorker(Run run, W worker) {
+			this.run = run;
+			this.worker = worker;
+		}
+
+		public void run() {
+			try {
+				while (true) {
+					int task;
+					synchronized (run) {
+						while (!run.finished && (run.nextTask < run.numberOfTasks) && (run.nextTask - run.handledTasks >= 2 * numberOfThreads))
+							run.wait();
+						if (run.finished || (run.nextTask >= run.numberOfTasks))
+							return;
+						task = run.nextTask++;
+						prepareTask(task);
+					}
+					R result = process(worker, task);
+					synchronized (run) {
+						if (run.finished)
+							return;
+						run.results.put(task, result);
+						run.notifyAll();
+					}
+				}
+			} catch (InterruptedException e) {
+				// the run was aborted
+			} catch (Throwable e) {
+				// let the other threads stop after their current task
+				synchronized (run) {
+					if (run.error == null)
+						run.error = e;
+					run.finished = true;
+					run.notifyAll();
+				}
+			}
+		}
+	}
+}
@@ -26,6 +26,7 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -37,7 +38,6 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.AttributeWeightedExampleSet;
 import com.rapidminer.gui.dialog.IndividualSelector;
 import com.rapidminer.gui.dialog.StopDialog;
-import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
@@ -89,6 +89,10 @@ public abstract class FeatureOperator extends OperatorChain {
 	
 	public static final String PARAMETER_MAXIMAL_FITNESS = "maximal_fitness";
 	
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+	
+	public static final String PARAMETER_FITNESS_CACHE_SIZE = "fitness_cache_size";
+	
 	private static final Class[] OUTPUT_CLASSES = { ExampleSet.class, AttributeWeights.class, PerformanceVector.class };
 
 	private static final Class[] INPUT_CLASSES = { ExampleSet.class };
@@ -106,6 +110,9 @@ public abstract class FeatureOperator extends OperatorChain {
 
     private RandomGenerator random;
     
+    /** Evaluates the individuals with the inner operators. */
+    private WeightedExampleSetEvaluator evaluator;
+    
 	public FeatureOperator(OperatorDescription description) {
 		super(description);
 		addValue(new ValueDouble("generation", "The number of the current generation.") {
@@ -238,6 +245,7 @@ public abstract class FeatureOperator extends OperatorChain {
 		this.evaluationCounter = 0;
 		this.totalEvaluations = 0;
 		this.maximalFitness = getParameterAsDouble(PARAMETER_MAXIMAL_FITNESS);
+		this.evaluator = new WeightedExampleSetEvaluator(this, getNumberOfOperators(), true, getParameterAsInt(PARAMETER_NUMBER_OF_THREADS), getParameterAsInt(PARAMETER_FITNESS_CACHE_SIZE));
 
 		ExampleSet es = getInput(ExampleSet.class);
 
@@ -347,6 +355,7 @@ public abstract class FeatureOperator extends OperatorChain {
 		// normalize weights
 		weights.normalize();
 		
+		this.evaluator = null;
 		return new IOObject[] { weightedResultSet.createCleanClone(), weights, bestEver.getPerformance() };
 	}
 
@@ -372,11 +381,25 @@ public abstract class FeatureOperator extends OperatorChain {
 
 	/**
 	 * Evaluates all individuals in the population by applying the inner
-	 * operators.
+	 * operators. Several individuals are evaluated at the same time if 
+	 * more than one thread is used.
 	 */
 	protected void evaluate(Population population) throws OperatorException {
+		List<Individual> individuals = new ArrayList<Individual>();
+		List<AttributeWeightedExampleSet> exampleSets = new ArrayList<AttributeWeightedExampleSet>();
 		for (int i = 0; i < population.getNumberOfIndividuals(); i++) {
-			evaluate(population.get(i));
+			totalEvaluations++;
+			Individual individual = population.get(i);
+			if (individual.getPerformance() == null) {
+				individuals.add(individual);
+				exampleSets.add(individual.getExampleSet());
+			}
+		}
+		int evaluationsBefore = evaluator.getNumberOfEvaluations();
+		PerformanceVector[] performances = evaluator.evaluate(exampleSets);
+		evaluationCounter += evaluator.getNumberOfEvaluations() - evaluationsBefore;
+		for (int i = 0; i < performances.length; i++) {
+			individuals.get(i).setPerformance(performances[i]);
 		}
 	}
 
@@ -389,15 +412,9 @@ public abstract class FeatureOperator extends OperatorChain {
 		if (individual.getPerformance() != null) {
 			return individual.getPerformance();
 		} else {
-			evaluationCounter++;
-			AttributeWeightedExampleSet clone = individual.getExampleSet().createCleanClone();
-			IOObject[] operatorChainInput = new IOObject[] { clone };
-			IOContainer innerResult = getInput().prepend(operatorChainInput);
-			for (int i = 0; i < getNumberOfOperators(); i++) {
-				innerResult = getOperator(i).apply(innerResult);
-			}
-
-			PerformanceVector performanceVector = innerResult.remove(PerformanceVector.class);
+			int evaluationsBefore = evaluator.getNumberOfEvaluations();
+			PerformanceVector performanceVector = evaluator.evaluate(individual.getExampleSet());
+			evaluationCounter += evaluator.getNumberOfEvaluations() - evaluationsBefore;
 			individual.setPerformance(performanceVector);
 			return performanceVector;
 		}
@@ -466,6 +483,8 @@ public abstract class FeatureOperator extends OperatorChain {
 		types.add(new ParameterTypeBoolean(PARAMETER_DRAW_DOMINATED_POINTS, "Determines if only points which are not Pareto dominated should be painted.", true));
 		types.add(new ParameterTypeFile(PARAMETER_POPULATION_CRITERIA_DATA_FILE, "The path to the file in which the criteria data of the final population should be saved.", "cri", true));
 		types.add(new ParameterTypeDouble(PARAMETER_MAXIMAL_FITNESS, "The optimization will stop if the fitness reaches the defined maximum.", 0.0d, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for evaluating the individuals of a generation (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
+		types.add(new ParameterTypeInt(PARAMETER_FITNESS_CACHE_SIZE, "The maximal number of attribute subsets or weightings whose performance is cached, only for inner operators delivering the same performance for the same attributes (0: no caching).", 0, Integer.MAX_VALUE, 0));
 		return types;
 	}
 }
@@ -0,0 +1,252 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.features;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
+import com.rapidminer.example.set.AttributeWeightedExampleSet;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ParallelTaskProcessor;
+import com.rapidminer.operator.performance.PerformanceVector;
+
+
+/**
+ * Evaluates attribute weighted example sets, e.g. the individuals of a feature selection
+ * or weighting, with the inner operators of an operator chain. Several example sets can be 
+ * evaluated at the same time. In this case, each thread uses its own clone of the inner 
+ * operators and evaluates a copy of the example set in main memory so that the inner operators 
+ * of different threads do not change the same example table.
+ * 
+ * <p>Additionally, the performances can be cached for a bounded number of attribute weight
+ * vectors. Example sets with the same weights for the same attributes are then evaluated 
+ * only once. The cache should only be used if the inner operators deliver the same 
+ * performance for the same example set, i.e. if they do not use the global random generator.</p>
+ */
+public class WeightedExampleSetEvaluator {
+
+	/** The operator chain whose inner operators are used for the evaluation. */
+	private final OperatorChain chain;
+
+	/** The number of (enabled) inner operators which are applied. */
+	private final int numberOfOperators;
+
+	/** 
+	 * Indicates if {@link IOContainer#prepend(IOObject[])} or {@link IOContainer#append(IOObject[])} 
+	 * is used for adding the evaluated example set to the input of the chain.
+	 */
+	private final boolean prepend;
+
+	private final int numberOfThreads;
+
+	/** The cached performances, the least recently used entries are removed first. */
+	private final Map<List<Object>, PerformanceVector> cache;
+
+	/** Evaluates the example sets in parallel, each thread keeps its clones of the inner operators for later evaluations. */
+	private final ParallelTaskProcessor<List<Operator>, PerformanceVector> processor;
+
+	/** The example sets of the current evaluation, only used by the processor. */
+	private List<AttributeWeightedExampleSet> exampleSets;
+
+	/** The indices of the example sets which are evaluated by the processor. */
+	private List<Integer> evaluated;
+
+	/** The performances of the example sets of the current evaluation. */
+	private PerformanceVector[] performances;
+
+	private int numberOfEvaluations = 0;
+
+	private boolean relationalNoteLogged = false;
+
+	/** 
+	 * Creates a new evaluator which applies the first inner operators of the given chain. 
+	 * A cache size of 0 disables the caching of performances, 0 threads use all available
+	 * processors.
+	 */
+	public WeightedExampleSetEvaluator(OperatorChain chain, int numberOfOperators, boolean prepend, int numberOfThreads, final int cacheSize) {
+		this.chain = chain;
+		this.numberOfOperators = numberOfOperators;
+		this.prepend = prepend;
+		this.numberOfThreads = ParallelTaskProcessor.getNumberOfThreads(numberOfThreads);
+		this.processor = new ParallelTaskProcessor<List<Operator>, PerformanceVector>(chain, "evaluating the example sets", numberOfThreads) {
+
+			protected List<Operator> createWorker() {
+				return createInnerOperatorClones();
+			}
+
+			protected PerformanceVector process(List<Operator> operators, int task) throws OperatorException {
+				AttributeWeightedExampleSet cleanClone = exampleSets.get(evaluated.get(task)).createCleanClone();
+				ExampleSet copy = Tools.getLinearSubsetCopy(cleanClone, cleanClone.size(), 0);
+				return apply(operators, copy);
+			}
+
+			protected void handleResult(int task, PerformanceVector performance) {
+				performances[evaluated.get(task)] = performance;
+			}
+		};
+		if (cacheSize > 0) {
+			this.cache = new LinkedHashMap<List<Object>, PerformanceVector>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 4165128371936492318L;
+
+				protected boolean removeEldestEntry(Map.Entry<List<Object>, PerformanceVector> eldest) {
+					return size() > cacheSize;
+				}
+			};
+		} else {
+			this.cache = null;
+		}
+	}
+
+	/** Returns the number of example sets which were actually evaluated by the inner operators. */
+	public int getNumberOfEvaluations() {
+		return numberOfEvaluations;
+	}
+
+	/** Evaluates the given example set. */
+	public PerformanceVector evaluate(AttributeWeightedExampleSet exampleSet) throws OperatorException {
+		return evaluate(Collections.singletonList(exampleSet))[0];
+	}
+
+	/**
+	 * Evaluates the given example sets and returns their performances in the same order. The
+	 * zero weighted attributes are removed before the inner operators are applied.
+	 */
+	public PerformanceVector[] evaluate(List<AttributeWeightedExampleSet> exampleSets) throws OperatorException {
+		PerformanceVector[] performances = new PerformanceVector[exampleSets.size()];
+		
+		// only evaluate example sets which are neither cached nor equal to a previous one
+		List<Integer> evaluated = new ArrayList<Integer>();
+		List<List<Object>> keys = new ArrayList<List<Object>>(exampleSets.size());
+		Map<List<Object>, Integer> firstOccurrences = new HashMap<List<Object>, Integer>();
+		for (int i = 0; i < exampleSets.size(); i++) {
+			List<Object> key = null;
+			if (cache != null) {
+				key = createKey(exampleSets.get(i));
+				performances[i] = cache.get(key);
+				if ((performances[i] == null) && !firstOccurrences.containsKey(key)) {
+					firstOccurrences.put(key, i);
+					evaluated.add(i);
+				}
+			} else {
+				evaluated.add(i);
+			}
+			keys.add(key);
+		}
+
+		int threads = Math.min(numberOfThreads, evaluated.size());
+		if ((threads > 1) && containsRelationalAttributes(exampleSets.get(0)))
+			threads = 1;
+		if (threads > 1) {
+			evaluateInParallel(exampleSets, evaluated, performances);
+		} else {
+			List<Operator> operators = new ArrayList<Operator>(numberOfOperators);
+			for (int i = 0; i < numberOfOperators; i++)
+				operators.add(chain.getOperator(i));
+			for (int i : evaluated)
+				performances[i] = apply(operators, exampleSets.get(i).createCleanClone());
+		}
+		numberOfEvaluations += evaluated.size();
+
+		if (cache != null) {
+			for (int i : evaluated)
+				cache.put(keys.get(i), performances[i]);
+			for (int i = 0; i < performances.length; i++) {
+				if (performances[i] == null)
+					performances[i] = performances[firstOccurrences.get(keys.get(i))];
+			}
+		}
+		return performances;
+	}
+
+	/** Evaluates the example sets with the given indices with the processor. */
+	private void evaluateInParallel(List<AttributeWeightedExampleSet> exampleSets, List<Integer> evaluated, PerformanceVector[] performances) throws OperatorException {
+		this.exampleSets = exampleSets;
+		this.evaluated = evaluated;
+		this.performances = performances;
+		try {
+			processor.run(evaluated.size());
+		} finally {
+			this.exampleSets = null;
+			this.evaluated = null;
+			this.performances = null;
+		}
+	}
+
+	/** Returns clones of the inner operators which are applied. */
+	private List<Operator> createInnerOperatorClones() {
+		List<Operator> clones = new ArrayList<Operator>(numberOfOperators);
+		for (int i = 0; i < numberOfOperators; i++) {
+			Operator original = chain.getOperator(i);
+			Operator clone = original.cloneOperator(original.getName());
+			clone.setParent(chain);
+			clones.add(clone);
+		}
+		return clones;
+	}
+
+	/** Applies the given operators to the example set and the input of the chain and returns the delivered performance. */
+	private PerformanceVector apply(List<Operator> operators, ExampleSet exampleSet) throws OperatorException {
+		IOObject[] exampleSetInput = new IOObject[] { exampleSet };
+		IOContainer innerResult = prepend ? chain.getInput().prepend(exampleSetInput) : chain.getInput().append(exampleSetInput);
+		for (Operator operator : operators)
+			innerResult = operator.apply(innerResult);
+		return innerResult.remove(PerformanceVector.class);
+	}
+
+	/** Relational attributes cannot be copied, hence such example sets are evaluated sequentially. */
+	private boolean containsRelationalAttributes(ExampleSet exampleSet) {
+		if (ParallelTaskProcessor.containsRelationalAttributes(exampleSet)) {
+			if (!relationalNoteLogged) {
+				chain.logNote("Relational attributes cannot be copied, example sets are evaluated sequentially.");
+				relationalNoteLogged = true;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/** Returns the names and weights of all used attributes in their order. */
+	private static List<Object> createKey(AttributeWeightedExampleSet exampleSet) {
+		List<Object> key = new ArrayList<Object>();
+		for (Attribute attribute : exampleSet.getAttributes()) {
+			double weight = exampleSet.getWeight(attribute);
+			if (!com.rapidminer.tools.Tools.isZero(weight)) {
+				key.add(attribute.getName());
+				key.add(weight);
+			}
+		}
+		return key;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.features.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.AttributeWeightedExampleSet;
+import com.rapidminer.example.test.ExampleTestTools;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.condition.InnerOperatorCondition;
+import com.rapidminer.operator.condition.LastInnerOperatorCondition;
+import com.rapidminer.operator.features.WeightedExampleSetEvaluator;
+import com.rapidminer.operator.performance.EstimatedPerformance;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.test.RapidMinerTestCase;
+
+/**
+ * Tests the fitness cache of the weighted example set evaluator: cache hits, the removal of 
+ * the least recently used weights and equal individuals within one generation.
+ */
+public class WeightedExampleSetEvaluatorTest extends RapidMinerTestCase {
+
+	/** The number of applications of all evaluator clones. */
+	private static final AtomicInteger applications = new AtomicInteger();
+
+	/** Delivers the sum of all absolute attribute values as performance, fails for infinite sums. */
+	public static class SumEvaluator extends Operator {
+
+		public SumEvaluator(OperatorDescription description) {
+			super(description);
+		}
+
+		public IOObject[] apply() throws OperatorException {
+			applications.incrementAndGet();
+			ExampleSet exampleSet = getInput(ExampleSet.class);
+			double sum = 0.0d;
+			for (Example example : exampleSet) {
+				for (Attribute attribute : exampleSet.getAttributes())
+					sum += Math.abs(example.getValue(attribute));
+			}
+			if (Double.isInfinite(sum))
+				throw new OperatorException("infinite sum");
+			PerformanceVector performance = new PerformanceVector();
+			performance.addCriterion(new EstimatedPerformance("sum", sum, exampleSet.size(), false));
+			return new IOObject[] { performance };
+		}
+
+		public Class<?>[] getInputClasses() {
+			return new Class[] { ExampleSet.class };
+		}
+
+		public Class<?>[] getOutputClasses() {
+			return new Class[] { PerformanceVector.class };
+		}
+	}
+
+	/** Provides the inner operator for the evaluator. */
+	public static class EvaluationChain extends OperatorChain {
+
+		public EvaluationChain(OperatorDescription description) {
+			super(description);
+		}
+
+		public IOObject[] apply() {
+			return new IOObject[0];
+		}
+
+		public InnerOperatorCondition getInnerOperatorCondition() {
+			return new LastInnerOperatorCondition(new Class[] { ExampleSet.class }, new Class[] { PerformanceVector.class });
+		}
+
+		public int getMaxNumberOfInnerOperators() {
+			return 1;
+		}
+
+		public int getMinNumberOfInnerOperators() {
+			return 1;
+		}
+
+		public Class<?>[] getInputClasses() {
+			return new Class[0];
+		}
+
+		public Class<?>[] getOutputClasses() {
+			return new Class[0];
+		}
+	}
+
+	private ExampleSet exampleSet;
+
+	private OperatorChain chain;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		exampleSet = ExampleTestTools.createGaussianClassificationSet(50, 2);
+
+		chain = new EvaluationChain(new OperatorDescription(getClass().getClassLoader(), "chain", EvaluationChain.class.getName(), "", "", "", null, null));
+		chain.addOperator(new SumEvaluator(new OperatorDescription(getClass().getClassLoader(), "evaluator", SumEvaluator.class.getName(), "", "", "", null, null)));
+		// sets the input which is passed to the inner operator
+		chain.apply(new IOContainer());
+		applications.set(0);
+	}
+
+	public void tearDown() throws Exception {
+		exampleSet = null;
+		chain = null;
+		super.tearDown();
+	}
+
+	/** Creates an individual with the given attribute weights. */
+	private AttributeWeightedExampleSet createIndividual(double... weights) {
+		AttributeWeightedExampleSet individual = new AttributeWeightedExampleSet(exampleSet, null, 1.0d);
+		int i = 0;
+		for (Attribute attribute : individual.getAttributes())
+			individual.setWeight(attribute, weights[i++]);
+		return individual;
+	}
+
+	private double evaluate(WeightedExampleSetEvaluator evaluator, AttributeWeightedExampleSet individual) throws OperatorException {
+		return evaluator.evaluate(individual).getMainCriterion().getAverage();
+	}
+
+	private void assertEvaluations(String message, int expected, WeightedExampleSetEvaluator evaluator) {
+		assertEquals(message, expected, evaluator.getNumberOfEvaluations());
+		assertEquals(message + " (inner operator applications)", expected, applications.get());
+	}
+
+	public void testCacheHits() throws OperatorException {
+		WeightedExampleSetEvaluator evaluator = new WeightedExampleSetEvaluator(chain, 1, false, 1, 10);
+		WeightedExampleSetEvaluator uncached = new WeightedExampleSetEvaluator(chain, 1, false, 1, 0);
+		AttributeWeightedExampleSet[] individuals = new AttributeWeightedExampleSet[] { 
+				createIndividual(1, 0, 1, 0), createIndividual(1, 1, 1, 1), createIndividual(0.5, 0, 0, 2) };
+		double[] expected = new double[individuals.length];
+		for (int i = 0; i < individuals.length; i++)
+			expected[i] = evaluate(uncached, individuals[i]);
+		applications.set(0);
+		
+		for (int i = 0; i < individuals.length; i++)
+			assertEquals("first evaluation", expected[i], evaluate(evaluator, individuals[i]), 0.0d);
+		assertEvaluations("first evaluations", individuals.length, evaluator);
+		for (int i = individuals.length - 1; i >= 0; i--)
+			assertEquals("cached evaluation", expected[i], evaluate(evaluator, individuals[i]), 0.0d);
+		// equal weights of other example sets are also cached
+		assertEquals("equal weights", expected[0], evaluate(evaluator, createIndividual(1, 0, 1, 0)), 0.0d);
+		assertEvaluations("cache hits", individuals.length, evaluator);
+		// the zero weighted attributes are not used
+		assertEquals("different weights", expected[0] * 2, evaluate(evaluator, createIndividual(2, 0, 2, 0)), 1e-9);
+		assertEvaluations("cache miss", individuals.length + 1, evaluator);
+	}
+
+	public void testLeastRecentlyUsedEviction() throws OperatorException {
+		WeightedExampleSetEvaluator evaluator = new WeightedExampleSetEvaluator(chain, 1, false, 1, 2);
+		AttributeWeightedExampleSet a = createIndividual(1, 0, 0, 0);
+		AttributeWeightedExampleSet b = createIndividual(0, 1, 0, 0);
+		AttributeWeightedExampleSet c = createIndividual(0, 0, 1, 0);
+		evaluate(evaluator, a);
+		evaluate(evaluator, b);
+		assertEvaluations("filled cache", 2, evaluator);
+		// a becomes the most recently used entry, hence b is removed for c
+		evaluate(evaluator, a);
+		assertEvaluations("hit a", 2, evaluator);
+		evaluate(evaluator, c);
+		assertEvaluations("added c", 3, evaluator);
+		evaluate(evaluator, a);
+		evaluate(evaluator, c);
+		assertEvaluations("hit a and c", 3, evaluator);
+		evaluate(evaluator, b);
+		assertEvaluations("removed b", 4, evaluator);
+		// b replaced a
+		evaluate(evaluator, c);
+		assertEvaluations("hit c", 4, evaluator);
+		evaluate(evaluator, a);
+		assertEvaluations("removed a", 5, evaluator);
+	}
+
+	public void testEqualIndividualsInOneGeneration() throws OperatorException {
+		for (int numberOfThreads = 1; numberOfThreads <= 4; numberOfThreads *= 2) {
+			WeightedExampleSetEvaluator uncached = new WeightedExampleSetEvaluator(chain, 1, false, numberOfThreads, 0);
+			WeightedExampleSetEvaluator cached = new WeightedExampleSetEvaluator(chain, 1, false, numberOfThreads, 10);
+			List<AttributeWeightedExampleSet> generation = Arrays.asList(new AttributeWeightedExampleSet[] { 
+					createIndividual(1, 0, 1, 0), createIndividual(0, 1, 1, 1), createIndividual(1, 0, 1, 0), 
+					createIndividual(1, 0, 1, 0), createIndividual(3, 0, 0, 0), createIndividual(0, 1, 1, 1) });
+			String message = numberOfThreads + " threads";
+			
+			applications.set(0);
+			PerformanceVector[] expected = uncached.evaluate(generation);
+			assertEvaluations("uncached evaluations with " + message, generation.size(), uncached);
+			
+			applications.set(0);
+			PerformanceVector[] performances = cached.evaluate(generation);
+			assertEvaluations("cached evaluations with " + message, 3, cached);
+			for (int i = 0; i < generation.size(); i++)
+				assertEquals("performance " + i + " with " + message, expected[i].getMainCriterion().getAverage(), performances[i].getMainCriterion().getAverage(), 0.0d);
+			assertSame("equal individuals with " + message, performances[0], performances[2]);
+			assertSame("equal individuals with " + message, performances[0], performances[3]);
+			assertSame("equal individuals with " + message, performances[1], performances[5]);
+			
+			// the next generation only evaluates new individuals
+			applications.set(0);
+			cached.evaluate(Arrays.asList(new AttributeWeightedExampleSet[] { createIndividual(3, 0, 0, 0), createIndividual(1, 1, 1, 1), createIndividual(1, 1, 1, 1) }));
+			assertEquals("applications for next generation with " + message, 1, applications.get());
+			assertEquals("evaluations for next generation with " + message, 4, cached.getNumberOfEvaluations());
+		}
+	}
+
+	public void testFailure() {
+		List<AttributeWeightedExampleSet> generation = new ArrayList<AttributeWeightedExampleSet>();
+		generation.add(createIndividual(Double.POSITIVE_INFINITY, 0, 0, 0));
+		for (int i = 1; i < 100; i++)
+			generation.add(createIndividual(i, 1, 1, 1));
+		WeightedExampleSetEvaluator evaluator = new WeightedExampleSetEvaluator(chain, 1, false, 2, 0);
+		try {
+			evaluator.evaluate(generation);
+			fail("error not thrown");
+		} catch (OperatorException e) {
+			assertEquals("infinite sum", e.getMessage());
+		}
+		// the other thread stops after its current individual
+		assertTrue("stopped after failure", applications.get() < generation.size());
+	}
+}
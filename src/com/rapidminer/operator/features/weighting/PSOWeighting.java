@@ -22,21 +22,21 @@
  */
 package com.rapidminer.operator.features.weighting;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeWeights;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.AttributeWeightedExampleSet;
-import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.IOObject;
-import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.condition.InnerOperatorCondition;
 import com.rapidminer.operator.condition.LastInnerOperatorCondition;
+import com.rapidminer.operator.features.WeightedExampleSetEvaluator;
 import com.rapidminer.operator.performance.PerformanceVector;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
@@ -89,6 +89,13 @@ public class PSOWeighting extends OperatorChain {
 
 	/** The parameter name for &quot;Use the given random seed instead of global random numbers (-1: use global).&quot; */
 	public static final String PARAMETER_LOCAL_RANDOM_SEED = "local_random_seed";
+
+	/** The parameter name for &quot;The number of threads used for evaluating the individuals of a generation (0: number of available processors).&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** The parameter name for &quot;The maximal number of weightings whose performance is cached (0: no caching).&quot; */
+	public static final String PARAMETER_FITNESS_CACHE_SIZE = "fitness_cache_size";
+	
 	private static final Class[] OUTPUT_CLASSES = { ExampleSet.class, AttributeWeights.class, PerformanceVector.class };
 
 	private static final Class[] INPUT_CLASSES = { ExampleSet.class };
@@ -109,7 +116,12 @@ public class PSOWeighting extends OperatorChain {
 		 * best weights.
 		 */
 		public PerformanceVector evaluateIndividual(double[] individual) throws OperatorException {
-			return op.evaluateIndividual(individual);
+			return op.evaluateIndividuals(new double[][] { individual })[0];
+		}
+
+		/** Evaluates all individuals of a generation at once. */
+		public PerformanceVector[] evaluateIndividuals(double[][] individuals) throws OperatorException {
+			return op.evaluateIndividuals(individuals);
 		}
         
         public void nextIteration() throws OperatorException {
@@ -122,6 +134,8 @@ public class PSOWeighting extends OperatorChain {
 
 	private ExampleSet exampleSet;
 
+	private WeightedExampleSetEvaluator evaluator;
+
 	public PSOWeighting(OperatorDescription description) {
 		super(description);
 		addValue(new ValueDouble("generation", "The number of the current generation.") {
@@ -144,10 +158,12 @@ public class PSOWeighting extends OperatorChain {
 	public IOObject[] apply() throws OperatorException {
 		// optimization
 		this.exampleSet = getInput(ExampleSet.class);
+		this.evaluator = new WeightedExampleSetEvaluator(this, 1, false, getParameterAsInt(PARAMETER_NUMBER_OF_THREADS), getParameterAsInt(PARAMETER_FITNESS_CACHE_SIZE));
 		this.optimization = 
             new PSOWeightingOptimization(this, this.exampleSet.getAttributes().size(),
             RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED)));
 		this.optimization.optimize();
+		this.evaluator = null;
 
 		// create and return result
 		double[] globalBestWeights = optimization.getBestValuesEver();
@@ -166,24 +182,32 @@ public class PSOWeighting extends OperatorChain {
 		return new IOObject[] { result, weights, optimization.getBestPerformanceEver() };
 	}
 
-	private PerformanceVector evaluateIndividual(double[] individual) throws OperatorException {
-		// check if all weights are zero
-		boolean onlyZeros = true;
+	/** 
+	 * Uses the first inner operator for the performance estimation of the given
+	 * individuals. Individuals with only zero weights are not evaluated and deliver null.
+	 */
+	private PerformanceVector[] evaluateIndividuals(double[][] individuals) throws OperatorException {
+		List<AttributeWeightedExampleSet> evaluationSets = new ArrayList<AttributeWeightedExampleSet>();
+		for (double[] individual : individuals) {
+			if (!onlyZeros(individual))
+				evaluationSets.add(createWeightedExampleSet(individual));
+		}
+		PerformanceVector[] performances = evaluator.evaluate(evaluationSets);
+		PerformanceVector[] fitnessValues = new PerformanceVector[individuals.length];
+		int index = 0;
+		for (int i = 0; i < individuals.length; i++) {
+			if (!onlyZeros(individuals[i]))
+				fitnessValues[i] = performances[index++];
+		}
+		return fitnessValues;
+	}
+
+	private boolean onlyZeros(double[] individual) {
 		for (int i = 0; i < individual.length; i++) {
-			if (individual[i] != 0.0d) {
-				onlyZeros = false;
-				break;
-			}
+			if (individual[i] != 0.0d)
+				return false;
 		}
-		if (onlyZeros)
-			return null;
-
-		// use inner validation for performance estimation
-		AttributeWeightedExampleSet evaluationSet = createWeightedExampleSet(individual).createCleanClone();
-		Operator operatorChain = getOperator(0);
-		IOObject[] operatorChainInput = new IOObject[] { evaluationSet };
-		IOContainer innerResult = operatorChain.apply(getInput().append(operatorChainInput));
-		return innerResult.remove(PerformanceVector.class);
+		return true;
 	}
 
 	private AttributeWeightedExampleSet createWeightedExampleSet(double[] weights) {
@@ -237,6 +261,8 @@ public class PSOWeighting extends OperatorChain {
 		types.add(new ParameterTypeDouble(PARAMETER_MIN_WEIGHT, "The lower bound for the weights.", Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0.0d));
 		types.add(new ParameterTypeDouble(PARAMETER_MAX_WEIGHT, "The upper bound for the weights.", Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 1.0d));
         types.add(new ParameterTypeInt(PARAMETER_LOCAL_RANDOM_SEED, "Use the given random seed instead of global random numbers (-1: use global).", -1, Integer.MAX_VALUE, -1));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for evaluating the individuals of a generation (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
+		types.add(new ParameterTypeInt(PARAMETER_FITNESS_CACHE_SIZE, "The maximal number of weightings whose performance is cached, only for inner operators delivering the same performance for the same weights (0: no caching).", 0, Integer.MAX_VALUE, 0));
 		return types;
 	}
 }
@@ -23,7 +23,6 @@
 package com.rapidminer.operator.generator;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
@@ -32,7 +31,6 @@ import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.ExampleTable;
-import com.rapidminer.example.table.ListDataRowReader;
 import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
@@ -227,12 +225,11 @@ public class ExampleSetGenerator extends Operator {
 		if(!addLabel) label = null;
 		if (label != null)
 			attributes.add(label);
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
+		MemoryExampleTable table = factory.createExampleTable(attributes);
 
 		// create data
 		RandomGenerator random = RandomGenerator.getRandomGenerator(seed);
-		List<DataRow> data = new LinkedList<DataRow>();
-        DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
 		try {
 			function.init(random);
 			for (int n = 0; n < numberOfExamples; n++) {
@@ -243,19 +240,16 @@ public class ExampleSetGenerator extends Operator {
 					System.arraycopy(features, 0, example, 0, features.length);
 					example[example.length - 1] = function.calculate(features);
 				}
-                DataRow row = factory.create(example.length);
-                for (int i = 0; i < example.length; i++)
-                    row.set(attributes.get(i), example[i]);
-                row.trim();
-				data.add(row);
+				DataRow row = factory.create(example.length);
+				for (int i = 0; i < example.length; i++)
+					row.set(attributes.get(i), example[i]);
+				row.trim();
+				table.addDataRow(row);
 			}
 		} catch (TargetFunction.FunctionException e) {
 			throw new UserError(this, 918, e.getFunctionName(), e.getMessage());
 		}
 
-		// fill table with data
-		table.readExamples(new ListDataRowReader(data.iterator()));
-		
 		return table;
 	}
 	
@@ -82,9 +82,9 @@ public class ArffReader {
         }
        
         // fill data table
-        MemoryExampleTable table = new MemoryExampleTable(attributes);
-        Attribute[] attributeArray = table.getAttributes();
         DataRowFactory factory = new DataRowFactory(arffES.getParameterAsInt(PARAMETER_DATAMANAGEMENT), arffES.getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+        MemoryExampleTable table = factory.createExampleTable(attributes);
+        Attribute[] attributeArray = table.getAttributes();
         int maxRows = arffES.getParameterAsInt(PARAMETER_SAMPLE_SIZE);
         double sampleProb = arffES.getParameterAsDouble(PARAMETER_SAMPLE_RATIO);
         Random random = RandomGenerator.getRandomGenerator(arffES.getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
@@ -0,0 +1,193 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+
+import de.tud.inf.example.table.RelationalAttribute;
+
+
+/**
+ * <p>Constants and helper methods of the binary columnar example set format written
+ * by the {@link BinaryExampleSetWriter} and read by the {@link BinaryExampleSource}.</p>
+ *
+ * <p>A file starts with the magic number and the format version. It is followed by
+ * one block per column, each starting at a multiple of eight bytes, and ends with
+ * the meta data and the position of the meta data:</p>
+ * <ul>
+ * <li><b>double columns</b> contain one double per row, missing values are NaN.</li>
+ * <li><b>integer columns</b> store the indices of nominal values as one int per row,
+ *     missing values are {@link #MISSING_INT}.</li>
+ * <li><b>relational columns</b> contain the number of tuples of each row as int
+ *     (-1 if the row has no relational values) followed by the values of all
+ *     tuples as doubles.</li>
+ * <li>The <b>meta data</b> contains the number of rows and for each column the
+ *     attribute (name, value type, block type, nominal mapping and inner attributes),
+ *     its role, storage type and the position of its block. It is followed by the
+ *     descriptions of the complex attributes which refer to the columns by position.</li>
+ * <li>The <b>trailer</b> contains the position of the meta data as long and the magic
+ *     number again.</li>
+ * </ul>
+ *
+ * <p>All values are stored in big endian byte order.</p>
+ */
+public class BinaryExampleSetFormat {
+
+	/** The magic number at the beginning and the end of each file. */
+	public static final int MAGIC = 0x524D4342;
+
+	/** The version of the format. Readers reject files with a higher version. */
+	public static final int VERSION = 1;
+
+	/** The number of bytes before the first column block. */
+	public static final int HEADER_LENGTH = 8;
+
+	/** The number of bytes after the meta data. */
+	public static final int TRAILER_LENGTH = 12;
+
+	public static final int STORAGE_DOUBLE = 0;
+
+	public static final int STORAGE_INT = 1;
+
+	public static final int STORAGE_RELATIONAL = 2;
+
+	/** The value used for missing values in integer columns. */
+	public static final int MISSING_INT = Integer.MIN_VALUE;
+
+	/** The maximal number of bytes which are mapped at once. */
+	private static final int MAX_MAPPED_BYTES = 1 << 30;
+
+	private BinaryExampleSetFormat() {}
+
+	/** Returns the storage type for the given attribute. */
+	public static int getStorageType(Attribute attribute) {
+		if (attribute.isRelational())
+			return STORAGE_RELATIONAL;
+		else if (attribute.isNominal())
+			return STORAGE_INT;
+		else
+			return STORAGE_DOUBLE;
+	}
+
+	/** Returns the number of bytes needed to pad the given position to a multiple of eight. */
+	public static int getPadding(long position) {
+		return (int)((8 - (position % 8)) % 8);
+	}
+
+	/** Writes the meta data of the given attribute including the nominal mapping and the inner attributes. */
+	public static void writeAttribute(DataOutput out, Attribute attribute) throws IOException {
+		out.writeUTF(attribute.getName());
+		out.writeInt(attribute.getValueType());
+		out.writeInt(attribute.getBlockType());
+		if (attribute.isNominal()) {
+			List<String> values = attribute.getMapping().getValues();
+			out.writeInt(values.size());
+			for (String value : values)
+				out.writeUTF(value);
+		} else if (attribute.isRelational()) {
+			List<Attribute> innerAttributes = ((RelationalAttribute)attribute).getInnerAttributes();
+			out.writeInt(innerAttributes.size());
+			for (Attribute innerAttribute : innerAttributes)
+				writeAttribute(out, innerAttribute);
+		}
+	}
+
+	/** Reads an attribute written by {@link #writeAttribute(DataOutput, Attribute)}. */
+	public static Attribute readAttribute(DataInput in) throws IOException {
+		String name = in.readUTF();
+		int valueType = in.readInt();
+		int blockType = in.readInt();
+		Attribute attribute = AttributeFactory.createAttribute(name, valueType);
+		attribute.setBlockType(blockType);
+		if (attribute.isNominal()) {
+			int numberOfValues = in.readInt();
+			for (int i = 0; i < numberOfValues; i++)
+				attribute.getMapping().mapString(in.readUTF());
+		} else if (attribute.isRelational()) {
+			int numberOfInnerAttributes = in.readInt();
+			List<Attribute> innerAttributes = new ArrayList<Attribute>(numberOfInnerAttributes);
+			for (int i = 0; i < numberOfInnerAttributes; i++)
+				innerAttributes.add(readAttribute(in));
+			((RelationalAttribute)attribute).setInnerAttributes(innerAttributes);
+		}
+		return attribute;
+	}
+
+	/** Writes an int array which might be null. */
+	public static void writeIndices(DataOutput out, int[] indices) throws IOException {
+		if (indices == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(indices.length);
+			for (int index : indices)
+				out.writeInt(index);
+		}
+	}
+
+	/** Reads an int array written by {@link #writeIndices(DataOutput, int[])}. */
+	public static int[] readIndices(DataInput in) throws IOException {
+		int length = in.readInt();
+		if (length < 0)
+			return null;
+		int[] indices = new int[length];
+		for (int i = 0; i < length; i++)
+			indices[i] = in.readInt();
+		return indices;
+	}
+
+	/** Writes a string which might be null. */
+	public static void writeString(DataOutput out, String string) throws IOException {
+		out.writeBoolean(string != null);
+		if (string != null)
+			out.writeUTF(string);
+	}
+
+	/** Reads a string written by {@link #writeString(DataOutput, String)}. */
+	public static String readString(DataInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * Maps the given region of the file read only. Regions larger than 1 GB are split
+	 * into several buffers whose lengths are multiples of the given element size.
+	 */
+	public static ByteBuffer[] map(FileChannel channel, long position, long length, int elementSize) throws IOException {
+		long chunkSize = MAX_MAPPED_BYTES - (MAX_MAPPED_BYTES % elementSize);
+		int numberOfChunks = (int)Math.max(1, (length + chunkSize - 1) / chunkSize);
+		ByteBuffer[] buffers = new ByteBuffer[numberOfChunks];
+		for (int i = 0; i < numberOfChunks; i++) {
+			long start = i * chunkSize;
+			buffers[i] = channel.map(FileChannel.MapMode.READ_ONLY, position + start, Math.min(chunkSize, length - start));
+		}
+		return buffers;
+	}
+}
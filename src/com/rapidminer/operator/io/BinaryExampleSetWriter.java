@@ -0,0 +1,259 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.RelationalValues;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeFile;
+
+import de.tud.inf.example.set.ComplexExampleSet;
+import de.tud.inf.example.table.ComplexAttributeDescription;
+import de.tud.inf.example.table.ComplexExampleTable;
+import de.tud.inf.example.table.RelationalAttribute;
+
+
+/**
+ * <p>Writes the example set into a binary columnar file which can be read again
+ * with the {@link BinaryExampleSource}. In contrast to the text formats, the values
+ * are stored without any conversion and the attribute meta data, the roles, the
+ * nominal mappings and the descriptions of complex attributes are preserved, so
+ * intermediate results can be reloaded quickly. The format is described in
+ * {@link BinaryExampleSetFormat}.</p>
+ *
+ * <p>For complex example sets the attributes of the underlying example table are
+ * written together with the descriptions of the complex attributes built from them.</p>
+ *
+ * @rapidminer.index binary
+ */
+public class BinaryExampleSetWriter extends Operator {
+
+	/** The parameter name for &quot;File to save the example set to.&quot; */
+	public static final String PARAMETER_EXAMPLE_SET_FILE = "example_set_file";
+
+	private static final Class[] INPUT_CLASSES = { ExampleSet.class };
+
+	private static final Class[] OUTPUT_CLASSES = { ExampleSet.class };
+
+	public BinaryExampleSetWriter(OperatorDescription description) {
+		super(description);
+	}
+
+	public IOObject[] apply() throws OperatorException {
+		ExampleSet exampleSet = getInput(ExampleSet.class);
+		File file = getParameterAsFile(PARAMETER_EXAMPLE_SET_FILE);
+		try {
+			write(exampleSet, file);
+		} catch (IOException e) {
+			throw new UserError(this, e, 303, new Object[] { getParameterAsString(PARAMETER_EXAMPLE_SET_FILE), e.getMessage() });
+		}
+		return new IOObject[] { exampleSet };
+	}
+
+	/** Writes the given example set into the given file. */
+	public void write(ExampleSet exampleSet, File file) throws IOException, OperatorException {
+		List<Attribute> columns = new ArrayList<Attribute>();
+		List<String> roles = new ArrayList<String>();
+		List<ComplexAttributeDescription> dependencies = new ArrayList<ComplexAttributeDescription>();
+		List<String> dependencyRoles = new ArrayList<String>();
+		boolean complex = exampleSet instanceof ComplexExampleSet;
+		if (complex) {
+			// store the attributes of the table, the complex attributes are rebuilt from the dependencies
+			ComplexExampleTable table = ((ComplexExampleSet)exampleSet).getExampleTable();
+			Map<Attribute, String> specialNames = new IdentityHashMap<Attribute, String>();
+			Iterator<AttributeRole> r = exampleSet.getAttributes().specialAttributes();
+			while (r.hasNext()) {
+				AttributeRole role = r.next();
+				specialNames.put(role.getAttribute(), role.getSpecialName());
+			}
+			Map<Integer, Integer> columnIndices = new HashMap<Integer, Integer>();
+			for (Attribute attribute : table.getAttributes()) {
+				if (attribute != null) {
+					columnIndices.put(attribute.getTableIndex(), columns.size());
+					columns.add(attribute);
+					roles.add(specialNames.get(attribute));
+				}
+			}
+			for (int d = 0; d < table.getDependencyCount(); d++) {
+				ComplexAttributeDescription dependency = table.getDependencyAt(d);
+				dependencies.add(new ComplexAttributeDescription(toColumnIndices(dependency.getAttributeIndexes(), columnIndices),
+						toColumnIndices(dependency.getParamIndexes(), columnIndices), dependency.getSymbol(), dependency.getName(), dependency.getHint()));
+				AttributeRole role = exampleSet.getAttributes().getRole(dependency.getName());
+				dependencyRoles.add(role != null ? role.getSpecialName() : null);
+			}
+		} else {
+			Iterator<AttributeRole> r = exampleSet.getAttributes().allAttributeRoles();
+			while (r.hasNext()) {
+				AttributeRole role = r.next();
+				if (role.getAttribute().isComplex())
+					throw new IOException("complex attribute '" + role.getAttribute().getName() + "' can only be written as part of a complex example set");
+				columns.add(role.getAttribute());
+				roles.add(role.getSpecialName());
+			}
+		}
+
+		int[] storageTypes = new int[columns.size()];
+		long[] positions = new long[columns.size()];
+		long[] lengths = new long[columns.size()];
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			out.writeInt(BinaryExampleSetFormat.MAGIC);
+			out.writeInt(BinaryExampleSetFormat.VERSION);
+			long position = BinaryExampleSetFormat.HEADER_LENGTH;
+			for (int c = 0; c < columns.size(); c++) {
+				Attribute attribute = columns.get(c);
+				storageTypes[c] = BinaryExampleSetFormat.getStorageType(attribute);
+				positions[c] = position;
+				lengths[c] = writeColumn(out, exampleSet, attribute, storageTypes[c]);
+				position += lengths[c];
+				int padding = BinaryExampleSetFormat.getPadding(position);
+				for (int i = 0; i < padding; i++)
+					out.writeByte(0);
+				position += padding;
+				checkForStop();
+			}
+
+			// meta data
+			out.writeInt(exampleSet.size());
+			out.writeBoolean(complex);
+			out.writeInt(columns.size());
+			for (int c = 0; c < columns.size(); c++) {
+				BinaryExampleSetFormat.writeAttribute(out, columns.get(c));
+				BinaryExampleSetFormat.writeString(out, roles.get(c));
+				out.writeInt(storageTypes[c]);
+				out.writeLong(positions[c]);
+				out.writeLong(lengths[c]);
+			}
+			out.writeInt(dependencies.size());
+			for (int d = 0; d < dependencies.size(); d++) {
+				ComplexAttributeDescription dependency = dependencies.get(d);
+				out.writeUTF(dependency.getName());
+				out.writeUTF(dependency.getSymbol());
+				BinaryExampleSetFormat.writeString(out, dependency.getHint());
+				BinaryExampleSetFormat.writeIndices(out, dependency.getAttributeIndexes());
+				BinaryExampleSetFormat.writeIndices(out, dependency.getParamIndexes());
+				BinaryExampleSetFormat.writeString(out, dependencyRoles.get(d));
+			}
+
+			// trailer
+			out.writeLong(position);
+			out.writeInt(BinaryExampleSetFormat.MAGIC);
+		} finally {
+			out.close();
+		}
+	}
+
+	/** Writes the block of a single column and returns its length in bytes. */
+	private long writeColumn(DataOutputStream out, ExampleSet exampleSet, Attribute attribute, int storageType) throws IOException {
+		switch (storageType) {
+			case BinaryExampleSetFormat.STORAGE_INT:
+				for (Example example : exampleSet) {
+					double value = attribute.getValue(example.getDataRow());
+					out.writeInt(Double.isNaN(value) ? BinaryExampleSetFormat.MISSING_INT : (int)value);
+				}
+				return 4L * exampleSet.size();
+			case BinaryExampleSetFormat.STORAGE_RELATIONAL:
+				int tableIndex = attribute.getTableIndex();
+				int tupleSize = ((RelationalAttribute)attribute).getInnerAttributeCount();
+				long numberOfValues = 0;
+				for (Example example : exampleSet) {
+					RelationalValues values = example.getDataRow().getRelationalValuesFor(tableIndex);
+					out.writeInt(values == null ? -1 : values.getNumberOfTuples());
+					if (values != null)
+						numberOfValues += (long)values.getNumberOfTuples() * tupleSize;
+				}
+				long length = 4L * exampleSet.size();
+				int padding = BinaryExampleSetFormat.getPadding(length);
+				for (int i = 0; i < padding; i++)
+					out.writeByte(0);
+				for (Example example : exampleSet) {
+					RelationalValues values = example.getDataRow().getRelationalValuesFor(tableIndex);
+					if (values != null)
+						writeTuples(out, values, tupleSize);
+				}
+				return length + padding + 8L * numberOfValues;
+			default:
+				for (Example example : exampleSet) {
+					out.writeDouble(attribute.getValue(example.getDataRow()));
+				}
+				return 8L * exampleSet.size();
+		}
+	}
+
+	/** Writes the tuples of a relational value, tuples shorter than the number of inner attributes are filled with NaN. */
+	private void writeTuples(DataOutputStream out, RelationalValues values, int tupleSize) throws IOException {
+		int storedSize = values.getTupleSize();
+		for (int t = 0; t < values.getNumberOfTuples(); t++) {
+			for (int i = 0; i < tupleSize; i++)
+				out.writeDouble(i < storedSize ? values.get(t, i) : Double.NaN);
+		}
+	}
+
+	/** Maps the given table indices to the positions of the columns in the file. */
+	private int[] toColumnIndices(int[] tableIndices, Map<Integer, Integer> columnIndices) throws IOException {
+		if (tableIndices == null)
+			return null;
+		int[] result = new int[tableIndices.length];
+		for (int i = 0; i < tableIndices.length; i++) {
+			Integer column = columnIndices.get(tableIndices[i]);
+			if (column == null)
+				throw new IOException("complex attribute refers to unknown table index " + tableIndices[i]);
+			result[i] = column;
+		}
+		return result;
+	}
+
+	public Class<?>[] getInputClasses() {
+		return INPUT_CLASSES;
+	}
+
+	public Class<?>[] getOutputClasses() {
+		return OUTPUT_CLASSES;
+	}
+
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeFile(PARAMETER_EXAMPLE_SET_FILE, "File to save the example set to.", "rmb", false));
+		return types;
+	}
+}
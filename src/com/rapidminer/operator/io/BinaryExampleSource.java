@@ -0,0 +1,309 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.ColumnarExampleTable;
+import com.rapidminer.example.table.RelationalValues;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeFile;
+import com.rapidminer.parameter.ParameterTypeString;
+
+import de.tud.inf.example.set.ComplexExampleSet;
+import de.tud.inf.example.table.ComplexAttributeDescription;
+import de.tud.inf.example.table.ComplexAttributeFactory;
+import de.tud.inf.example.table.ComplexExampleTable;
+import de.tud.inf.example.table.RelationalAttribute;
+
+
+/**
+ * <p>Reads an example set from a binary columnar file written by the
+ * {@link BinaryExampleSetWriter}. The attribute meta data, roles, nominal mappings
+ * and the descriptions of complex attributes are restored, complex example sets
+ * are delivered as complex example sets again. The format is described in
+ * {@link BinaryExampleSetFormat}.</p>
+ *
+ * <p>The columns are memory mapped and copied into a {@link ColumnarExampleTable}
+ * without parsing. Only the columns whose names match the given regular expression
+ * are read at all. A complex attribute is read if its name or the names of all its
+ * inner attributes and parameters match; in the first case its inner attributes and
+ * parameters are read as well.</p>
+ *
+ * @rapidminer.index binary
+ */
+public class BinaryExampleSource extends Operator {
+
+	/** The parameter name for &quot;The path to the data file.&quot; */
+	public static final String PARAMETER_DATA_FILE = "data_file";
+
+	/** The parameter name for &quot;A regular expression for the names of the attributes which should be read (empty: all attributes).&quot; */
+	public static final String PARAMETER_ATTRIBUTES = "attributes";
+
+	public BinaryExampleSource(OperatorDescription description) {
+		super(description);
+	}
+
+	public IOObject[] apply() throws OperatorException {
+		File file = getParameterAsFile(PARAMETER_DATA_FILE);
+		Pattern pattern = null;
+		String regex = getParameterAsString(PARAMETER_ATTRIBUTES);
+		if ((regex != null) && (regex.length() > 0)) {
+			try {
+				pattern = Pattern.compile(regex);
+			} catch (PatternSyntaxException e) {
+				throw new UserError(this, 206, regex, e.getMessage());
+			}
+		}
+		try {
+			return new IOObject[] { read(file, pattern) };
+		} catch (IOException e) {
+			throw new UserError(this, e, 302, new Object[] { getParameterAsString(PARAMETER_DATA_FILE), e.getMessage() });
+		}
+	}
+
+	/** Reads the columns matching the given pattern (null: all columns) from the given file. */
+	public ExampleSet read(File file, Pattern pattern) throws IOException, OperatorException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			long fileLength = channel.size();
+			if (fileLength < BinaryExampleSetFormat.HEADER_LENGTH + BinaryExampleSetFormat.TRAILER_LENGTH)
+				throw new IOException("file is too short");
+			ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryExampleSetFormat.HEADER_LENGTH);
+			if (header.getInt() != BinaryExampleSetFormat.MAGIC)
+				throw new IOException("not a binary example set file");
+			int version = header.getInt();
+			if (version > BinaryExampleSetFormat.VERSION)
+				throw new IOException("unsupported format version " + version + ", the highest supported version is " + BinaryExampleSetFormat.VERSION);
+			ByteBuffer trailer = channel.map(FileChannel.MapMode.READ_ONLY, fileLength - BinaryExampleSetFormat.TRAILER_LENGTH, BinaryExampleSetFormat.TRAILER_LENGTH);
+			long metaDataPosition = trailer.getLong();
+			if ((trailer.getInt() != BinaryExampleSetFormat.MAGIC) || (metaDataPosition < BinaryExampleSetFormat.HEADER_LENGTH) || (metaDataPosition > fileLength - BinaryExampleSetFormat.TRAILER_LENGTH))
+				throw new IOException("file is truncated or corrupt");
+			byte[] metaData = new byte[(int)(fileLength - BinaryExampleSetFormat.TRAILER_LENGTH - metaDataPosition)];
+			channel.map(FileChannel.MapMode.READ_ONLY, metaDataPosition, metaData.length).get(metaData);
+			DataInputStream meta = new DataInputStream(new ByteArrayInputStream(metaData));
+
+			// meta data
+			int size = meta.readInt();
+			boolean complex = meta.readBoolean();
+			int numberOfColumns = meta.readInt();
+			Attribute[] attributes = new Attribute[numberOfColumns];
+			String[] roles = new String[numberOfColumns];
+			int[] storageTypes = new int[numberOfColumns];
+			long[] positions = new long[numberOfColumns];
+			long[] lengths = new long[numberOfColumns];
+			boolean[] selected = new boolean[numberOfColumns];
+			for (int c = 0; c < numberOfColumns; c++) {
+				attributes[c] = BinaryExampleSetFormat.readAttribute(meta);
+				roles[c] = BinaryExampleSetFormat.readString(meta);
+				storageTypes[c] = meta.readInt();
+				positions[c] = meta.readLong();
+				lengths[c] = meta.readLong();
+				if ((positions[c] < BinaryExampleSetFormat.HEADER_LENGTH) || (positions[c] + lengths[c] > metaDataPosition))
+					throw new IOException("column '" + attributes[c].getName() + "' exceeds the data section");
+				selected[c] = (pattern == null) || pattern.matcher(attributes[c].getName()).matches();
+			}
+			int numberOfDependencies = meta.readInt();
+			List<ComplexAttributeDescription> dependencies = new ArrayList<ComplexAttributeDescription>();
+			Map<String, String> dependencyRoles = new HashMap<String, String>();
+			for (int d = 0; d < numberOfDependencies; d++) {
+				String name = meta.readUTF();
+				String symbol = meta.readUTF();
+				String hint = BinaryExampleSetFormat.readString(meta);
+				int[] attributeColumns = BinaryExampleSetFormat.readIndices(meta);
+				int[] parameterColumns = BinaryExampleSetFormat.readIndices(meta);
+				String role = BinaryExampleSetFormat.readString(meta);
+				checkColumns(file, name, attributeColumns, numberOfColumns);
+				checkColumns(file, name, parameterColumns, numberOfColumns);
+				boolean nameSelected = (pattern == null) || pattern.matcher(name).matches();
+				if (nameSelected || (allSelected(attributeColumns, selected) && allSelected(parameterColumns, selected))) {
+					select(attributeColumns, selected);
+					select(parameterColumns, selected);
+					dependencies.add(ComplexAttributeFactory.createAttributeDescription(attributeColumns, parameterColumns, symbol, name, hint));
+					if (role != null)
+						dependencyRoles.put(name, role);
+				}
+			}
+
+			// create table
+			List<Attribute> tableAttributes = new ArrayList<Attribute>();
+			for (int c = 0; c < numberOfColumns; c++)
+				if (selected[c])
+					tableAttributes.add(attributes[c]);
+			ColumnarExampleTable table = new ColumnarExampleTable(tableAttributes, size);
+			table.setSize(size);
+			Map<Attribute, String> specialAttributes = new HashMap<Attribute, String>();
+			for (int c = 0; c < numberOfColumns; c++) {
+				if (selected[c]) {
+					readColumn(channel, table, attributes[c], storageTypes[c], positions[c], lengths[c], size);
+					if (roles[c] != null)
+						specialAttributes.put(attributes[c], roles[c]);
+					checkForStop();
+				}
+			}
+
+			if (complex) {
+				// dependencies refer to columns, the complex attributes refer to table indices
+				for (ComplexAttributeDescription dependency : dependencies) {
+					toTableIndices(dependency.getAttributeIndexes(), attributes);
+					toTableIndices(dependency.getParamIndexes(), attributes);
+				}
+				ComplexExampleSet exampleSet = new ComplexExampleTable(table, dependencies).createExampleSet(specialAttributes);
+				for (Map.Entry<String, String> entry : dependencyRoles.entrySet())
+					exampleSet.getAttributes().setSpecialAttribute(exampleSet.getAttributes().get(entry.getKey()), entry.getValue());
+				return exampleSet;
+			} else {
+				return table.createExampleSet(specialAttributes);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/** Copies the values of the column from the mapped file into the table. */
+	private void readColumn(FileChannel channel, ColumnarExampleTable table, Attribute attribute, int storageType, long position, long length, int size) throws IOException {
+		int tableIndex = attribute.getTableIndex();
+		int row = 0;
+		switch (storageType) {
+			case BinaryExampleSetFormat.STORAGE_DOUBLE:
+				for (ByteBuffer buffer : BinaryExampleSetFormat.map(channel, position, 8L * size, 8)) {
+					DoubleBuffer values = buffer.asDoubleBuffer();
+					while (values.hasRemaining())
+						table.setValue(row++, tableIndex, values.get());
+				}
+				break;
+			case BinaryExampleSetFormat.STORAGE_INT:
+				for (ByteBuffer buffer : BinaryExampleSetFormat.map(channel, position, 4L * size, 4)) {
+					IntBuffer values = buffer.asIntBuffer();
+					while (values.hasRemaining()) {
+						int value = values.get();
+						table.setValue(row++, tableIndex, value == BinaryExampleSetFormat.MISSING_INT ? Double.NaN : value);
+					}
+				}
+				break;
+			case BinaryExampleSetFormat.STORAGE_RELATIONAL:
+				int tupleSize = ((RelationalAttribute)attribute).getInnerAttributeCount();
+				int[] numberOfTuples = new int[size];
+				for (ByteBuffer buffer : BinaryExampleSetFormat.map(channel, position, 4L * size, 4)) {
+					IntBuffer values = buffer.asIntBuffer();
+					int count = values.remaining();
+					values.get(numberOfTuples, row, count);
+					row += count;
+				}
+				long valuesPosition = 4L * size + BinaryExampleSetFormat.getPadding(4L * size);
+				long numberOfValues = (length - valuesPosition) / 8;
+				if (numberOfValues > Integer.MAX_VALUE)
+					throw new IOException("relational attribute '" + attribute.getName() + "' contains too many values");
+				// all rows share one array, the relational values are views on it
+				double[] data = new double[(int)numberOfValues];
+				int offset = 0;
+				for (ByteBuffer buffer : BinaryExampleSetFormat.map(channel, position + valuesPosition, 8L * numberOfValues, 8)) {
+					DoubleBuffer values = buffer.asDoubleBuffer();
+					int count = values.remaining();
+					values.get(data, offset, count);
+					offset += count;
+				}
+				offset = 0;
+				for (int r = 0; r < size; r++) {
+					if (numberOfTuples[r] < 0) {
+						table.setValue(r, tableIndex, Double.NaN);
+					} else {
+						if (offset + numberOfTuples[r] * tupleSize > data.length)
+							throw new IOException("relational attribute '" + attribute.getName() + "' exceeds its column");
+						table.setValue(r, tableIndex, 0.0d);
+						table.getDataRow(r).setRelationalValues(tableIndex, new RelationalValues(data, offset, numberOfTuples[r], tupleSize));
+						offset += numberOfTuples[r] * tupleSize;
+					}
+				}
+				break;
+			default:
+				throw new IOException("unknown storage type " + storageType + " of attribute '" + attribute.getName() + "'");
+		}
+	}
+
+	/** Throws a user error if the complex attribute with the given name refers to a column which does not exist. */
+	private void checkColumns(File file, String name, int[] columns, int numberOfColumns) throws UserError {
+		if (columns != null)
+			for (int column : columns)
+				if ((column < 0) || (column >= numberOfColumns))
+					throw new UserError(this, 302, file, "complex attribute '" + name + "' refers to unknown column " + column);
+	}
+
+	private static boolean allSelected(int[] columns, boolean[] selected) {
+		if (columns != null)
+			for (int column : columns)
+				if (!selected[column])
+					return false;
+		return true;
+	}
+
+	private static void select(int[] columns, boolean[] selected) {
+		if (columns != null)
+			for (int column : columns)
+				selected[column] = true;
+	}
+
+	/** Replaces the column positions by the table indices of the corresponding attributes. */
+	private static void toTableIndices(int[] columns, Attribute[] attributes) {
+		if (columns != null)
+			for (int i = 0; i < columns.length; i++)
+				columns[i] = attributes[columns[i]].getTableIndex();
+	}
+
+	public Class<?>[] getInputClasses() {
+		return new Class[0];
+	}
+
+	public Class<?>[] getOutputClasses() {
+		return new Class[] { ExampleSet.class };
+	}
+
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeFile(PARAMETER_DATA_FILE, "The path to the data file.", "rmb", false));
+		types.add(new ParameterTypeString(PARAMETER_ATTRIBUTES, "A regular expression for the names of the attributes which should be read (empty: all attributes).", true));
+		return types;
+	}
+}
@@ -222,8 +222,8 @@ public class C45ExampleSource extends Operator {
             throw new UserError(this, 301, dataFile);
         }
         
-        MemoryExampleTable table = new MemoryExampleTable(attributes);
         DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+        MemoryExampleTable table = factory.createExampleTable(attributes);
         Attribute[] attributeArray = new Attribute[attributes.size()];
         attributes.toArray(attributeArray);
         try {
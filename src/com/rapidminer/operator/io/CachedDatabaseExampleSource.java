@@ -29,6 +29,8 @@ import java.util.Map;
 
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.BlockCachedDatabaseExampleTable;
+import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.IndexCachedDatabaseExampleTable;
 import com.rapidminer.gui.wizards.DBExampleSourceConfigurationWizardCreator;
 import com.rapidminer.operator.IOObject;
@@ -41,6 +43,7 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeConfiguration;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypePassword;
 import com.rapidminer.parameter.ParameterTypeString;
 import com.rapidminer.tools.jdbc.DatabaseHandler;
@@ -63,10 +66,15 @@ import com.rapidminer.tools.jdbc.DatabaseService;
  * the data reading in batches. This allows RapidMiner to access data sets of
  * arbitrary sizes without any size restrictions.</p>
  * 
+ * <p>If keyset paging is used and the table has a primary key (or a key column is
+ * specified), the batches are read ordered by this key and no index column or mapping 
+ * table is created. The most recently used batches are kept in memory and during 
+ * sequential scans the next batch is read in the background.</p>
+ * 
  * <p>Please note the following important restrictions and notes:
  * <ul>
  * <li>only manifested tables (no views) are allowed as the base for this data caching operator,</li> 
- * <li>if no primary key and index is present, a new column named RM_INDEX is created and automatically used as primary key,</li>
+ * <li>if keyset paging is not used and no primary key and index is present, a new column named RM_INDEX is created and automatically used as primary key,</li>
  * <li>if a primary key is already present in the specified table, a new table named RM_MAPPED_INDEX is created mapping a new index column RM_INDEX to the original primary key.</li>
  * <li>users can provide the primary key column RM_INDEX themself which then has to be an integer valued index attribute, counting starts with 1 without any gaps or missing values for all rows</li>
  * </ul>
@@ -84,6 +92,21 @@ import com.rapidminer.tools.jdbc.DatabaseService;
 public class CachedDatabaseExampleSource extends Operator {
 	
 	public static final String PARAMETER_RECREATE_INDEX = "recreate_index";	
+
+	/** The parameter name for &quot;Indicates if the data should be read in the order of a key column instead of creating an index column or mapping table.&quot; */
+	public static final String PARAMETER_KEYSET_PAGING = "keyset_paging";
+
+	/** The parameter name for &quot;The unique key column used for keyset paging (empty: primary key).&quot; */
+	public static final String PARAMETER_KEY_COLUMN = "key_column";
+
+	/** The parameter name for &quot;The number of rows read with a single query.&quot; */
+	public static final String PARAMETER_FETCH_SIZE = "fetch_size";
+
+	/** The parameter name for &quot;The number of batches kept in main memory.&quot; */
+	public static final String PARAMETER_CACHED_BATCHES = "cached_batches";
+
+	/** The parameter name for &quot;Indicates if the next batch should be read in the background during sequential scans.&quot; */
+	public static final String PARAMETER_PREFETCH = "prefetch";
 	
 	private DatabaseHandler databaseHandler;
 	
@@ -96,7 +119,18 @@ public class CachedDatabaseExampleSource extends Operator {
 			DatabaseHandler databaseHandler = getConnectedDatabaseHandler();
 			String tableName = getParameterAsString(DatabaseExampleSource.PARAMETER_TABLE_NAME);
 			boolean recreateIndex = getParameterAsBoolean(PARAMETER_RECREATE_INDEX);
-			IndexCachedDatabaseExampleTable table = new IndexCachedDatabaseExampleTable(databaseHandler, tableName, DataRowFactory.TYPE_DOUBLE_ARRAY, recreateIndex, this); 
+			ExampleTable table = null;
+			if (getParameterAsBoolean(PARAMETER_KEYSET_PAGING)) {
+				String keyColumn = getParameterAsString(PARAMETER_KEY_COLUMN);
+				if (keyColumn == null)
+					keyColumn = BlockCachedDatabaseExampleTable.getPrimaryKeyName(databaseHandler, tableName);
+				if (keyColumn != null)
+					table = new BlockCachedDatabaseExampleTable(databaseHandler, tableName, keyColumn, DataRowFactory.TYPE_DOUBLE_ARRAY, getParameterAsInt(PARAMETER_FETCH_SIZE), getParameterAsInt(PARAMETER_CACHED_BATCHES), getParameterAsBoolean(PARAMETER_PREFETCH));
+				else
+					logNote("No primary key found for table '" + tableName + "', using an index for reading the data.");
+			}
+			if (table == null)
+				table = new IndexCachedDatabaseExampleTable(databaseHandler, tableName, DataRowFactory.TYPE_DOUBLE_ARRAY, recreateIndex, this); 
 			return new IOObject[] { ResultSetExampleSource.createExampleSet(table, this) };
 		} catch (SQLException e) {
 			throw new UserError(this, e, 304, e.getMessage());
@@ -155,6 +189,11 @@ public class CachedDatabaseExampleSource extends Operator {
 		types.add(new ParameterTypePassword(DatabaseExampleSource.PARAMETER_PASSWORD, "Password for the database."));
 		types.add(new ParameterTypeString(DatabaseExampleSource.PARAMETER_TABLE_NAME, "Use this table as the base for this data access.", false));
 		types.add(new ParameterTypeBoolean(PARAMETER_RECREATE_INDEX, "Indicates if a recreation of the index or index mapping table should be forced.", false));
+		types.add(new ParameterTypeBoolean(PARAMETER_KEYSET_PAGING, "Indicates if the data should be read in the order of a key column instead of creating an index column or mapping table (only possible for tables with a primary key or if a key column is specified).", true));
+		types.add(new ParameterTypeString(PARAMETER_KEY_COLUMN, "The unique key column used for keyset paging (empty: primary key).", true));
+		types.add(new ParameterTypeInt(PARAMETER_FETCH_SIZE, "The number of rows read with a single query (only used for keyset paging).", 1, Integer.MAX_VALUE, BlockCachedDatabaseExampleTable.DEFAULT_BLOCK_SIZE));
+		types.add(new ParameterTypeInt(PARAMETER_CACHED_BATCHES, "The number of batches kept in main memory (only used for keyset paging).", 1, Integer.MAX_VALUE, BlockCachedDatabaseExampleTable.DEFAULT_CACHED_BLOCKS));
+		types.add(new ParameterTypeBoolean(PARAMETER_PREFETCH, "Indicates if the next batch should be read in the background during sequential scans (only used for keyset paging).", true));
 		
 		type = new ParameterTypeString(DatabaseExampleSource.PARAMETER_LABEL_ATTRIBUTE, "The (case sensitive) name of the label attribute");
 		type.setExpert(false);
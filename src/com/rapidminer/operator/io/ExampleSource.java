@@ -34,7 +34,6 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.FileDataRowReader;
-import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.gui.wizards.ExampleSourceConfigurationWizardCreator;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
@@ -141,6 +140,9 @@ public class ExampleSource extends Operator {
 
 	/** The parameter name for &quot;Use the given random seed instead of global random numbers (only for permutation, -1: use global).&quot; */
 	public static final String PARAMETER_LOCAL_RANDOM_SEED = "local_random_seed";
+
+	/** The parameter name for &quot;The number of threads used for splitting the lines and parsing the values&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
     
 	
 	private static final Class[] INPUT_CLASSES = {};
@@ -154,15 +156,20 @@ public class ExampleSource extends Operator {
 	public IOObject[] apply() throws OperatorException {
 		AttributeDataSources attributeDataSources = null;
 		FileDataRowReader reader = null;
+		DataRowFactory factory = null;
 
 		File attributeFile = getParameterAsFile(PARAMETER_ATTRIBUTES);
+		int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		if (numberOfThreads == 0)
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
 		try {
 			attributeDataSources = AttributeDataSource.createAttributeDataSources(attributeFile, true, this);
 			char[] commentCharacters = null;
 			if (getParameterAsBoolean(PARAMETER_USE_COMMENT_CHARACTERS)) {
 				commentCharacters = getParameterAsString(PARAMETER_COMMENT_CHARS).toCharArray(); 
 			}
-			reader = new FileDataRowReader(new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0)), attributeDataSources.getDataSources(), getParameterAsDouble(PARAMETER_SAMPLE_RATIO), getParameterAsInt(PARAMETER_SAMPLE_SIZE), getParameterAsString(PARAMETER_COLUMN_SEPARATORS), commentCharacters, getParameterAsBoolean(PARAMETER_USE_QUOTES), getParameterAsBoolean(PARAMETER_TRIM_LINES), getEncoding(), RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED)));
+			factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+			reader = new FileDataRowReader(factory, attributeDataSources.getDataSources(), getParameterAsDouble(PARAMETER_SAMPLE_RATIO), getParameterAsInt(PARAMETER_SAMPLE_SIZE), getParameterAsString(PARAMETER_COLUMN_SEPARATORS), commentCharacters, getParameterAsBoolean(PARAMETER_USE_QUOTES), getParameterAsBoolean(PARAMETER_TRIM_LINES), getEncoding(), RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED)), numberOfThreads);
 		} catch (IOException e) {
 			throw new UserError(this, e, 302, new Object[] { attributeFile, e.getMessage() });
 		} catch (com.rapidminer.tools.XMLException e) {
@@ -175,7 +182,12 @@ public class ExampleSource extends Operator {
 
 		AttributeSet attributeSet = new AttributeSet(attributeDataSources);
 
-		ExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes(), reader, getParameterAsBoolean(PARAMETER_PERMUTATE));
+		ExampleTable table;
+		try {
+			table = factory.createExampleTable(attributeSet.getAllAttributes(), reader, getParameterAsBoolean(PARAMETER_PERMUTATE));
+		} finally {
+			reader.close();
+		}
 		ExampleSet result = table.createExampleSet(attributeSet);
 		if (result.size() == 0) {
 			throw new UserError(this, 117);
@@ -210,6 +222,7 @@ public class ExampleSource extends Operator {
 		types.add(new ParameterTypeBoolean(PARAMETER_TRIM_LINES, "Indicates if lines should be trimmed (empty spaces are removed at the beginning and the end) before the column split is performed.", false));
 		types.add(new ParameterTypeBoolean(PARAMETER_PERMUTATE, "Indicates if the loaded data should be permutated.", false));
         types.add(new ParameterTypeInt(PARAMETER_LOCAL_RANDOM_SEED, "Use the given random seed instead of global random numbers (only for permutation, -1: use global).", -1, Integer.MAX_VALUE, -1));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for splitting the lines and parsing the values (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
 		return types;
 	}
 }
@@ -219,8 +219,8 @@ public class ExcelExampleSource extends Operator {
         }
 		
 		// create and fill table
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
 		DataRowFactory dataRowFactory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), decimalPointCharacter);
+		MemoryExampleTable table = dataRowFactory.createExampleTable(attributes);
 		Attribute[] attributeArray = new Attribute[attributes.size()];
 		attributes.toArray(attributeArray);
 		for (int r = rowOffset; r < numberOfRows; r++) {
@@ -35,7 +35,6 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.DataRowReader;
 import com.rapidminer.example.table.ExampleTable;
-import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.example.table.ResultSetDataRowReader;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
@@ -107,8 +106,9 @@ public abstract class ResultSetExampleSource extends Operator {
 			throw new UserError(this, e, 304, e.getMessage());
 		}
 		setNominalValues(attributeList, resultSet, find(attributeList, getParameterAsString(PARAMETER_LABEL_ATTRIBUTE)));
-		DataRowReader reader = new ResultSetDataRowReader(new DataRowFactory(dataRowType, '.'), attributeList, resultSet);
-		ExampleTable table = new MemoryExampleTable(attributeList, reader);
+		DataRowFactory factory = new DataRowFactory(dataRowType, '.');
+		DataRowReader reader = new ResultSetDataRowReader(factory, attributeList, resultSet);
+		ExampleTable table = factory.createExampleTable(attributeList, reader, false);
 		
 		// close statements etc.
 		tearDown();
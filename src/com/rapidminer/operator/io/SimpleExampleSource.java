@@ -32,7 +32,6 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.example.table.FileDataRowReader;
-import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
@@ -145,6 +144,9 @@ public class SimpleExampleSource extends Operator {
 	protected static final String PARAMETER_TRIM_LINES = "trim_lines";
     
 	protected static final String PARAMETER_COLUMN_SEPARATORS = "column_separators";
+
+	/** The parameter name for &quot;The number of threads used for splitting the lines and parsing the values&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
 	
 	
 	public SimpleExampleSource(OperatorDescription description) {
@@ -164,6 +166,9 @@ public class SimpleExampleSource extends Operator {
 		boolean useQuotes = getParameterAsBoolean(PARAMETER_USE_QUOTES);
 		boolean trimLines = getParameterAsBoolean(PARAMETER_TRIM_LINES);
 		char decimalPointCharacter = getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0);
+		int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		if (numberOfThreads == 0)
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
 
         // create attribute data sources and guess value types (performs a data scan)
 		AttributeDataSourceCreator adsCreator = new AttributeDataSourceCreator();
@@ -181,8 +186,9 @@ public class SimpleExampleSource extends Operator {
         
         // read data
 		FileDataRowReader reader = null;
+		DataRowFactory factory = new DataRowFactory(dataRowType, decimalPointCharacter);
 		try {
-			reader = new FileDataRowReader(new DataRowFactory(dataRowType, decimalPointCharacter), attributeDataSources, sampleRatio, maxLines, separatorRegExpr, comments, useQuotes, trimLines, getEncoding(), RandomGenerator.getRandomGenerator(-1));
+			reader = new FileDataRowReader(factory, attributeDataSources, sampleRatio, maxLines, separatorRegExpr, comments, useQuotes, trimLines, getEncoding(), RandomGenerator.getRandomGenerator(-1), numberOfThreads);
 		} catch (IOException e) {
 			throw new UserError(this, e, 302, new Object[] { file, e.getMessage() });
 		}
@@ -192,13 +198,18 @@ public class SimpleExampleSource extends Operator {
 		AttributeSet attributeSet = new AttributeSet(new AttributeDataSources(attributeDataSources, file));
 
         // create table and example set
-		ExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes(), reader);
+		ExampleTable table;
+		try {
+			table = factory.createExampleTable(attributeSet.getAllAttributes(), reader, false);
+		} finally {
+			reader.close();
+		}
 		ExampleSet result = table.createExampleSet(attributeSet);
 
 		return new IOObject[] { result };
 	}
 
-    private void resetAttributeType(List<AttributeDataSource> attributeDataSources, String attributeName, String columnName, String typeName) throws OperatorException {
+    protected void resetAttributeType(List<AttributeDataSource> attributeDataSources, String attributeName, String columnName, String typeName) throws OperatorException {
     	String attribute = getParameterAsString(attributeName);
     	if ((attribute == null) || (attribute.length() == 0)) {
     		int column = getParameterAsInt(columnName);
@@ -257,6 +268,7 @@ public class SimpleExampleSource extends Operator {
 		types.add(new ParameterTypeBoolean(PARAMETER_USE_QUOTES, "Indicates if quotes should be regarded (slower!).", false));
 		types.add(new ParameterTypeBoolean(PARAMETER_TRIM_LINES, "Indicates if lines should be trimmed (empty spaces are removed at the beginning and the end) before the column split is performed.", false));
 		types.add(new ParameterTypeString(PARAMETER_DECIMAL_POINT_CHARACTER, "Character that is used as decimal point.", "."));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for splitting the lines and parsing the values (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
 		return types;
 	}
 }
@@ -198,8 +198,9 @@ public class SparseFormatExampleSource extends Operator {
 			}
 		}
 		
-		MemoryExampleTable table = new MemoryExampleTable(attributeSet.getAllAttributes());
-		SparseFormatDataRowReader reader = new SparseFormatDataRowReader(new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0)), format, prefixMap, attributeSet, inData, inLabels, getParameterAsInt(PARAMETER_SAMPLE_SIZE));
+		DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+		MemoryExampleTable table = factory.createExampleTable(attributeSet.getAllAttributes());
+		SparseFormatDataRowReader reader = new SparseFormatDataRowReader(factory, format, prefixMap, attributeSet, inData, inLabels, getParameterAsInt(PARAMETER_SAMPLE_SIZE));
 		table.readExamples(reader);
         ExampleSet exampleSet = table.createExampleSet(attributeSet);
 		return new IOObject[] { exampleSet };
@@ -254,8 +254,8 @@ public class XrffExampleSource extends Operator {
             attributeList.add(weight);
             
             // read data
-            table = new MemoryExampleTable(attributeList);
             DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0));
+            table = factory.createExampleTable(attributeList);
             Attribute[] attributeArray = new Attribute[attributeList.size()];
             attributeList.toArray(attributeArray);
             Element bodyElement = retrieveSingleNode(datasetElement, "body");
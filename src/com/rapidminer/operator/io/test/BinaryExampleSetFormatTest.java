@@ -0,0 +1,184 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.io.test;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.test.ExampleTestTools;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.UserError;
+import com.rapidminer.operator.io.BinaryExampleSetFormat;
+import com.rapidminer.operator.io.BinaryExampleSetWriter;
+import com.rapidminer.operator.io.BinaryExampleSource;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+import de.tud.inf.example.table.RelationalAttribute;
+
+
+/**
+ * Writes example sets with the binary example set writer and reads them again.
+ */
+public class BinaryExampleSetFormatTest extends RapidMinerTestCase {
+
+	private Attribute[] attributes;
+
+	private ExampleSet exampleSet;
+
+	private File file;
+
+	private BinaryExampleSetWriter writer;
+
+	private BinaryExampleSource source;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		Attribute[] fourAttributes = ExampleTestTools.createFourAttributes();
+		attributes = Arrays.copyOf(fourAttributes, 5);
+		RelationalAttribute points = (RelationalAttribute)AttributeFactory.createAttribute("points", Ontology.RELATIONAL);
+		List<Attribute> innerAttributes = new ArrayList<Attribute>();
+		innerAttributes.add(AttributeFactory.createAttribute("x", Ontology.REAL));
+		innerAttributes.add(ExampleTestTools.attributeYesNo());
+		points.setInnerAttributes(innerAttributes);
+		attributes[4] = points;
+		MemoryExampleTable table = new MemoryExampleTable(Arrays.asList(fourAttributes), ExampleTestTools.createDataRowReader(30, fourAttributes));
+		table.addAttribute(points);
+		for (int i = 0; i < table.size(); i++) {
+			DataRow row = table.getDataRow(i);
+			if (i % 5 == 0) {
+				row.set(attributes[3], Double.NaN);
+				row.set(attributes[0], Double.NaN);
+			} else {
+				double[][] tuples = new double[i % 3 + 1][];
+				for (int t = 0; t < tuples.length; t++)
+					tuples[t] = new double[] { i + t * 0.5d, t % 2 };
+				row.setRelationalValues(points.getTableIndex(), tuples);
+			}
+		}
+		exampleSet = table.createExampleSet(attributes[1]);
+		file = File.createTempFile("binary", ".rmb");
+		file.deleteOnExit();
+		ClassLoader classLoader = getClass().getClassLoader();
+		writer = new BinaryExampleSetWriter(new OperatorDescription(classLoader, "writer", BinaryExampleSetWriter.class.getName(), "", "", "", null, null));
+		source = new BinaryExampleSource(new OperatorDescription(classLoader, "source", BinaryExampleSource.class.getName(), "", "", "", null, null));
+	}
+
+	public void tearDown() throws Exception {
+		file.delete();
+		attributes = null;
+		exampleSet = null;
+		super.tearDown();
+	}
+
+	public void testRoundTrip() throws Exception {
+		writer.write(exampleSet, file);
+		ExampleSet result = source.read(file, null);
+		assertEquals(exampleSet.size(), result.size());
+		assertEquals(exampleSet.getAttributes().allSize(), result.getAttributes().allSize());
+		assertEquals(Attributes.LABEL_NAME, result.getAttributes().getRole("decision").getSpecialName());
+		for (Attribute attribute : attributes) {
+			Attribute resultAttribute = result.getAttributes().get(attribute.getName());
+			assertEquals(attribute.getName() + " value type", attribute.getValueType(), resultAttribute.getValueType());
+			for (int i = 0; i < exampleSet.size(); i++) {
+				if (attribute.isRelational()) {
+					assertTrue(attribute.getName() + " row " + i, Arrays.deepEquals(
+							exampleSet.getExample(i).getRelativeValue(attribute), result.getExample(i).getRelativeValue(resultAttribute)));
+				} else if (attribute.isNominal()) {
+					assertEquals(attribute.getName() + " row " + i, exampleSet.getExample(i).getValueAsString(attribute), result.getExample(i).getValueAsString(resultAttribute));
+				} else {
+					assertEqualsNaN(attribute.getName() + " row " + i, exampleSet.getExample(i).getValue(attribute), result.getExample(i).getValue(resultAttribute));
+				}
+			}
+		}
+		List<Attribute> innerAttributes = ((RelationalAttribute)result.getAttributes().get("points")).getInnerAttributes();
+		assertEquals(2, innerAttributes.size());
+		assertEquals("yes", innerAttributes.get(1).getMapping().mapIndex(1));
+	}
+
+	public void testProjection() throws Exception {
+		writer.write(exampleSet, file);
+		ExampleSet result = source.read(file, Pattern.compile("animal|real"));
+		assertEquals(exampleSet.size(), result.size());
+		assertEquals(2, result.getAttributes().allSize());
+		assertNull(result.getAttributes().getLabel());
+		for (int i = 0; i < exampleSet.size(); i++)
+			assertEqualsNaN("real row " + i, exampleSet.getExample(i).getValue(attributes[3]), result.getExample(i).getValue(result.getAttributes().get("real")));
+	}
+
+	public void testUnsupportedVersion() throws Exception {
+		writer.write(exampleSet, file);
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		out.seek(4);
+		out.writeInt(Integer.MAX_VALUE);
+		out.close();
+		try {
+			source.read(file, null);
+			fail("file with unsupported version was read");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testUnknownDependencyColumn() throws Exception {
+		// an empty complex example set whose only dependency refers to a missing column
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+		out.writeInt(BinaryExampleSetFormat.MAGIC);
+		out.writeInt(BinaryExampleSetFormat.VERSION);
+		out.writeInt(0);
+		out.writeBoolean(true);
+		out.writeInt(0);
+		out.writeInt(1);
+		out.writeUTF("point");
+		out.writeUTF("point");
+		BinaryExampleSetFormat.writeString(out, null);
+		BinaryExampleSetFormat.writeIndices(out, new int[] { 3 });
+		BinaryExampleSetFormat.writeIndices(out, null);
+		BinaryExampleSetFormat.writeString(out, null);
+		out.writeLong(BinaryExampleSetFormat.HEADER_LENGTH);
+		out.writeInt(BinaryExampleSetFormat.MAGIC);
+		out.close();
+		// the name of the complex attribute is selected, so its columns would not be checked for selection
+		for (Pattern pattern : new Pattern[] { null, Pattern.compile("point"), Pattern.compile("other") }) {
+			try {
+				source.read(file, pattern);
+				fail("dependency with unknown column was read");
+			} catch (UserError e) {
+				assertEquals(302, e.getCode());
+			}
+		}
+	}
+}
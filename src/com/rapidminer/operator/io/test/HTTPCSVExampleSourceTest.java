@@ -0,0 +1,235 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.io.test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.zip.GZIPOutputStream;
+
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.test.RapidMinerTestCase;
+
+import de.tud.inf.operator.io.HTTPCSVExampleSource;
+
+
+/**
+ * Reads csv data with the HTTP csv example source from a minimal local HTTP server.
+ */
+public class HTTPCSVExampleSourceTest extends RapidMinerTestCase {
+
+	private static final String DATA = "name, value, label\n\"first\", 1.5, yes\nsecond, 2, no\n# comment\nthird, ?, yes\n";
+
+	private Server server;
+
+	private HTTPCSVExampleSource source;
+
+	private File cacheDirectory;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		server = new Server();
+		server.start();
+		source = new HTTPCSVExampleSource(new OperatorDescription(getClass().getClassLoader(), "source", HTTPCSVExampleSource.class.getName(), "", "", "", null, null));
+		source.setParameter(HTTPCSVExampleSource.URL, "http://localhost:" + server.getPort() + "/data/test.csv");
+		source.setParameter("label_name", "label");
+		cacheDirectory = File.createTempFile("httpcsv", "");
+		cacheDirectory.delete();
+	}
+
+	public void tearDown() throws Exception {
+		server.close();
+		File[] files = cacheDirectory.listFiles();
+		if (files != null) {
+			for (File file : files)
+				file.delete();
+		}
+		cacheDirectory.delete();
+		source = null;
+		super.tearDown();
+	}
+
+	private ExampleSet read() throws OperatorException {
+		return (ExampleSet)source.apply()[0];
+	}
+
+	private void assertData(ExampleSet exampleSet) {
+		assertEquals(3, exampleSet.size());
+		assertEquals(2, exampleSet.getAttributes().size());
+		assertEquals(Attributes.LABEL_NAME, exampleSet.getAttributes().getRole("label").getSpecialName());
+		assertEquals("first", exampleSet.getExample(0).getValueAsString(exampleSet.getAttributes().get("name")));
+		assertEquals(1.5d, exampleSet.getExample(0).getValue(exampleSet.getAttributes().get("value")));
+		assertEquals("no", exampleSet.getExample(1).getValueAsString(exampleSet.getAttributes().getLabel()));
+		assertEqualsNaN("missing", Double.NaN, exampleSet.getExample(2).getValue(exampleSet.getAttributes().get("value")));
+	}
+
+	/** Returns the number of temporary copies of downloads. */
+	private int countTemporaryCopies() {
+		File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles();
+		int count = 0;
+		for (File file : files)
+			if (file.getName().startsWith("httpcsv") && file.getName().endsWith(".csv"))
+				count++;
+		return count;
+	}
+
+	public void testRead() throws Exception {
+		int temporaryCopies = countTemporaryCopies();
+		assertData(read());
+		assertEquals(1, server.getDownloads());
+		assertEquals("temporary copy deleted", temporaryCopies, countTemporaryCopies());
+	}
+
+	public void testThreads() throws Exception {
+		source.setParameter(HTTPCSVExampleSource.PARAMETER_NUMBER_OF_THREADS, "2");
+		assertData(read());
+	}
+
+	public void testGzip() throws Exception {
+		server.gzip = true;
+		assertData(read());
+	}
+
+	public void testCache() throws Exception {
+		source.setParameter(HTTPCSVExampleSource.PARAMETER_CACHE_DIRECTORY, cacheDirectory.getAbsolutePath());
+		server.gzip = true;
+		assertData(read());
+		assertData(read());
+		assertEquals(2, server.getRequests());
+		assertEquals(1, server.getDownloads());
+		server.etag = "\"2\"";
+		assertData(read());
+		assertEquals(2, server.getDownloads());
+		assertEquals("cached copy and its headers", 2, cacheDirectory.listFiles().length);
+	}
+
+	public void testError() throws Exception {
+		source.setParameter(HTTPCSVExampleSource.URL, "http://localhost:" + server.getPort() + "/missing.csv");
+		try {
+			read();
+			fail("missing data was read");
+		} catch (OperatorException e) {
+			// expected
+		}
+	}
+
+	/** Answers each request with the data, supports gzip and conditional requests with ETags. */
+	private static class Server extends Thread {
+
+		private final ServerSocket socket;
+
+		private volatile boolean gzip = false;
+
+		private volatile String etag = "\"1\"";
+
+		private int requests = 0;
+
+		private int downloads = 0;
+
+		private Server() throws IOException {
+			super("HTTP test server");
+			socket = new ServerSocket(0);
+			setDaemon(true);
+		}
+
+		private int getPort() {
+			return socket.getLocalPort();
+		}
+
+		private synchronized int getRequests() {
+			return requests;
+		}
+
+		private synchronized int getDownloads() {
+			return downloads;
+		}
+
+		private void close() throws IOException {
+			socket.close();
+		}
+
+		public void run() {
+			while (!socket.isClosed()) {
+				try {
+					Socket connection = socket.accept();
+					try {
+						answer(connection);
+					} finally {
+						connection.close();
+					}
+				} catch (IOException e) {
+					// socket closed
+				}
+			}
+		}
+
+		private void answer(Socket connection) throws IOException {
+			BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), "US-ASCII"));
+			String requestLine = in.readLine();
+			boolean acceptsGzip = false;
+			String ifNoneMatch = null;
+			String line;
+			while (((line = in.readLine()) != null) && (line.length() > 0)) {
+				String lowerCase = line.toLowerCase();
+				if (lowerCase.startsWith("accept-encoding:") && lowerCase.contains("gzip"))
+					acceptsGzip = true;
+				else if (lowerCase.startsWith("if-none-match:"))
+					ifNoneMatch = line.substring(line.indexOf(':') + 1).trim();
+			}
+			synchronized (this) {
+				requests++;
+			}
+			OutputStream out = connection.getOutputStream();
+			if ((requestLine == null) || !requestLine.startsWith("GET /data/test.csv ")) {
+				out.write("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes("US-ASCII"));
+			} else if (etag.equals(ifNoneMatch)) {
+				out.write(("HTTP/1.1 304 Not Modified\r\nETag: " + etag + "\r\nConnection: close\r\n\r\n").getBytes("US-ASCII"));
+			} else {
+				byte[] body = DATA.getBytes("UTF-8");
+				String encoding = "";
+				if (gzip && acceptsGzip) {
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					GZIPOutputStream gzipOut = new GZIPOutputStream(bytes);
+					gzipOut.write(body);
+					gzipOut.close();
+					body = bytes.toByteArray();
+					encoding = "Content-Encoding: gzip\r\n";
+				}
+				out.write(("HTTP/1.1 200 OK\r\nContent-Type: text/csv; charset=UTF-8\r\n" + encoding + "ETag: " + etag + "\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n").getBytes("US-ASCII"));
+				out.write(body);
+				synchronized (this) {
+					downloads++;
+				}
+			}
+			out.flush();
+		}
+	}
+}
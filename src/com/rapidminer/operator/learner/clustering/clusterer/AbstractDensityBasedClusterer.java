@@ -25,6 +25,7 @@ package com.rapidminer.operator.learner.clustering.clusterer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -36,7 +37,13 @@ import com.rapidminer.operator.learner.clustering.DefaultCluster;
 import com.rapidminer.operator.learner.clustering.FlatCrispClusterModel;
 import com.rapidminer.operator.learner.clustering.IdUtils;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.tools.math.container.BallTree;
+import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.container.KDTree;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
 
 /**
  * A simple generic density based clusterer.
@@ -56,6 +63,17 @@ public abstract class AbstractDensityBasedClusterer extends AbstractFlatClustere
 
 	private static final String MIN_PTS_NAME = "min_pts";
 
+	/** The parameter name for &quot;Indicates how the neighbours of a point are searched.&quot; */
+	public static final String PARAMETER_NEIGHBOUR_SEARCH = "neighbour_search";
+
+	public static final String[] NEIGHBOUR_SEARCH_METHODS = { "linear", "kd_tree", "ball_tree" };
+
+	public static final int NEIGHBOUR_SEARCH_LINEAR = 0;
+
+	public static final int NEIGHBOUR_SEARCH_KD_TREE = 1;
+
+	public static final int NEIGHBOUR_SEARCH_BALL_TREE = 2;
+
 	
 	public AbstractDensityBasedClusterer(OperatorDescription description) {
 		super(description);
@@ -85,27 +103,25 @@ public abstract class AbstractDensityBasedClusterer extends AbstractFlatClustere
 				if (l.size() >= minPts) {
 					clusterId++;
 					assign.put(id, clusterId);
-					for (int j = 0; j < l.size(); j++) {
-						String idx = l.get(j);
+					for (String idx : l) {
 						assign.put(idx, clusterId);
 					}
-					while (l.size() > 0) {
+					LinkedList<String> queue = new LinkedList<String>(l);
+					while (queue.size() > 0) {
 						// Take the first element from the queue
-						String idRec = l.get(0);
-						l.remove(0);
+						String idRec = queue.removeFirst();
 						// Assign it the current cluster id
 						// Find its neighbours and if the density is sufficient
 						// recurse through them
-						List lRec = getNeighbours(es, idRec);
+						List<String> lRec = getNeighbours(es, idRec);
 						if (lRec.size() >= minPts) {
-							for (int j = 0; j < lRec.size(); j++) {
-								String id3 = (String) lRec.get(j);
+							for (String id3 : lRec) {
 								Integer status3 = assign.get(id3);
 								// If already identified as noise, just assign
 								// it, if its unclassified, add to queue
 								if (status3.intValue() < 1) {
 									if (status3.intValue() == UNASSIGNED) {
-										l.add(id3);
+										queue.add(id3);
 									}
 									assign.put(id3, clusterId);
 								}
@@ -130,6 +146,41 @@ public abstract class AbstractDensityBasedClusterer extends AbstractFlatClustere
 		return result;
 	}
 
+	/**
+	 * Creates the spatial index selected by the neighbour search parameter for the given
+	 * points. The i-th point is stored with value i. Returns null if a linear search
+	 * was selected or if the points contain missing values, since the tree pruning is
+	 * not valid for the distance measures ignoring missing dimensions. Subclasses must
+	 * only call this for metric distance measures. If the distance might be smaller than
+	 * the difference in a single dimension (coordinateBounded is false), a ball tree is
+	 * used instead of a kd tree.
+	 */
+	protected GeometricDataCollection<Integer> createNeighbourIndex(List<double[]> points, DistanceMeasure distance, boolean coordinateBounded) throws UndefinedParameterError {
+		int method = getParameterAsInt(PARAMETER_NEIGHBOUR_SEARCH);
+		if ((method == NEIGHBOUR_SEARCH_LINEAR) || points.isEmpty())
+			return null;
+		for (double[] point : points) {
+			for (double value : point) {
+				if (Double.isNaN(value))
+					return null;
+			}
+		}
+		List<Integer> positions = new ArrayList<Integer>(points.size());
+		for (int i = 0; i < points.size(); i++)
+			positions.add(i);
+		double[][] pointMatrix = points.toArray(new double[points.size()][]);
+		if ((method == NEIGHBOUR_SEARCH_BALL_TREE) || !coordinateBounded) {
+			return new BallTree<Integer>(pointMatrix, positions, distance);
+		} else {
+			return new KDTree<Integer>(pointMatrix, positions, distance);
+		}
+	}
+
+	/** Returns the parameter type for the neighbour search of subclasses supporting spatial indices. */
+	protected ParameterType createNeighbourSearchParameter() {
+		return new ParameterTypeCategory(PARAMETER_NEIGHBOUR_SEARCH, "Indicates how the neighbours of a point are searched. The trees are only used for metric distances without missing values.", NEIGHBOUR_SEARCH_METHODS, NEIGHBOUR_SEARCH_KD_TREE);
+	}
+
 	protected List<String> getIds() {
 		return ids;
 	}
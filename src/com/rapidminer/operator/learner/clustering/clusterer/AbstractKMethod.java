@@ -23,8 +23,10 @@
 package com.rapidminer.operator.learner.clustering.clusterer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
@@ -35,6 +37,7 @@ import com.rapidminer.operator.learner.clustering.FlatCrispClusterModel;
 import com.rapidminer.operator.learner.clustering.IdUtils;
 import com.rapidminer.operator.learner.clustering.MutableCluster;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.RandomGenerator;
 
@@ -54,6 +57,25 @@ public abstract class AbstractKMethod extends AbstractFlatClusterer {
 
 	/** The parameter name for &quot;the maximal number of iterations performed for one run of the k method&quot; */
 	public static final String PARAMETER_MAX_OPTIMIZATION_STEPS = "max_optimization_steps";
+
+	/** The parameter name for &quot;the method used for the initialization of the cluster centers&quot; */
+	public static final String PARAMETER_INITIALIZATION = "initialization";
+
+	public static final String[] INITIALIZATION_METHODS = { "random", "k-means++" };
+
+	public static final int INITIALIZATION_RANDOM = 0;
+
+	public static final int INITIALIZATION_K_MEANS_PLUS_PLUS = 1;
+
+	/** The parameter name for &quot;Indicates if the triangle inequality should be used to skip distance computations&quot; */
+	public static final String PARAMETER_USE_TRIANGLE_INEQUALITY = "use_triangle_inequality";
+
+	/** The distance between two points used for the k-means++ seeding. */
+	public interface SeedingDistance {
+
+		/** Returns the distance of the point to the center. Squared distances should be used for metrics. */
+		public double distance(int point, int center);
+	}
 	
 	public AbstractKMethod(OperatorDescription description) {
 		super(description);
@@ -120,6 +142,62 @@ public abstract class AbstractKMethod extends AbstractFlatClusterer {
 		return bestModel;
 	}
 
+	/**
+	 * Selects k of the given points as initial centers with the k-means++
+	 * seeding. The first center is chosen uniformly at random, every further
+	 * center is chosen with a probability proportional to its distance to the
+	 * closest center chosen so far. If all remaining points coincide with
+	 * centers, a random point which is not yet a center is chosen.
+	 */
+	public static int[] getKMeansPlusPlusIndices(int numberOfPoints, int k, SeedingDistance distance, Random random) {
+		int[] centers = new int[k];
+		boolean[] isCenter = new boolean[numberOfPoints];
+		double[] minDistances = new double[numberOfPoints];
+		Arrays.fill(minDistances, Double.POSITIVE_INFINITY);
+		centers[0] = random.nextInt(numberOfPoints);
+		isCenter[centers[0]] = true;
+		for (int c = 1; c < k; c++) {
+			double sum = 0.0d;
+			for (int i = 0; i < numberOfPoints; i++) {
+				if (!isCenter[i]) {
+					double d = distance.distance(i, centers[c - 1]);
+					if (d < minDistances[i])
+						minDistances[i] = d;
+					sum += minDistances[i];
+				}
+			}
+			int next = -1;
+			if ((sum > 0.0d) && !Double.isInfinite(sum)) {
+				double r = random.nextDouble() * sum;
+				for (int i = 0; (i < numberOfPoints) && (next < 0); i++) {
+					if (!isCenter[i] && (minDistances[i] > 0.0d)) {
+						r -= minDistances[i];
+						if (r < 0.0d)
+							next = i;
+					}
+				}
+				// rounding errors might leave a small rest
+				for (int i = numberOfPoints - 1; (i >= 0) && (next < 0); i--) {
+					if (!isCenter[i] && (minDistances[i] > 0.0d))
+						next = i;
+				}
+			}
+			while (next < 0) {
+				int candidate = random.nextInt(numberOfPoints);
+				if (!isCenter[candidate])
+					next = candidate;
+			}
+			centers[c] = next;
+			isCenter[next] = true;
+		}
+		return centers;
+	}
+
+	/** Returns the parameter type for the initialization of subclasses supporting k-means++ seeding. */
+	protected static ParameterType createInitializationParameter() {
+		return new ParameterTypeCategory(PARAMETER_INITIALIZATION, "Indicates how the initial cluster centers are chosen (random or k-means++ seeding).", INITIALIZATION_METHODS, INITIALIZATION_RANDOM);
+	}
+
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
 		ParameterType type = new ParameterTypeInt(PARAMETER_K, "The number of clusters which should be found.", 2, Integer.MAX_VALUE, 2);
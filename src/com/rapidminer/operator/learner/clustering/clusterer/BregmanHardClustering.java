@@ -22,7 +22,10 @@
  */
 package com.rapidminer.operator.learner.clustering.clusterer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
@@ -39,6 +42,7 @@ import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.IterationArrayList;
+import com.rapidminer.tools.RandomGenerator;
 
 /**
  * This operator represents an implementation of the Bregman Hard Clustering.
@@ -87,6 +91,9 @@ public class BregmanHardClustering extends AbstractKMethod {
 	private int k;
 
 	private BregmanDivergence div;
+	
+	/** Maps the ids to the indices of the examples in the example set. */
+	private Map<String, Integer> exampleIndices;
 
 	public BregmanHardClustering(OperatorDescription description) {
 		super(description);
@@ -94,6 +101,11 @@ public class BregmanHardClustering extends AbstractKMethod {
 
 	public ClusterModel createClusterModel(ExampleSet exampleSet) throws OperatorException {
 		this.exampleSet = exampleSet;
+		this.exampleIndices = new HashMap<String, Integer>();
+		int index = 0;
+		for (Example example : exampleSet) {
+			exampleIndices.put(IdUtils.getIdFromExample(example), index++);
+		}
 		k = getParameterAsInt(PARAMETER_K);
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS);
 		int maxRuns = getParameterAsInt(PARAMETER_MAX_RUNS);
@@ -105,21 +117,8 @@ public class BregmanHardClustering extends AbstractKMethod {
 		return model;
 	}
 
-	// initialize cluster centroids randomly
+	// initialize the divergence and the cluster centroids
 	protected void initKMethod(List<String> ids, int k) throws OperatorException {
-		numberOfAttr = this.exampleSet.getAttributes().size();
-		centroids = new double[k][numberOfAttr];
-		List<String> randomList = IdUtils.getRandomIdList(ids, k, getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
-		for (int i = 0; i < k; i++) {
-			String id = randomList.get(i);
-			Example ex = IdUtils.getExampleFromId(exampleSet, id);
-			int j = 0;
-			for (Attribute attribute : ex.getAttributes()) {
-				centroids[i][j] = ex.getValue(attribute);
-				j++;
-			}
-		}
-		
 		// which bregman divergence is to use:
 		try {
 			int divergence = getParameterAsInt(PARAMETER_BREGMAN_DIVERGENCE);
@@ -163,17 +162,62 @@ public class BregmanHardClustering extends AbstractKMethod {
 			}
 		} catch (UndefinedParameterError e) {
 		}
+
+		// the divergence is needed for the k-means++ seeding
+		numberOfAttr = this.exampleSet.getAttributes().size();
+		centroids = new double[k][];
+		List<String> initialList;
+		if (getParameterAsInt(PARAMETER_INITIALIZATION) == INITIALIZATION_K_MEANS_PLUS_PLUS) {
+			initialList = getKMeansPlusPlusIdList(ids, k);
+		} else {
+			initialList = IdUtils.getRandomIdList(ids, k, getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
+		}
+		for (int i = 0; i < k; i++) {
+			centroids[i] = getValues(initialList.get(i));
+		}
+	}
+
+	/** Chooses the initial centroids with the k-means++ seeding using the divergence of the examples to the centers. */
+	private List<String> getKMeansPlusPlusIdList(final List<String> ids, int k) throws OperatorException {
+		int[] indices = getKMeansPlusPlusIndices(ids.size(), k, new SeedingDistance() {
+			private int lastCenter = -1;
+
+			private double[] centerValues;
+
+			public double distance(int point, int center) {
+				if (center != lastCenter) {
+					centerValues = getValues(ids.get(center));
+					lastCenter = center;
+				}
+				return div.computeDistance(exampleIndices.get(ids.get(point)), centerValues);
+			}
+		}, RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED)));
+		List<String> result = new ArrayList<String>(k);
+		for (int index : indices) {
+			result.add(ids.get(index));
+		}
+		return result;
+	}
+
+	private double[] getValues(String id) {
+		Example ex = IdUtils.getExampleFromId(exampleSet, id);
+		double[] values = new double[numberOfAttr];
+		int j = 0;
+		for (Attribute attribute : ex.getAttributes()) {
+			values[j++] = ex.getValue(attribute);
+		}
+		return values;
 	}
 
 	// the best cluster for the example
 	protected int bestIndex(String id, FlatCrispClusterModel cm, FlatCrispClusterModel oldCm) {
-		Example toAllocate = IdUtils.getExampleFromId(exampleSet, id);
+		int exampleIndex = exampleIndices.get(id);
 		int bestIndex = -1;
 		double shortestDistance = Double.POSITIVE_INFINITY;
 		for (int i = 0; i < k; i++) {
 			double[] centroid = centroids[i];
 			
-			double divergence = div.computeDistance(toAllocate, centroid);
+			double divergence = div.computeDistance(exampleIndex, centroid);
 			if (shortestDistance > divergence) {
 				shortestDistance = divergence;
 				bestIndex = i;
@@ -218,8 +262,7 @@ public class BregmanHardClustering extends AbstractKMethod {
 		for (int i = 0; i < cl.getNumberOfClusters(); i++) {
 			List<String> objectsIter = new IterationArrayList<String>(cl.getClusterAt(i).getObjects());
 			for (int j = 0; j < objectsIter.size(); j++) {
-				Example ex = IdUtils.getExampleFromId(exampleSet, objectsIter.get(j));
-				double z = (div.computeDistance(ex, centroids[i]));
+				double z = (div.computeDistance(exampleIndices.get(objectsIter.get(j)), centroids[i]));
 				sum += (z * z);
 				count++;
 			}
@@ -231,6 +274,7 @@ public class BregmanHardClustering extends AbstractKMethod {
 		List<ParameterType> types = super.getParameterTypes();
 
 		types.add(new ParameterTypeCategory(PARAMETER_BREGMAN_DIVERGENCE, "The Bregman Divergence", DISTANCES, SQUARED_EUCLIDEAN_DISTANCE));
+		types.add(createInitializationParameter());
 		types.add(new ParameterTypeInt(PARAMETER_LOCAL_RANDOM_SEED, "The local random seed (-1: use global random seed)", -1, Integer.MAX_VALUE, -1));
 		return types;
 	}
@@ -22,9 +22,12 @@
  */
 package com.rapidminer.operator.learner.clustering.clusterer;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.InputDescription;
 import com.rapidminer.operator.OperatorDescription;
@@ -32,13 +35,24 @@ import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.clustering.ClusterModel;
 import com.rapidminer.operator.learner.clustering.FlatClusterModel;
 import com.rapidminer.operator.similarity.DistanceSimilarityConverter;
+import com.rapidminer.operator.similarity.IndexBasedSimilarityMeasure;
 import com.rapidminer.operator.similarity.SimilarityMeasure;
 import com.rapidminer.operator.similarity.SimilarityUtil;
+import com.rapidminer.operator.similarity.attributebased.AbstractValueBasedSimilarity;
+import com.rapidminer.operator.similarity.attributebased.ChebychevNumericalDistance;
+import com.rapidminer.operator.similarity.attributebased.EuclideanDistance;
+import com.rapidminer.operator.similarity.attributebased.ManhattanDistance;
+import com.rapidminer.operator.similarity.attributebased.MixedEuclideanDistance;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeDouble;
+import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
 
 /**
  * This operator represents a simple implementation of the DBSCAN algorithm. {@rapidminer.cite Ester/etal/96a}).
+ * For the (mixed) euclidean, manhattan and chebychev distance the neighbours are retrieved
+ * from a spatial index which is built once, all other measures are handled by a
+ * linear scan over all objects.
  * 
  * @rapidminer.reference Ester/etal/96a
  * @author Michael Wurst, Ingo Mierswa
@@ -48,7 +62,13 @@ public class DBScanClustering extends AbstractDensityBasedClusterer {
 
 	private double maxDistance = 0.2;
 
-	private SimilarityMeasure sim;
+	private IndexBasedSimilarityMeasure sim;
+
+	/** The similarity indices of the ids to cluster, in the order of {@link #getIds()}. */
+	private int[] indices;
+
+	/** The spatial index storing the positions in {@link #getIds()}. Null if a linear scan is used. */
+	private GeometricDataCollection<Integer> neighbourIndex;
 
 	private static final String MAX_DISTANCE_NAME = "max_distance";
 
@@ -58,26 +78,89 @@ public class DBScanClustering extends AbstractDensityBasedClusterer {
 
 	public ClusterModel createClusterModel(ExampleSet es) throws OperatorException {
 		es.remapIds();
-		sim = SimilarityUtil.resolveSimilarityMeasure(getParameters(), getInput(), es);
-		if (!sim.isDistance())
-			sim = new DistanceSimilarityConverter(sim);
+		SimilarityMeasure measure = SimilarityUtil.resolveSimilarityMeasure(getParameters(), getInput(), es);
+		if (!measure.isDistance())
+			measure = new DistanceSimilarityConverter(measure);
+		sim = SimilarityUtil.toIndexBased(measure);
+		indices = null;
 		
 		maxDistance = getParameterAsDouble(MAX_DISTANCE_NAME);
 		FlatClusterModel result = doClustering(es);
 		return result;
 	}
 
-	protected List<String> getNeighbours(ExampleSet es, String id) {
+	protected List<String> getNeighbours(ExampleSet es, String id) throws OperatorException {
+		List<String> ids = getIds();
+		if (indices == null) {
+			indices = new int[ids.size()];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = sim.getIndex(ids.get(i));
+			}
+			neighbourIndex = createNeighbourIndex(es, ids);
+		}
 		List<String> result = new LinkedList<String>();
-		for (int i = 0; i < getIds().size(); i++) {
-			String id2 = getIds().get(i);
-			double v = sim.similarity(id, id2);
+		int index = sim.getIndex(id);
+		if ((neighbourIndex != null) && (index >= 0)) {
+			List<Integer> positions = new ArrayList<Integer>(neighbourIndex.getValuesInRange(maxDistance, ((AbstractValueBasedSimilarity) sim).getValues(index)));
+			Collections.sort(positions);
+			for (Integer position : positions)
+				result.add(ids.get(position));
+			return result;
+		}
+		for (int i = 0; i < indices.length; i++) {
+			double v = (index < 0 || indices[i] < 0) ? sim.similarity(id, ids.get(i)) : sim.similarity(index, indices[i]);
 			if (v <= maxDistance)
-				result.add(id2);
+				result.add(ids.get(i));
 		}
 		return result;
 	}
 
+	/**
+	 * Creates a spatial index over the values of all ids if the similarity measure is
+	 * one of the supported metric distances, otherwise null is returned.
+	 */
+	private GeometricDataCollection<Integer> createNeighbourIndex(ExampleSet es, List<String> ids) throws OperatorException {
+		Class<?> simClass = sim.getClass();
+		boolean coordinateBounded = true;
+		if (simClass == MixedEuclideanDistance.class) {
+			// nominal dimensions contribute at most 1 to the distance
+			for (Attribute attribute : es.getAttributes()) {
+				if (attribute.isNominal())
+					coordinateBounded = false;
+			}
+		} else if ((simClass != EuclideanDistance.class) && (simClass != ManhattanDistance.class) && (simClass != ChebychevNumericalDistance.class)) {
+			return null;
+		}
+		AbstractValueBasedSimilarity valueSim = (AbstractValueBasedSimilarity) sim;
+		List<double[]> points = new ArrayList<double[]>(ids.size());
+		for (int i = 0; i < indices.length; i++) {
+			if (indices[i] < 0)
+				return null;
+			points.add(valueSim.getValues(indices[i]));
+		}
+		return createNeighbourIndex(points, new ValueBasedDistance(valueSim), coordinateBounded);
+	}
+
+	/** Uses the distance of a value based similarity measure for the spatial index. */
+	private static class ValueBasedDistance extends DistanceMeasure {
+
+		private AbstractValueBasedSimilarity sim;
+
+		public ValueBasedDistance(AbstractValueBasedSimilarity sim) {
+			this.sim = sim;
+		}
+
+		public void init(ExampleSet exampleSet) {}
+
+		public double calculateDistance(double[] value1, double[] value2) {
+			return sim.similarity(value1, value2);
+		}
+
+		public double calculateSimilarity(double[] value1, double[] value2) {
+			return -calculateDistance(value1, value2);
+		}
+	}
+
 	public InputDescription getInputDescription(Class cls) {
 		if (SimilarityMeasure.class.isAssignableFrom(cls)) {
 			return new InputDescription(cls, false, true);
@@ -93,6 +176,7 @@ public class DBScanClustering extends AbstractDensityBasedClusterer {
 		p.setExpert(false);
 		types.add(p);
 		types.add(SimilarityUtil.generateSimilarityParameter());
+		types.add(createNeighbourSearchParameter());
 		return types;
 	}
 }
@@ -23,8 +23,20 @@
 package com.rapidminer.operator.learner.clustering.clusterer;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
@@ -32,19 +44,29 @@ import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.Tools;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.learner.clustering.ClusterModel;
 import com.rapidminer.operator.learner.clustering.DefaultCluster;
-import com.rapidminer.operator.learner.clustering.FlatCrispClusterModel;
 import com.rapidminer.operator.learner.clustering.IdUtils;
 import com.rapidminer.operator.learner.clustering.MutableCluster;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
-import com.rapidminer.tools.IterationArrayList;
 import com.rapidminer.tools.RandomGenerator;
 
 
 /**
- * This operator represents a simple implementation of k-means.
+ * This operator represents a simple implementation of k-means. The examples
+ * are assigned by several threads and independent runs are performed
+ * concurrently. For a fixed local random seed the result does not depend on
+ * the number of threads.
+ * 
+ * The initial centroids can be chosen with the k-means++ seeding which
+ * usually needs far fewer runs. For large data sets mini-batch k-means can
+ * be used which trains on small random batches of examples and only needs
+ * a few passes over the whole example set. If the batches are read
+ * sequentially, only sequential access to the examples is needed. The triangle inequality can be
+ * used to skip most distance computations in later optimization steps.
  * 
  * @author Michael Wurst, Ingo Mierswa
  * @version $Id: KMeans.java,v 1.10 2008/09/12 10:31:37 tobiasmalbrecht Exp $
@@ -62,21 +84,57 @@ public class KMeans extends AbstractFlatClusterer {
 
 	/** The parameter name for &quot;Use the given random seed instead of global random numbers (-1: use global)&quot; */
 	public static final String PARAMETER_LOCAL_RANDOM_SEED = "local_random_seed";
+
+	/** The parameter name for &quot;The number of threads used for the assignment of the examples and for concurrent runs&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** The parameter name for &quot;the method used for the initialization of the centroids&quot; */
+	public static final String PARAMETER_INITIALIZATION = AbstractKMethod.PARAMETER_INITIALIZATION;
+
+	/** The parameter name for &quot;The number of examples used in each optimization step (0: use all examples)&quot; */
+	public static final String PARAMETER_MINI_BATCH_SIZE = "mini_batch_size";
+
+	/** The parameter name for &quot;Indicates if the mini-batches are read sequentially instead of being drawn randomly&quot; */
+	public static final String PARAMETER_SEQUENTIAL_BATCHES = "sequential_batches";
+
+	/** The parameter name for &quot;Indicates if the triangle inequality should be used to skip distance computations&quot; */
+	public static final String PARAMETER_USE_TRIANGLE_INEQUALITY = AbstractKMethod.PARAMETER_USE_TRIANGLE_INEQUALITY;
 	
 	private int numAttributes;
 
 	private int k;
 
+	/** The number of distances computed by the assignment steps of all runs. */
+	private long distanceComputations;
+
+	/** The number of distances skipped due to the triangle inequality in all runs. */
+	private long savedDistanceComputations;
+
 	public KMeans(OperatorDescription description) {
 		super(description);
+		addValue(new ValueDouble("distance computations", "The number of distances computed for the assignment of the examples.") {
+			public double getDoubleValue() {
+				return distanceComputations;
+			}
+		});
+		addValue(new ValueDouble("saved distance computations", "The number of distance computations skipped due to the triangle inequality.") {
+			public double getDoubleValue() {
+				return savedDistanceComputations;
+			}
+		});
 	}
 
 	public ClusterModel createClusterModel(ExampleSet es) throws OperatorException {
 		es.remapIds();
+		distanceComputations = 0;
+		savedDistanceComputations = 0;
 		
 		k = getParameterAsInt(PARAMETER_K);
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS);
 		int maxRuns = getParameterAsInt(PARAMETER_MAX_RUNS);
+		int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		if (numberOfThreads == 0)
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
 
 		// additional checks
 		Tools.onlyNumericalAttributes(es, "KMeans");
@@ -85,120 +143,332 @@ public class KMeans extends AbstractFlatClusterer {
 			logWarning("number of clusters (k) = " + k + " > number of objects =" + es.size());
 			k = es.size();
 		}
+		int miniBatchSize = getParameterAsInt(PARAMETER_MINI_BATCH_SIZE);
+		if (miniBatchSize > 0)
+			return createMiniBatchClusterModel(es, miniBatchSize, maxOptimizationSteps, maxRuns, numberOfThreads);
 		
+		// extract the dense data matrix once
+		numAttributes = es.getAttributes().size();
 		List<String> ids = new ArrayList<String>();
+		double[][] data = new double[es.size()][];
 		Iterator<Example> er = es.iterator();
 		while (er.hasNext()) {
 			Example ex = er.next();
+			double[] values = new double[numAttributes];
+			int m = 0;
+			for (Attribute att : ex.getAttributes()) {
+				values[m++] = ex.getValue(att);
+			}
+			data[ids.size()] = values;
 			ids.add(IdUtils.getIdFromExample(ex));
 		}
-		
-		double max = Double.NEGATIVE_INFINITY;
-		KMeansClusterModel bestModel = null;
+
+		// the initial centroids are drawn in advance in order to keep the runs deterministic
+		List<double[][]> initialCentroids = new ArrayList<double[][]>(maxRuns);
+		boolean kMeansPlusPlus = getParameterAsInt(PARAMETER_INITIALIZATION) == AbstractKMethod.INITIALIZATION_K_MEANS_PLUS_PLUS;
+		Random random = kMeansPlusPlus ? RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED)) : null;
+		for (int iter = 0; iter < maxRuns; iter++) {
+			if (kMeansPlusPlus)
+				initialCentroids.add(initializeKMeansPlusPlus(data, data.length, random));
+			else
+				initialCentroids.add(initializeCendroids(data, ids));
+		}
+
+		ExecutorService blockExecutor = null;
+		ExecutorService runExecutor = null;
+		try {
+			if (numberOfThreads > 1) {
+				blockExecutor = Executors.newFixedThreadPool(numberOfThreads);
+				if (maxRuns > 1)
+					runExecutor = Executors.newFixedThreadPool(Math.min(numberOfThreads, maxRuns));
+			}
+			KMeansEngine.Run[] runs = performRuns(new KMeansEngine(data, k, blockExecutor, getParameterAsBoolean(PARAMETER_USE_TRIANGLE_INEQUALITY)), initialCentroids, maxOptimizationSteps, runExecutor);
+
+			// the first of the best runs is used
+			KMeansEngine.Run bestRun = null;
+			for (KMeansEngine.Run run : runs) {
+				distanceComputations += run.getDistanceComputations();
+				savedDistanceComputations += run.getSavedDistanceComputations();
+				if ((bestRun == null) || (run.getQuality() > bestRun.getQuality()))
+					bestRun = run;
+			}
+			return createClusterModel(es, ids, bestRun);
+		} finally {
+			if (blockExecutor != null)
+				blockExecutor.shutdownNow();
+			if (runExecutor != null)
+				runExecutor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Performs mini-batch k-means. Each batch is a random sample of the
+	 * examples drawn with the local random generator, so the examples are never
+	 * held in memory at once. The centroids of each run are initialized from a
+	 * sample of their own and all runs are trained on the same batches. The
+	 * rows of a batch are assigned by several threads. Afterwards one pass over
+	 * the examples selects the best run and a last pass assigns the examples to
+	 * its centroids.
+	 * 
+	 * If the batches are read sequentially, the centroids of all runs are
+	 * initialized from one reservoir sample and each step reads the next
+	 * consecutive batch, starting again at the end of the example set. The
+	 * examples are then only accessed by iterators, so data which is read
+	 * incrementally can be clustered as well.
+	 */
+	private ClusterModel createMiniBatchClusterModel(ExampleSet es, int batchSize, int maxOptimizationSteps, int maxRuns, int numberOfThreads) throws OperatorException {
+		Tools.isNonEmpty(es);
+		Attribute[] attributes = es.getAttributes().createRegularAttributeArray();
+		numAttributes = attributes.length;
+		double[][] batch = new double[Math.max(batchSize, k)][numAttributes];
+		int[][] assignments = new int[maxRuns][batch.length];
+		Random random = RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
+		boolean kMeansPlusPlus = getParameterAsInt(PARAMETER_INITIALIZATION) == AbstractKMethod.INITIALIZATION_K_MEANS_PLUS_PLUS;
+		boolean sequentialBatches = getParameterAsBoolean(PARAMETER_SEQUENTIAL_BATCHES);
+
+		double[][][] centroids = new double[maxRuns][][];
+		long[][] counts = new long[maxRuns][k];
+		int sampleSize = sequentialBatches ? reservoirSample(es, attributes, batch, random) : 0;
 		for (int iter = 0; iter < maxRuns; iter++) {
-			FlatCrispClusterModel oldResult = null;
-			// initialize the method
-			KMeansClusterModel result = new KMeansClusterModel(initializeCendroids(es, ids), es);
-			boolean stableState = false;
-			for (int l = 0; (l < maxOptimizationSteps) && !stableState; l++) {
-				stableState = true;
-				while (result.getNumberOfClusters() > 0)
-					result.removeClusterAt(0);
+			int size = sequentialBatches ? sampleSize : sampleBatch(es, attributes, batch, batch.length, true, random);
+			if (kMeansPlusPlus) {
+				centroids[iter] = initializeKMeansPlusPlus(batch, size, random);
+			} else {
+				centroids[iter] = new double[k][];
+				int[] rows = new int[size];
+				for (int i = 0; i < size; i++)
+					rows[i] = i;
 				for (int j = 0; j < k; j++) {
-					result.addCluster(new DefaultCluster("" + j));
+					int index = j + random.nextInt(size - j);
+					int row = rows[index];
+					rows[index] = rows[j];
+					centroids[iter][j] = batch[row].clone();
+				}
+			}
+		}
+		ExecutorService executor = null;
+		Iterator<Example> reader = es.iterator();
+		try {
+			if (numberOfThreads > 1)
+				executor = Executors.newFixedThreadPool(numberOfThreads);
+			for (int step = 0; step < maxOptimizationSteps; step++) {
+				int size = 0;
+				if (sequentialBatches) {
+					while (size < batchSize) {
+						if (!reader.hasNext())
+							reader = es.iterator();
+						getValues(reader.next(), attributes, batch[size++]);
+					}
+				} else {
+					size = sampleBatch(es, attributes, batch, batchSize, false, random);
 				}
-				// Assign the ids to the cluster centroids
-				for (int i = 0; i < ids.size(); i++) {
-					String d1 = ids.get(i);
-					int maxIndex = bestIndex(d1, es, result);
-					log("KMethod: item " + d1 + "assigned to cluster with index " + maxIndex);
-					if (maxIndex < 0)
-						maxIndex = RandomGenerator.getGlobalRandomGenerator().nextInt(result.getNumberOfClusters());
-					((MutableCluster) result.getClusterAt(maxIndex)).addObject(d1);
-					if (oldResult == null)
-						stableState = false;
-					else if (!oldResult.getClusterAt(maxIndex).contains(d1))
-						stableState = false;
+				assignBatch(centroids, batch, size, assignments, numberOfThreads, executor);
+				for (int iter = 0; iter < maxRuns; iter++) {
+					KMeansEngine.updateMiniBatchCentroids(centroids[iter], counts[iter], batch, size, assignments[iter]);
 				}
-				// Capture the old result to compare it with the result of the next round
-				oldResult = new FlatCrispClusterModel(result);
-				// Recalculate the centroids
-				recalculateCentroids(es, result);
+				checkForStop();
 			}
-			double v = evaluateClusterModel(es, result);
-			if (v > max) {
-				max = v;
-				bestModel = result;
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+
+		double[] values = new double[numAttributes];
+		int bestRun = 0;
+		if (maxRuns > 1) {
+			double[] sums = new double[maxRuns];
+			for (Example example : es) {
+				getValues(example, attributes, values);
+				for (int iter = 0; iter < maxRuns; iter++) {
+					double[][] runCentroids = centroids[iter];
+					sums[iter] += KMeansEngine.squaredDistance(values, runCentroids[KMeansEngine.closestCentroid(values, runCentroids)]);
+				}
 			}
+			for (int iter = 1; iter < maxRuns; iter++) {
+				if (sums[iter] < sums[bestRun])
+					bestRun = iter;
+			}
+		}
+
+		KMeansClusterModel result = new KMeansClusterModel(centroids[bestRun], es);
+		for (int j = 0; j < k; j++) {
+			result.addCluster(new DefaultCluster("" + j));
 		}
+		for (Example example : es) {
+			getValues(example, attributes, values);
+			int index = KMeansEngine.closestCentroid(values, centroids[bestRun]);
+			((MutableCluster) result.getClusterAt(index)).addObject(IdUtils.getIdFromExample(example));
+		}
+		return result;
+	}
 
-		return bestModel;
+	/**
+	 * Reads a uniform sample of at most batch.length examples into the batch
+	 * during a single pass over the example set (reservoir sampling) and returns
+	 * the number of rows read.
+	 */
+	private int reservoirSample(ExampleSet es, Attribute[] attributes, double[][] batch, Random random) {
+		int seen = 0;
+		for (Example example : es) {
+			int row = seen < batch.length ? seen : random.nextInt(seen + 1);
+			if (row < batch.length)
+				getValues(example, attributes, batch[row]);
+			seen++;
+		}
+		return Math.min(seen, batch.length);
 	}
 
-	protected double[][] initializeCendroids(ExampleSet es, List<String> ids) throws OperatorException {
-		numAttributes = es.getAttributes().size();
-		double[][] centroids = new double[k][numAttributes];
-		List randomIdList = IdUtils.getRandomIdList(ids, k, getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
-		for (int j = 0; j < k; j++) {
-			String id = (String) randomIdList.get(j);
-			Example example = IdUtils.getExampleFromId(es, id);
-			int m = 0;
-			for (Attribute att : example.getAttributes()) {
-				centroids[j][m++] = example.getValue(att);
+	/**
+	 * Reads the values of randomly drawn examples into the first rows of the
+	 * batch and returns the number of rows read. If distinct is true, the
+	 * examples are drawn without replacement (Floyd's algorithm) and at most
+	 * all examples are read.
+	 */
+	private int sampleBatch(ExampleSet es, Attribute[] attributes, double[][] batch, int size, boolean distinct, Random random) {
+		int n = es.size();
+		if (!distinct) {
+			for (int i = 0; i < size; i++) {
+				getValues(es.getExample(random.nextInt(n)), attributes, batch[i]);
 			}
+			return size;
 		}
-		return centroids;
+		size = Math.min(size, n);
+		Set<Integer> drawn = new HashSet<Integer>();
+		int row = 0;
+		for (int j = n - size; j < n; j++) {
+			int index = random.nextInt(j + 1);
+			if (!drawn.add(index)) {
+				index = j;
+				drawn.add(index);
+			}
+			getValues(es.getExample(index), attributes, batch[row++]);
+		}
+		return size;
 	}
 
-	protected double evaluateClusterModel(ExampleSet es, KMeansClusterModel cm) {
-		int count = 0;
-		double sum = 0.0;
-		for (int i = 0; i < cm.getNumberOfClusters(); i++) {
-			List<String> objs = new IterationArrayList<String>(cm.getClusterAt(i).getObjects());
-			for (int j = 0; j < objs.size(); j++) {
-				String d = objs.get(j);
-				double v = cm.getDistanceFromCentroid(i, IdUtils.getExampleFromId(es, d));
-				sum = sum + v * v;
-				count++;
+	/**
+	 * Assigns the first size rows of the batch to the closest centroids of each
+	 * run. The rows are split into one block per thread and the blocks of all
+	 * runs are processed by the executor if it is not null.
+	 */
+	private void assignBatch(final double[][][] centroids, final double[][] batch, int size, final int[][] assignments, int numberOfThreads, ExecutorService executor) throws OperatorException {
+		if (executor == null) {
+			for (int iter = 0; iter < centroids.length; iter++) {
+				KMeansEngine.assignBatch(centroids[iter], batch, 0, size, assignments[iter]);
 			}
+			return;
 		}
-		return -(sum / count);
+		int blockSize = (size + numberOfThreads - 1) / numberOfThreads;
+		List<Future<Object>> futures = new ArrayList<Future<Object>>();
+		for (int iter = 0; iter < centroids.length; iter++) {
+			for (int start = 0; start < size; start += blockSize) {
+				final int run = iter;
+				final int blockStart = start;
+				final int blockEnd = Math.min(size, start + blockSize);
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() {
+						KMeansEngine.assignBatch(centroids[run], batch, blockStart, blockEnd, assignments[run]);
+						return null;
+					}
+				}));
+			}
+		}
+		getResults(futures);
 	}
 
-	protected int bestIndex(String id, ExampleSet es, KMeansClusterModel cl) {
-		Example ex = IdUtils.getExampleFromId(es, id);
-		double min = Double.MAX_VALUE;
-		int maxIndex = 0;
-		for (int j = 0; j < k; j++) {
-			double d = 0;
-			int m = 0;
-			for (Attribute att : ex.getAttributes()) {
-				d = d + (ex.getValue(att) - cl.getCentroid(j)[m]) * (ex.getValue(att) - cl.getCentroid(j)[m]);
-				m++;
+	private void getValues(Example example, Attribute[] attributes, double[] values) {
+		for (int m = 0; m < attributes.length; m++) {
+			values[m] = example.getValue(attributes[m]);
+		}
+	}
+
+	private KMeansEngine.Run[] performRuns(final KMeansEngine engine, List<double[][]> initialCentroids, final int maxOptimizationSteps, ExecutorService runExecutor) throws OperatorException {
+		KMeansEngine.Run[] runs = new KMeansEngine.Run[initialCentroids.size()];
+		if (runExecutor == null) {
+			for (int iter = 0; iter < runs.length; iter++) {
+				runs[iter] = engine.cluster(initialCentroids.get(iter), maxOptimizationSteps);
+				checkForStop();
 			}
-			if (d < min) {
-				min = d;
-				maxIndex = j;
+			return runs;
+		}
+		List<Future<KMeansEngine.Run>> futures = new ArrayList<Future<KMeansEngine.Run>>(runs.length);
+		for (final double[][] centroids : initialCentroids) {
+			futures.add(runExecutor.submit(new Callable<KMeansEngine.Run>() {
+				public KMeansEngine.Run call() throws OperatorException {
+					return engine.cluster(centroids, maxOptimizationSteps);
+				}
+			}));
+		}
+		return getResults(futures).toArray(runs);
+	}
+
+	/**
+	 * Waits for the results of the futures in their order. The futures are
+	 * polled in order to check for a stopped process in between, the pending
+	 * tasks are cancelled by the shutdown of the executor.
+	 */
+	private <T> List<T> getResults(List<Future<T>> futures) throws OperatorException {
+		List<T> results = new ArrayList<T>(futures.size());
+		try {
+			for (Future<T> future : futures) {
+				boolean done = false;
+				while (!done) {
+					try {
+						results.add(future.get(100, TimeUnit.MILLISECONDS));
+						done = true;
+					} catch (TimeoutException e) {
+						checkForStop();
+					}
+				}
 			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperatorException("KMeans: interrupted while waiting for the runs.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof OperatorException)
+				throw (OperatorException) e.getCause();
+			throw new OperatorException("KMeans: run failed: " + e.getCause(), e.getCause());
 		}
-		return maxIndex;
+		return results;
 	}
 
-	protected void recalculateCentroids(ExampleSet es, KMeansClusterModel cl) {
+	private KMeansClusterModel createClusterModel(ExampleSet es, List<String> ids, KMeansEngine.Run run) {
+		KMeansClusterModel result = new KMeansClusterModel(run.getCentroids(), es);
 		for (int j = 0; j < k; j++) {
-			List<String> x = new IterationArrayList<String>(cl.getClusterAt(j).getObjects());
-			for (int m = 0; m < numAttributes; m++) {
-				cl.getCentroid(j)[m] = 0.0;
-			}
-			int numExamplesInCluster = x.size();
-			for (int i = 0; i < numExamplesInCluster; i++) {
-				Example ex = IdUtils.getExampleFromId(es, x.get(i));
-				int m = 0;
-				for (Attribute att : ex.getAttributes()) {
-					cl.getCentroid(j)[m++] += ex.getValue(att) / numExamplesInCluster;
-				}
+			result.addCluster(new DefaultCluster("" + j));
+		}
+		int[] assignments = run.getAssignments();
+		for (int i = 0; i < assignments.length; i++) {
+			((MutableCluster) result.getClusterAt(assignments[i])).addObject(ids.get(i));
+		}
+		return result;
+	}
+
+	protected double[][] initializeCendroids(double[][] data, List<String> ids) throws OperatorException {
+		double[][] centroids = new double[k][];
+		List<String> randomIdList = IdUtils.getRandomIdList(ids, k, getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
+		Map<String, Integer> rows = new HashMap<String, Integer>();
+		for (int i = 0; i < ids.size(); i++) {
+			rows.put(ids.get(i), i);
+		}
+		for (int j = 0; j < k; j++) {
+			centroids[j] = data[rows.get(randomIdList.get(j))].clone();
+		}
+		return centroids;
+	}
+
+	/** Chooses the initial centroids from the first size rows with the k-means++ seeding. */
+	protected double[][] initializeKMeansPlusPlus(final double[][] data, int size, Random random) {
+		int[] indices = AbstractKMethod.getKMeansPlusPlusIndices(size, k, new AbstractKMethod.SeedingDistance() {
+			public double distance(int point, int center) {
+				return KMeansEngine.squaredDistance(data[point], data[center]);
 			}
+		}, random);
+		double[][] centroids = new double[k][];
+		for (int j = 0; j < k; j++) {
+			centroids[j] = data[indices[j]].clone();
 		}
+		return centroids;
 	}
 
 	public List<ParameterType> getParameterTypes() {
@@ -212,6 +482,13 @@ public class KMeans extends AbstractFlatClusterer {
 				Integer.MAX_VALUE, 100));
 		types.add(new ParameterTypeInt(PARAMETER_LOCAL_RANDOM_SEED, "Use the given random seed instead of global random numbers (-1: use global)", -1,
 				Integer.MAX_VALUE, -1));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for the assignment of the examples and for concurrent runs (0: number of available processors).", 0,
+				Integer.MAX_VALUE, 1));
+		types.add(AbstractKMethod.createInitializationParameter());
+		types.add(new ParameterTypeInt(PARAMETER_MINI_BATCH_SIZE, "The number of examples used in each optimization step. If greater than 0, mini-batch k-means is performed on batches of randomly drawn examples (0: use all examples in each step).", 0,
+				Integer.MAX_VALUE, 0));
+		types.add(new ParameterTypeBoolean(PARAMETER_SEQUENTIAL_BATCHES, "Indicates if the mini-batches are read as consecutive batches in sequential passes over the example set instead of being drawn randomly. Only sequential access to the examples is needed then, but the examples should be in random order.", false));
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_TRIANGLE_INEQUALITY, "Indicates if bounds based on the triangle inequality should be used to skip distance computations. The result stays the same.", false));
 		return types;
 	}
 }
@@ -0,0 +1,432 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.clustering.clusterer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.rapidminer.operator.OperatorException;
+
+
+/**
+ * Performs single runs of k-means on a dense data matrix. The rows are
+ * split into blocks of fixed size which are assigned in parallel by the
+ * given executor. Each block accumulates its own partial centroid sums which
+ * are merged in block order afterwards. Since the blocks do not depend on the
+ * number of threads, the result of a run is the same for every thread count.
+ * 
+ * If the engine is accelerated, the assignment uses the bounds of Hamerly:
+ * each row keeps an upper bound of the distance to its centroid and a lower
+ * bound of the distance to all other centroids. Together with the distances
+ * between the centroids, most distance computations can be skipped once the
+ * centroids only move slightly. The result is the same as without bounds.
+ * 
+ * The engine itself is stateless, hence several runs might be performed
+ * concurrently on the same engine.
+ */
+public class KMeansEngine {
+
+	/** The number of rows handled by one block. */
+	public static final int BLOCK_SIZE = 1024;
+
+	/** The result of a single k-means run. */
+	public static class Run {
+
+		private final double[][] centroids;
+
+		private final int[] assignments;
+
+		private double quality;
+
+		private long distanceComputations;
+
+		private long savedDistanceComputations;
+
+		private Run(double[][] centroids, int numberOfRows) {
+			this.centroids = centroids;
+			this.assignments = new int[numberOfRows];
+		}
+
+		/** Returns the final centroids. */
+		public double[][] getCentroids() {
+			return centroids;
+		}
+
+		/** Returns the index of the cluster of each row. */
+		public int[] getAssignments() {
+			return assignments;
+		}
+
+		/** Returns the negative mean squared distance of the rows to their centroids. */
+		public double getQuality() {
+			return quality;
+		}
+
+		/** Returns the number of distances computed during the assignment steps. */
+		public long getDistanceComputations() {
+			return distanceComputations;
+		}
+
+		/** Returns the number of distances skipped compared to the assignment without bounds. */
+		public long getSavedDistanceComputations() {
+			return savedDistanceComputations;
+		}
+	}
+
+	private final double[][] data;
+
+	private final int k;
+
+	private final int numberOfDimensions;
+
+	private final int numberOfBlocks;
+
+	private final ExecutorService executor;
+
+	private final boolean accelerated;
+
+	/**
+	 * Creates a new engine for the given data rows. If the executor is null,
+	 * all blocks are processed by the calling thread.
+	 */
+	public KMeansEngine(double[][] data, int k, ExecutorService executor) {
+		this(data, k, executor, false);
+	}
+
+	/**
+	 * Creates a new engine for the given data rows which uses the triangle
+	 * inequality to skip distance computations if accelerated is true.
+	 */
+	public KMeansEngine(double[][] data, int k, ExecutorService executor, boolean accelerated) {
+		this.accelerated = accelerated;
+		this.data = data;
+		this.k = k;
+		this.numberOfDimensions = data.length > 0 ? data[0].length : 0;
+		this.numberOfBlocks = (data.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		this.executor = executor;
+	}
+
+	/**
+	 * Performs one run of k-means starting at the given centroids which are
+	 * modified in place. The run stops if no assignment changed or after
+	 * the given number of optimization steps.
+	 */
+	public Run cluster(double[][] initialCentroids, int maxOptimizationSteps) throws OperatorException {
+		final Run run = new Run(initialCentroids, data.length);
+		final double[][] sums = new double[numberOfBlocks][k * numberOfDimensions];
+		final int[][] counts = new int[numberOfBlocks][k];
+		final long[] blockComputations = new long[numberOfBlocks];
+		final double[] upperBounds = accelerated ? new double[data.length] : null;
+		final double[] lowerBounds = accelerated ? new double[data.length] : null;
+		final double[] halfDistances = new double[k];
+		final double[] moves = new double[k];
+		double[][] oldCentroids = new double[k][numberOfDimensions];
+		long centroidComputations = 0;
+		int steps = 0;
+		boolean stableState = false;
+		for (int step = 0; (step < maxOptimizationSteps) && !stableState; step++) {
+			if (Thread.currentThread().isInterrupted())
+				throw new OperatorException("KMeans: run was cancelled.");
+			final boolean firstStep = step == 0;
+			List<Boolean> changed = processBlocks(new BlockTask<Boolean>() {
+				public Boolean process(int block, int start, int end) {
+					if (accelerated)
+						return assignWithBounds(run, upperBounds, lowerBounds, halfDistances, moves, sums[block], counts[block], start, end, firstStep, blockComputations, block);
+					else
+						return assign(run, sums[block], counts[block], start, end, firstStep, blockComputations, block);
+				}
+			});
+			steps++;
+			stableState = !changed.contains(Boolean.TRUE);
+			if (accelerated) {
+				for (int j = 0; j < k; j++) {
+					System.arraycopy(run.centroids[j], 0, oldCentroids[j], 0, numberOfDimensions);
+				}
+			}
+			recalculateCentroids(run.centroids, sums, counts);
+			if (accelerated && !stableState) {
+				centroidComputations += updateCentroidDistances(oldCentroids, run.centroids, moves, halfDistances);
+			}
+		}
+		run.distanceComputations = centroidComputations;
+		for (long computations : blockComputations) {
+			run.distanceComputations += computations;
+		}
+		run.savedDistanceComputations = (long) steps * data.length * k - run.distanceComputations;
+
+		List<Double> squaredDistances = processBlocks(new BlockTask<Double>() {
+			public Double process(int block, int start, int end) {
+				double sum = 0.0d;
+				for (int i = start; i < end; i++) {
+					sum += squaredDistance(data[i], run.centroids[run.assignments[i]]);
+				}
+				return sum;
+			}
+		});
+		double sum = 0.0d;
+		for (double blockSum : squaredDistances) {
+			sum += blockSum;
+		}
+		run.quality = -(sum / data.length);
+		return run;
+	}
+
+	/**
+	 * Assigns the rows between start (inclusive) and end (exclusive) to their
+	 * closest centroid and adds them to the partial sums of the block. Returns
+	 * true if an assignment changed.
+	 */
+	private boolean assign(Run run, double[] sums, int[] counts, int start, int end, boolean firstStep, long[] computations, int block) {
+		Arrays.fill(sums, 0.0d);
+		Arrays.fill(counts, 0);
+		boolean changed = firstStep;
+		for (int i = start; i < end; i++) {
+			double[] row = data[i];
+			int bestIndex = closestCentroid(row, run.centroids);
+			if (run.assignments[i] != bestIndex) {
+				run.assignments[i] = bestIndex;
+				changed = true;
+			}
+			counts[bestIndex]++;
+			int offset = bestIndex * numberOfDimensions;
+			for (int m = 0; m < numberOfDimensions; m++) {
+				sums[offset + m] += row[m];
+			}
+		}
+		computations[block] += (long) (end - start) * k;
+		return changed;
+	}
+
+	/**
+	 * Assigns the rows like {@link #assign} but first updates the bounds of
+	 * each row by the moves of the centroids and only searches the closest
+	 * centroid if the bounds do not guarantee that the assignment stays the same.
+	 */
+	private boolean assignWithBounds(Run run, double[] upperBounds, double[] lowerBounds, double[] halfDistances, double[] moves, double[] sums, int[] counts, int start, int end, boolean firstStep, long[] computations, int block) {
+		Arrays.fill(sums, 0.0d);
+		Arrays.fill(counts, 0);
+		// the lower bounds decrease by the largest move of any other centroid
+		int maxMoved = 0;
+		double maxMove = 0.0d;
+		double secondMaxMove = 0.0d;
+		for (int j = 0; j < k; j++) {
+			if (moves[j] > maxMove) {
+				secondMaxMove = maxMove;
+				maxMove = moves[j];
+				maxMoved = j;
+			} else if (moves[j] > secondMaxMove) {
+				secondMaxMove = moves[j];
+			}
+		}
+		double[][] centroids = run.centroids;
+		long count = 0;
+		boolean changed = firstStep;
+		for (int i = start; i < end; i++) {
+			double[] row = data[i];
+			int index = run.assignments[i];
+			boolean search = firstStep;
+			if (!firstStep) {
+				upperBounds[i] += moves[index];
+				lowerBounds[i] -= (index == maxMoved) ? secondMaxMove : maxMove;
+				double bound = Math.max(halfDistances[index], lowerBounds[i]);
+				if (!(upperBounds[i] < bound)) {
+					upperBounds[i] = Math.sqrt(squaredDistance(row, centroids[index]));
+					count++;
+					search = !(upperBounds[i] < bound);
+				}
+			}
+			if (search) {
+				int bestIndex = 0;
+				double min = Double.MAX_VALUE;
+				double secondMin = Double.MAX_VALUE;
+				for (int j = 0; j < k; j++) {
+					double d = squaredDistance(row, centroids[j]);
+					if (d < min) {
+						secondMin = min;
+						min = d;
+						bestIndex = j;
+					} else if (d < secondMin) {
+						secondMin = d;
+					}
+				}
+				count += k;
+				upperBounds[i] = Math.sqrt(min);
+				lowerBounds[i] = Math.sqrt(secondMin);
+				if (index != bestIndex) {
+					run.assignments[i] = bestIndex;
+					index = bestIndex;
+					changed = true;
+				}
+			}
+			counts[index]++;
+			int offset = index * numberOfDimensions;
+			for (int m = 0; m < numberOfDimensions; m++) {
+				sums[offset + m] += row[m];
+			}
+		}
+		computations[block] += count;
+		return changed;
+	}
+
+	/**
+	 * Computes the distance each centroid moved and half the distance of each
+	 * centroid to its closest other centroid. Returns the number of computed distances.
+	 */
+	private int updateCentroidDistances(double[][] oldCentroids, double[][] centroids, double[] moves, double[] halfDistances) {
+		Arrays.fill(halfDistances, Double.POSITIVE_INFINITY);
+		for (int j = 0; j < k; j++) {
+			moves[j] = Math.sqrt(squaredDistance(oldCentroids[j], centroids[j]));
+			for (int l = j + 1; l < k; l++) {
+				double d = 0.5d * Math.sqrt(squaredDistance(centroids[j], centroids[l]));
+				if (d < halfDistances[j])
+					halfDistances[j] = d;
+				if (d < halfDistances[l])
+					halfDistances[l] = d;
+			}
+		}
+		return k + k * (k - 1) / 2;
+	}
+
+	/** Merges the partial sums of all blocks in block order. Empty clusters get the origin as centroid. */
+	private void recalculateCentroids(double[][] centroids, double[][] sums, int[][] counts) {
+		for (int j = 0; j < k; j++) {
+			double[] centroid = centroids[j];
+			Arrays.fill(centroid, 0.0d);
+			int count = 0;
+			int offset = j * numberOfDimensions;
+			for (int b = 0; b < numberOfBlocks; b++) {
+				count += counts[b][j];
+				double[] blockSums = sums[b];
+				for (int m = 0; m < numberOfDimensions; m++) {
+					centroid[m] += blockSums[offset + m];
+				}
+			}
+			if (count > 0) {
+				for (int m = 0; m < numberOfDimensions; m++) {
+					centroid[m] /= count;
+				}
+			}
+		}
+	}
+
+	/** Returns the index of the centroid closest to the row. Ties are broken in favour of the lower index. */
+	public static int closestCentroid(double[] row, double[][] centroids) {
+		int bestIndex = 0;
+		double min = Double.MAX_VALUE;
+		for (int j = 0; j < centroids.length; j++) {
+			double d = squaredDistance(row, centroids[j]);
+			if (d < min) {
+				min = d;
+				bestIndex = j;
+			}
+		}
+		return bestIndex;
+	}
+
+	/**
+	 * Performs one step of mini-batch k-means on the first size rows of the
+	 * batch. All rows are assigned to their closest centroid first, afterwards
+	 * each centroid is moved towards its rows using the inverse number of rows
+	 * it has seen so far as learning rate. The counts are updated accordingly.
+	 */
+	public static void miniBatchStep(double[][] centroids, long[] counts, double[][] batch, int size) {
+		int[] assignments = new int[size];
+		assignBatch(centroids, batch, 0, size, assignments);
+		updateMiniBatchCentroids(centroids, counts, batch, size, assignments);
+	}
+
+	/** Assigns the rows from start (inclusive) to end (exclusive) of the batch to their closest centroid. */
+	public static void assignBatch(double[][] centroids, double[][] batch, int start, int end, int[] assignments) {
+		for (int i = start; i < end; i++) {
+			assignments[i] = closestCentroid(batch[i], centroids);
+		}
+	}
+
+	/**
+	 * Moves the centroids towards the first size rows of the batch which were
+	 * assigned by {@link #assignBatch(double[][], double[][], int, int, int[])}.
+	 */
+	public static void updateMiniBatchCentroids(double[][] centroids, long[] counts, double[][] batch, int size, int[] assignments) {
+		for (int i = 0; i < size; i++) {
+			int j = assignments[i];
+			counts[j]++;
+			double learningRate = 1.0d / counts[j];
+			double[] centroid = centroids[j];
+			double[] row = batch[i];
+			for (int m = 0; m < centroid.length; m++) {
+				centroid[m] += learningRate * (row[m] - centroid[m]);
+			}
+		}
+	}
+
+	public static double squaredDistance(double[] row, double[] centroid) {
+		double d = 0.0d;
+		for (int m = 0; m < row.length; m++) {
+			double diff = row[m] - centroid[m];
+			d += diff * diff;
+		}
+		return d;
+	}
+
+	/** Work performed on the rows of one block. */
+	private interface BlockTask<T> {
+
+		public T process(int block, int start, int end);
+	}
+
+	/** Processes all blocks and returns their results in block order. */
+	private <T> List<T> processBlocks(final BlockTask<T> task) throws OperatorException {
+		List<T> results = new ArrayList<T>(numberOfBlocks);
+		if ((executor == null) || (numberOfBlocks < 2)) {
+			for (int b = 0; b < numberOfBlocks; b++) {
+				results.add(task.process(b, b * BLOCK_SIZE, Math.min(data.length, (b + 1) * BLOCK_SIZE)));
+			}
+			return results;
+		}
+		List<Callable<T>> callables = new ArrayList<Callable<T>>(numberOfBlocks);
+		for (int b = 0; b < numberOfBlocks; b++) {
+			final int block = b;
+			callables.add(new Callable<T>() {
+				public T call() {
+					return task.process(block, block * BLOCK_SIZE, Math.min(data.length, (block + 1) * BLOCK_SIZE));
+				}
+			});
+		}
+		try {
+			for (Future<T> future : executor.invokeAll(callables)) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperatorException("KMeans: interrupted while waiting for the assignment threads.", e);
+		} catch (ExecutionException e) {
+			throw new OperatorException("KMeans: assignment thread failed: " + e.getCause(), e.getCause());
+		}
+		return results;
+	}
+}
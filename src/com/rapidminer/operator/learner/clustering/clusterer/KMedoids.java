@@ -22,20 +22,29 @@
  */
 package com.rapidminer.operator.learner.clustering.clusterer;
 
+import java.util.Arrays;
 import java.util.List;
 
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.InputDescription;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.learner.clustering.ClusterModel;
 import com.rapidminer.operator.learner.clustering.FlatClusterModel;
 import com.rapidminer.operator.learner.clustering.FlatCrispClusterModel;
 import com.rapidminer.operator.learner.clustering.IdUtils;
 import com.rapidminer.operator.similarity.DistanceSimilarityConverter;
+import com.rapidminer.operator.similarity.IndexBasedSimilarityMeasure;
 import com.rapidminer.operator.similarity.SimilarityMeasure;
 import com.rapidminer.operator.similarity.SimilarityUtil;
+import com.rapidminer.operator.similarity.attributebased.AbstractValueBasedSimilarity;
+import com.rapidminer.operator.similarity.attributebased.ChebychevNumericalDistance;
+import com.rapidminer.operator.similarity.attributebased.EuclideanDistance;
+import com.rapidminer.operator.similarity.attributebased.ManhattanDistance;
+import com.rapidminer.operator.similarity.attributebased.MixedEuclideanDistance;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.IterationArrayList;
 
@@ -51,12 +60,53 @@ public class KMedoids extends AbstractKMethod {
 	/** The parameter name for &quot;Use the given random seed instead of global random numbers (-1: use global)&quot; */
 	public static final String PARAMETER_LOCAL_RANDOM_SEED = "local_random_seed";
 	
-	private SimilarityMeasure sim;
+	private IndexBasedSimilarityMeasure sim;
 
 	private String[] medoids;
 
+	/** The similarity indices of the medoids. */
+	private int[] medoidIndices;
+
+	/** Indicates if the bounds based on the triangle inequality are used for the assignment. */
+	private boolean useBounds;
+
+	/** The upper bounds of the distances of the objects to their medoids, indexed by similarity index. */
+	private double[] upperBounds;
+
+	/** The lower bounds of the distances of the objects to all other medoids, indexed by similarity index. */
+	private double[] lowerBounds;
+
+	/** The medoid assigned to each object in the last step, indexed by similarity index. */
+	private int[] assignments;
+
+	/** The distances the medoids moved in the last recalculation. */
+	private double[] moves;
+
+	/** Half the distance of each medoid to its closest other medoid. */
+	private double[] halfDistances;
+
+	private int maxMoved;
+
+	private double maxMove;
+
+	private double secondMaxMove;
+
+	private long distanceComputations;
+
+	private long savedDistanceComputations;
+
 	public KMedoids(OperatorDescription description) {
 		super(description);
+		addValue(new ValueDouble("distance computations", "The number of distances computed for the assignment of the objects.") {
+			public double getDoubleValue() {
+				return distanceComputations;
+			}
+		});
+		addValue(new ValueDouble("saved distance computations", "The number of distance computations skipped due to the triangle inequality.") {
+			public double getDoubleValue() {
+				return savedDistanceComputations;
+			}
+		});
 	}
 
 	public ClusterModel createClusterModel(ExampleSet es) throws OperatorException {
@@ -64,9 +114,13 @@ public class KMedoids extends AbstractKMethod {
 		int maxOptimizationSteps = getParameterAsInt(PARAMETER_MAX_OPTIMIZATION_STEPS); 
 		int maxRuns = getParameterAsInt(PARAMETER_MAX_RUNS); 
 		
-		sim = SimilarityUtil.resolveSimilarityMeasure(getParameters(), getInput(), es);
-		if (sim.isDistance())
-			sim = new DistanceSimilarityConverter(sim);
+		SimilarityMeasure measure = SimilarityUtil.resolveSimilarityMeasure(getParameters(), getInput(), es);
+		useBounds = getParameterAsBoolean(PARAMETER_USE_TRIANGLE_INEQUALITY) && isMetricWithoutMissingValues(measure);
+		if (measure.isDistance())
+			measure = new DistanceSimilarityConverter(measure);
+		sim = SimilarityUtil.toIndexBased(measure);
+		distanceComputations = 0;
+		savedDistanceComputations = 0;
 
 		FlatClusterModel result = kmethod(es, maxK, maxOptimizationSteps, maxRuns);
 
@@ -75,65 +129,211 @@ public class KMedoids extends AbstractKMethod {
 
 	protected void initKMethod(List<String> ids, int k) throws OperatorException {
 		medoids = new String[k];
+		medoidIndices = new int[k];
 		List<String> randomList = IdUtils.getRandomIdList(ids, k, getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
 		for (int j = 0; j < k; j++) {
 			medoids[j] = randomList.get(j);
+			medoidIndices[j] = sim.getIndex(medoids[j]);
+		}
+		if (useBounds) {
+			int[] indices = getIndices(ids);
+			int size = 0;
+			for (int index : indices) {
+				if (index < 0) {
+					// the bounds need the indices of all objects
+					useBounds = false;
+					return;
+				}
+				size = Math.max(size, index + 1);
+			}
+			upperBounds = new double[size];
+			lowerBounds = new double[size];
+			Arrays.fill(upperBounds, Double.NaN);
+			Arrays.fill(lowerBounds, Double.NaN);
+			assignments = new int[size];
+			moves = new double[k];
+			halfDistances = new double[k];
+			updateMedoidDistances(medoidIndices);
+		}
+	}
+
+	/**
+	 * Returns true if the measure is one of the metric distances and none of the
+	 * objects has missing values. Only then the triangle inequality holds.
+	 */
+	private boolean isMetricWithoutMissingValues(SimilarityMeasure measure) {
+		Class<?> measureClass = measure.getClass();
+		if ((measureClass != EuclideanDistance.class) && (measureClass != ManhattanDistance.class) && (measureClass != ChebychevNumericalDistance.class)
+				&& (measureClass != MixedEuclideanDistance.class))
+			return false;
+		AbstractValueBasedSimilarity valueSim = (AbstractValueBasedSimilarity) measure;
+		for (int i = 0; i < valueSim.getNumberOfIds(); i++) {
+			for (double value : valueSim.getValues(i)) {
+				if (Double.isNaN(value))
+					return false;
+			}
 		}
+		return true;
+	}
+
+	private double distance(int index1, int index2) {
+		return -sim.similarity(index1, index2);
+	}
+
+	/**
+	 * Computes the distances the medoids moved from the given old medoids and half the distance
+	 * of each medoid to its closest other medoid.
+	 */
+	private void updateMedoidDistances(int[] oldMedoidIndices) {
+		int k = medoidIndices.length;
+		Arrays.fill(halfDistances, Double.POSITIVE_INFINITY);
+		maxMoved = 0;
+		maxMove = 0.0d;
+		secondMaxMove = 0.0d;
+		for (int j = 0; j < k; j++) {
+			moves[j] = (oldMedoidIndices[j] == medoidIndices[j]) ? 0.0d : distance(oldMedoidIndices[j], medoidIndices[j]);
+			if (moves[j] > maxMove) {
+				secondMaxMove = maxMove;
+				maxMove = moves[j];
+				maxMoved = j;
+			} else if (moves[j] > secondMaxMove) {
+				secondMaxMove = moves[j];
+			}
+			for (int l = j + 1; l < k; l++) {
+				double d = 0.5d * distance(medoidIndices[j], medoidIndices[l]);
+				if (d < halfDistances[j])
+					halfDistances[j] = d;
+				if (d < halfDistances[l])
+					halfDistances[l] = d;
+			}
+		}
+		distanceComputations += k + k * (k - 1) / 2;
+	}
+
+	/** Returns the similarity indices of the given ids. */
+	private int[] getIndices(List<String> ids) {
+		int[] indices = new int[ids.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = sim.getIndex(ids.get(i));
+		}
+		return indices;
 	}
 
 	protected int bestIndex(String id, FlatCrispClusterModel cl, FlatCrispClusterModel cmOld) {
+		if (useBounds)
+			return bestIndexWithBounds(sim.getIndex(id));
 		String d1 = id;
+		int index = sim.getIndex(d1);
 		double max = Double.NEGATIVE_INFINITY;
 		int maxIndex = 0;
 		int j;
 		for (j = 0; (j < medoids.length) && !medoids[j].equals(d1); j++)
-			if (sim.isSimilarityDefined(d1, medoids[j]))
-				if (sim.similarity(d1, medoids[j]) > max) {
-					max = sim.similarity(d1, medoids[j]);
+			if ((index >= 0) && (medoidIndices[j] >= 0)) {
+				double similarity = sim.similarity(index, medoidIndices[j]);
+				distanceComputations++;
+				if (similarity > max) {
+					max = similarity;
 					maxIndex = j;
 				}
+			}
 		if (j < medoids.length)
 			maxIndex = j;
 		return maxIndex;
 	}
 
+	/**
+	 * Returns the same medoid as the search over all medoids but skips the search
+	 * if the bounds guarantee that the medoid of the object did not change.
+	 */
+	private int bestIndexWithBounds(int index) {
+		for (int j = 0; j < medoidIndices.length; j++) {
+			if (medoidIndices[j] == index) {
+				// medoids always belong to their own cluster, their bounds are recomputed later
+				upperBounds[index] = Double.NaN;
+				lowerBounds[index] = Double.NaN;
+				assignments[index] = j;
+				return j;
+			}
+		}
+		int bestIndex = assignments[index];
+		boolean search = Double.isNaN(upperBounds[index]);
+		if (!search) {
+			upperBounds[index] += moves[bestIndex];
+			lowerBounds[index] -= (bestIndex == maxMoved) ? secondMaxMove : maxMove;
+			double bound = Math.max(halfDistances[bestIndex], lowerBounds[index]);
+			int skipped = medoidIndices.length;
+			if (!(upperBounds[index] < bound)) {
+				upperBounds[index] = distance(index, medoidIndices[bestIndex]);
+				distanceComputations++;
+				skipped--;
+				search = !(upperBounds[index] < bound);
+			}
+			if (!search)
+				savedDistanceComputations += skipped;
+		}
+		if (search) {
+			double min = Double.POSITIVE_INFINITY;
+			double secondMin = Double.POSITIVE_INFINITY;
+			for (int j = 0; j < medoidIndices.length; j++) {
+				double d = distance(index, medoidIndices[j]);
+				if (d < min) {
+					secondMin = min;
+					min = d;
+					bestIndex = j;
+				} else if (d < secondMin) {
+					secondMin = d;
+				}
+			}
+			distanceComputations += medoidIndices.length;
+			upperBounds[index] = min;
+			lowerBounds[index] = secondMin;
+		}
+		assignments[index] = bestIndex;
+		return bestIndex;
+	}
+
 	protected void recalculateCentroids(FlatCrispClusterModel cl) {
+		int[] oldMedoidIndices = medoidIndices.clone();
 		for (int j = 0; j < medoids.length; j++) {
 			List<String> x = new IterationArrayList<String>(cl.getClusterAt(j).getObjects());
+			int[] indices = getIndices(x);
 			double max = Double.NEGATIVE_INFINITY;
-			String maxId = null;
-			for (int i1 = 0; i1 < x.size(); i1++) {
-				String d1 = x.get(i1);
+			int maxI = -1;
+			for (int i1 = 0; i1 < indices.length; i1++) {
+				if (indices[i1] < 0)
+					continue;
 				double sum = 0.0;
-				for (int i2 = 0; i2 < x.size(); i2++) {
-					String d2 = x.get(i2);
-					if (sim.isSimilarityDefined(d1, d2))
-						sum = sum + sim.similarity(d1, d2);
+				for (int i2 = 0; i2 < indices.length; i2++) {
+					if (indices[i2] >= 0)
+						sum = sum + sim.similarity(indices[i1], indices[i2]);
 				}
 				if (sum > max) {
 					max = sum;
-					maxId = d1;
+					maxI = i1;
 				}
 			}
 			// For the case, that all similarities are undefined, take the first
 			// as mendoid
-			if (maxId == null)
-				maxId = x.get(0);
-			medoids[j] = maxId;
+			if (maxI < 0)
+				maxI = 0;
+			medoids[j] = x.get(maxI);
+			medoidIndices[j] = indices[maxI];
 		}
+		if (useBounds)
+			updateMedoidDistances(oldMedoidIndices);
 	}
 
 	protected double evaluateClusterModel(FlatCrispClusterModel cm) {
 		double sum = 0.0;
 		int count = 0;
 		for (int i = 0; i < cm.getNumberOfClusters(); i++) {
-			List<String> objs = new IterationArrayList<String>(cm.getClusterAt(i).getObjects());
-			for (int j = 0; j < objs.size(); j++) {
-				String d1 = objs.get(j);
-				for (int l = j; l < objs.size(); l++) {
-					String d2 = objs.get(l);
-					if (sim.isSimilarityDefined(d1, d2)) {
-						sum = sum + sim.similarity(d1, d2);
+			int[] indices = getIndices(new IterationArrayList<String>(cm.getClusterAt(i).getObjects()));
+			for (int j = 0; j < indices.length; j++) {
+				if (indices[j] < 0)
+					continue;
+				for (int l = j; l < indices.length; l++) {
+					if (indices[l] >= 0) {
+						sum = sum + sim.similarity(indices[j], indices[l]);
 						count++;
 					}
 				}
@@ -153,6 +353,7 @@ public class KMedoids extends AbstractKMethod {
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
 		types.add(SimilarityUtil.generateSimilarityParameter());
+		types.add(new ParameterTypeBoolean(PARAMETER_USE_TRIANGLE_INEQUALITY, "Indicates if bounds based on the triangle inequality should be used to skip distance computations for metric distances. The result stays the same.", false));
 		types.add(new ParameterTypeInt(PARAMETER_LOCAL_RANDOM_SEED, "Use the given random seed instead of global random numbers (-1: use global)", -1,
 				Integer.MAX_VALUE, -1));
 		return types;
@@ -1,9 +1,11 @@
 package com.rapidminer.operator.learner.clustering.clusterer.uncertain;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
@@ -24,6 +26,8 @@ import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeString;
+import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
 
 /**
  * Implements the DBSCAN^EA algorithm.
@@ -61,6 +65,17 @@ public class DBScanEAClustering extends AbstractDensityBasedClusterer {
 	
 	protected Map<String, Double[][]> sampleCache;
 	
+	/** 
+	 * The spatial index over the samples of all objects, storing the number of
+	 * each sample. Null if a linear scan is used.
+	 */
+	private GeometricDataCollection<Integer> neighbourIndex;
+	
+	/** The positions of the sampled objects in {@link #getIds()} for each sample number. */
+	private List<Integer> samplePositions;
+	
+	private boolean neighbourIndexCreated;
+	
 	
 	public DBScanEAClustering(OperatorDescription description) {
 		super(description);
@@ -83,6 +98,8 @@ public class DBScanEAClustering extends AbstractDensityBasedClusterer {
 		
 		sampleStrategy.setSampleRate(this.sampleRate);
 		sampleCache = new HashMap<String, Double[][]>();
+		neighbourIndex = null;
+		neighbourIndexCreated = false;
 		FlatClusterModel result = doClustering(es);
 		return result;
 	}
@@ -95,8 +112,28 @@ public class DBScanEAClustering extends AbstractDensityBasedClusterer {
      * @param id ID of the core object.
      * @return All IDs of Elements in the epsilon-neighborhood.
      */
-	protected List<String> getNeighbours(ExampleSet es, String id) {
+	protected List<String> getNeighbours(ExampleSet es, String id) throws OperatorException {
+		if (!neighbourIndexCreated) {
+			neighbourIndex = createNeighbourIndex();
+			neighbourIndexCreated = true;
+		}
 		List<String> result = new LinkedList<String>();
+		if (neighbourIndex != null) {
+			// the lambda distance is at least the minimal distance of two samples, hence
+			// all neighbours have a sample within the range of one of the samples of id
+			TreeSet<Integer> candidates = new TreeSet<Integer>();
+			Double[][] samples = getSamples(id);
+			for (int i = 0; i < Math.min(sampleRate, samples.length); i++) {
+				for (Integer sample : neighbourIndex.getValuesInRange(maxDistance, toPrimitive(samples[i])))
+					candidates.add(samplePositions.get(sample));
+			}
+			for (Integer position : candidates) {
+				String id2 = getIds().get(position);
+				if (lambdaDistance(id, id2, this.lambda) <= maxDistance)
+					result.add(id2);
+			}
+			return result;
+		}
 		for (int i = 0; i < getIds().size(); i++) {
 			String id2 = getIds().get(i);
 			double v = lambdaDistance(id, id2, this.lambda);
@@ -106,6 +143,42 @@ public class DBScanEAClustering extends AbstractDensityBasedClusterer {
 		return result;
 	}
 
+	/**
+	 * Creates a spatial index over the samples of all objects. Returns null if the
+	 * lambda distance cannot be bounded by the sample distances.
+	 */
+	private GeometricDataCollection<Integer> createNeighbourIndex() throws OperatorException {
+		if ((lambda < 0) || (lambda > 1) || (getParameterAsInt(PARAMETER_NEIGHBOUR_SEARCH) == NEIGHBOUR_SEARCH_LINEAR))
+			return null;
+		List<double[]> points = new ArrayList<double[]>();
+		samplePositions = new ArrayList<Integer>();
+		for (int position = 0; position < getIds().size(); position++) {
+			Double[][] samples = getSamples(getIds().get(position));
+			for (int i = 0; i < Math.min(sampleRate, samples.length); i++) {
+				points.add(toPrimitive(samples[i]));
+				samplePositions.add(position);
+			}
+		}
+		return createNeighbourIndex(points, new DistanceMeasure() {
+			public void init(ExampleSet exampleSet) {}
+
+			public double calculateDistance(double[] value1, double[] value2) {
+				return distance(value1, value2);
+			}
+
+			public double calculateSimilarity(double[] value1, double[] value2) {
+				return -distance(value1, value2);
+			}
+		}, true);
+	}
+
+	private static double[] toPrimitive(Double[] values) {
+		double[] result = new double[values.length];
+		for (int i = 0; i < values.length; i++)
+			result[i] = values[i];
+		return result;
+	}
+
 	public double lambdaDistance(String id1, String id2, double lambda) {
 		double minDist = minDistance(id1, id2);
 		double diff = maxDistance(id1, id2) - minDist;
@@ -258,6 +331,7 @@ public class DBScanEAClustering extends AbstractDensityBasedClusterer {
 		p4.setExpert(false);
 		types.add(p4);
 		//types.add(SimilarityUtil.generateSimilarityParameter());
+		types.add(createNeighbourSearchParameter());
 		return types;
 	}
 }
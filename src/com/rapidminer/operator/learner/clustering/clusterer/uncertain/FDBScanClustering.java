@@ -1,6 +1,9 @@
 package com.rapidminer.operator.learner.clustering.clusterer.uncertain;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -13,7 +16,6 @@ import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.clustering.ClusterModel;
 import com.rapidminer.operator.learner.clustering.FlatClusterModel;
-import com.rapidminer.operator.learner.clustering.IdUtils;
 import com.rapidminer.operator.learner.clustering.clusterer.AbstractDensityBasedClusterer;
 import com.rapidminer.operator.similarity.SimilarityMeasure;
 import com.rapidminer.operator.similarity.attributebased.Matrix;
@@ -25,12 +27,22 @@ import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.operator.similarity.attributebased.uncertain.AbstractProbabilityDensityFunction;
 import com.rapidminer.operator.similarity.attributebased.uncertain.SimpleProbabilityDensityFunction;
 import com.rapidminer.operator.uncertain.AbstractSampleStrategy;
+import com.rapidminer.operator.uncertain.MinimumBoundingRectangle;
 import com.rapidminer.operator.uncertain.SimpleSampling;
+import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
 
 
 /**
  * Implements the FDBSCAN algorithm.
  * 
+ * The samples of all elements are stored in flat arrays. Pairs of elements whose minimum
+ * bounding rectangles (MBR) are farther apart than the maximal distance cannot be
+ * reachable and are skipped. The candidates are found with a spatial index over the
+ * centers of the MBRs, and the reachability probabilities of all pairs are cached.
+ * Elements with missing values have unbounded MBRs without a center, they are not
+ * indexed but checked against all other elements.
+ * 
  * @author Michael Huber, Peter B. Volk
  * @see com.rapidminer.operator.learner.clustering.clusterer.DBScanClustering
  * @see com.rapidminer.operator.learner.clustering.clusterer.uncertain.DBScanEAClustering
@@ -38,8 +50,6 @@ import com.rapidminer.operator.uncertain.SimpleSampling;
  */
 public class FDBScanClustering extends AbstractDensityBasedClusterer {
 	
-	private ExampleSet es;
-
 	private double maxDistance = 0.2;
 	
 	private static final String ABSOLUTE_ERROR = "Absolute error";
@@ -58,23 +68,43 @@ public class FDBScanClustering extends AbstractDensityBasedClusterer {
 	
 	private AbstractSampleStrategy sampleStrategy;
 
-	//HashMap that assigns an array of samples to each element
-	private Map<String, Double[][]> sampleCache;
+	//The samples of each element in the order of getIds(): value of dimension d
+	//of sample s is stored at index s * dimension + d
+	private double[][] samples;
+
+	private int dimension;
+
+	//The position of each element in getIds()
+	private Map<String, Integer> positions;
+
+	//The Minimum Bounding Rectangle (MBR) of the samples of each element
+	private MinimumBoundingRectangle[] boundingBoxes;
+
+	//Spatial index over the centers of the MBRs of the elements without missing values.
+	//Its values are indices into indexedPositions. Null if all elements are checked.
+	private GeometricDataCollection<Integer> boxIndex;
+
+	//The positions of the indexed elements
+	private List<Integer> indexedPositions;
+
+	//The positions of the elements with missing values which are always candidates
+	private List<Integer> unboundedPositions;
+
+	private double maxBoxRadius;
+
+	//The probabilities of pairs of elements to be epsilon-neighbours
+	private Map<Long, Double> reachabilityCache;
 
 	//HashMap that assigns a pdf to each element
 	private Map<String, AbstractProbabilityDensityFunction> pdfCache;
 	
-	//HashMap that assigns a Minimum Bounding Rectangle (MBR) to each element
-	//private Map<String, MinimumBoundingRectangle> boundingBoxes;
-
 	private Map<String, Double> coreObjectList;
 	
 
 	public FDBScanClustering(OperatorDescription description) {
 		super(description);
 		pdfCache = new HashMap<String, AbstractProbabilityDensityFunction>();
-		sampleCache = new HashMap<String, Double[][]>();
-		//boundingBoxes = new HashMap<String, MinimumBoundingRectangle>();
+		reachabilityCache = new HashMap<Long, Double>();
 		coreObjectList = new HashMap<String, Double>();
 		sampleStrategy = new SimpleSampling();
 	}
@@ -86,9 +116,13 @@ public class FDBScanClustering extends AbstractDensityBasedClusterer {
      * @return <code>ClusterModel</code> the clustering of the given dataset
      */
 	public ClusterModel createClusterModel(ExampleSet es) throws OperatorException {
-		this.es = es;
 		maxDistance = getParameterAsDouble(MAX_DISTANCE_NAME);
 		globalFuzziness = getParameterAsDouble(GLOBAL_FUZZINESS);
+		sampleRate = getParameterAsInt(SAMPLE_RATE);
+		sampleStrategy.setSampleRate(sampleRate);
+		samples = null;
+		reachabilityCache.clear();
+		coreObjectList.clear();
 		FlatClusterModel result = doClustering(es);
 		return result;
 	}
@@ -101,12 +135,17 @@ public class FDBScanClustering extends AbstractDensityBasedClusterer {
      * @param id ID of the core object.
      * @return All IDs of Elements in the epsilon-neighborhood.
      */
-	protected List<String> getNeighbours(ExampleSet es, String id) {
-		List<String> preselection = new LinkedList<String>();
-		for (int i = 0; i < getIds().size(); i++) {
-			String id2 = getIds().get(i);
-			if (isReachable(id, id2))
-				preselection.add(id2);
+	protected List<String> getNeighbours(ExampleSet es, String id) throws OperatorException {
+		if (samples == null)
+			createSamples(es);
+		int position = positions.get(id);
+		List<String> preselection = new ArrayList<String>();
+		List<Integer> preselectionPositions = new ArrayList<Integer>();
+		for (int candidate : getCandidates(position)) {
+			if (isReachable(position, candidate)) {
+				preselection.add(getIds().get(candidate));
+				preselectionPositions.add(candidate);
+			}
 		}
 		
 		if(!isCoreObject(id, preselection)) {
@@ -119,54 +158,92 @@ public class FDBScanClustering extends AbstractDensityBasedClusterer {
 		List<String> result = new LinkedList<String>();
 		double coreProbability = getCoreObjectProbability(id);
 		for (int i = 0; i < preselection.size(); i++) {
-			String id2 = preselection.get(i);
 			//Es wird die Wahrscheinlichkeit ausgerechnet (P^reach = P^core * P^entfernung)
-			if ((coreProbability * similarity(id, id2)) > 0.5)
-				result.add(id2);
+			if ((coreProbability * similarity(position, preselectionPositions.get(i))) > 0.5)
+				result.add(preselection.get(i));
 		}
 		return result;
 	}
 
 	//Berechnet die Wahrscheinlichkeit, dass die zwei Objekte "epsilon-Nachbarn" sind.
+	//Returns NaN if the samples were not created yet or an id is unknown.
 	public double similarity(String id1, String id2) {
+		Integer position1 = positions == null ? null : positions.get(id1);
+		Integer position2 = positions == null ? null : positions.get(id2);
+		if ((position1 == null) || (position2 == null))
+			return Double.NaN;
+		return similarity(position1, position2);
+	}
+
+	private double similarity(int position1, int position2) {
+		Long key = position1 < position2 ? (long) position1 * samples.length + position2 : (long) position2 * samples.length + position1;
+		Double cached = reachabilityCache.get(key);
+		if (cached != null)
+			return cached;
 		double prob = 0;
-		Double [][] e1 = getSamples(id1);
-		Double [][] e2 = getSamples(id2);
-		int max_dimensions = e1.length;
-		double[] a = new double[max_dimensions];
-		double[] b = new double[max_dimensions];
-		
+		double[] e1 = samples[position1];
+		double[] e2 = samples[position2];
 		for(int i=0; i<sampleRate; i++) {
 			for(int j=0; j<sampleRate; j++) {
-				for(int d=0; d<max_dimensions; d++) {
-					a[d] = e1[i][d];
-					b[d] = e2[j][d];
-				}
-				if(distance(a, b) <= maxDistance) {
+				if(isWithinDistance(e1, i, e2, j)) {
 					prob++;
 				}
 			}
 		}
 		prob = prob / (sampleRate*sampleRate);
+		reachabilityCache.put(key, prob);
 		return prob;
 	}
 	
-	//Prft ob mindestens ein Sample innerhalb der Epsilon-Umgebung liegt.
+	//Prft ob mindestens ein Sample innerhalb der Epsilon-Umgebung liegen kann.
+	//Returns false if the samples were not created yet or an id is unknown.
 	public boolean isReachable(String id1, String id2) {
-		boolean reachable = false;
-		//NOTE: Wenn diese Methode umgeschrieben wird, muss sampleCache delegiert werden!
-		//TODO: Bounding Box hernehmen und checken, ob Element berhaupt in Frage kommt
-		//Falls es die nicht gibt aus samples erstellen
-		//Falls es die samples noch nicht gibt, die mit element und pdf erstellen
-/*		for (int i = 0; i < sampleRate; i++) {
-			MinimumBoundingRectangle mbr1 = getBoundingBox(id1);
-			MinimumBoundingRectangle mbr2 = getBoundingBox(id2);
-			if (minimalDistance(mbr1, mbr2) < maxDistance)
-				reachable = true;
+		Integer position1 = positions == null ? null : positions.get(id1);
+		Integer position2 = positions == null ? null : positions.get(id2);
+		if ((position1 == null) || (position2 == null))
+			return false;
+		return isReachable(position1, position2);
+	}
+
+	private boolean isReachable(int position1, int position2) {
+		return boundingBoxes[position1].minimalDistance(boundingBoxes[position2]) <= maxDistance;
+	}
+
+	/** Returns the positions of all elements whose MBR might be within the maximal distance in ascending order. */
+	private List<Integer> getCandidates(int position) {
+		List<Integer> candidates;
+		double radius = boundingBoxes[position].getRadius();
+		if ((boxIndex != null) && !Double.isInfinite(radius)) {
+			// the distance of the centers exceeds the distance of the closest points by at most both radii;
+			// the small slack protects against rounding errors
+			double range = (maxDistance + radius + maxBoxRadius) * (1 + 1e-9);
+			candidates = new ArrayList<Integer>(unboundedPositions);
+			for (int index : boxIndex.getValuesInRange(range, boundingBoxes[position].getCenter()))
+				candidates.add(indexedPositions.get(index));
+			Collections.sort(candidates);
+		} else {
+			candidates = new ArrayList<Integer>(samples.length);
+			for (int i = 0; i < samples.length; i++)
+				candidates.add(i);
+		}
+		return candidates;
+	}
+
+	/** Returns true if the distance of the sample s1 of e1 and the sample s2 of e2 is at most the maximal distance. */
+	private boolean isWithinDistance(double[] e1, int s1, double[] e2, int s2) {
+		double sum = 0.0;
+		int counter = 0;
+		int offset1 = s1 * dimension;
+		int offset2 = s2 * dimension;
+		for (int d = 0; d < dimension; d++) {
+			double a = e1[offset1 + d];
+			double b = e2[offset2 + d];
+			if ((!Double.isNaN(a)) && (!Double.isNaN(b))) {
+				sum = sum + (a - b) * (a - b);
+				counter++;
+			}
 		}
-*/
-		reachable = true;
-		return reachable;
+		return (counter > 0) && (Math.sqrt(sum) <= maxDistance);
 	}
 	
 	public double getCoreObjectProbability(String id) {
@@ -179,27 +256,19 @@ public class FDBScanClustering extends AbstractDensityBasedClusterer {
 			return true;
 		}
 		
-		Double[][] sample = getSamples(id);
-		int max_dimensions = sample.length;
+		double[] sample = getSamples(id);
 		
 		//Prfung auf core object fand noch nicht statt
 		//jetzt zu Cache hinzufgen (coreObjectList)
 		Matrix m = new Matrix(sampleRate);
 		m.reset(1); //1, weil das CoreObject mitgezhlt wird
-		double[] a = new double[max_dimensions];
-		double[] b = new double[max_dimensions];
 		
 		//Hier wird die Matrix erstellt. Folien S. 72
-		for(int k=0; k<preselection.size(); k++) {
-			Double[][] tempSample = getSamples(preselection.get(k));
+		for(String other : preselection) {
+			double[] tempSample = getSamples(other);
 			for(int i=0; i<sampleRate; i++) {		//Sample-Index fr Element
 				for(int j=0; j<sampleRate; j++) {	//Sample-Index fr Preselection-Elemente
-					//folgendes Statement ist nur zum Umschreiben der Information
-					for(int d=0; d<max_dimensions; d++) {
-						a[d] = sample[i][d];
-						b[d] = tempSample[i][d];
-					}
-					if(distance(a, b) <= maxDistance) {
+					if(isWithinDistance(sample, i, tempSample, j)) {
 						m.inc(i, j);
 					}
 				}
@@ -290,19 +359,51 @@ public class FDBScanClustering extends AbstractDensityBasedClusterer {
 //		//return dist;
 //	}
 
-	//TODO: getSamples in eigene Klasse SampleCache delegieren.
-	//Wenn isReachable() gendert wird, muss sie umgeschrieben werden.
-	protected Double[][] getSamples(String id) {
-		if(!sampleCache.containsKey(id)) {
-			Example ex = IdUtils.getExampleFromId(es, id);
-			
-			sampleStrategy.setPdf(new SimpleProbabilityDensityFunction(globalFuzziness,getParameterAsBoolean(ABSOLUTE_ERROR)));
-			sampleStrategy.setValue(getValues(ex));
-			Double res[][] = sampleStrategy.getSamples();
-			sampleCache.put(id, res);
-			return res;
+	/** Returns the samples of the element with the given id. */
+	protected double[] getSamples(String id) {
+		return samples[positions.get(id)];
+	}
+
+	/**
+	 * Draws the samples of all elements and creates their MBRs and the spatial
+	 * index over the MBR centers. Elements with missing values are not indexed.
+	 */
+	private void createSamples(ExampleSet es) throws OperatorException {
+		List<String> ids = getIds();
+		dimension = es.getAttributes().size();
+		samples = new double[ids.size()][];
+		boundingBoxes = new MinimumBoundingRectangle[ids.size()];
+		positions = new HashMap<String, Integer>();
+		List<double[]> centers = new ArrayList<double[]>(ids.size());
+		indexedPositions = new ArrayList<Integer>(ids.size());
+		unboundedPositions = new ArrayList<Integer>();
+		maxBoxRadius = 0;
+		boolean absoluteError = getParameterAsBoolean(ABSOLUTE_ERROR);
+		// the ids are delivered in the order of the examples
+		Iterator<Example> reader = es.iterator();
+		for (int i = 0; i < ids.size(); i++) {
+			positions.put(ids.get(i), i);
+			sampleStrategy.setPdf(new SimpleProbabilityDensityFunction(globalFuzziness, absoluteError));
+			sampleStrategy.setValue(getValues(reader.next()));
+			Double[][] res = sampleStrategy.getSamples();
+			double[] flat = new double[sampleRate * dimension];
+			for (int s = 0; s < sampleRate; s++) {
+				for (int d = 0; d < dimension; d++)
+					flat[s * dimension + d] = res[s][d];
+			}
+			samples[i] = flat;
+			boundingBoxes[i] = new MinimumBoundingRectangle(flat, dimension);
+			double radius = boundingBoxes[i].getRadius();
+			if (Double.isInfinite(radius)) {
+				// missing values: the center is undefined
+				unboundedPositions.add(i);
+			} else {
+				centers.add(boundingBoxes[i].getCenter());
+				indexedPositions.add(i);
+				maxBoxRadius = Math.max(maxBoxRadius, radius);
+			}
 		}
-		return sampleCache.get(id);
+		boxIndex = createNeighbourIndex(centers, new EuclideanDistance(), true);
 	}
 	
 	private double[] getValues(Example e) {
@@ -350,6 +451,7 @@ public class FDBScanClustering extends AbstractDensityBasedClusterer {
 		pmeasure.setExpert(true);
 		pmeasure.setDescription("nested distance measure");
 		types.add(pmeasure);
+		types.add(createNeighbourSearchParameter());
 		return types;
 	}
 }
@@ -40,7 +40,10 @@ import com.rapidminer.operator.learner.clustering.HierarchicalClusterModel;
 import com.rapidminer.operator.learner.clustering.IdUtils;
 import com.rapidminer.operator.learner.clustering.SimpleHierarchicalClusterModel;
 import com.rapidminer.operator.learner.clustering.hierarchical.clustersimilarity.ClusterSimilarity;
+import com.rapidminer.operator.similarity.IndexBasedSimilarityMeasure;
 import com.rapidminer.operator.similarity.SimilarityMeasure;
+import com.rapidminer.operator.similarity.SimilarityUtil;
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeStringCategory;
 import com.rapidminer.parameter.Parameters;
@@ -49,8 +52,8 @@ import com.rapidminer.tools.IterationArrayList;
 
 
 /**
- * This class performs generic agglomorative clustering based on a set of ids and a similarity measure. The algorithm implemented here is currently
- * very simple and not very efficient (cubic).
+ * This class performs generic agglomorative clustering based on a set of ids and a similarity measure. The merges are performed by an
+ * {@link AgglomerativeEngine} which keeps the most similar neighbour of each cluster in a priority queue.
  * 
  * @author Michael Wurst
  * @version $Id: AgglomerativeClusterer.java,v 1.7 2008/09/12 10:30:07 tobiasmalbrecht Exp $
@@ -67,9 +70,9 @@ public class AgglomerativeClusterer {
 
 	private static ClassNameMapper MODE_MAP = new ClassNameMapper(MODES);
 
-	public DefaultClusterNode[] cluster(ExampleSet es, SimilarityMeasure sim, ClusterSimilarity csim, int k) throws OperatorException {
-		DefaultClusterNode[] nodes;
-		double[][] d;
+	public DefaultClusterNode[] cluster(ExampleSet es, SimilarityMeasure sim, final ClusterSimilarity csim, int k) throws OperatorException {
+		final DefaultClusterNode[] nodes;
+		final SymmetricDistanceMatrix d;
 		final int numObjs;
 		Set<String> ids_ = new HashSet<String>();
 		Iterator<Example> er = es.iterator();
@@ -79,45 +82,44 @@ public class AgglomerativeClusterer {
 		}
 		List<String> ids = new ArrayList<String>(ids_);
 		numObjs = ids.size();
-		List<List<String>> objLists = new ArrayList<List<String>>(numObjs);
+		final List<List<String>> objLists = new ArrayList<List<String>>(numObjs);
 		// Initialize matrix
-		d = new double[numObjs][numObjs];
-		for (int i = 0; i < numObjs; i++) {
-			for (int j = 0; j < numObjs; j++)
-				d[i][j] = sim.similarity(ids.get(i), ids.get(j));
-		}
+		final SimilarityMeasure measure = sim;
+		final IndexBasedSimilarityMeasure indexedSim = SimilarityUtil.toIndexBased(sim);
+		final List<String> objIds = ids;
+		final int[] indices = new int[numObjs];
+		for (int i = 0; i < numObjs; i++)
+			indices[i] = indexedSim.getIndex(ids.get(i));
+		// the similarity is symmetric, hence each pair is calculated once
+		d = new SymmetricDistanceMatrix(numObjs);
+		d.fill(new SymmetricDistanceMatrix.EntryFunction() {
+			public double compute(int i, int j) {
+				if ((indices[i] >= 0) && (indices[j] >= 0))
+					return indexedSim.similarity(indices[i], indices[j]);
+				else
+					return measure.similarity(objIds.get(i), objIds.get(j));
+			}
+		}, 1);
 		// Initialize nodes
 		nodes = new DefaultClusterNode[numObjs];
 		for (int i = 0; i < numObjs; i++) {
 			String objId = ids.get(i);
 			nodes[i] = new DefaultClusterNode(objId);
 			nodes[i].addObject(objId);
-			nodes[i].setWeight(sim.similarity(objId, objId));
+			nodes[i].setWeight(d.get(i, i));
 			List<String> currentList = new LinkedList<String>();
 			currentList.add(objId);
 			objLists.add(currentList);
 		}
 		// Main loop
-		for (int numClusters = numObjs; numClusters > k; numClusters--) {
-			// find maximal pair
-			double max = Double.NEGATIVE_INFINITY;
-			int x = -1;
-			int y = -1;
-			for (int i = 0; i < numObjs; i++)
-				for (int j = i + 1; j < numObjs; j++)
-					if ((nodes[i] != null) && (nodes[j] != null))
-						if (d[i][j] > max) {
-							max = d[i][j];
-							x = i;
-							y = j;
-						}
-			if ((x > -1) || (y > -1)) {
-				// Update the matrix
-				for (int i = 0; i < numObjs; i++)
-					if (nodes[i] != null) {
-						d[x][i] = csim.similarity(d[x][i], d[y][i], nodes[x], nodes[y], nodes[i]);
-						d[i][x] = d[x][i];
-					}
+		AgglomerativeEngine engine = new AgglomerativeEngine(d, true, true);
+		engine.cluster(new AgglomerativeEngine.Linkage() {
+			public double getUnionValue(int x, int y, int i, double valueX, double valueY) {
+				return csim.similarity(valueX, valueY, nodes[x], nodes[y], nodes[i]);
+			}
+		}, new AgglomerativeEngine.MergeListener() {
+			private int numClusters = numObjs;
+			public void merge(int x, int y, double max) {
 				// Merge the two clusters
 				DefaultClusterNode newNode = new DefaultClusterNode("id " + (numClusters + numObjs));
 				addSubNode(newNode, nodes[x]);
@@ -127,8 +129,9 @@ public class AgglomerativeClusterer {
 				objLists.get(x).addAll(objLists.get(y));
 				objLists.set(y, null);
 				nodes[y] = null;
+				numClusters--;
 			}
-		}
+		}, k);
 		return nodes;
 	}
 
@@ -0,0 +1,265 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.clustering.hierarchical;
+
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
+
+
+/**
+ * <p>Agglomerative clustering on a {@link SymmetricDistanceMatrix} of distances or
+ * similarities between objects. In each step the two closest clusters are merged
+ * and the values between the merged cluster and all other clusters are updated by a
+ * {@link Linkage}, e.g. a Lance-Williams formula like single, complete or average
+ * linkage. The merged cluster replaces the first of the two clusters in the matrix,
+ * hence no additional memory is needed.</p>
+ *
+ * <p>Instead of scanning the complete matrix for each merge, the engine keeps the
+ * nearest neighbour of each row in a priority queue. The neighbour of a row is
+ * only searched again if it was merged or its value increased. This needs O(n)
+ * operations per merge for most linkages instead of O(n&sup2;) and works for arbitrary
+ * linkages, i.e. it also delivers the same merges as the exhaustive search for
+ * linkages which are not reducible.</p>
+ *
+ * <p>Ties are resolved like by the exhaustive search: the pair with the smallest row
+ * index is merged first, and within a row the smallest column index is preferred. If
+ * only the upper triangle is searched, the row index is the smaller index of the pair,
+ * otherwise the larger one. The merged cluster is always kept at the row index. Pairs
+ * whose value is NaN (or infinitely bad) are never merged.</p>
+ */
+public class AgglomerativeEngine {
+
+	/** Calculates the value between a merged cluster and another cluster. */
+	public static interface Linkage {
+
+		/**
+		 * Returns the value between the union of the clusters a and b and the cluster i.
+		 * This method is invoked before the clusters are merged.
+		 */
+		public double getUnionValue(int a, int b, int i, double valueA, double valueB);
+	}
+
+	/** Is notified about each merge. */
+	public static interface MergeListener {
+
+		/** The cluster removed was merged into the cluster kept with the given value. */
+		public void merge(int kept, int removed, double value);
+	}
+
+	private final SymmetricDistanceMatrix matrix;
+
+	private final boolean similarity;
+
+	private final boolean upperTriangle;
+
+	private final int n;
+
+	private final boolean[] active;
+
+	/** The (candidate of the) nearest neighbour of each row or -1. */
+	private final int[] neighbour;
+
+	/** A lower bound for the key of the nearest neighbour of each row. */
+	private final double[] minKey;
+
+	/** An indexed binary heap of rows ordered by minKey and row index. */
+	private final int[] heap;
+
+	/** The position of each row in the heap or -1. */
+	private final int[] heapPosition;
+
+	private int heapSize = 0;
+
+	/**
+	 * Creates a new engine. The matrix is modified during the clustering.
+	 * 
+	 * @param similarity
+	 *            if true, the pair with the largest value is merged, otherwise the
+	 *            one with the smallest value
+	 * @param upperTriangle
+	 *            if true, the row index of a pair is the smaller index, otherwise
+	 *            the larger one
+	 */
+	public AgglomerativeEngine(SymmetricDistanceMatrix matrix, boolean similarity, boolean upperTriangle) {
+		this.matrix = matrix;
+		this.similarity = similarity;
+		this.upperTriangle = upperTriangle;
+		this.n = matrix.size();
+		this.active = new boolean[n];
+		this.neighbour = new int[n];
+		this.minKey = new double[n];
+		this.heap = new int[n];
+		this.heapPosition = new int[n];
+	}
+
+	/**
+	 * Merges clusters until the given number of clusters is reached or no pair with a
+	 * defined value is left. Returns the number of merges.
+	 */
+	public int cluster(Linkage linkage, MergeListener listener, int numberOfClusters) {
+		for (int i = 0; i < n; i++)
+			active[i] = true;
+		for (int i = 0; i < n; i++) {
+			findNeighbour(i);
+			heapPosition[i] = heapSize;
+			heap[heapSize++] = i;
+		}
+		for (int p = heapSize / 2 - 1; p >= 0; p--)
+			siftDown(p);
+
+		int merges = 0;
+		int clusters = n;
+		while ((clusters > numberOfClusters) && (heapSize > 0)) {
+			int a = heap[0];
+			int b = neighbour[a];
+			if (b < 0) // no pairs left
+				break;
+			if (!isExact(a)) {
+				// the bound is outdated
+				if (findNeighbour(a))
+					siftDown(0);
+				continue;
+			}
+			if (minKey[a] == Double.POSITIVE_INFINITY)
+				break;
+			double value = matrix.get(a, b);
+
+			// update the values of the merged cluster
+			for (int i = 0; i < n; i++) {
+				if (active[i] && (i != a) && (i != b)) {
+					double unionValue = linkage.getUnionValue(a, b, i, matrix.get(a, i), matrix.get(b, i));
+					matrix.set(a, i, unionValue);
+					if (isCandidate(i, a)) {
+						double key = getKey(unionValue);
+						if (key < minKey[i]) {
+							minKey[i] = key;
+							neighbour[i] = a;
+							siftUp(heapPosition[i]);
+						} else if ((key == minKey[i]) && (a < neighbour[i]) && isExact(i)) {
+							// prefer the smaller index like the exhaustive search
+							neighbour[i] = a;
+						}
+					}
+				}
+			}
+			listener.merge(a, b, value);
+			active[b] = false;
+			removeFromHeap(b);
+			findNeighbour(a);
+			siftDown(heapPosition[a]);
+			siftUp(heapPosition[a]);
+			merges++;
+			clusters--;
+		}
+		return merges;
+	}
+
+	/** Returns true if j is a column of row i. */
+	private boolean isCandidate(int i, int j) {
+		return upperTriangle ? j > i : j < i;
+	}
+
+	/** Returns true if the neighbour of the given row is active and has the key of the row. */
+	private boolean isExact(int i) {
+		int j = neighbour[i];
+		return (j >= 0) && active[j] && (getKey(matrix.get(i, j)) == minKey[i]);
+	}
+
+	/** Returns the key of a value, smaller keys are merged first. */
+	private double getKey(double value) {
+		if (Double.isNaN(value))
+			return Double.POSITIVE_INFINITY;
+		return similarity ? -value : value;
+	}
+
+	/**
+	 * Searches the nearest neighbour of the given row. Returns true if the key
+	 * increased.
+	 */
+	private boolean findNeighbour(int i) {
+		int start = upperTriangle ? i + 1 : 0;
+		int end = upperTriangle ? n : i;
+		double best = Double.POSITIVE_INFINITY;
+		int bestIndex = -1;
+		for (int j = start; j < end; j++) {
+			if (active[j]) {
+				double key = getKey(matrix.get(i, j));
+				if ((key < best) || (bestIndex < 0)) {
+					best = key;
+					bestIndex = j;
+				}
+			}
+		}
+		boolean increased = best > minKey[i];
+		minKey[i] = best;
+		neighbour[i] = bestIndex;
+		return increased;
+	}
+
+	private boolean isBefore(int row1, int row2) {
+		return (minKey[row1] < minKey[row2]) || ((minKey[row1] == minKey[row2]) && (row1 < row2));
+	}
+
+	private void siftUp(int position) {
+		int row = heap[position];
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (!isBefore(row, heap[parent]))
+				break;
+			heap[position] = heap[parent];
+			heapPosition[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = row;
+		heapPosition[row] = position;
+	}
+
+	private void siftDown(int position) {
+		int row = heap[position];
+		while (true) {
+			int child = 2 * position + 1;
+			if (child >= heapSize)
+				break;
+			if ((child + 1 < heapSize) && isBefore(heap[child + 1], heap[child]))
+				child++;
+			if (!isBefore(heap[child], row))
+				break;
+			heap[position] = heap[child];
+			heapPosition[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = row;
+		heapPosition[row] = position;
+	}
+
+	private void removeFromHeap(int row) {
+		int position = heapPosition[row];
+		heapPosition[row] = -1;
+		heapSize--;
+		if (position < heapSize) {
+			heap[position] = heap[heapSize];
+			heapPosition[heap[position]] = position;
+			siftDown(position);
+			siftUp(position);
+		}
+	}
+}
@@ -25,12 +25,17 @@ package com.rapidminer.operator.learner.clustering.hierarchical.upgma;
 import java.util.LinkedList;
 import java.util.List;
 
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
+
 public class Cluster {
 
 	private Tree tree;
 
 	private double distances[];
 
+	/** The distances of all clusters. Used instead of the distances array if not null. */
+	private SymmetricDistanceMatrix matrix;
+
 	private List<String> elements = new LinkedList<String>();
 
 	private int index;
@@ -43,6 +48,12 @@ public class Cluster {
 		this.distances = distances;
 	}
 
+	/** Creates a cluster whose distances are stored in the row index of the given matrix. */
+	public Cluster(String leaf, SymmetricDistanceMatrix matrix, int index) {
+		this(leaf, (double[]) null, index);
+		this.matrix = matrix;
+	}
+
 	public Tree getTree() {
 		return tree;
 	}
@@ -56,11 +67,16 @@ public class Cluster {
 	}
 
 	public double getDistance(int i) {
+		if (matrix != null)
+			return matrix.get(index, i);
 		return distances[i];
 	}
 
 	public void setDistance(int i, double distance) {
-		distances[i] = distance;
+		if (matrix != null)
+			matrix.set(index, i, distance);
+		else
+			distances[i] = distance;
 	}
 
 	public List getElements() {
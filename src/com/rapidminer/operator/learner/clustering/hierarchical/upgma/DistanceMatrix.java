@@ -22,37 +22,48 @@
  */
 package com.rapidminer.operator.learner.clustering.hierarchical.upgma;
 
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
 import com.rapidminer.tools.Tools;
 
+/**
+ * A named distance matrix. The distances are stored in a {@link SymmetricDistanceMatrix},
+ * i.e. only once per pair and in a memory mapped file if they do not fit into
+ * the default heap budget.
+ */
 public class DistanceMatrix implements Matrix {
 
 	private static final long serialVersionUID = 8249533011260125345L;
 
-	private double distance[][];
+	private SymmetricDistanceMatrix distance;
 
 	private String name[];
 
 	/** Copy constructor */
 	private DistanceMatrix(DistanceMatrix matrix) {
-		this.distance = new double[matrix.distance.length][];
-		for (int i = 0; i < this.distance.length; i++) {
-			this.distance[i] = new double[i];
-			for (int j = 0; j < i; j++) {
-				this.distance[i][j] = matrix.distance[i][j];
+		this(matrix.getDimension());
+		for (int i = 0; i < getDimension(); i++) {
+			for (int j = i + 1; j < getDimension(); j++) {
+				this.distance.set(i, j, matrix.distance.get(i, j));
 			}
 		}
-		this.name = new String[matrix.name.length];
 		for (int i = 0; i < this.name.length; i++) {
 			this.name[i] = matrix.name[i];
 		}
 	}
 
 	public DistanceMatrix(int n) {
-		distance = new double[n][];
-		for (int i = 0; i < n; i++) {
-			distance[i] = new double[i];
-		}
-		name = new String[n];
+		this(new SymmetricDistanceMatrix(n));
+	}
+
+	/** Creates a matrix with the given distances. */
+	public DistanceMatrix(SymmetricDistanceMatrix distance) {
+		this.distance = distance;
+		this.name = new String[distance.size()];
+	}
+
+	/** Returns the underlying matrix. */
+	public SymmetricDistanceMatrix getDistances() {
+		return distance;
 	}
 
 	public String getName(int i) {
@@ -64,15 +75,13 @@ public class DistanceMatrix implements Matrix {
 	}
 
 	public int getDimension() {
-		return distance.length;
+		return distance.size();
 	}
 
 	public double getDistance(int i, int j) {
 		if (i == j)
 			return 0;
-		if (j < i)
-			return getDistance(j, i);
-		return distance[j][i];
+		return distance.get(i, j);
 	}
 
 	public void setDistance(int i, int j, double d) {
@@ -84,18 +93,14 @@ public class DistanceMatrix implements Matrix {
 			else
 				return;
 		}
-		if (j < i) {
-			setDistance(j, i, d);
-			return;
-		}
-		distance[j][i] = d;
+		distance.set(i, j, d);
 	}
 
 	/** Throws an IllegalArgumentException if the matrix is no distance measure. */
 	public void verify() {
-		for (int i = 0; i < distance.length; i++) {
+		for (int i = 0; i < getDimension(); i++) {
 			for (int j = 0; j < i; j++) {
-				for (int k = 0; k < distance.length; k++) {
+				for (int k = 0; k < getDimension(); k++) {
 					if (getDistance(i, j) + getDistance(j, k) < getDistance(i, k)) {
 						throw new IllegalArgumentException("Matrix violates triangle inequality (" + i + "," + j + "," + k + ")");
 					}
@@ -110,10 +115,10 @@ public class DistanceMatrix implements Matrix {
 
 	public String toString() {
 		StringBuffer result = new StringBuffer();
-		for (int i = 0; i < distance.length; i++) {
+		for (int i = 0; i < getDimension(); i++) {
 			if (i != 0)
 				result.append(Tools.getLineSeparator());
-			for (int j = 0; j < distance.length; j++) {
+			for (int j = 0; j < getDimension(); j++) {
 				if (j != 0)
 					result.append("\t");
 				result.append(getDistance(i, j));
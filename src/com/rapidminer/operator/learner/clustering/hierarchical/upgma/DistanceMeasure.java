@@ -27,6 +27,8 @@ import java.util.Iterator;
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
 
 public abstract class DistanceMeasure {
 
@@ -78,23 +80,29 @@ public abstract class DistanceMeasure {
 
 	public abstract double calculateDistance(Example e1, Example e2);
 
-	public DistanceMatrix calculateDistanceMatrix(ExampleSet exampleSet) {
-		DistanceMatrix matrix = new DistanceMatrix(exampleSet.size());
+	/**
+	 * Calculates the distances of all pairs of examples. Each pair is calculated once, the
+	 * rows of the matrix are distributed among the given number of threads (0: number of
+	 * available processors).
+	 */
+	public DistanceMatrix calculateDistanceMatrix(ExampleSet exampleSet, int numberOfThreads) throws OperatorException {
+		final Example[] examples = new Example[exampleSet.size()];
 		Iterator<Example> r = exampleSet.iterator();
-		Attribute idAttribute = exampleSet.getAttributes().getId();
 		int i = 0;
-		while (r.hasNext()) {
-			Example e = r.next();
-			double idValue = e.getValue(idAttribute);
+		while (r.hasNext())
+			examples[i++] = r.next();
+		SymmetricDistanceMatrix distances = new SymmetricDistanceMatrix(examples.length);
+		distances.fill(new SymmetricDistanceMatrix.EntryFunction() {
+			public double compute(int i, int j) {
+				return i == j ? 0.0d : calculateDistance(examples[i], examples[j]);
+			}
+		}, numberOfThreads);
+		DistanceMatrix matrix = new DistanceMatrix(distances);
+		Attribute idAttribute = exampleSet.getAttributes().getId();
+		for (i = 0; i < examples.length; i++) {
+			double idValue = examples[i].getValue(idAttribute);
 			String idString = idAttribute.isNominal() ? idAttribute.getMapping().mapIndex((int)idValue) : idValue + "";
 			matrix.setName(i, idString);
-			Iterator<Example> s = exampleSet.iterator();
-			int j = 0;
-			while (s.hasNext()) {
-				matrix.setDistance(i, j, calculateDistance(e, s.next()));
-				j++;
-			}
-			i++;
 		}
 		return matrix;
 	}
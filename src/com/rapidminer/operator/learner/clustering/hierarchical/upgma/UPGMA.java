@@ -22,18 +22,20 @@
  */
 package com.rapidminer.operator.learner.clustering.hierarchical.upgma;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.learner.clustering.ClusterModel;
 import com.rapidminer.operator.learner.clustering.hierarchical.AbstractHierarchicalClusterer;
+import com.rapidminer.operator.learner.clustering.hierarchical.AgglomerativeEngine;
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeCategory;
+import com.rapidminer.parameter.ParameterTypeInt;
 
 /**
  * This operator generates a tree each node of which represents a cluster. UPGMA stands for Unweighted Pair Group Method using Arithmetic Means. Since
@@ -54,64 +56,50 @@ public class UPGMA extends AbstractHierarchicalClusterer {
 	/** The parameter name for &quot;Specifies the way the distance of two clusters is calculated.&quot; */
 	public static final String PARAMETER_CLUSTER_DISTANCE_MEASURE = "cluster_distance_measure";
 
+	/** The parameter name for &quot;The number of threads used for the calculation of the distance matrix&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
 
 	public UPGMA(OperatorDescription description) {
 		super(description);
 	}
 
 	public ClusterModel createClusterModel(ExampleSet es) throws OperatorException {
-		ClusterDistanceMeasure clusterDistanceMeasure = DistanceMeasure.createClusterDistanceMeasure(getParameterAsInt(PARAMETER_CLUSTER_DISTANCE_MEASURE));
-		DistanceMatrix distanceMatrix = DistanceMeasure.createDistanceMeasure(getParameterAsInt(PARAMETER_DISTANCE_MEASURE)).calculateDistanceMatrix(es);
-		List<Cluster> clusters = new ArrayList<Cluster>();
-		for (int i = 0; i < distanceMatrix.getDimension(); i++) {
-			double[] distances = new double[distanceMatrix.getDimension()];
-			for (int j = 0; j < distanceMatrix.getDimension(); j++) {
-				distances[j] = distanceMatrix.getDistance(i, j);
-			}
-			clusters.add(new Cluster(distanceMatrix.getName(i), distances, i));
+		final ClusterDistanceMeasure clusterDistanceMeasure = DistanceMeasure.createClusterDistanceMeasure(getParameterAsInt(PARAMETER_CLUSTER_DISTANCE_MEASURE));
+		DistanceMatrix distanceMatrix = DistanceMeasure.createDistanceMeasure(getParameterAsInt(PARAMETER_DISTANCE_MEASURE)).calculateDistanceMatrix(es, getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+		SymmetricDistanceMatrix distances = distanceMatrix.getDistances();
+		final Cluster[] clusters = new Cluster[distanceMatrix.getDimension()];
+		for (int i = 0; i < clusters.length; i++) {
+			clusters[i] = new Cluster(distanceMatrix.getName(i), distances, i);
 		}
-		while (clusters.size() > 1) {
-			// find two clusters i,j with minimal distance d, j > i
-			Cluster clusterI = null;
-			Cluster clusterJ = null;
-			double d = Double.POSITIVE_INFINITY;
-			for (int i = 0; i < clusters.size(); i++) {
-				Cluster tempI = clusters.get(i);
-				for (int j = 0; j < i; j++) {
-					Cluster tempJ = clusters.get(j);
-					double distance = tempI.getDistance(tempJ.getIndex());
-					if (distance < d) {
-						d = distance;
-						clusterI = tempI;
-						clusterJ = tempJ;
-					}
-				}
+		// merge the two clusters i,j with minimal distance d, j < i, until one cluster is left
+		AgglomerativeEngine engine = new AgglomerativeEngine(distances, false, false);
+		int merges = engine.cluster(new AgglomerativeEngine.Linkage() {
+			public double getUnionValue(int i, int j, int l, double distanceI, double distanceJ) {
+				return clusterDistanceMeasure.calculateUnionDistance(distanceI, distanceJ, clusters[i], clusters[j], clusters[l]);
 			}
-			Tree t1 = clusterI.getTree();
-			double h1 = t1.getHeight();
-			Tree t2 = clusterJ.getTree();
-			double h2 = t2.getHeight();
-			Tree newTree = new Tree("" + ((double) (Math.round(d / 2 * 100)) / 100), t1, d / 2 - h1, t2, d / 2 - h2);
-			newTree.setHeight(d / 2);
-			clusterI.setTree(newTree);
-			clusters.remove(clusterJ);
-			// recalculate the distances
-			Iterator l = clusters.iterator();
-			while (l.hasNext()) {
-				Cluster clusterL = (Cluster) l.next();
-				if (clusterI.getIndex() != clusterL.getIndex()) {
-					double newDistance = clusterDistanceMeasure.calculateUnionDistance(clusterI.getDistance(clusterL.getIndex()), clusterJ
-							.getDistance(clusterL.getIndex()), clusterI, clusterJ, clusterL);
-					clusterL.setDistance(clusterI.getIndex(), newDistance);
-					clusterI.setDistance(clusterL.getIndex(), newDistance);
-				} else {
-					clusterI.setDistance(clusterL.getIndex(), Double.POSITIVE_INFINITY);
-				}
+		}, new AgglomerativeEngine.MergeListener() {
+			public void merge(int i, int j, double d) {
+				Cluster clusterI = clusters[i];
+				Cluster clusterJ = clusters[j];
+				Tree t1 = clusterI.getTree();
+				double h1 = t1.getHeight();
+				Tree t2 = clusterJ.getTree();
+				double h2 = t2.getHeight();
+				Tree newTree = new Tree("" + ((double) (Math.round(d / 2 * 100)) / 100), t1, d / 2 - h1, t2, d / 2 - h2);
+				newTree.setHeight(d / 2);
+				clusterI.setTree(newTree);
+				clusterI.union(clusterJ);
+				clusters[j] = null;
 			}
-			clusterI.union(clusterJ);
-		}
+		}, 1);
+		if (merges < clusters.length - 1)
+			throw new UserError(this, 138, clusters.length - merges);
+		Cluster root = null;
+		for (int i = 0; (i < clusters.length) && (root == null); i++)
+			root = clusters[i];
 		
-		UPGMAHierarchicalClusterModel result = new UPGMAHierarchicalClusterModel((clusters.get(0)).getTree(), es);
+		UPGMAHierarchicalClusterModel result = new UPGMAHierarchicalClusterModel(root.getTree(), es);
 		return result;
 	}
 
@@ -125,6 +113,8 @@ public class UPGMA extends AbstractHierarchicalClusterer {
 				DistanceMeasure.CLUSTER_TYPE_NAMES, DistanceMeasure.TYPE_AVERAGE);
 		type.setExpert(false);
 		types.add(type);
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for the calculation of the distance matrix (0: number of available processors).", 0,
+				Integer.MAX_VALUE, 1));
 		types.add(new ParameterTypeBoolean(PARAMETER_ADD_CLUSTER_ATTRIBUTE, "if true, a cluster id is generated as new special attribute ", true));
 		return types;
 	}
@@ -0,0 +1,141 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.clustering.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.operator.learner.clustering.hierarchical.AgglomerativeEngine;
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the merges of the agglomerative engine with an exhaustive search.
+ */
+public class AgglomerativeEngineTest extends TestCase {
+
+	private static final int SINGLE = 0;
+
+	private static final int COMPLETE = 1;
+
+	private static final int AVERAGE = 2;
+
+	private static double link(int linkage, double a, double b, int sizeA, int sizeB) {
+		switch (linkage) {
+			case SINGLE:
+				return Math.min(a, b);
+			case COMPLETE:
+				return Math.max(a, b);
+			default:
+				return (a * sizeA + b * sizeB) / (sizeA + sizeB);
+		}
+	}
+
+	/** Merges the closest pair of the full matrix in each step. */
+	private List<String> exhaustiveMerges(double[][] d, int linkage, boolean upperTriangle) {
+		int n = d.length;
+		int[] size = new int[n];
+		Arrays.fill(size, 1);
+		boolean[] active = new boolean[n];
+		Arrays.fill(active, true);
+		List<String> merges = new ArrayList<String>();
+		for (int clusters = n; clusters > 1; clusters--) {
+			double best = Double.POSITIVE_INFINITY;
+			int x = -1;
+			int y = -1;
+			for (int i = 0; i < n; i++) {
+				for (int j = upperTriangle ? i + 1 : 0; j < (upperTriangle ? n : i); j++) {
+					if (active[i] && active[j] && (d[i][j] < best)) {
+						best = d[i][j];
+						x = i;
+						y = j;
+					}
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				if (active[i] && (i != x) && (i != y)) {
+					d[x][i] = d[i][x] = link(linkage, d[x][i], d[y][i], size[x], size[y]);
+				}
+			}
+			merges.add(x + "-" + y + ":" + best);
+			size[x] += size[y];
+			active[y] = false;
+		}
+		return merges;
+	}
+
+	private List<String> engineMerges(SymmetricDistanceMatrix matrix, final int linkage, boolean upperTriangle) {
+		final int[] size = new int[matrix.size()];
+		Arrays.fill(size, 1);
+		final List<String> merges = new ArrayList<String>();
+		new AgglomerativeEngine(matrix, false, upperTriangle).cluster(new AgglomerativeEngine.Linkage() {
+			public double getUnionValue(int a, int b, int i, double valueA, double valueB) {
+				return link(linkage, valueA, valueB, size[a], size[b]);
+			}
+		}, new AgglomerativeEngine.MergeListener() {
+			public void merge(int kept, int removed, double value) {
+				merges.add(kept + "-" + removed + ":" + value);
+				size[kept] += size[removed];
+			}
+		}, 1);
+		return merges;
+	}
+
+	private void compare(int linkage, int numberOfValues) {
+		Random random = new Random(1977 + linkage);
+		for (int run = 0; run < 50; run++) {
+			int n = 2 + random.nextInt(40);
+			boolean upperTriangle = random.nextBoolean();
+			double[][] d = new double[n][n];
+			SymmetricDistanceMatrix matrix = new SymmetricDistanceMatrix(n, Long.MAX_VALUE);
+			for (int i = 0; i < n; i++) {
+				for (int j = i + 1; j < n; j++) {
+					d[i][j] = d[j][i] = random.nextInt(numberOfValues);
+					matrix.set(i, j, d[i][j]);
+				}
+			}
+			assertEquals("run " + run, exhaustiveMerges(d, linkage, upperTriangle), engineMerges(matrix, linkage, upperTriangle));
+		}
+	}
+
+	public void testSingleLinkage() {
+		compare(SINGLE, 1000);
+	}
+
+	public void testCompleteLinkage() {
+		compare(COMPLETE, 1000);
+	}
+
+	public void testAverageLinkage() {
+		compare(AVERAGE, 1000);
+	}
+
+	public void testTies() {
+		compare(SINGLE, 3);
+		compare(COMPLETE, 3);
+		compare(AVERAGE, 3);
+	}
+}
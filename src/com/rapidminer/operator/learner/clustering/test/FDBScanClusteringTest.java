@@ -0,0 +1,123 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.clustering.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.learner.clustering.FlatCrispClusterModel;
+import com.rapidminer.operator.learner.clustering.clusterer.AbstractDensityBasedClusterer;
+import com.rapidminer.operator.learner.clustering.clusterer.uncertain.FDBScanClustering;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+/**
+ * Tests the FDBSCAN clustering with and without spatial index, also for
+ * examples with missing values.
+ */
+public class FDBScanClusteringTest extends RapidMinerTestCase {
+
+	private ExampleSet exampleSet;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		attributes.add(AttributeFactory.createAttribute("x", Ontology.REAL));
+		attributes.add(AttributeFactory.createAttribute("y", Ontology.REAL));
+		Attribute id = AttributeFactory.createAttribute("id", Ontology.INTEGER);
+		attributes.add(id);
+		MemoryExampleTable table = new MemoryExampleTable(attributes);
+		Random random = new Random(2001);
+		for (int i = 0; i < 40; i++) {
+			int group = i % 2;
+			table.addDataRow(new DoubleArrayDataRow(new double[] { group * 10 + random.nextDouble(), group * 10 + random.nextDouble(), i }));
+		}
+		// only the x value is known, it is close to the first group
+		table.addDataRow(new DoubleArrayDataRow(new double[] { 0.5d, Double.NaN, 40 }));
+		exampleSet = table.createExampleSet(null, null, id);
+	}
+
+	public void tearDown() throws Exception {
+		exampleSet = null;
+		super.tearDown();
+	}
+
+	private FDBScanClustering createClusterer(String neighbourSearch) throws Exception {
+		FDBScanClustering clusterer = new FDBScanClustering(new OperatorDescription(getClass().getClassLoader(), "fdbscan", FDBScanClustering.class.getName(), "", "", "", null, null));
+		clusterer.setParameter("max_distance", "1.5");
+		clusterer.setParameter("min_pts", "3");
+		clusterer.setParameter("sample_rate", "3");
+		clusterer.setParameter(AbstractDensityBasedClusterer.PARAMETER_NEIGHBOUR_SEARCH, neighbourSearch);
+		return clusterer;
+	}
+
+	private List<List<String>> getClusters(FlatCrispClusterModel model) {
+		List<List<String>> clusters = new ArrayList<List<String>>();
+		for (int i = 0; i < model.getNumberOfClusters(); i++) {
+			List<String> objects = new ArrayList<String>();
+			Iterator<String> iterator = model.getClusterAt(i).getObjects();
+			while (iterator.hasNext())
+				objects.add(iterator.next());
+			Collections.sort(objects);
+			// the noise cluster may be empty
+			if (objects.size() > 0)
+				clusters.add(objects);
+		}
+		return clusters;
+	}
+
+	public void testMissingValues() throws Exception {
+		FlatCrispClusterModel model = (FlatCrispClusterModel) createClusterer("linear").createClusterModel(exampleSet);
+		List<List<String>> clusters = getClusters(model);
+		assertEquals(2, clusters.size());
+		List<String> first = clusters.get(0).contains("0.0") ? clusters.get(0) : clusters.get(1);
+		assertEquals(21, first.size());
+		assertTrue("missing value clustered with its neighbours", first.contains("40.0"));
+	}
+
+	public void testSpatialIndexMatchesLinearSearch() throws Exception {
+		List<List<String>> expected = getClusters((FlatCrispClusterModel) createClusterer("linear").createClusterModel(exampleSet));
+		assertEquals(expected, getClusters((FlatCrispClusterModel) createClusterer("kd_tree").createClusterModel(exampleSet)));
+		assertEquals(expected, getClusters((FlatCrispClusterModel) createClusterer("ball_tree").createClusterModel(exampleSet)));
+	}
+
+	public void testSimilarityBeforeClustering() throws Exception {
+		FDBScanClustering clusterer = createClusterer("kd_tree");
+		assertTrue(Double.isNaN(clusterer.similarity("0.0", "2.0")));
+		assertFalse(clusterer.isReachable("0.0", "2.0"));
+		clusterer.createClusterModel(exampleSet);
+		assertEquals(1.0d, clusterer.similarity("0.0", "2.0"));
+		assertEquals(0.0d, clusterer.similarity("0.0", "1.0"));
+		assertTrue(clusterer.isReachable("0.0", "40.0"));
+		assertTrue(Double.isNaN(clusterer.similarity("0.0", "unknown")));
+	}
+}
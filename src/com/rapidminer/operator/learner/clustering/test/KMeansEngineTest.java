@@ -0,0 +1,119 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.clustering.test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.rapidminer.operator.learner.clustering.clusterer.AbstractKMethod;
+import com.rapidminer.operator.learner.clustering.clusterer.KMeansEngine;
+
+import junit.framework.TestCase;
+
+/**
+ * Test case for the k-means engine.
+ */
+public class KMeansEngineTest extends TestCase {
+
+	private double[][] data;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		Random random = new Random(2001);
+		data = new double[3 * KMeansEngine.BLOCK_SIZE + 17][];
+		for (int i = 0; i < data.length; i++) {
+			int cluster = i % 3;
+			data[i] = new double[] { cluster * 10 + random.nextGaussian(), cluster * -5 + random.nextGaussian() };
+		}
+	}
+
+	private double[][] initialCentroids() {
+		return new double[][] { data[0].clone(), data[3].clone(), data[6].clone() };
+	}
+
+	public void testSeparatedClusters() throws Exception {
+		KMeansEngine.Run run = new KMeansEngine(data, 3, null).cluster(initialCentroids(), 100);
+		int[] assignments = run.getAssignments();
+		for (int i = 0; i < data.length; i++) {
+			assertEquals(assignments[i % 3], assignments[i]);
+		}
+		assertEquals(20.0d, run.getCentroids()[assignments[2]][0], 0.1d);
+		assertTrue(run.getQuality() < 0.0d);
+	}
+
+	public void testTriangleInequality() throws Exception {
+		KMeansEngine.Run plain = new KMeansEngine(data, 3, null).cluster(initialCentroids(), 100);
+		KMeansEngine.Run accelerated = new KMeansEngine(data, 3, null, true).cluster(initialCentroids(), 100);
+		assertTrue(Arrays.equals(plain.getAssignments(), accelerated.getAssignments()));
+		assertEquals(plain.getQuality(), accelerated.getQuality(), 1e-10);
+		assertEquals(0, plain.getSavedDistanceComputations());
+		assertTrue(accelerated.getSavedDistanceComputations() > 0);
+		assertEquals(plain.getDistanceComputations(), accelerated.getDistanceComputations() + accelerated.getSavedDistanceComputations());
+	}
+
+	public void testKMeansPlusPlus() {
+		int[] indices = AbstractKMethod.getKMeansPlusPlusIndices(data.length, 3, new AbstractKMethod.SeedingDistance() {
+			public double distance(int point, int center) {
+				return KMeansEngine.squaredDistance(data[point], data[center]);
+			}
+		}, new Random(1));
+		boolean[] found = new boolean[3];
+		for (int index : indices) {
+			found[index % 3] = true;
+		}
+		assertTrue(found[0] && found[1] && found[2]);
+	}
+
+	public void testMiniBatch() {
+		double[][] centroids = new double[][] { data[0].clone(), data[1].clone(), data[2].clone() };
+		long[] counts = new long[3];
+		double[][] batch = new double[100][];
+		for (int step = 0; step < 20; step++) {
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = data[(step * batch.length + i) % data.length];
+			}
+			KMeansEngine.miniBatchStep(centroids, counts, batch, batch.length);
+		}
+		assertEquals(2000, counts[0] + counts[1] + counts[2]);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i * 10.0d, centroids[KMeansEngine.closestCentroid(data[i], centroids)][0], 0.2d);
+		}
+	}
+
+	public void testThreadsAreDeterministic() throws Exception {
+		KMeansEngine.Run sequential = new KMeansEngine(data, 3, null).cluster(initialCentroids(), 100);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			KMeansEngine.Run parallel = new KMeansEngine(data, 3, executor).cluster(initialCentroids(), 100);
+			assertTrue(Arrays.equals(sequential.getAssignments(), parallel.getAssignments()));
+			for (int j = 0; j < 3; j++) {
+				assertTrue(Arrays.equals(sequential.getCentroids()[j], parallel.getCentroids()[j]));
+			}
+			assertEquals(sequential.getQuality(), parallel.getQuality());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
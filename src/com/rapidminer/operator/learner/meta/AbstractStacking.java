@@ -27,6 +27,7 @@ import java.util.List;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
 import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.Model;
 import com.rapidminer.operator.Operator;
@@ -35,6 +36,8 @@ import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.Learner;
 import com.rapidminer.operator.learner.LearnerCapability;
 import com.rapidminer.operator.learner.PredictionModel;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeInt;
 
 
 /**  
@@ -48,6 +51,9 @@ import com.rapidminer.operator.learner.PredictionModel;
  */
 public abstract class AbstractStacking extends AbstractMetaLearner {
     
+	/** The parameter name for &quot;The number of threads used for learning the base models (0: number of available processors).&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+	
 	public AbstractStacking(OperatorDescription description) {
 		super(description);
 	}		
@@ -68,14 +74,26 @@ public abstract class AbstractStacking extends AbstractMetaLearner {
 	public abstract boolean keepOldAttributes();
 	
 	public Model learn(ExampleSet exampleSet) throws OperatorException {        
-        // learn base models
-		List<Model> baseModels = new LinkedList<Model>();
-        for (int i = getFirstBaseModelLearnerIndex(); i <= getLastBaseModelLearnerIndex(); i++) {
-            Operator currentOperator = getOperator(i);
-            IOContainer input = new IOContainer((ExampleSet)exampleSet.clone());
-            input = currentOperator.apply(input);
-            baseModels.add(input.remove(Model.class));
-        }
+        // learn base models, each operator learns exactly one of them
+		int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		if ((numberOfThreads != 1) && !EnsembleTrainer.isCopyable(this, exampleSet))
+			numberOfThreads = 1;
+		final ExampleSet trainingSet = exampleSet;
+		final int firstIndex = getFirstBaseModelLearnerIndex();
+		List<Model> baseModels = new EnsembleTrainer(this, numberOfThreads).train(getLastBaseModelLearnerIndex() - firstIndex + 1, null, new EnsembleTrainer.MemberLearnerFactory() {
+			public EnsembleTrainer.MemberLearner createMemberLearner(final boolean parallel) {
+				return new EnsembleTrainer.MemberLearner() {
+					public Model learn(int member, int seed) throws OperatorException {
+						Operator currentOperator = getOperator(firstIndex + member);
+						// the operators of different threads must not change the same example table
+						ExampleSet learningSet = parallel ? Tools.getLinearSubsetCopy(trainingSet, trainingSet.size(), 0) : (ExampleSet)trainingSet.clone();
+						IOContainer input = new IOContainer(learningSet);
+						input = currentOperator.apply(input);
+						return input.remove(Model.class);
+					}
+				};
+			}
+		});
 
         // create temporary example set for stacking
         ExampleSet stackingLearningSet = (ExampleSet)exampleSet.clone();
@@ -124,4 +142,10 @@ public abstract class AbstractStacking extends AbstractMetaLearner {
 			return super.supportsCapability(capability);
 		}
 	}
+
+	public List<ParameterType> getParameterTypes() {
+		List<ParameterType> types = super.getParameterTypes();
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for learning the base models (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
+		return types;
+	}
 }
@@ -26,8 +26,12 @@ import java.util.List;
 import java.util.Vector;
 
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
 import com.rapidminer.example.set.SplittedExampleSet;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Model;
+import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.ValueDouble;
@@ -35,6 +39,7 @@ import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.tools.RandomGenerator;
 
 
 /**
@@ -58,37 +63,59 @@ public class Bagging extends AbstractMetaLearner {
 	/** Name of the flag indicating internal bootstrapping. */
 	public static final String PARAMETER_AVERAGE_CONFIDENCES = "average_confidences";
 
+	/** Use the given random seed instead of global random numbers (-1: use global). */
+	public static final String PARAMETER_LOCAL_RANDOM_SEED = "local_random_seed";
+
+	/** The number of threads used for learning and applying the base models (0: number of available processors). */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
 	// field for visualizing performance
-	protected int currentIteration;
+	private EnsembleTrainer trainer;
 
 	/** Constructor. */
 	public Bagging(OperatorDescription description) {
 		super(description);
 		addValue(new ValueDouble("iteration", "The current iteration.") {
 			public double getDoubleValue() {
-				return currentIteration;
+				return trainer == null ? 0 : trainer.getNumberOfTrainedMembers();
 			}
 		});
 	}
 
 	/**
 	 * Constructs a <code>Model</code> repeatedly running a base learner on subsamples.
+	 * Each subsample is drawn with its own random seed, the base models can be learned 
+	 * in parallel.
 	 */
-	public Model learn(ExampleSet exampleSet) throws OperatorException {
+	public Model learn(final ExampleSet exampleSet) throws OperatorException {
 		final double splitRatio = this.getParameterAsDouble(PARAMETER_SAMPLE_RATIO);
 		final int numInterations = this.getParameterAsInt(PARAMETER_ITERATIONS);
+		int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		if ((numberOfThreads != 1) && !EnsembleTrainer.isCopyable(this, exampleSet))
+			numberOfThreads = 1;
 
-		Vector<Model> modelList = new Vector<Model>();
-		for (this.currentIteration = 0; this.currentIteration < numInterations; this.currentIteration++) {
-			SplittedExampleSet splitted = new SplittedExampleSet(exampleSet, splitRatio, SplittedExampleSet.SHUFFLED_SAMPLING, -1);
-			splitted.selectSingleSubset(0);
-			modelList.add(applyInnerLearner(splitted));
-			inApplyLoop();
-		}
+		this.trainer = new EnsembleTrainer(this, numberOfThreads);
+		List<Model> modelList = trainer.train(numInterations, RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED)), new EnsembleTrainer.MemberLearnerFactory() {
+			public EnsembleTrainer.MemberLearner createMemberLearner(final boolean parallel) {
+				final List<Operator> operators = EnsembleTrainer.getInnerOperators(Bagging.this, parallel);
+				return new EnsembleTrainer.MemberLearner() {
+					public Model learn(int member, int seed) throws OperatorException {
+						SplittedExampleSet splitted = new SplittedExampleSet(exampleSet, splitRatio, SplittedExampleSet.SHUFFLED_SAMPLING, seed);
+						splitted.selectSingleSubset(0);
+						// each thread learns on its own copy of the subsample
+						ExampleSet sample = parallel ? Tools.getLinearSubsetCopy(splitted, splitted.size(), 0) : splitted;
+						IOContainer input = new IOContainer(new IOObject[] { sample });
+						for (Operator operator : operators)
+							input = operator.apply(input);
+						return input.remove(Model.class);
+					}
+				};
+			}
+		});
 
 		boolean numerical = exampleSet.getAttributes().getLabel().isNumerical();
 		if (this.getParameterAsBoolean(PARAMETER_AVERAGE_CONFIDENCES) || numerical) {
-			return new BaggingModel(exampleSet, modelList);
+			return new BaggingModel(exampleSet, modelList, numberOfThreads);
 		} else {
 			List<Double> weights = new Vector<Double>();
 			for (int i=0; i<modelList.size(); i++) {
@@ -103,6 +130,8 @@ public class Bagging extends AbstractMetaLearner {
 		types.add(new ParameterTypeDouble(PARAMETER_SAMPLE_RATIO, "Fraction of examples used for training. Must be greater than 0 and should be lower than 1.", 0, 1, 0.9)); 
 		types.add(new ParameterTypeInt(PARAMETER_ITERATIONS, "The number of iterations (base models).", 1, Integer.MAX_VALUE, 10)); 
 		types.add(new ParameterTypeBoolean(PARAMETER_AVERAGE_CONFIDENCES, "Specifies whether to average available prediction confidences or not.", true)); 
+		types.add(new ParameterTypeInt(PARAMETER_LOCAL_RANDOM_SEED, "Use the given random seed instead of global random numbers (-1: use global).", -1, Integer.MAX_VALUE, -1));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for learning and applying the base models (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
 		return types;
 	}
 }
@@ -50,12 +50,37 @@ public class BaggingModel extends PredictionModel {
 
 	private static final long serialVersionUID = -4691755811263523354L;
 	
+	/** The name of the application parameter for the number of threads. */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+	
 	/** Holds the models. */
 	private List<Model> models;
 
+	/** 
+	 * The number of threads used for the prediction, {@link EnsemblePrediction#ALL_PROCESSORS} for the 
+	 * number of available processors. Models saved without this field predict sequentially.
+	 */
+	private int numberOfThreads = 1;
+	
 	public BaggingModel(ExampleSet exampleSet, List<Model> models) {
+		this(exampleSet, models, 1);
+	}
+
+	public BaggingModel(ExampleSet exampleSet, List<Model> models, int numberOfThreads) {
 		super(exampleSet);
 		this.models = models;
+		this.numberOfThreads = EnsemblePrediction.getModelThreads(numberOfThreads);
+	}
+
+	/** Supports the parameter {@link #PARAMETER_NUMBER_OF_THREADS} (0: number of available processors). */
+	public void setParameter(String name, Object value) throws OperatorException {
+		if (name.equals(PARAMETER_NUMBER_OF_THREADS)) {
+			try {
+				this.numberOfThreads = EnsemblePrediction.getModelThreads(Integer.parseInt(value.toString()));
+				return;
+			} catch (NumberFormatException e) {}
+		}
+		super.setParameter(name, value);
 	}
 
 	/** @return the number of embedded models */
@@ -75,12 +100,23 @@ public class BaggingModel extends PredictionModel {
 	}
 
 	/**
-	 * Iterates over all models and averages confidences.
+	 * Iterates over all models and averages confidences. Blocks of examples are predicted 
+	 * in parallel if more than one thread should be used.
 	 * 
 	 * @param origExampleSet
 	 *            the set of examples to be classified
 	 */
 	public ExampleSet performPrediction(ExampleSet origExampleSet, Attribute predictedLabel) throws OperatorException {
+		EnsemblePrediction.performPrediction(origExampleSet, predictedLabel, numberOfThreads, new EnsemblePrediction.BlockPredictor() {
+			public void predict(ExampleSet exampleSet, Attribute blockPredictedLabel, int offset) throws OperatorException {
+				performSequentialPrediction(exampleSet, blockPredictedLabel);
+			}
+		});
+		return origExampleSet;
+	}
+
+	/** Iterates over all models and averages confidences of the given examples. */
+	private ExampleSet performSequentialPrediction(ExampleSet origExampleSet, Attribute predictedLabel) throws OperatorException {
 		if (predictedLabel.isNominal()) {
 			// nominal prediction
 			final String attributePrefix = "BaggingModelPrediction";
@@ -0,0 +1,130 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.meta;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.Attributes;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ParallelTaskProcessor;
+
+
+/**
+ * Applies ensemble models with several threads. The example set is divided into consecutive 
+ * blocks and each thread predicts the examples of its block on a copy in main memory. Hence, 
+ * the threads neither share example tables nor change them concurrently. Afterwards, the 
+ * predicted labels and confidences are written into the original example set.
+ */
+class EnsemblePrediction {
+
+	/** Predicts the examples of a single block. */
+	interface BlockPredictor {
+
+		/** 
+		 * Predicts the given examples with the given predicted label attribute. The offset is the 
+		 * index of the first of these examples in the predicted example set.
+		 */
+		public void predict(ExampleSet exampleSet, Attribute predictedLabel, int offset) throws OperatorException;
+	}
+
+	/** The minimal number of examples per thread. */
+	private static final int MIN_BLOCK_SIZE = 100;
+
+	/** 
+	 * The number of threads of the models which stands for the number of available processors. 
+	 * Models saved before the parallel prediction are deserialized with 0 threads and are hence 
+	 * applied sequentially.
+	 */
+	static final int ALL_PROCESSORS = -1;
+
+	/** Returns the number of threads of the models for the given parameter value, where 0 means all available processors. */
+	static int getModelThreads(int numberOfThreads) {
+		return numberOfThreads == 0 ? ALL_PROCESSORS : numberOfThreads;
+	}
+
+	/**
+	 * Predicts the given example set with the given number of threads of the model. The predictor 
+	 * is directly applied on the example set if at most one thread should be used, if the example 
+	 * set is too small, or if it cannot be copied.
+	 */
+	static void performPrediction(final ExampleSet exampleSet, Attribute predictedLabel, int numberOfThreads, final BlockPredictor predictor) throws OperatorException {
+		if (numberOfThreads == ALL_PROCESSORS)
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
+		int threads = Math.min(numberOfThreads, exampleSet.size() / MIN_BLOCK_SIZE);
+		if ((threads <= 1) || ParallelTaskProcessor.containsRelationalAttributes(exampleSet)) {
+			predictor.predict(exampleSet, predictedLabel, 0);
+			return;
+		}
+		
+		final int blockSize = (exampleSet.size() + threads - 1) / threads;
+		// the threads share the predictor, a model does not know the process which might be stopped
+		new ParallelTaskProcessor<BlockPredictor, ExampleSet>(null, "applying the ensemble model", threads) {
+
+			protected BlockPredictor createWorker() {
+				return predictor;
+			}
+
+			protected ExampleSet process(BlockPredictor blockPredictor, int block) throws OperatorException {
+				ExampleSet blockSet = Tools.getLinearSubsetCopy(exampleSet, blockSize, block * blockSize);
+				blockPredictor.predict(blockSet, blockSet.getAttributes().getPredictedLabel(), block * blockSize);
+				return blockSet;
+			}
+
+			protected void handleResult(int block, ExampleSet blockSet) {
+				copyPredictions(blockSet, exampleSet, block * blockSize);
+			}
+		}.run(threads);
+	}
+
+	/** Copies the predicted labels and confidences of the block into the example set, beginning at the given offset. */
+	private static void copyPredictions(ExampleSet block, ExampleSet exampleSet, int offset) {
+		// the copied attributes share the nominal mappings, hence the values can be copied directly
+		List<Attribute> sourceAttributes = new ArrayList<Attribute>();
+		List<Attribute> targetAttributes = new ArrayList<Attribute>();
+		Iterator<AttributeRole> r = block.getAttributes().specialAttributes();
+		while (r.hasNext()) {
+			AttributeRole role = r.next();
+			String specialName = role.getSpecialName();
+			if (specialName.equals(Attributes.PREDICTION_NAME) || specialName.startsWith(Attributes.CONFIDENCE_NAME + "_")) {
+				Attribute target = exampleSet.getAttributes().getSpecial(specialName);
+				if (target != null) {
+					sourceAttributes.add(role.getAttribute());
+					targetAttributes.add(target);
+				}
+			}
+		}
+		for (int i = 0; i < block.size(); i++) {
+			Example source = block.getExample(i);
+			Example target = exampleSet.getExample(offset + i);
+			for (int a = 0; a < sourceAttributes.size(); a++)
+				target.setValue(targetAttributes.get(a), source.getValue(sourceAttributes.get(a)));
+		}
+	}
+}
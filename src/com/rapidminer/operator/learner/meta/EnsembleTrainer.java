@@ -0,0 +1,163 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.meta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.operator.Model;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ParallelTaskProcessor;
+import com.rapidminer.tools.RandomGenerator;
+
+
+/**
+ * Trains the independent members of an ensemble, e.g. the base models of bagging or the
+ * trees of a random forest. The random seeds of all members are drawn from the given
+ * random generator before the training starts, hence the learned models do not depend 
+ * on the number of threads.
+ * 
+ * <p>If more than one thread is used, each thread trains its members with its own
+ * {@link MemberLearner}. Such learners must neither share operators nor change example 
+ * tables used by other threads, e.g. by working on inner operator clones and on copies 
+ * of the example set in main memory.</p>
+ */
+public class EnsembleTrainer {
+
+	/** Learns the models of single ensemble members. */
+	public interface MemberLearner {
+
+		/** Learns the model of the member with the given index and random seed. */
+		public Model learn(int member, int seed) throws OperatorException;
+	}
+
+	/** Creates the member learners used by the threads. */
+	public interface MemberLearnerFactory {
+
+		/** 
+		 * Creates a new member learner. If parallel is false, this method is invoked only once 
+		 * and the learner might use the original operators and data.
+		 */
+		public MemberLearner createMemberLearner(boolean parallel) throws OperatorException;
+	}
+
+	/** The ensemble operator whose apply loop is invoked after each trained member. */
+	private final Operator operator;
+
+	private final int numberOfThreads;
+
+	private volatile int numberOfTrainedMembers = 0;
+
+	/** Creates a new trainer, a number of threads of 0 means the number of available processors. */
+	public EnsembleTrainer(Operator operator, int numberOfThreads) {
+		this.operator = operator;
+		this.numberOfThreads = ParallelTaskProcessor.getNumberOfThreads(numberOfThreads);
+	}
+
+	/** Returns the number of members which are already trained. */
+	public int getNumberOfTrainedMembers() {
+		return numberOfTrainedMembers;
+	}
+
+	/**
+	 * Trains the given number of members and returns their models in the order of the members.
+	 * If the random generator is null, the seed -1 is passed to all members.
+	 */
+	public List<Model> train(int numberOfMembers, RandomGenerator random, MemberLearnerFactory factory) throws OperatorException {
+		int[] seeds = new int[numberOfMembers];
+		for (int i = 0; i < numberOfMembers; i++)
+			seeds[i] = random == null ? -1 : random.nextInt(Integer.MAX_VALUE);
+		
+		Model[] models = new Model[numberOfMembers];
+		numberOfTrainedMembers = 0;
+		int threads = Math.min(numberOfThreads, numberOfMembers);
+		if (threads > 1) {
+			trainInParallel(seeds, models, threads, factory);
+		} else {
+			MemberLearner learner = factory.createMemberLearner(false);
+			for (int i = 0; i < numberOfMembers; i++) {
+				models[i] = learner.learn(i, seeds[i]);
+				numberOfTrainedMembers++;
+				operator.inApplyLoop();
+			}
+		}
+		return new ArrayList<Model>(Arrays.asList(models));
+	}
+
+	/**
+	 * Trains the members with the given number of threads. The apply loop of the ensemble 
+	 * operator is invoked by the calling thread whenever a member was trained, in the order 
+	 * of the members.
+	 */
+	private void trainInParallel(final int[] seeds, final Model[] models, int threads, final MemberLearnerFactory factory) throws OperatorException {
+		new ParallelTaskProcessor<MemberLearner, Model>(operator, "training the ensemble members", threads) {
+
+			protected MemberLearner createWorker() throws OperatorException {
+				return factory.createMemberLearner(true);
+			}
+
+			protected Model process(MemberLearner learner, int member) throws OperatorException {
+				return learner.learn(member, seeds[member]);
+			}
+
+			protected void handleResult(int member, Model model) throws OperatorException {
+				models[member] = model;
+				numberOfTrainedMembers++;
+				operator.inApplyLoop();
+			}
+		}.run(seeds.length);
+	}
+
+	/** 
+	 * Returns the enabled inner operators of the given chain. If clone is true, the operators 
+	 * are cloned so that they can be applied by another thread.
+	 */
+	public static List<Operator> getInnerOperators(OperatorChain chain, boolean clone) {
+		List<Operator> operators = new ArrayList<Operator>(chain.getNumberOfOperators());
+		for (int i = 0; i < chain.getNumberOfOperators(); i++) {
+			Operator operator = chain.getOperator(i);
+			if (clone) {
+				operator = operator.cloneOperator(operator.getName());
+				operator.setParent(chain);
+			}
+			operators.add(operator);
+		}
+		return operators;
+	}
+
+	/** 
+	 * Returns true if the example set can be copied for the threads. Otherwise, i.e. for 
+	 * relational attributes, a note is logged.
+	 */
+	public static boolean isCopyable(Operator operator, ExampleSet exampleSet) {
+		if (ParallelTaskProcessor.containsRelationalAttributes(exampleSet)) {
+			operator.logNote("Relational attributes cannot be copied, the ensemble is handled by a single thread.");
+			return false;
+		}
+		return true;
+	}
+}
@@ -28,10 +28,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JTabbedPane;
 
+import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.gui.tools.ExtendedJTabbedPane;
@@ -53,43 +55,86 @@ public class SimpleVoteModel extends SimplePredictionModel {
 
 	private static final long serialVersionUID = 1089932073805038503L;
 	
+	/** The name of the application parameter for the number of threads. */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+	
 	private List<SimplePredictionModel> baseModels;
 	
+	/** 
+	 * The number of threads used for the prediction, {@link EnsemblePrediction#ALL_PROCESSORS} for the 
+	 * number of available processors. Models saved without this field predict sequentially.
+	 */
+	private int numberOfThreads = 1;
+	
 	public SimpleVoteModel(ExampleSet exampleSet, List<SimplePredictionModel> baseModels) {
+		this(exampleSet, baseModels, 1);
+	}
+	
+	public SimpleVoteModel(ExampleSet exampleSet, List<SimplePredictionModel> baseModels, int numberOfThreads) {
 		super(exampleSet);
 		this.baseModels = baseModels;
+		this.numberOfThreads = EnsemblePrediction.getModelThreads(numberOfThreads);
 	}
 	
-	public double predict(Example example) throws OperatorException {
-		if (getLabel().isNominal()) {
-			Map<Double, AtomicInteger> classVotes = new TreeMap<Double, AtomicInteger>();
-			Iterator<SimplePredictionModel> iterator = baseModels.iterator();
-			while (iterator.hasNext()) {
-				double prediction = iterator.next().predict(example);
-				AtomicInteger counter = classVotes.get(prediction);
-				if (counter == null) {
-					classVotes.put(prediction, new AtomicInteger(1));					
-				} else {
-					counter.incrementAndGet();
+	/** Supports the parameter {@link #PARAMETER_NUMBER_OF_THREADS} (0: number of available processors). */
+	public void setParameter(String name, Object value) throws OperatorException {
+		if (name.equals(PARAMETER_NUMBER_OF_THREADS)) {
+			try {
+				this.numberOfThreads = EnsemblePrediction.getModelThreads(Integer.parseInt(value.toString()));
+				return;
+			} catch (NumberFormatException e) {}
+		}
+		super.setParameter(name, value);
+	}
+	
+	/** 
+	 * Predicts blocks of examples in parallel if more than one thread should be used. Ties of
+	 * nominal predictions are broken afterwards in the order of the examples, hence the global 
+	 * random generator delivers the same predictions for each number of threads.
+	 */
+	public ExampleSet performPrediction(ExampleSet exampleSet, Attribute predictedLabel) throws OperatorException {
+		if (!getLabel().isNominal()) {
+			EnsemblePrediction.performPrediction(exampleSet, predictedLabel, numberOfThreads, new EnsemblePrediction.BlockPredictor() {
+				public void predict(ExampleSet block, Attribute blockPredictedLabel, int offset) throws OperatorException {
+					SimpleVoteModel.super.performPrediction(block, blockPredictedLabel);
+				}
+			});
+			return exampleSet;
+		}
+		
+		// the best classes of the examples with ties by their index
+		final Map<Integer, List<Double>> ties = new ConcurrentSkipListMap<Integer, List<Double>>();
+		EnsemblePrediction.performPrediction(exampleSet, predictedLabel, numberOfThreads, new EnsemblePrediction.BlockPredictor() {
+			public void predict(ExampleSet block, Attribute blockPredictedLabel, int offset) throws OperatorException {
+				int index = offset;
+				for (Example example : block) {
+					List<Double> bestClasses = vote(example);
+					example.setValue(blockPredictedLabel, bestClasses.get(0));
+					if (bestClasses.size() > 1)
+						ties.put(index, bestClasses);
+					index++;
 				}
 			}
-
-			Iterator<Double> votedClasses = classVotes.keySet().iterator();
-			List<Double> bestClasses = new LinkedList<Double>();
-			int bestClassesVotes = -1;
-			while (votedClasses.hasNext()) {
-				double currentClass = votedClasses.next();
-				int currentVotes = classVotes.get(currentClass).intValue();
-				if (currentVotes > bestClassesVotes) {
-                    bestClasses.clear();
-                    bestClasses.add(currentClass);
-					bestClassesVotes = currentVotes;
+		});
+		if (!ties.isEmpty()) {
+			Iterator<Example> e = exampleSet.iterator();
+			int index = 0;
+			for (Map.Entry<Integer, List<Double>> tie : ties.entrySet()) {
+				Example example = null;
+				while (index <= tie.getKey()) {
+					example = e.next();
+					index++;
 				}
-                if (currentVotes == bestClassesVotes) {
-                    bestClasses.add(currentClass);
-                }
-				example.setConfidence(getLabel().getMapping().mapIndex((int)currentClass), ((double) currentVotes) / (double)baseModels.size());
+				List<Double> bestClasses = tie.getValue();
+				example.setValue(predictedLabel, bestClasses.get(RandomGenerator.getGlobalRandomGenerator().nextInt(bestClasses.size())));
 			}
+		}
+		return exampleSet;
+	}
+	
+	public double predict(Example example) throws OperatorException {
+		if (getLabel().isNominal()) {
+			List<Double> bestClasses = vote(example);
             if (bestClasses.size() == 1) {
                 return bestClasses.get(0);              
             } else {
@@ -105,6 +150,38 @@ public class SimpleVoteModel extends SimplePredictionModel {
 		}
 	}
 	
+	/** Sets the confidences of the nominal classes for the given example and returns the classes with the most votes. */
+	private List<Double> vote(Example example) throws OperatorException {
+		Map<Double, AtomicInteger> classVotes = new TreeMap<Double, AtomicInteger>();
+		Iterator<SimplePredictionModel> iterator = baseModels.iterator();
+		while (iterator.hasNext()) {
+			double prediction = iterator.next().predict(example);
+			AtomicInteger counter = classVotes.get(prediction);
+			if (counter == null) {
+				classVotes.put(prediction, new AtomicInteger(1));					
+			} else {
+				counter.incrementAndGet();
+			}
+		}
+
+		Iterator<Double> votedClasses = classVotes.keySet().iterator();
+		List<Double> bestClasses = new LinkedList<Double>();
+		int bestClassesVotes = -1;
+		while (votedClasses.hasNext()) {
+			double currentClass = votedClasses.next();
+			int currentVotes = classVotes.get(currentClass).intValue();
+			if (currentVotes > bestClassesVotes) {
+                bestClasses.clear();
+                bestClasses.add(currentClass);
+				bestClassesVotes = currentVotes;
+			} else if (currentVotes == bestClassesVotes) {
+                bestClasses.add(currentClass);
+            }
+			example.setConfidence(getLabel().getMapping().mapIndex((int)currentClass), ((double) currentVotes) / (double)baseModels.size());
+		}
+		return bestClasses;
+	}
+	
 	public Component getVisualizationComponent(IOContainer container) {
 		JTabbedPane tabPane = new ExtendedJTabbedPane();
 		int index = 1;
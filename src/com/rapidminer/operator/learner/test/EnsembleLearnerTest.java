@@ -0,0 +1,110 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.learner.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.test.ExampleTestTools;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Model;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.LogService;
+import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.RandomGenerator;
+
+/**
+ * Checks that Bagging and RandomForest with a local random seed learn and apply the same
+ * models with one and several threads. The vote model of the random forest also breaks ties 
+ * in the same way.
+ */
+public class EnsembleLearnerTest extends RapidMinerTestCase {
+
+	public void setUp() throws Exception {
+		super.setUp();
+		LogService.getGlobal().setVerbosityLevel(LogService.OFF);
+		RapidMiner.init();
+		LogService.getGlobal().setVerbosityLevel(LogService.OFF);
+	}
+
+	/** Creates an example set with enough examples for a parallel prediction. */
+	private ExampleSet createExampleSet() {
+		return ExampleTestTools.createGaussianClassificationSet(700, 3);
+	}
+
+	private Operator createBagging() throws Exception {
+		OperatorChain bagging = (OperatorChain)OperatorService.createOperator("Bagging");
+		bagging.addOperator(OperatorService.createOperator("DecisionTree"));
+		bagging.setParameter("iterations", "8");
+		bagging.setParameter("local_random_seed", "4");
+		return bagging;
+	}
+
+	private Operator createRandomForest() throws Exception {
+		Operator randomForest = OperatorService.createOperator("RandomForest");
+		randomForest.setParameter("number_of_trees", "20");
+		randomForest.setParameter("local_random_seed", "4");
+		return randomForest;
+	}
+
+	/** Learns a model with the given number of threads and returns the predictions and confidences for a new example set. */
+	private List<Double> learnAndApply(Operator learner, int numberOfThreads) throws Exception {
+		Process process = new Process();
+		process.getRootOperator().addOperator(learner);
+		learner.setParameter("number_of_threads", Integer.toString(numberOfThreads));
+		Model model = learner.apply(new IOContainer(new IOObject[] { createExampleSet() })).get(Model.class);
+		// ties of the votes are broken by the global random generator
+		RandomGenerator.init(process);
+		ExampleSet testSet = model.apply(createExampleSet());
+		Attribute predictedLabel = testSet.getAttributes().getPredictedLabel();
+		List<Double> predictions = new ArrayList<Double>();
+		for (Example example : testSet) {
+			predictions.add(example.getValue(predictedLabel));
+			for (String label : predictedLabel.getMapping().getValues())
+				predictions.add(example.getConfidence(label));
+		}
+		return predictions;
+	}
+
+	public void testBagging() throws Exception {
+		List<Double> expected = learnAndApply(createBagging(), 1);
+		assertEquals(700 * 4, expected.size());
+		assertEquals("3 threads", expected, learnAndApply(createBagging(), 3));
+		assertEquals("all processors", expected, learnAndApply(createBagging(), 0));
+	}
+
+	public void testRandomForest() throws Exception {
+		List<Double> expected = learnAndApply(createRandomForest(), 1);
+		assertEquals(700 * 4, expected.size());
+		assertEquals("3 threads", expected, learnAndApply(createRandomForest(), 3));
+		assertEquals("all processors", expected, learnAndApply(createRandomForest(), 0));
+	}
+}
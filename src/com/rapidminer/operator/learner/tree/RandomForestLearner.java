@@ -34,12 +34,12 @@ import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.AbstractLearner;
 import com.rapidminer.operator.learner.LearnerCapability;
 import com.rapidminer.operator.learner.SimplePredictionModel;
+import com.rapidminer.operator.learner.meta.EnsembleTrainer;
 import com.rapidminer.operator.learner.meta.SimpleVoteModel;
-import com.rapidminer.operator.preprocessing.sampling.AbstractBootstrapping;
-import com.rapidminer.operator.preprocessing.sampling.Bootstrapping;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.OperatorService;
+import com.rapidminer.tools.RandomGenerator;
 
 /**
  * This operators learns a random forest. The resulting forest model contains serveral 
@@ -53,43 +53,56 @@ public class RandomForestLearner extends AbstractLearner {
     /** The parameter name for the number of trees. */
     public static final String PARAMETER_NUMBER_OF_TREES = "number_of_trees";
     
+    /** The parameter name for the number of threads used for learning and applying the trees. */
+    public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+    
 	public RandomForestLearner(OperatorDescription description) {
 		super(description);
 	}
 
-	public Model learn(ExampleSet exampleSet) throws OperatorException {
-		// create random tree learner and set parameters
-		RandomTreeLearner randomTreeLearner = null;
+	/** 
+	 * Learns the trees with their own random seeds which are derived from the local random seed. 
+	 * The trees only read the example set and can hence be learned in parallel.
+	 */
+	public Model learn(final ExampleSet exampleSet) throws OperatorException {
+        // learn base models, each thread uses its own random tree learner
+        int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+        int numberOfTrees = getParameterAsInt(PARAMETER_NUMBER_OF_TREES);
+        RandomGenerator random = RandomGenerator.getRandomGenerator(getParameterAsInt(RandomTreeLearner.PARAMETER_LOCAL_RANDOM_SEED));
+        EnsembleTrainer trainer = new EnsembleTrainer(this, numberOfThreads);
+        List<Model> trees = trainer.train(numberOfTrees, random, new EnsembleTrainer.MemberLearnerFactory() {
+        	public EnsembleTrainer.MemberLearner createMemberLearner(boolean parallel) throws OperatorException {
+        		final RandomTreeLearner randomTreeLearner = createRandomTreeLearner();
+        		return new EnsembleTrainer.MemberLearner() {
+        			public Model learn(int member, int seed) throws OperatorException {
+        				randomTreeLearner.setParameter(RandomTreeLearner.PARAMETER_LOCAL_RANDOM_SEED, Integer.toString(seed));
+        				return randomTreeLearner.learn((ExampleSet)exampleSet.clone());
+        			}
+        		};
+        	}
+        });
+        List<SimplePredictionModel> baseModels = new LinkedList<SimplePredictionModel>();
+        for (Model tree : trees)
+        	baseModels.add((TreeModel)tree);
+        
+        // create and return model
+        return new SimpleVoteModel(exampleSet, baseModels, numberOfThreads);
+	}
+
+	/** Creates a random tree learner with the parameters of this operator. */
+	private RandomTreeLearner createRandomTreeLearner() throws OperatorException {
 		try {
-			randomTreeLearner = OperatorService.createOperator(RandomTreeLearner.class);
+			RandomTreeLearner randomTreeLearner = OperatorService.createOperator(RandomTreeLearner.class);
 			List<ParameterType> parameters = randomTreeLearner.getParameterTypes();
 			for (ParameterType parameter : parameters) {
 				Object value = getParameter(parameter.getKey());
                 if (value != null)
                     randomTreeLearner.setParameter(parameter.getKey(), value.toString());
 			}
+			return randomTreeLearner;
 		} catch (OperatorCreationException e) {
 			throw new OperatorException(getName() + ": cannot construct random tree learner: " + e.getMessage());
 		}
-		
-        Bootstrapping bootstrapping = null;
-        try {
-            bootstrapping = OperatorService.createOperator(Bootstrapping.class);
-            bootstrapping.setParameter(AbstractBootstrapping.PARAMETER_SAMPLE_RATIO, "1.0");
-        } catch (OperatorCreationException e) {
-            throw new OperatorException(getName() + ": cannot construct random tree learner: " + e.getMessage());
-        }
-        
-        // learn base models
-        List<SimplePredictionModel> baseModels = new LinkedList<SimplePredictionModel>();
-        int numberOfTrees = getParameterAsInt(PARAMETER_NUMBER_OF_TREES);
-        for (int i = 0; i < numberOfTrees; i++) {
-            TreeModel model = (TreeModel)randomTreeLearner.learn((ExampleSet)exampleSet.clone());
-            baseModels.add(model);
-        }
-        
-        // create and return model
-        return new SimpleVoteModel(exampleSet, baseModels);
 	}
 
 	public boolean supportsCapability(LearnerCapability capability) {
@@ -114,6 +127,7 @@ public class RandomForestLearner extends AbstractLearner {
         ParameterType type = new ParameterTypeInt(PARAMETER_NUMBER_OF_TREES, "The number of learned random trees.", 1, Integer.MAX_VALUE, 10);
         type.setExpert(false);
         types.add(type);
+        types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for learning and applying the trees (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
         
 		// add random tree parameters
 		try {
@@ -22,12 +22,18 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.performance.PerformanceVector;
 import com.rapidminer.tools.LoggingHandler;
 import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.math.optimization.ec.es.ESOptimization;
 import com.rapidminer.tools.math.optimization.ec.es.Individual;
+import com.rapidminer.tools.math.optimization.ec.es.Population;
 
 
 /**
@@ -41,6 +47,9 @@ public class ESParameterOptimization extends ESOptimization {
     /** The parent operator. Used for fitness evaluation. */
     private EvolutionaryParameterOptimizationOperator operator;
     
+    /** The performances of the individuals evaluated for the current generation. */
+    private final Map<Individual, PerformanceVector> evaluatedIndividuals = new IdentityHashMap<Individual, PerformanceVector>();
+    
     /** Creates a new evolutionary SVM optimization. */
     public ESParameterOptimization(EvolutionaryParameterOptimizationOperator operator,
             int individualSize,
@@ -56,7 +65,30 @@ public class ESParameterOptimization extends ESOptimization {
         
     }
     
+    /** 
+     * Evaluates all individuals without fitness at once so that the operator can evaluate
+     * them in parallel. The bookkeeping is left to the super class.
+     */
+    protected void evaluate(Population population) throws OperatorException {
+        List<Individual> individuals = new ArrayList<Individual>();
+        for (int i = population.getNumberOfIndividuals() - 1; i >= 0; i--) {
+            Individual current = population.get(i);
+            if (current.getFitness() == null)
+                individuals.add(current);
+        }
+        PerformanceVector[] performances = operator.evaluateIndividuals(individuals);
+        for (int i = 0; i < performances.length; i++)
+            evaluatedIndividuals.put(individuals.get(i), performances[i]);
+        try {
+            super.evaluate(population);
+        } finally {
+            evaluatedIndividuals.clear();
+        }
+    }
+    
     public PerformanceVector evaluateIndividual(Individual individual) throws OperatorException {
+        if (evaluatedIndividuals.containsKey(individual))
+            return evaluatedIndividuals.remove(individual);
         return operator.setParametersAndEvaluate(individual);
     }
     
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -210,7 +211,9 @@ public class EvolutionaryParameterOptimizationOperator extends ParameterOptimiza
             this.optimizer.setValueType(i, types[i]);
         }
         
+        clearPerformanceCache();
         optimizer.optimize();
+        clearPerformanceCache();
 
         // create result and return it
         double[] bestParameters = optimizer.getBestValuesEver();
@@ -261,18 +264,35 @@ public class EvolutionaryParameterOptimizationOperator extends ParameterOptimiza
     }
     
     public PerformanceVector setParametersAndEvaluate(Individual individual) throws OperatorException {
-        double[] currentValues = individual.getValues();
-        for (int j = 0; j < currentValues.length; j++) {
-            String value;
-            if (types[j].equals(OptimizationValueType.VALUE_TYPE_DOUBLE))
-                value = currentValues[j] + "";
-            else
-                value = (int)Math.round(currentValues[j]) + "";
-            operators[j].getParameters().setParameter(parameters[j], value);
-            log(operators[j] + "." + parameters[j] + " = " + value);
+        List<Individual> individuals = new ArrayList<Individual>(1);
+        individuals.add(individual);
+        return evaluateIndividuals(individuals)[0];
+    }
+    
+    /** 
+     * Evaluates the given individuals and returns their performances in the same order. Several 
+     * individuals are evaluated at the same time if more than one thread is used.
+     */
+    public PerformanceVector[] evaluateIndividuals(List<Individual> individuals) throws OperatorException {
+        List<String[]> combinations = new ArrayList<String[]>(individuals.size());
+        for (Individual individual : individuals) {
+            double[] currentValues = individual.getValues();
+            String[] values = new String[currentValues.length];
+            for (int j = 0; j < currentValues.length; j++) {
+                if (types[j].equals(OptimizationValueType.VALUE_TYPE_DOUBLE))
+                    values[j] = currentValues[j] + "";
+                else
+                    values[j] = (int)Math.round(currentValues[j]) + "";
+            }
+            combinations.add(values);
         }
-        setInput(getOptimizationInput().copy());
-        return getPerformance();    
+        final PerformanceVector[] performances = new PerformanceVector[individuals.size()];
+        evaluateCombinations(getOptimizationInput(), operators, parameters, combinations, new PerformanceHandler() {
+            public void handlePerformance(int combination, String[] values, PerformanceVector performance) {
+                performances[combination] = performance;
+            }
+        });
+        return performances;
     }
     
     
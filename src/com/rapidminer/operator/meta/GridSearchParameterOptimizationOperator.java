@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -125,6 +126,31 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
 		}
 	}
 	
+	/** 
+	 * Returns all combinations of the parameter values. The values of the first parameter 
+	 * change fastest.
+	 */
+	protected List<String[]> getCombinations() {
+		List<String[]> combinations = new ArrayList<String[]>();
+		int[] index = new int[parameters.length];
+		while (true) {
+			String[] combination = new String[parameters.length];
+			for (int j = 0; j < parameters.length; j++)
+				combination[j] = values[j][index[j]];
+			combinations.add(combination);
+			
+			// next parameter values
+			int k = 0;
+			while ((k < index.length) && !(++index[k] < values[k].length)) {
+				index[k] = 0;
+				k++;
+			}
+			if (k >= index.length)
+				break;
+		}
+		return combinations;
+	}
+
 	public double getCurrentBestPerformance() {
 	    if (best != null) {
 	        return best.getPerformance().getMainCriterion().getAverage();
@@ -144,43 +170,19 @@ public class GridSearchParameterOptimizationOperator extends ParameterOptimizati
         if (numberOfCombinations <= 1)
             throw new UserError(this, 922);
         
-        int counter = 1;
 		best = null;
-		while (true) {
-			log("Using parameter set " + counter + " / " + numberOfCombinations + ":");
-			// set all parameter values
-			for (int j = 0; j < operators.length; j++) {
-				operators[j].getParameters().setParameter(parameters[j], values[j][currentIndex[j]]);
-				log(operators[j] + "." + parameters[j] + " = " + values[j][currentIndex[j]]);
-			}
-
-			setInput(input.copy());
-			PerformanceVector performance = getPerformance();
-			if ((best == null) || ((performance != null) && (performance.compareTo(best.getPerformance()) > 0))) {
-				String[] bestValues = new String[parameters.length];
-				for (int j = 0; j < parameters.length; j++) {
-				    bestValues[j] = values[j][currentIndex[j]];
-				}
-				best = new ParameterSet(operators, parameters, bestValues, performance);
-			}
-
-			// next parameter values
-			int k = 0;
-			boolean ok = true;
-			while (!(++currentIndex[k] < values[k].length)) {
-				currentIndex[k] = 0;
-				k++;
-				if (k >= currentIndex.length) {
-					ok = false;
-					break;
+		clearPerformanceCache();
+		final List<String[]> combinations = getCombinations();
+		evaluateCombinations(input, operators, parameters, combinations, new PerformanceHandler() {
+			public void handlePerformance(int combination, String[] currentValues, PerformanceVector performance) throws OperatorException {
+				if ((best == null) || ((performance != null) && (performance.compareTo(best.getPerformance()) > 0))) {
+					best = new ParameterSet(operators, parameters, currentValues, performance);
 				}
+				if (combination < combinations.size() - 1)
+					inApplyLoop();
 			}
-			if (!ok)
-				break;
-
-			inApplyLoop();
-            counter++;
-		}
+		});
+		clearPerformanceCache();
 
 		return new IOObject[] { best, best.getPerformance() };
 	}
@@ -22,20 +22,31 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.LinkedList;
+import java.util.Map;
 
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
 import com.rapidminer.gui.properties.ConfigureParameterOptimizationDialogCreator;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ParallelTaskProcessor;
+import com.rapidminer.operator.ProcessStoppedException;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeConfiguration;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.ParameterTypeList;
 import com.rapidminer.parameter.ParameterTypeParameterValue;
+import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.parameter.value.ParameterValues;
 import com.rapidminer.parameter.value.ParameterValueGrid;
 import com.rapidminer.parameter.value.ParameterValueList;
@@ -46,6 +57,11 @@ import com.rapidminer.parameter.value.ParameterValueRange;
  * Provides an operator chain which operates on given parameters
  * depending on specified values for these parameters.
  * 
+ * <p>Subclasses applying the inner operators with 
+ * {@link #applyInnerOperators(IOContainer, Operator[], String[], List, CombinationHandler)}
+ * can apply several parameter combinations at the same time. Each thread uses its own clone 
+ * of the inner operators and its own copy of the input example sets in this case.</p>
+ * 
  * @author Tobias Malbrecht
  * @version $Id: ParameterIteratingOperatorChain.java,v 1.6 2008/07/04 10:27:17 stiefelolm Exp $
  */
@@ -69,6 +85,71 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain {
 	
 	private static final int PARAMETER_VALUES_ARRAY_LENGTH_SCALED_GRID = 4;
 	
+	/** The parameter name for &quot;The number of threads used for applying the inner operators to different parameter combinations (0: number of available processors).&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** Handles the output of the inner operators for a parameter combination. */
+	protected interface CombinationHandler {
+
+		/** 
+		 * Handles the output of the inner operators for the given combination or the error which 
+		 * occurred while applying them. Exactly one of both is not null. The combinations are 
+		 * handled in their order.
+		 */
+		public void handleOutput(int combination, IOContainer output, OperatorException error) throws OperatorException;
+	}
+
+	/** A clone of the inner operators and a copy of the input example sets used by one thread. */
+	private class InnerOperatorsCopy {
+
+		private final List<Operator> innerOperators = new ArrayList<Operator>();
+
+		/** The clones of the operators whose parameters are changed, null for disabled operators. */
+		private final Operator[] operators;
+
+		private final IOContainer input;
+
+		private InnerOperatorsCopy(IOContainer input, Operator[] originalOperators) {
+			Map<String, Operator> clones = new HashMap<String, Operator>();
+			for (int i = 0; i < getNumberOfOperators(); i++) {
+				Operator original = getOperator(i);
+				Operator clone = original.cloneOperator(original.getName());
+				clone.setParent(ParameterIteratingOperatorChain.this);
+				innerOperators.add(clone);
+				clones.put(clone.getName(), clone);
+				if (clone instanceof OperatorChain) {
+					for (Operator child : ((OperatorChain)clone).getAllInnerOperators())
+						clones.put(child.getName(), child);
+				}
+			}
+			this.operators = new Operator[originalOperators.length];
+			for (int j = 0; j < originalOperators.length; j++)
+				this.operators[j] = clones.get(originalOperators[j].getName());
+			
+			List<IOObject> objects = new LinkedList<IOObject>();
+			for (IOObject object : input.getIOObjects()) {
+				if (object instanceof ExampleSet) {
+					ExampleSet exampleSet = (ExampleSet)object;
+					objects.add(Tools.getLinearSubsetCopy(exampleSet, exampleSet.size(), 0));
+				} else {
+					objects.add(object.copy());
+				}
+			}
+			this.input = new IOContainer(objects);
+		}
+
+		private IOContainer apply(String[] parameters, String[] values) throws OperatorException {
+			for (int j = 0; j < operators.length; j++) {
+				if (operators[j] != null)
+					operators[j].getParameters().setParameter(parameters[j], values[j]);
+			}
+			IOContainer output = input.copy();
+			for (Operator operator : innerOperators)
+				output = operator.apply(output);
+			return output;
+		}
+	}
+	
 	
 	public ParameterIteratingOperatorChain(OperatorDescription description) {
 		super(description);
@@ -177,6 +258,101 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain {
 		return parameterValuesList;
 	}
 
+	/**
+	 * Applies the inner operators to a copy of the given input for each of the given combinations
+	 * of values for the given parameters and passes the outputs to the handler in the order of the
+	 * combinations. If more than one thread is used, several combinations are applied at the same 
+	 * time to clones of the inner operators and only the last combination is applied to the original
+	 * operators. Hence handlers should set the values of the handled combination if they are needed, 
+	 * e.g. for logging.
+	 */
+	protected void applyInnerOperators(IOContainer input, Operator[] operators, String[] parameters, List<String[]> combinations, CombinationHandler handler) throws OperatorException {
+		int numberOfThreads = Math.min(getNumberOfThreads(), combinations.size() - 1);
+		if ((numberOfThreads > 1) && !canApplyInParallel(input, operators))
+			numberOfThreads = 1;
+		int combination = 0;
+		if (numberOfThreads > 1) {
+			applyInnerOperatorsInParallel(input, operators, parameters, combinations.subList(0, combinations.size() - 1), handler, numberOfThreads);
+			combination = combinations.size() - 1;
+		}
+		for (; combination < combinations.size(); combination++) {
+			String[] values = combinations.get(combination);
+			for (int j = 0; j < operators.length; j++)
+				operators[j].getParameters().setParameter(parameters[j], values[j]);
+			IOContainer output = null;
+			OperatorException error = null;
+			try {
+				setInput(input.copy());
+				output = getInput();
+				for (int i = 0; i < getNumberOfOperators(); i++)
+					output = getOperator(i).apply(output);
+			} catch (ProcessStoppedException e) {
+				throw e;
+			} catch (OperatorException e) {
+				error = e;
+			}
+			handler.handleOutput(combination, output, error);
+		}
+	}
+
+	/** 
+	 * Applies the combinations with the given number of threads. An error of the inner operators
+	 * is passed to the handler, other errors stop the application of all combinations.
+	 */
+	private void applyInnerOperatorsInParallel(final IOContainer input, final Operator[] operators, final String[] parameters, final List<String[]> combinations, final CombinationHandler handler, int numberOfThreads) throws OperatorException {
+		log("Applying " + (combinations.size() + 1) + " parameter combinations with " + numberOfThreads + " threads");
+		new ParallelTaskProcessor<InnerOperatorsCopy, Object>(this, "applying the inner operators", numberOfThreads) {
+
+			protected InnerOperatorsCopy createWorker() {
+				return new InnerOperatorsCopy(input, operators);
+			}
+
+			/** Returns the output or the error of the inner operators. */
+			protected Object process(InnerOperatorsCopy copy, int combination) throws OperatorException {
+				try {
+					return copy.apply(parameters, combinations.get(combination));
+				} catch (ProcessStoppedException e) {
+					throw e;
+				} catch (OperatorException e) {
+					return e;
+				}
+			}
+
+			protected void handleResult(int combination, Object result) throws OperatorException {
+				if (result instanceof OperatorException)
+					handler.handleOutput(combination, null, (OperatorException)result);
+				else
+					handler.handleOutput(combination, (IOContainer)result, null);
+			}
+		}.run(combinations.size());
+	}
+
+	/** 
+	 * Returns true if all changed operators are inner operators of this chain and if the input
+	 * example sets can be copied for each thread.
+	 */
+	private boolean canApplyInParallel(IOContainer input, Operator[] operators) {
+		List<Operator> allInnerOperators = getAllInnerOperators();
+		for (Operator operator : operators) {
+			if (!allInnerOperators.contains(operator)) {
+				logNote("Operator '" + operator.getName() + "' is not an inner operator, parameter combinations are applied sequentially.");
+				return false;
+			}
+		}
+		for (IOObject object : input.getIOObjects()) {
+			if ((object instanceof ExampleSet) && ParallelTaskProcessor.containsRelationalAttributes((ExampleSet)object)) {
+				logNote("Relational attributes cannot be copied, parameter combinations are applied sequentially.");
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Returns the number of threads used for applying the parameter combinations. */
+	protected int getNumberOfThreads() throws UndefinedParameterError {
+		return ParallelTaskProcessor.getNumberOfThreads(getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+	}
+
     /**
      * Returns the highest possible value for the maximum number of inner
      * operators.
@@ -198,6 +374,7 @@ public abstract class ParameterIteratingOperatorChain extends OperatorChain {
 		type = new ParameterTypeList(PARAMETER_PARAMETERS, "The parameters.", new ParameterTypeParameterValue(PARAMETER_VALUES, "The value specifications for the parameters."));
 		type.setHidden(true);
 		types.add(type);
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for applying the inner operators to different parameter combinations (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
 		return types;
 	}
 }
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -159,32 +160,13 @@ public class ParameterIteration extends ParameterIteratingOperatorChain {
 			index++;
 		}
 		
-		this.iteration = 0;
+		final List<String[]> combinations = new ArrayList<String[]>();
 		while (true) {
-			log("Using parameter set");
-			// set all parameter values
+			String[] combination = new String[operators.length];
 			for (int j = 0; j < operators.length; j++) {
-                operators[j].setParameter(parameters[j], values[j][currentIndex[j]].trim());
-				//operators[j].getParameters().setParameter(parameters[j], values[j][currentIndex[j]].trim());
-				log(operators[j] + "." + parameters[j] + " = " + values[j][currentIndex[j]].trim());
+				combination[j] = values[j][currentIndex[j]].trim();
 			}
-			
-			setInput(input.copy());
-			IOObject[] evalout = super.apply();
-			IOContainer evalCont = new IOContainer(evalout);
-			try {
-				this.performance = evalCont.remove(PerformanceVector.class);
-			} catch (MissingIOObjectException e) {
-				log("Inner operators of ParameterIteration do not provide performance vectors: performance cannot be plotted!");
-			}
-			if (keepOutput) {
-				// get the output of the operator chain
-				for (int j = 0; j < evalout.length; j++) {
-                    evalout[j].setSource(evalout[j].getSource() + " (" + this.getName() + ", iter.: " + (this.iteration + 1) + ")");
-					output.add(evalout[j]);
-				}
-			}
-			this.iteration++;
+			combinations.add(combination);
 			
 			boolean ok = true;
 			if (!isSynchronized) { 
@@ -212,10 +194,45 @@ public class ParameterIteration extends ParameterIteratingOperatorChain {
 			if (!ok) {				
 				break;
 			}				
-
-			inApplyLoop();
 		}
 		
+		this.iteration = 0;
+		final Operator[] iterationOperators = operators;
+		final String[] iterationParameters = parameters;
+		final List<IOObject> iterationOutput = output;
+		final boolean keepIterationOutput = keepOutput;
+		applyInnerOperators(input, operators, parameters, combinations, new CombinationHandler() {
+			public void handleOutput(int combination, IOContainer evalCont, OperatorException error) throws OperatorException {
+				if (error != null)
+					throw error;
+				log("Using parameter set");
+				// set all parameter values
+				String[] currentValues = combinations.get(combination);
+				for (int j = 0; j < iterationOperators.length; j++) {
+	                iterationOperators[j].setParameter(iterationParameters[j], currentValues[j]);
+					log(iterationOperators[j] + "." + iterationParameters[j] + " = " + currentValues[j]);
+				}
+				
+				IOObject[] evalout = evalCont.getIOObjects();
+				try {
+					performance = evalCont.remove(PerformanceVector.class);
+				} catch (MissingIOObjectException e) {
+					log("Inner operators of ParameterIteration do not provide performance vectors: performance cannot be plotted!");
+				}
+				if (keepIterationOutput) {
+					// get the output of the operator chain
+					for (int j = 0; j < evalout.length; j++) {
+	                    evalout[j].setSource(evalout[j].getSource() + " (" + getName() + ", iter.: " + (iteration + 1) + ")");
+	                    iterationOutput.add(evalout[j]);
+					}
+				}
+				iteration++;
+				
+				if (combination < combinations.size() - 1)
+					inApplyLoop();
+			}
+		});
+		
 		// return IOObjects of last operator in chain
 		if (keepOutput) {
 			getInput().removeAll();
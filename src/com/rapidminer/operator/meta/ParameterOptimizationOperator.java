@@ -22,7 +22,12 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.Operator;
@@ -32,18 +37,41 @@ import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.condition.InnerOperatorCondition;
 import com.rapidminer.operator.condition.LastInnerOperatorCondition;
 import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
 
 
 /**
  * This operator provides basic functions for all other
  * parameter optimization operators.
  * 
+ * <p>If the performances are cached, each parameter combination is evaluated only 
+ * once during an optimization run. This should only be used if the inner operators 
+ * deliver the same performance for the same parameters, i.e. if they do not use 
+ * the global random generator.</p>
+ * 
  * @author Ingo Mierswa, Helge Homburg, Tobias Malbrecht
  * @version $Id: ParameterOptimizationOperator.java,v 1.13 2006/04/05 08:57:26
  *          ingomierswa Exp $
  */
 public abstract class ParameterOptimizationOperator extends ParameterIteratingOperatorChain {
 
+	/** The parameter name for &quot;Indicates if the performance of each parameter combination should only be evaluated once.&quot; */
+	public static final String PARAMETER_CACHE_PERFORMANCES = "cache_performances";
+
+	/** Handles the performance of a parameter combination. */
+	protected interface PerformanceHandler {
+
+		/** 
+		 * Handles the performance of the given combination which might be null if the inner 
+		 * operators could not be applied. The combinations are handled in their order. 
+		 */
+		public void handlePerformance(int combination, String[] values, PerformanceVector performance) throws OperatorException;
+	}
+
+	/** The cached performances of the parameter combinations of the current optimization run. */
+	private final Map<List<String>, PerformanceVector> performanceCache = new HashMap<List<String>, PerformanceVector>();
+
 	public ParameterOptimizationOperator(OperatorDescription description) {
 		super(description);
         addValue(new ValueDouble("performance", "currently best performance") {
@@ -71,6 +99,104 @@ public abstract class ParameterOptimizationOperator extends ParameterIteratingOp
     	}
     }
     
+    /**
+     * Evaluates the given combinations of values for the given parameters and passes the performances 
+     * to the handler in the order of the combinations. Several combinations might be evaluated at the
+     * same time, and combinations which were already evaluated are not applied again if the performances
+     * are cached. The values of the handled combination are set for the given operators before the 
+     * handler is invoked. Each combination is handled as soon as its performance and the performances
+     * of all previous combinations are known.
+     */
+    protected void evaluateCombinations(IOContainer input, final Operator[] operators, final String[] parameters, final List<String[]> combinations, final PerformanceHandler handler) throws OperatorException {
+    	final boolean cachePerformances = getParameterAsBoolean(PARAMETER_CACHE_PERFORMANCES);
+    	
+    	// the index of the combination whose application delivers the performance, -1 for cached performances
+    	final int[] origins = new int[combinations.size()];
+    	final List<Integer> appliedCombinations = new ArrayList<Integer>();
+    	Map<List<String>, Integer> firstOccurrences = new HashMap<List<String>, Integer>();
+    	for (int combination = 0; combination < combinations.size(); combination++) {
+    		List<String> key = Arrays.asList(combinations.get(combination));
+    		Integer firstOccurrence = firstOccurrences.get(key);
+    		if (!cachePerformances) {
+    			origins[combination] = combination;
+    		} else if (performanceCache.containsKey(key)) {
+    			origins[combination] = -1;
+    		} else if (firstOccurrence != null) {
+    			origins[combination] = firstOccurrence;
+    		} else {
+    			firstOccurrences.put(key, combination);
+    			origins[combination] = combination;
+    		}
+    		if (origins[combination] == combination)
+    			appliedCombinations.add(combination);
+    	}
+    	if (appliedCombinations.size() < combinations.size())
+    		log("Using cached performances for " + (combinations.size() - appliedCombinations.size()) + " of " + combinations.size() + " parameter combinations");
+    	
+    	final PerformanceVector[] performances = new PerformanceVector[combinations.size()];
+    	final boolean[] evaluated = new boolean[combinations.size()];
+    	final int[] nextCombination = new int[] { 0 };
+    	List<String[]> appliedValues = new ArrayList<String[]>(appliedCombinations.size());
+    	for (int combination : appliedCombinations)
+    		appliedValues.add(combinations.get(combination));
+    	applyInnerOperators(input, operators, parameters, appliedValues, new CombinationHandler() {
+    		public void handleOutput(int applied, IOContainer output, OperatorException error) throws OperatorException {
+    			int combination = appliedCombinations.get(applied);
+    			performances[combination] = getPerformance(output, error);
+    			evaluated[combination] = true;
+    			if (cachePerformances)
+    				performanceCache.put(Arrays.asList(combinations.get(combination)), performances[combination]);
+    			handleEvaluatedCombinations(operators, parameters, combinations, origins, performances, evaluated, nextCombination, handler);
+    		}
+    	});
+    	handleEvaluatedCombinations(operators, parameters, combinations, origins, performances, evaluated, nextCombination, handler);
+    }
+
+    /** Handles the combinations starting at the next combination as long as their performances are known. */
+    private void handleEvaluatedCombinations(Operator[] operators, String[] parameters, List<String[]> combinations, int[] origins, PerformanceVector[] performances, boolean[] evaluated, int[] nextCombination, PerformanceHandler handler) throws OperatorException {
+    	while (nextCombination[0] < combinations.size()) {
+    		int combination = nextCombination[0];
+    		String[] values = combinations.get(combination);
+    		PerformanceVector performance;
+    		if (origins[combination] < 0) {
+    			performance = performanceCache.get(Arrays.asList(values));
+    		} else if (evaluated[origins[combination]]) {
+    			performance = performances[origins[combination]];
+    		} else {
+    			return;
+    		}
+    		nextCombination[0]++;
+    		setParameters(combination, combinations.size(), operators, parameters, values);
+    		handler.handlePerformance(combination, values, performance);
+    	}
+    }
+
+    /** Sets and logs the given parameter values. */
+    private void setParameters(int combination, int numberOfCombinations, Operator[] operators, String[] parameters, String[] values) {
+    	log("Using parameter set " + (combination + 1) + " / " + numberOfCombinations + ":");
+    	for (int j = 0; j < operators.length; j++) {
+    		operators[j].getParameters().setParameter(parameters[j], values[j]);
+    		log(operators[j] + "." + parameters[j] + " = " + values[j]);
+    	}
+    }
+
+    /** Returns the performance delivered by the inner operators or null if they could not be applied. */
+    private PerformanceVector getPerformance(IOContainer output, OperatorException error) {
+    	try {
+    		if (error != null)
+    			throw error;
+    		return output.remove(PerformanceVector.class);
+    	} catch (OperatorException e) {
+    		logWarning("Cannot evaluate performance for current parameter combination: " + e.getMessage());
+    		return null;
+    	}
+    }
+
+    /** Removes all cached performances. Should be invoked at the beginning and the end of an optimization run. */
+    protected void clearPerformanceCache() {
+    	performanceCache.clear();
+    }
+
     /**
      * Applies the inner operator and employs the PerformanceEvaluator for
      * calculating a list of performance criteria which is returned.
@@ -99,4 +225,10 @@ public abstract class ParameterOptimizationOperator extends ParameterIteratingOp
     public Class<?>[] getOutputClasses() {
         return new Class[] { ParameterSet.class, PerformanceVector.class };
     }
+
+    public List<ParameterType> getParameterTypes() {
+        List<ParameterType> types = super.getParameterTypes();
+        types.add(new ParameterTypeBoolean(PARAMETER_CACHE_PERFORMANCES, "Indicates if the performance of each parameter combination should only be evaluated once.", false));
+        return types;
+    }
 }
@@ -22,6 +22,7 @@
  */
 package com.rapidminer.operator.meta;
 
+import java.util.Collections;
 import java.util.List;
 
 import com.rapidminer.operator.IOContainer;
@@ -118,52 +119,31 @@ public class QuadraticParameterOptimizationOperator extends GridSearchParameterO
 		};
 
 		best = null;
-		int[] bestIndex = new int[numberOfParameters];
-		ParameterSet[] allParameters = new ParameterSet[numberOfCombinations];
+		final int[] bestIndex = new int[numberOfParameters];
+		final ParameterSet[] allParameters = new ParameterSet[numberOfCombinations];
 		int paramIndex = 0;
 		// Test all parameter combinations
-
-		while (true) {
-			log("Using parameter set");
-			// set all parameter values
-			for (int j = 0; j < operators.length; j++) {
-				operators[j].getParameters().setParameter(parameters[j], values[j][currentIndex[j]]);
-				log(operators[j] + "." + parameters[j] + " = " + values[j][currentIndex[j]]);
-			}
-
-			setInput(input.copy());
-			PerformanceVector performance = getPerformance();
-
-			String[] currentValues = new String[parameters.length];
-			for (int j = 0; j < parameters.length; j++) {
-				currentValues[j] = values[j][currentIndex[j]];
-			};
-			allParameters[paramIndex] = new ParameterSet(operators, parameters, currentValues, performance);
-
-			if ((best == null) || (performance.compareTo(best.getPerformance()) > 0)) {
-				best = allParameters[paramIndex];
-				// bestIndex = currentIndex;
-				for (int j = 0; j < numberOfParameters; j++) {
-					bestIndex[j] = currentIndex[j];
+		clearPerformanceCache();
+		evaluateCombinations(input, operators, parameters, getCombinations(), new PerformanceHandler() {
+			public void handlePerformance(int combination, String[] currentValues, PerformanceVector performance) {
+				allParameters[combination] = new ParameterSet(operators, parameters, currentValues, performance);
+
+				if ((best == null) || (performance.compareTo(best.getPerformance()) > 0)) {
+					best = allParameters[combination];
+					// bestIndex = currentIndex;
+					for (int j = 0; j < numberOfParameters; j++) {
+						bestIndex[j] = currentIndex[j];
+					};
 				};
-			};
 
-			// next parameter values
-			int k = 0;
-			boolean ok = true;
-			while (!(++currentIndex[k] < values[k].length)) {
-				currentIndex[k] = 0;
-				k++;
-				if (k >= currentIndex.length) {
-					ok = false;
-					break;
+				// next parameter values
+				int k = 0;
+				while ((k < currentIndex.length) && !(++currentIndex[k] < values[k].length)) {
+					currentIndex[k] = 0;
+					k++;
 				}
 			}
-			if (!ok)
-				break;
-
-			paramIndex++;
-		};
+		});
 
 		// start quadratic optimization
 		int nrParameters = 0;
@@ -354,8 +334,13 @@ public class QuadraticParameterOptimizationOperator extends GridSearchParameterO
 				log("  " + operators[j] + "." + parameters[j] + " = " + Qvalues[j]);
 			}
 			if (ok) {
-				setInput(input.copy());
-				PerformanceVector Qperformance = getPerformance();
+				final PerformanceVector[] QperformanceResult = new PerformanceVector[1];
+				evaluateCombinations(input, operators, parameters, Collections.singletonList(Qvalues), new PerformanceHandler() {
+					public void handlePerformance(int combination, String[] currentValues, PerformanceVector performance) {
+						QperformanceResult[0] = performance;
+					}
+				});
+				PerformanceVector Qperformance = QperformanceResult[0];
 				log("Old: " + (best.getPerformance().getMainCriterion().getFitness()));
 				log("New: " + (Qperformance.getMainCriterion().getFitness()));
 				if (Qperformance.compareTo(best.getPerformance()) > 0) {
@@ -375,6 +360,7 @@ public class QuadraticParameterOptimizationOperator extends GridSearchParameterO
 			logWarning("No parameters to optimize");
 		};
 		// end quadratic optimization
+		clearPerformanceCache();
 		return new IOObject[] { best, best.getPerformance() };
 	}
 
@@ -0,0 +1,139 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.meta.test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.test.ExampleTestTools;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.meta.ParameterSet;
+import com.rapidminer.operator.meta.ParameterValue;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.LogService;
+import com.rapidminer.tools.OperatorService;
+
+/**
+ * Checks that the grid search finds the same parameters with one and several threads and
+ * that cached performances are not evaluated again.
+ */
+public class ParameterOptimizationTest extends RapidMinerTestCase {
+
+	private ExampleSet exampleSet;
+
+	private OperatorChain optimization;
+
+	private Operator validation;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		LogService.getGlobal().setVerbosityLevel(LogService.OFF);
+		RapidMiner.init();
+		LogService.getGlobal().setVerbosityLevel(LogService.OFF);
+
+		exampleSet = ExampleTestTools.createGaussianClassificationSet(200, 2);
+	}
+
+	public void tearDown() throws Exception {
+		exampleSet = null;
+		optimization = null;
+		validation = null;
+		super.tearDown();
+	}
+
+	/** Creates a grid search which optimizes the number of neighbours of a nearest neighbour learner. */
+	private void createOptimization(String values, int numberOfThreads, boolean cachePerformances) throws Exception {
+		Process process = new Process();
+		optimization = (OperatorChain)OperatorService.createOperator("GridParameterOptimization");
+		process.getRootOperator().addOperator(optimization);
+		OperatorChain validationChain = (OperatorChain)OperatorService.createOperator("XValidation");
+		validationChain.setParameter("local_random_seed", "7");
+		validation = validationChain;
+		optimization.addOperator(validationChain);
+		Operator learner = OperatorService.createOperator("NearestNeighbors");
+		learner.rename("Learner");
+		validationChain.addOperator(learner);
+		OperatorChain evaluator = (OperatorChain)OperatorService.createOperator("OperatorChain");
+		evaluator.addOperator(OperatorService.createOperator("ModelApplier"));
+		evaluator.addOperator(OperatorService.createOperator("ClassificationPerformance"));
+		evaluator.getOperator(1).setParameter("accuracy", "true");
+		validationChain.addOperator(evaluator);
+		
+		List<Object[]> parameters = new ArrayList<Object[]>();
+		parameters.add(new Object[] { "Learner.k", values });
+		optimization.setListParameter("parameters", parameters);
+		optimization.setParameter("number_of_threads", Integer.toString(numberOfThreads));
+		optimization.setParameter("cache_performances", Boolean.toString(cachePerformances));
+	}
+
+	private ParameterSet optimize() throws Exception {
+		IOContainer result = optimization.apply(new IOContainer(new IOObject[] { exampleSet }));
+		return result.get(ParameterSet.class);
+	}
+
+	private String getValue(ParameterSet parameterSet) {
+		Iterator<ParameterValue> i = parameterSet.getParameterValues();
+		ParameterValue value = i.next();
+		assertEquals("Learner", value.getOperator());
+		assertEquals("k", value.getParameterKey());
+		assertFalse(i.hasNext());
+		return value.getParameterValue();
+	}
+
+	public void testParallelGridSearch() throws Exception {
+		String values = "1,2,3,5,8,13,21,34,55";
+		createOptimization(values, 1, false);
+		ParameterSet expected = optimize();
+		for (int numberOfThreads = 2; numberOfThreads <= 8; numberOfThreads *= 2) {
+			createOptimization(values, numberOfThreads, false);
+			ParameterSet best = optimize();
+			assertEquals("best k with " + numberOfThreads + " threads", getValue(expected), getValue(best));
+			assertEquals("best accuracy with " + numberOfThreads + " threads", expected.getPerformance().getMainCriterion().getAverage(), best.getPerformance().getMainCriterion().getAverage(), 0.0d);
+		}
+	}
+
+	public void testCachedPerformances() throws Exception {
+		String values = "5,1,5,9,1,5";
+		for (int numberOfThreads = 1; numberOfThreads <= 2; numberOfThreads++) {
+			createOptimization(values, numberOfThreads, false);
+			ParameterSet expected = optimize();
+			// with several threads only the last combination is applied to the original operators
+			if (numberOfThreads == 1)
+				assertEquals("validations without cache", 6, validation.getApplyCount());
+			
+			createOptimization(values, numberOfThreads, true);
+			ParameterSet best = optimize();
+			if (numberOfThreads == 1)
+				assertEquals("validations with cache", 3, validation.getApplyCount());
+			assertEquals("best k with cache", getValue(expected), getValue(best));
+			assertEquals("best accuracy with cache", expected.getPerformance().getMainCriterion().getAverage(), best.getPerformance().getMainCriterion().getAverage(), 0.0d);
+		}
+	}
+}
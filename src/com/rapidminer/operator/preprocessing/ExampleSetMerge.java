@@ -111,10 +111,10 @@ public class ExampleSetMerge extends Operator {
         		specialAttributes.put(attributeClone, role.getSpecialName());
         	}
         }
-        MemoryExampleTable exampleTable = new MemoryExampleTable(attributeList);
+        DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
+        MemoryExampleTable exampleTable = factory.createExampleTable(attributeList);
         
         Iterator<ExampleSet> i = allExampleSets.iterator();
-        DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), '.');
         while (i.hasNext()) {
             ExampleSet currentExampleSet = i.next();
             Iterator<Example> e = currentExampleSet.iterator();
@@ -82,8 +82,8 @@ public class MaterializeDataInMemory extends Operator {
 		}
 		
 		// fill table with data
-		MemoryExampleTable table = new MemoryExampleTable(attributes);
 		DataRowFactory factory = new DataRowFactory(getParameterAsInt(ExampleSource.PARAMETER_DATAMANAGEMENT), '.');
+		MemoryExampleTable table = factory.createExampleTable(attributes);
 		for (Example example : exampleSet) {
 			Iterator<Attribute> i = exampleSet.getAttributes().allAttributes();
 			int attributeCounter = 0;
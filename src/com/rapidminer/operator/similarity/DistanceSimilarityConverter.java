@@ -32,12 +32,15 @@ import com.rapidminer.operator.ResultObjectAdapter;
  * @author Michael Wurst
  * @version $Id: DistanceSimilarityConverter.java,v 1.7 2008/09/12 10:32:08 tobiasmalbrecht Exp $
  */
-public class DistanceSimilarityConverter extends ResultObjectAdapter implements SimilarityMeasure {
+public class DistanceSimilarityConverter extends ResultObjectAdapter implements IndexBasedSimilarityMeasure {
 
 	private static final long serialVersionUID = -3699572317989121330L;
 
 	private final SimilarityMeasure sim;
 
+	/** The index based view of the converted measure. Will be created on first access. */
+	private transient IndexBasedSimilarityMeasure indexedSim;
+
 	/**
 	 * Create a distance measure from a similarity measure or the other way round.
 	 * 
@@ -54,6 +57,25 @@ public class DistanceSimilarityConverter extends ResultObjectAdapter implements
 		return -v;
 	}
 
+	public double similarity(int x, int y) {
+		double v = getIndexedSimilarity().similarity(x, y);
+		return -v;
+	}
+
+	public int getIndex(String id) {
+		return getIndexedSimilarity().getIndex(id);
+	}
+
+	public String getId(int index) {
+		return getIndexedSimilarity().getId(index);
+	}
+
+	private IndexBasedSimilarityMeasure getIndexedSimilarity() {
+		if (indexedSim == null)
+			indexedSim = SimilarityUtil.toIndexBased(sim);
+		return indexedSim;
+	}
+
 	public boolean isSimilarityDefined(String x, String y) {
 		return sim.isSimilarityDefined(x, y);
 	}
@@ -2,17 +2,30 @@ package com.rapidminer.operator.similarity;
 
 import java.util.List;
 
+import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeDouble;
+import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
 import com.rapidminer.tools.math.similarity.DistanceMeasures;
 
 public class ExampleSet2SimilarityExampleSet extends Operator {
 
+	/** The parameter name for &quot;Indicates if the values of all pairs should be calculated once instead of on each access&quot; */
+	public static final String PARAMETER_PRECOMPUTE = "precompute";
+
+	/** The parameter name for &quot;The number of threads used for the precomputation&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** The parameter name for &quot;Only precomputed distances smaller than this threshold are stored, all others are infinite&quot; */
+	public static final String PARAMETER_DISTANCE_THRESHOLD = "distance_threshold";
+
 	public ExampleSet2SimilarityExampleSet(OperatorDescription description) {
 		super(description);
 	}
@@ -20,6 +33,15 @@ public class ExampleSet2SimilarityExampleSet extends Operator {
 	public IOObject[] apply() throws OperatorException {
 		ExampleSet exampleSet = getInput(ExampleSet.class);
 		DistanceMeasure measure = DistanceMeasures.createMeasure(this, exampleSet);
+		if (getParameterAsBoolean(PARAMETER_PRECOMPUTE)) {
+			double threshold = getParameterAsDouble(PARAMETER_DISTANCE_THRESHOLD);
+			if ((threshold > 0) && !measure.isDistance()) {
+				logWarning("The distance threshold is only used for distance measures and is ignored.");
+				threshold = 0;
+			}
+			SymmetricDistanceMatrix matrix = createMatrix(exampleSet, measure, threshold > 0 ? threshold : Double.NaN, getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+			return new IOObject[] { new SimilarityExampleSet(exampleSet, measure, matrix) };
+		}
 		return new IOObject[] { new SimilarityExampleSet(exampleSet, measure) };
 		
 		/*
@@ -80,6 +102,31 @@ public class ExampleSet2SimilarityExampleSet extends Operator {
 		*/
 	}
 
+	/** Calculates the distances or similarities of all pairs of examples. */
+	public static SymmetricDistanceMatrix createMatrix(ExampleSet exampleSet, DistanceMeasure measure, int numberOfThreads) throws OperatorException {
+		return createMatrix(exampleSet, measure, Double.NaN, numberOfThreads);
+	}
+
+	/**
+	 * Calculates the distances or similarities of all pairs of examples. If the
+	 * threshold is not NaN, only the entries smaller than the threshold are stored.
+	 */
+	public static SymmetricDistanceMatrix createMatrix(ExampleSet exampleSet, final DistanceMeasure measure, double threshold, int numberOfThreads) throws OperatorException {
+		final Example[] examples = new Example[exampleSet.size()];
+		int i = 0;
+		for (Example example : exampleSet)
+			examples[i++] = example;
+		final boolean isDistance = measure.isDistance();
+		return SymmetricDistanceMatrix.create(examples.length, new SymmetricDistanceMatrix.EntryFunction() {
+			public double compute(int i, int j) {
+				if (isDistance)
+					return measure.calculateDistance(examples[i], examples[j]);
+				else
+					return measure.calculateSimilarity(examples[i], examples[j]);
+			}
+		}, threshold, SymmetricDistanceMatrix.getHeapBudget(), numberOfThreads);
+	}
+
 	public Class<?>[] getInputClasses() {
 		return new Class<?>[] {ExampleSet.class};
 	}
@@ -91,6 +138,11 @@ public class ExampleSet2SimilarityExampleSet extends Operator {
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
 		types.addAll(DistanceMeasures.getParameterTypes(this));
+		types.add(new ParameterTypeBoolean(PARAMETER_PRECOMPUTE, "Indicates if the values of all pairs should be calculated once instead of on each access.", false));
+		types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for the precomputation (0: number of available processors).", 0,
+				Integer.MAX_VALUE, 1));
+		types.add(new ParameterTypeDouble(PARAMETER_DISTANCE_THRESHOLD, "Only precomputed distances smaller than this threshold are stored, all others are infinite (0: store all distances; only used for distance measures).", 0,
+				Double.POSITIVE_INFINITY, 0));
 		return types;
 	}
 }
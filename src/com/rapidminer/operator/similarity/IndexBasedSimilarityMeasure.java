@@ -0,0 +1,51 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.similarity;
+
+/**
+ * A similarity measure which additionally allows to access the similarity of two
+ * objects by their indices instead of their ids. The indices range from 0 to
+ * {@link #getNumberOfIds()} - 1. Clusterers should resolve the ids of all objects
+ * to indices once and use {@link #similarity(int, int)} in their inner loops, which
+ * avoids the lookup of the ids and the creation of temporary value arrays for each call.
+ * 
+ * @see SimilarityUtil#toIndexBased(SimilarityMeasure)
+ */
+public interface IndexBasedSimilarityMeasure extends SimilarityMeasure {
+
+	/**
+	 * Returns the index of the object with the given id or -1 if this similarity
+	 * is not defined for the given id.
+	 */
+	public int getIndex(String id);
+
+	/** Returns the id of the object with the given index. */
+	public String getId(int index);
+
+	/**
+	 * Returns the similarity of the two objects with the given indices. This is
+	 * equivalent to <code>similarity(getId(x), getId(y))</code>.
+	 */
+	public double similarity(int x, int y);
+
+}
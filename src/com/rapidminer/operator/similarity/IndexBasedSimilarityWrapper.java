@@ -0,0 +1,110 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.similarity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.rapidminer.operator.ResultObjectAdapter;
+
+/**
+ * Wraps a similarity measure which only supports the access by ids and assigns an
+ * index to each of its ids. Index based calls are delegated to the id based methods
+ * of the wrapped measure.
+ * 
+ * @see SimilarityUtil#toIndexBased(SimilarityMeasure)
+ */
+public class IndexBasedSimilarityWrapper extends ResultObjectAdapter implements IndexBasedSimilarityMeasure {
+
+	private static final long serialVersionUID = 4713617236893095412L;
+
+	private final SimilarityMeasure sim;
+
+	private final String[] ids;
+
+	private final Map<String, Integer> indexMap;
+
+	public IndexBasedSimilarityWrapper(SimilarityMeasure sim) {
+		super();
+		this.sim = sim;
+		this.ids = new String[sim.getNumberOfIds()];
+		this.indexMap = new HashMap<String, Integer>();
+		Iterator<String> i = sim.getIds();
+		int index = 0;
+		while (i.hasNext()) {
+			String id = i.next();
+			ids[index] = id;
+			indexMap.put(id, index);
+			index++;
+		}
+	}
+
+	public int getIndex(String id) {
+		Integer index = indexMap.get(id);
+		if (index == null)
+			return -1;
+		else
+			return index;
+	}
+
+	public String getId(int index) {
+		return ids[index];
+	}
+
+	public double similarity(int x, int y) {
+		return sim.similarity(ids[x], ids[y]);
+	}
+
+	public double similarity(String x, String y) {
+		return sim.similarity(x, y);
+	}
+
+	public boolean isSimilarityDefined(String x, String y) {
+		return sim.isSimilarityDefined(x, y);
+	}
+
+	public Iterator<String> getIds() {
+		return sim.getIds();
+	}
+
+	public int getNumberOfIds() {
+		return ids.length;
+	}
+
+	public String explainSimilarity(String x, String y) {
+		return sim.explainSimilarity(x, y);
+	}
+
+	public boolean isDistance() {
+		return sim.isDistance();
+	}
+
+	public String getExtension() {
+		return "sim";
+	}
+
+	public String getFileDescription() {
+		return "similarity measure";
+	}
+}
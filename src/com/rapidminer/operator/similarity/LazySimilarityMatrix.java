@@ -24,7 +24,6 @@ package com.rapidminer.operator.similarity;
 
 import java.util.Iterator;
 
-import com.rapidminer.tools.IterationArrayList;
 import com.rapidminer.tools.math.matrix.AbstractMatrix;
 
 /**
@@ -61,11 +60,11 @@ public class LazySimilarityMatrix extends AbstractMatrix<String, String> {
 	}
 
 	public int getNumXLabels() {
-		return (new IterationArrayList<String>(sim.getIds())).size();
+		return sim.getNumberOfIds();
 	}
 
 	public int getNumYLabels() {
-		return (new IterationArrayList<String>(sim.getIds())).size();
+		return sim.getNumberOfIds();
 	}
 
 	public double getEntry(String x, String y) {
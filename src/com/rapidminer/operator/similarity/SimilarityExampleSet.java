@@ -79,6 +79,17 @@ public class SimilarityExampleSet extends AbstractExampleSet {
 	
 	private DistanceMeasure measure;
 	
+	/** The precomputed values of the measure. Might be null. */
+	private SymmetricDistanceMatrix matrix;
+	
+	/**
+	 * Creates a similarity example set which uses the given precomputed values
+	 * instead of calculating the measure for each delivered example.
+	 */
+	public SimilarityExampleSet(ExampleSet parent, DistanceMeasure measure, SymmetricDistanceMatrix matrix) {
+		this(parent, measure);
+		this.matrix = matrix;
+	}
 	
 	public SimilarityExampleSet(ExampleSet parent, DistanceMeasure measure) {
 		this.parent = parent;
@@ -151,7 +162,9 @@ public class SimilarityExampleSet extends AbstractExampleSet {
 		data[0] = firstExample.getValue(parentIdAttribute);
 		data[1] = secondExample.getValue(parentIdAttribute);
 
-		if (measure.isDistance())
+		if (matrix != null)
+			data[2] = matrix.get(firstIndex, secondIndex);
+		else if (measure.isDistance())
 			data[2] = measure.calculateDistance(firstExample, secondExample);
 		else
 			data[2] = measure.calculateSimilarity(firstExample, secondExample);
@@ -109,4 +109,15 @@ public class SimilarityUtil {
 			return null;
 		}
 	}
+	
+	/**
+	 * Returns the given measure if it already supports the access by indices, otherwise
+	 * the measure is wrapped by an {@link IndexBasedSimilarityWrapper}.
+	 */
+	public static IndexBasedSimilarityMeasure toIndexBased(SimilarityMeasure sim) {
+		if (sim instanceof IndexBasedSimilarityMeasure)
+			return (IndexBasedSimilarityMeasure) sim;
+		else
+			return new IndexBasedSimilarityWrapper(sim);
+	}
 }
@@ -0,0 +1,412 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.similarity;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.MappedSegments;
+
+
+/**
+ * <p>A symmetric matrix of pairwise distances (or similarities) between the
+ * objects <code>0, ..., n-1</code>. Only the diagonal and the upper triangle are
+ * stored as primitive doubles, i.e. each pair is computed and stored once.</p>
+ *
+ * <p>The upper triangle is stored in one of the following ways:</p>
+ * <ul>
+ * <li>in a packed array on the heap if it fits into the given heap budget,
+ * by default the budget is taken from the property
+ * {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET},</li>
+ * <li>in a memory mapped temporary file otherwise; the file is mapped in segments
+ * and paged in and out by the operating system,</li>
+ * <li>as sparse rows if a threshold is given: only entries smaller than the
+ * threshold are kept, all other entries are delivered as
+ * {@link Double#POSITIVE_INFINITY}. This is useful for distance based methods
+ * which only need the neighbourhood of each object.</li>
+ * </ul>
+ *
+ * <p>The matrix can be filled in parallel by {@link #fill(EntryFunction, int)}.
+ * Reading is thread safe, concurrent writes to the same row of a thresholded
+ * matrix are not.</p>
+ */
+public class SymmetricDistanceMatrix implements Serializable {
+
+	private static final long serialVersionUID = -5437914186102596728L;
+
+	/** Computes the entry of the objects with the given indices. */
+	public static interface EntryFunction {
+
+		public double compute(int i, int j);
+	}
+
+	/** The number of doubles per mapped segment (128MB). */
+	private static final int SEGMENT_SHIFT = 24;
+
+	private static final int SEGMENT_ENTRIES = 1 << SEGMENT_SHIFT;
+
+	/** The number of entries of the upper triangle filled by a single task. */
+	private static final long ENTRIES_PER_TASK = 1 << 16;
+
+	/** The number of objects. */
+	private final int n;
+
+	/** The diagonal entries. */
+	private final double[] diagonal;
+
+	/** The packed upper triangle if stored on the heap. */
+	private double[] packed;
+
+	/** The mapped segments of the upper triangle if stored in a memory mapped file. */
+	private MappedSegments segments;
+
+	/** Only entries smaller than this threshold are stored. NaN if all entries are stored. */
+	private final double threshold;
+
+	/** The column indices of the stored entries of each row (only for thresholded matrices). */
+	private int[][] columns;
+
+	/** The stored entries of each row (only for thresholded matrices). */
+	private double[][] values;
+
+	/** The number of stored entries of each row (only for thresholded matrices). */
+	private int[] rowSizes;
+
+	/**
+	 * Creates a matrix storing all entries. The upper triangle is kept on the heap
+	 * if it fits into the configured heap budget (see {@link #getHeapBudget()}),
+	 * otherwise a memory mapped temporary file is used. All entries are
+	 * initialized with 0.
+	 */
+	public SymmetricDistanceMatrix(int n) {
+		this(n, getHeapBudget());
+	}
+
+	/**
+	 * Creates a matrix storing all entries. The upper triangle is kept on the heap
+	 * if it needs at most <code>heapBudget</code> bytes, otherwise a memory mapped
+	 * temporary file is used. All entries are initialized with 0.
+	 */
+	public SymmetricDistanceMatrix(int n, long heapBudget) {
+		this.n = n;
+		this.diagonal = new double[n];
+		this.threshold = Double.NaN;
+		long entries = getNumberOfPairs();
+		if ((entries * 8 <= heapBudget) && (entries <= Integer.MAX_VALUE - 8)) {
+			this.packed = new double[(int) entries];
+		} else {
+			this.segments = new MappedSegments(createTemporaryFile(), SEGMENT_ENTRIES, (int) Math.min(SEGMENT_ENTRIES, entries));
+		}
+	}
+
+	/**
+	 * Creates a matrix which only stores the entries smaller than the given
+	 * threshold. All other entries of the upper triangle are
+	 * {@link Double#POSITIVE_INFINITY}.
+	 */
+	public SymmetricDistanceMatrix(int n, double threshold) {
+		this.n = n;
+		this.diagonal = new double[n];
+		this.threshold = threshold;
+		this.columns = new int[n][];
+		this.values = new double[n][];
+		this.rowSizes = new int[n];
+	}
+
+	/**
+	 * Creates and fills a matrix with the given entries. If the threshold is NaN or
+	 * infinite, all entries are stored.
+	 */
+	public static SymmetricDistanceMatrix create(int n, EntryFunction function, double threshold, long heapBudget, int numberOfThreads) throws OperatorException {
+		SymmetricDistanceMatrix matrix;
+		if (Double.isNaN(threshold) || Double.isInfinite(threshold))
+			matrix = new SymmetricDistanceMatrix(n, heapBudget);
+		else
+			matrix = new SymmetricDistanceMatrix(n, threshold);
+		matrix.fill(function, numberOfThreads);
+		return matrix;
+	}
+
+	/**
+	 * Returns the heap budget in bytes given by the property
+	 * {@link RapidMiner#PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET} (in MB).
+	 * If the property is not set or 0, a quarter of the maximum heap size is returned.
+	 */
+	public static long getHeapBudget() {
+		long budget = 0;
+		try {
+			String budgetString = System.getProperty(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET);
+			if (budgetString != null)
+				budget = Long.parseLong(budgetString.trim()) * 1024 * 1024;
+		} catch (NumberFormatException e) {}
+		if (budget <= 0)
+			return Runtime.getRuntime().maxMemory() / 4;
+		return budget;
+	}
+
+	/** Returns the number of objects. */
+	public int size() {
+		return n;
+	}
+
+	/** Returns the number of pairs of different objects, i.e. n(n-1)/2. */
+	public long getNumberOfPairs() {
+		return (long) n * (n - 1) / 2;
+	}
+
+	/** Returns the number of stored entries of the upper triangle. */
+	public long getNumberOfStoredEntries() {
+		if (!isThresholded())
+			return getNumberOfPairs();
+		long sum = 0;
+		for (int size : rowSizes)
+			sum += size;
+		return sum;
+	}
+
+	/** Returns true if only entries smaller than a threshold are stored. */
+	public boolean isThresholded() {
+		return !Double.isNaN(threshold);
+	}
+
+	/** Returns true if the entries are stored in a memory mapped file. */
+	public boolean isMapped() {
+		return segments != null;
+	}
+
+	/** Returns the threshold or NaN if all entries are stored. */
+	public double getThreshold() {
+		return threshold;
+	}
+
+	/** Returns the entry of the given objects. */
+	public double get(int i, int j) {
+		if (i == j)
+			return diagonal[i];
+		if (j < i) {
+			int swap = i;
+			i = j;
+			j = swap;
+		}
+		if (isThresholded()) {
+			int position = findColumn(i, j);
+			return position >= 0 ? values[i][position] : Double.POSITIVE_INFINITY;
+		} else if (packed != null) {
+			return packed[(int) getPosition(i, j)];
+		} else {
+			long position = getPosition(i, j);
+			int offset = (int) (position & (SEGMENT_ENTRIES - 1));
+			return segments.getSegment((int) (position >>> SEGMENT_SHIFT), offset + 1).get(offset);
+		}
+	}
+
+	/**
+	 * Sets the entry of the given objects. For thresholded matrices, entries which
+	 * are not smaller than the threshold are removed.
+	 */
+	public void set(int i, int j, double value) {
+		if (i == j) {
+			diagonal[i] = value;
+			return;
+		}
+		if (j < i) {
+			int swap = i;
+			i = j;
+			j = swap;
+		}
+		if (isThresholded()) {
+			setSparse(i, j, value);
+		} else if (packed != null) {
+			packed[(int) getPosition(i, j)] = value;
+		} else {
+			long position = getPosition(i, j);
+			int offset = (int) (position & (SEGMENT_ENTRIES - 1));
+			segments.getSegment((int) (position >>> SEGMENT_SHIFT), offset + 1).put(offset, value);
+		}
+	}
+
+	/**
+	 * Returns the indices of the objects whose entries with the given object are
+	 * stored. For a thresholded matrix these are the neighbours closer than the
+	 * threshold, otherwise all other objects.
+	 */
+	public int[] getStoredColumns(int i) {
+		if (!isThresholded()) {
+			int[] result = new int[n - 1];
+			for (int j = 0, k = 0; j < n; j++)
+				if (j != i)
+					result[k++] = j;
+			return result;
+		}
+		// lower columns are stored in the rows of the other objects
+		int count = rowSizes[i];
+		for (int r = 0; r < i; r++)
+			if (findColumn(r, i) >= 0)
+				count++;
+		int[] result = new int[count];
+		int k = 0;
+		for (int r = 0; r < i; r++)
+			if (findColumn(r, i) >= 0)
+				result[k++] = r;
+		System.arraycopy(columns[i] == null ? new int[0] : columns[i], 0, result, k, rowSizes[i]);
+		return result;
+	}
+
+	/**
+	 * Computes all entries with the given function. The rows are divided into tasks
+	 * of similar size which are processed by the given number of threads (0: number
+	 * of available processors). The function must be thread safe if more than one
+	 * thread is used.
+	 */
+	public void fill(final EntryFunction function, int numberOfThreads) throws OperatorException {
+		if (numberOfThreads <= 0)
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
+		List<int[]> ranges = new ArrayList<int[]>();
+		int start = 0;
+		long entries = 0;
+		for (int i = 0; i < n; i++) {
+			entries += n - i;
+			if ((entries >= ENTRIES_PER_TASK) || (i == n - 1)) {
+				ranges.add(new int[] { start, i + 1 });
+				start = i + 1;
+				entries = 0;
+			}
+		}
+		if ((numberOfThreads == 1) || (ranges.size() < 2)) {
+			fillRows(function, 0, n);
+			return;
+		}
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(ranges.size());
+		for (final int[] range : ranges) {
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					fillRows(function, range[0], range[1]);
+					return null;
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, ranges.size()));
+		try {
+			for (Future<Object> future : executor.invokeAll(tasks))
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperatorException("Interrupted while computing the distance matrix.", e);
+		} catch (ExecutionException e) {
+			throw new OperatorException("Cannot compute distance matrix: " + e.getCause(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/** Computes the diagonal and upper triangle entries of the given rows. */
+	private void fillRows(EntryFunction function, int startRow, int endRow) {
+		for (int i = startRow; i < endRow; i++) {
+			diagonal[i] = function.compute(i, i);
+			if (isThresholded()) {
+				int size = 0;
+				int[] rowColumns = new int[8];
+				double[] rowValues = new double[8];
+				for (int j = i + 1; j < n; j++) {
+					double value = function.compute(i, j);
+					if (value < threshold) {
+						if (size == rowColumns.length) {
+							rowColumns = Arrays.copyOf(rowColumns, size * 2);
+							rowValues = Arrays.copyOf(rowValues, size * 2);
+						}
+						rowColumns[size] = j;
+						rowValues[size] = value;
+						size++;
+					}
+				}
+				columns[i] = Arrays.copyOf(rowColumns, size);
+				values[i] = Arrays.copyOf(rowValues, size);
+				rowSizes[i] = size;
+			} else {
+				for (int j = i + 1; j < n; j++)
+					set(i, j, function.compute(i, j));
+			}
+		}
+	}
+
+	/** Returns the position of the entry i < j in the packed upper triangle. */
+	private long getPosition(int i, int j) {
+		return (long) i * n - (long) i * (i + 1) / 2 + (j - i - 1);
+	}
+
+	/** Returns the position of column j in row i of a thresholded matrix or a negative value. */
+	private int findColumn(int i, int j) {
+		if (columns[i] == null)
+			return -1;
+		return Arrays.binarySearch(columns[i], 0, rowSizes[i], j);
+	}
+
+	private void setSparse(int i, int j, double value) {
+		int position = findColumn(i, j);
+		int size = rowSizes[i];
+		if (value < threshold) {
+			if (position >= 0) {
+				values[i][position] = value;
+				return;
+			}
+			position = -position - 1;
+			if (columns[i] == null) {
+				columns[i] = new int[4];
+				values[i] = new double[4];
+			} else if (size == columns[i].length) {
+				columns[i] = Arrays.copyOf(columns[i], size + (size >> 1) + 1);
+				values[i] = Arrays.copyOf(values[i], size + (size >> 1) + 1);
+			}
+			System.arraycopy(columns[i], position, columns[i], position + 1, size - position);
+			System.arraycopy(values[i], position, values[i], position + 1, size - position);
+			columns[i][position] = j;
+			values[i][position] = value;
+			rowSizes[i]++;
+		} else if (position >= 0) {
+			System.arraycopy(columns[i], position + 1, columns[i], position, size - position - 1);
+			System.arraycopy(values[i], position + 1, values[i], position, size - position - 1);
+			rowSizes[i]--;
+		}
+	}
+
+	private static File createTemporaryFile() {
+		try {
+			File file = File.createTempFile("rapidminer", ".distances");
+			file.deleteOnExit();
+			return file;
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot create temporary file for distance matrix: " + e, e);
+		}
+	}
+}
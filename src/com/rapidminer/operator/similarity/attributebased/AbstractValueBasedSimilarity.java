@@ -22,34 +22,43 @@
  */
 package com.rapidminer.operator.similarity.attributebased;
 
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.Map;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.operator.OperatorException;
 import com.rapidminer.operator.learner.clustering.IdUtils;
+import com.rapidminer.operator.similarity.IndexBasedSimilarityMeasure;
 import com.rapidminer.operator.similarity.SimilarityAdapter;
 
 
 /**
- * An adaptar for similarities defined on (contineous) values.
+ * An adaptar for similarities defined on (contineous) values. The values of all
+ * examples are extracted into a dense matrix during initialization, hence the
+ * similarity of two examples can be calculated by their indices without any lookup
+ * of the examples or temporary arrays.
  * 
  * @author Michael Wurst
  * @version $Id: AbstractValueBasedSimilarity.java,v 1.11 2008/09/12 10:30:52 tobiasmalbrecht Exp $
  */
-public abstract class AbstractValueBasedSimilarity extends SimilarityAdapter implements ExampleBasedSimilarityMeasure {
+public abstract class AbstractValueBasedSimilarity extends SimilarityAdapter implements ExampleBasedSimilarityMeasure, IndexBasedSimilarityMeasure {
 
 	/**
 	 * 
 	 */
 	private static final long serialVersionUID = -5969354975646650980L;
 
-	private ExampleSet es = null;
+	/** Maps the ids of the examples to their indices. */
+	private Map<String, Integer> indexMap;
 
-	private Set<String> ids;
+	/** The ids of the examples in the order of the example set. */
+	private String[] ids;
+
+	/** The values of all examples. The i-th row belongs to the example with the i-th id. */
+	private double[][] values;
 
 	/**
 	 * Get the real valued similarity between examples.
@@ -72,34 +81,64 @@ public abstract class AbstractValueBasedSimilarity extends SimilarityAdapter imp
 		return values;
 	}
 
+	/** Returns the values of the object with the given index. The array must not be modified. */
+	public double[] getValues(int index) {
+		return values[index];
+	}
+
 	public void init(ExampleSet exampleSet) throws OperatorException {
-		this.es = exampleSet;
-		this.es.remapIds();
-		ids = new HashSet<String>();
-		Iterator<Example> er = es.iterator();
-		while (er.hasNext())
-			ids.add(IdUtils.getIdFromExample(er.next()));
+		exampleSet.remapIds();
+		int size = exampleSet.size();
+		indexMap = new HashMap<String, Integer>();
+		ids = new String[size];
+		values = new double[size][];
+		int index = 0;
+		Iterator<Example> er = exampleSet.iterator();
+		while (er.hasNext()) {
+			Example example = er.next();
+			String id = IdUtils.getIdFromExample(example);
+			if (!indexMap.containsKey(id)) {
+				indexMap.put(id, index);
+			}
+			ids[index] = id;
+			values[index] = getValues(example);
+			index++;
+		}
 	}
 
 	public Iterator<String> getIds() {
-		return ids.iterator();
+		return indexMap.keySet().iterator();
+	}
+
+	public int getIndex(String id) {
+		Integer index = indexMap.get(id);
+		if (index == null)
+			return -1;
+		else
+			return index;
+	}
+
+	public String getId(int index) {
+		return ids[index];
 	}
 
 	public boolean isSimilarityDefined(String x, String y) {
-		if (ids.contains(x) && ids.contains(y))
+		if (indexMap.containsKey(x) && indexMap.containsKey(y))
 			return true;
 		else
 			return false;
 	}
 
 	public double similarity(String x, String y) {
-		if (!isSimilarityDefined(x, y))
+		int indexX = getIndex(x);
+		int indexY = getIndex(y);
+		if ((indexX < 0) || (indexY < 0))
 			return java.lang.Double.NaN;
-		Example ex = IdUtils.getExampleFromId(es, x);
-		Example ey = IdUtils.getExampleFromId(es, y);
-		double[] e1 = getValues(ex);
-		double[] e2 = getValues(ey);
-		return similarity(e1, e2);
+		return similarity(indexX, indexY);
+	}
+
+	public double similarity(int x, int y) {
+		return similarity(values[x], values[y]);
 	}
 
 	public double similarity(Example x, Example y) {
@@ -109,6 +148,6 @@ public abstract class AbstractValueBasedSimilarity extends SimilarityAdapter imp
 	}
     
     public int getNumberOfIds() {
-        return ids.size();
+        return indexMap.size();
     }
 }
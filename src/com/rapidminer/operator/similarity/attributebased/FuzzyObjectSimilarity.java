@@ -87,6 +87,10 @@ public class FuzzyObjectSimilarity extends AbstractRealValueBasedSimilarity {
 		return d;
 	}
 */
+	public double similarity(int x, int y) {
+		return similarity(getId(x), getId(y));
+	}
+
 	public double similarity(String id1, String id2) {
 		if (!isSimilarityDefined(id1, id2))
 			return java.lang.Double.NaN;
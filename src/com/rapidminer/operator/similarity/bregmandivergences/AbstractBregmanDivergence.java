@@ -34,20 +34,47 @@ import com.rapidminer.example.ExampleSet;
  */
 public abstract class AbstractBregmanDivergence implements BregmanDivergence {
 
+	/** The values of all examples of the example set this divergence was created for. */
+	private double[][] values;
+	
 	public AbstractBregmanDivergence(ExampleSet es) throws InstantiationException {
+		values = new double[es.size()][];
+		int index = 0;
 		for (Example ex : es) {
 			if (isApplicable(ex) == false) {
 				throw new InstantiationException("The bregman divergence you've choosen is not applicable for the dataset! Proceeding with the 'Squared Euclidean distance' bregman divergence.");
 			}
+			values[index++] = getValues(ex);
 		}
 	}
 
-	public abstract double distance(Example x, double[] y);
+	public abstract double distance(double[] x, double[] y);
+
+	public double distance(Example x, double[] y) {
+		return distance(getValues(x), y);
+	}
 
 	public double computeDistance(Example x, double[] y) {
 		return distance(x, y);
 	}
 
+	public double computeDistance(double[] x, double[] y) {
+		return distance(x, y);
+	}
+	
+	public double computeDistance(int exampleIndex, double[] y) {
+		return distance(values[exampleIndex], y);
+	}
+	
+	protected double[] getValues(Example x) {
+		double[] result = new double[x.getAttributes().size()];
+		int i = 0;
+		for (Attribute att : x.getAttributes()) {
+			result[i++] = x.getValue(att);
+		}
+		return result;
+	}
+
 	public double[] vectorSubtraction(Example x, double[] y) {
 		if (x.getAttributes().size() != y.length) {
 			throw new RuntimeException(
@@ -64,6 +91,20 @@ public abstract class AbstractBregmanDivergence implements BregmanDivergence {
 		return result;
 	}
 
+	public double[] vectorSubtraction(double[] x, double[] y) {
+		if (x.length != y.length) {
+			throw new RuntimeException(
+					"Cannot substract vectors: incompatible numbers of attributes ("
+							+ x.length + " != " + y.length
+							+ ")!");
+		}
+		double[] result = new double[x.length];
+		for (int i = 0; i < x.length; i++) {
+			result[i] = x[i] - y[i];
+		}
+		return result;
+	}
+
 	public double logXToBaseY(double number, double base) {
 		return Math.log(number) / Math.log(base);
 	}
@@ -35,5 +35,14 @@ public interface BregmanDivergence {
 	public boolean isApplicable(Example x);
 	
 	public double computeDistance(Example x, double[] y);
+	
+	/** Computes the distance between the given value vector and y. */
+	public double computeDistance(double[] x, double[] y);
+	
+	/** 
+	 * Computes the distance between the example with the given index in the example 
+	 * set this divergence was created for and y. 
+	 */
+	public double computeDistance(int exampleIndex, double[] y);
 
 }
@@ -38,14 +38,12 @@ public class GeneralizedIDivergence extends AbstractBregmanDivergence {
 		super(es);
 	}
 
-	public double distance(Example x, double[] y) {
+	public double distance(double[] x, double[] y) {
 		double result = 0;
 		double result2 = 0;
-		int i = 0;
-		for (Attribute att : x.getAttributes()) {
-			result += x.getValue(att) * Math.log((x.getValue(att) / y[i]));
-			result2 += (x.getValue(att) - y[i]);
-			i++;
+		for (int i = 0; i < x.length; i++) {
+			result += x[i] * Math.log((x[i] / y[i]));
+			result2 += (x[i] - y[i]);
 		}
 		result = result - result2;
 		return result;
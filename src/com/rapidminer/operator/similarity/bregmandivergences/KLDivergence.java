@@ -22,7 +22,6 @@
  */
 package com.rapidminer.operator.similarity.bregmandivergences;
 
-import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 
@@ -38,12 +37,10 @@ public class KLDivergence extends AbstractBregmanDivergence {
 		super(es);
 	}
 
-	public double distance(Example x, double[] y) {
+	public double distance(double[] x, double[] y) {
 		double result = 0;
-		int i = 0;
-		for (Attribute attribute : x.getAttributes()) {
-			result += x.getValue(attribute) * logXToBaseY(x.getValue(attribute)/y[i],2);
-			i++;
+		for (int i = 0; i < x.length; i++) {
+			result += x[i] * logXToBaseY(x[i]/y[i],2);
 		}
 		
 		return result;
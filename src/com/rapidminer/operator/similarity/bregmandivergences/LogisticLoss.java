@@ -38,12 +38,9 @@ public class LogisticLoss extends AbstractBregmanDivergence {
 		super(es);
 	}
 
-	public double distance(Example x, double[] y) {
+	public double distance(double[] x, double[] y) {
 		double result = 0;
-		double xValue = 0;
-		for (Attribute att : x.getAttributes()) {
-			xValue = x.getValue(att);
-		}
+		double xValue = x[x.length - 1];
 		result = xValue * Math.log(xValue / y[0]) + (1 - xValue) *  Math.log( (1 - xValue) / (1 - y[0]) ); 
 		
 		return result;
@@ -37,13 +37,16 @@ public class MahalanobisDistance extends AbstractBregmanDivergence {
 	
 	//private double[][] data;
 	protected ExampleSet exampleSet;
+	
+	/** The inverse of the covariance matrix of the example set. Will be calculated on first usage. */
+	private Matrix inverseCovarianceMatrix;
 
 	public MahalanobisDistance(ExampleSet es) throws InstantiationException {
 		super(es);
 		exampleSet = es;
 	}
 
-	public double distance(Example x, double[] y) {
+	public double distance(double[] x, double[] y) {
 		double result = 0;
 		
 		// x-y to matrix
@@ -54,10 +57,12 @@ public class MahalanobisDistance extends AbstractBregmanDivergence {
 		}
 		Matrix xy = new Matrix(helpMatrix);
 		
-		Matrix covarianceMatrix = com.rapidminer.tools.math.matrix.CovarianceMatrix.getCovarianceMatrix(exampleSet);
+		if (inverseCovarianceMatrix == null) {
+			inverseCovarianceMatrix = com.rapidminer.tools.math.matrix.CovarianceMatrix.getCovarianceMatrix(exampleSet).inverse();
+		}
 
 		// compute the mahalanobis distance
-		covarianceMatrix = ((xy.transpose()).times(covarianceMatrix.inverse())).times(xy);
+		Matrix covarianceMatrix = ((xy.transpose()).times(inverseCovarianceMatrix)).times(xy);
 
 		helpMatrix = covarianceMatrix.getArray();
 
@@ -37,7 +37,7 @@ public class SquaredLoss extends AbstractBregmanDivergence {
 		super(es);
 	}
 
-	public double distance(Example x, double[] y) {
+	public double distance(double[] x, double[] y) {
 		double result = 0;
 		double[] vector = vectorSubtraction(x, y);
 		for (int i=0; i < vector.length ; i++) {
@@ -0,0 +1,100 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.similarity.test;
+
+import com.rapidminer.RapidMiner;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.similarity.SymmetricDistanceMatrix;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the different storage modes of the symmetric distance matrix.
+ */
+public class SymmetricDistanceMatrixTest extends TestCase {
+
+	private static final int SIZE = 700;
+
+	private static final SymmetricDistanceMatrix.EntryFunction DISTANCE = new SymmetricDistanceMatrix.EntryFunction() {
+		public double compute(int i, int j) {
+			return Math.abs(i - j) * 0.5d;
+		}
+	};
+
+	private void assertEntries(SymmetricDistanceMatrix matrix, double threshold) {
+		for (int i = 0; i < SIZE; i++) {
+			for (int j = 0; j < SIZE; j++) {
+				double expected = DISTANCE.compute(i, j);
+				if ((i != j) && !(expected < threshold))
+					expected = Double.POSITIVE_INFINITY;
+				assertEquals(i + "," + j, expected, matrix.get(i, j));
+			}
+		}
+	}
+
+	public void testHeap() throws OperatorException {
+		SymmetricDistanceMatrix matrix = SymmetricDistanceMatrix.create(SIZE, DISTANCE, Double.NaN, Long.MAX_VALUE, 3);
+		assertFalse(matrix.isMapped());
+		assertEquals(SIZE * (SIZE - 1) / 2, matrix.getNumberOfStoredEntries());
+		assertEntries(matrix, Double.POSITIVE_INFINITY);
+		matrix.set(5, 3, 42.0d);
+		assertEquals(42.0d, matrix.get(3, 5));
+	}
+
+	public void testMapped() throws OperatorException {
+		SymmetricDistanceMatrix matrix = SymmetricDistanceMatrix.create(SIZE, DISTANCE, Double.NaN, 0, 2);
+		assertTrue(matrix.isMapped());
+		assertEntries(matrix, Double.POSITIVE_INFINITY);
+	}
+
+	public void testHeapBudgetProperty() {
+		String oldBudget = System.getProperty(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET);
+		try {
+			System.setProperty(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET, "1");
+			assertEquals(1024 * 1024, SymmetricDistanceMatrix.getHeapBudget());
+			assertFalse(new SymmetricDistanceMatrix(500).isMapped());
+			assertTrue(new SymmetricDistanceMatrix(600).isMapped());
+			System.setProperty(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET, "0");
+			assertEquals(Runtime.getRuntime().maxMemory() / 4, SymmetricDistanceMatrix.getHeapBudget());
+		} finally {
+			if (oldBudget == null)
+				System.getProperties().remove(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET);
+			else
+				System.setProperty(RapidMiner.PROPERTY_RAPIDMINER_GENERAL_DISTANCE_MATRIX_HEAP_BUDGET, oldBudget);
+		}
+	}
+
+	public void testThresholded() throws OperatorException {
+		SymmetricDistanceMatrix matrix = SymmetricDistanceMatrix.create(SIZE, DISTANCE, 2.0d, Long.MAX_VALUE, 4);
+		assertTrue(matrix.isThresholded());
+		assertEntries(matrix, 2.0d);
+		int[] neighbours = matrix.getStoredColumns(10);
+		assertEquals(6, neighbours.length);
+		assertEquals(7, neighbours[0]);
+		assertEquals(13, neighbours[5]);
+		matrix.set(20, 10, 1.0d);
+		assertEquals(1.0d, matrix.get(10, 20));
+		matrix.set(10, 11, 3.0d);
+		assertEquals(Double.POSITIVE_INFINITY, matrix.get(11, 10));
+	}
+}
@@ -22,7 +22,20 @@
  */
 package com.rapidminer.operator.similarity.test;
 
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.MemoryExampleTable;
+import com.rapidminer.example.test.ExampleTestTools;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.similarity.DistanceSimilarityConverter;
+import com.rapidminer.operator.similarity.IndexBasedSimilarityMeasure;
+import com.rapidminer.operator.similarity.SimilarityUtil;
 import com.rapidminer.operator.similarity.attributebased.EuclideanDistance;
+import com.rapidminer.tools.Ontology;
 
 import junit.framework.TestCase;
 
@@ -42,4 +55,37 @@ public class TestExampleBasedSimilarity extends TestCase {
 				0.1, 0.2
 		}));
 	}
+
+	public void testIndexBasedSimilarity() throws OperatorException {
+		Attribute[] attributes = new Attribute[] {
+				AttributeFactory.createAttribute("x", Ontology.REAL),
+				AttributeFactory.createAttribute("y", Ontology.REAL),
+				AttributeFactory.createAttribute("id", Ontology.INTEGER)
+		};
+		double[][] data = new double[20][];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = new double[] { i * 0.5d, Math.sin(i), i };
+		}
+		MemoryExampleTable table = new MemoryExampleTable(Arrays.asList(attributes), ExampleTestTools.createDataRowReader(data));
+		ExampleSet exampleSet = table.createExampleSet(null, null, attributes[2]);
+		EuclideanDistance distance = new EuclideanDistance();
+		distance.init(exampleSet);
+		assertEquals(data.length, distance.getNumberOfIds());
+		
+		IndexBasedSimilarityMeasure similarity = SimilarityUtil.toIndexBased(new DistanceSimilarityConverter(distance));
+		Iterator<String> i = distance.getIds();
+		while (i.hasNext()) {
+			String x = i.next();
+			int xIndex = distance.getIndex(x);
+			assertEquals(x, distance.getId(xIndex));
+			Iterator<String> j = distance.getIds();
+			while (j.hasNext()) {
+				String y = j.next();
+				int yIndex = distance.getIndex(y);
+				assertEquals(distance.similarity(x, y), distance.similarity(xIndex, yIndex));
+				assertEquals(similarity.similarity(x, y), similarity.similarity(similarity.getIndex(x), similarity.getIndex(y)));
+			}
+		}
+		assertEquals(-1, distance.getIndex("unknown"));
+	}
 }
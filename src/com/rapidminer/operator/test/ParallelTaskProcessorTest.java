@@ -0,0 +1,244 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rapidminer.Process;
+import com.rapidminer.RapidMiner;
+import com.rapidminer.operator.MemoryCleanUp;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ParallelTaskProcessor;
+import com.rapidminer.operator.ProcessStoppedException;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.LogService;
+
+/**
+ * Tests the order of the handled results, the bounded number of tasks processed ahead, the 
+ * reuse of the workers, the stop check, the propagation of errors and the phase metrics of 
+ * the parallel task processor.
+ */
+public class ParallelTaskProcessorTest extends RapidMinerTestCase {
+
+	private Process process;
+
+	private Operator operator;
+
+	/** The number of currently running tasks, the maximum of these and the finished tasks. */
+	private AtomicInteger running;
+
+	private AtomicInteger maxRunning;
+
+	private AtomicInteger finished;
+
+	/** Returns the index of each task after a short delay. Fails for the given task. */
+	private class IndexProcessor extends ParallelTaskProcessor<Integer, Integer> {
+
+		private final int failure;
+
+		private final RuntimeException runtimeFailure;
+
+		private final List<Integer> results = new ArrayList<Integer>();
+
+		private int createdWorkers = 0;
+
+		/** Only changed by one thread at a time. */
+		private volatile int preparedTasks = 0;
+
+		/** The process is stopped after this number of handled results. */
+		private int stopAfter = -1;
+
+		private IndexProcessor(int numberOfThreads, int failure, RuntimeException runtimeFailure) {
+			super(operator, "testing", numberOfThreads);
+			this.failure = failure;
+			this.runtimeFailure = runtimeFailure;
+		}
+
+		protected Integer createWorker() {
+			return createdWorkers++;
+		}
+
+		protected void prepareTask(int task) {
+			assertEquals("prepared in order", preparedTasks++, task);
+		}
+
+		protected Integer process(Integer worker, int task) throws OperatorException {
+			int current = running.incrementAndGet();
+			synchronized (maxRunning) {
+				maxRunning.set(Math.max(maxRunning.get(), current));
+			}
+			try {
+				long start = System.nanoTime();
+				Thread.sleep((task * 7) % 11 + (stopAfter >= 0 ? 100 : 0));
+				if (task == failure) {
+					if (runtimeFailure != null)
+						throw runtimeFailure;
+					throw new OperatorException("task " + task + " failed");
+				}
+				getMetrics().add("work", System.nanoTime() - start);
+				finished.incrementAndGet();
+				return task;
+			} catch (InterruptedException e) {
+				throw new OperatorException("task " + task + " interrupted");
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+
+		protected void handleResult(int task, Integer result) {
+			results.add(result);
+			// at most two tasks per thread are taken ahead of the handled ones
+			assertTrue("tasks ahead", preparedTasks <= task + 1 + 2 * getNumberOfThreads());
+			if (results.size() == stopAfter)
+				process.stop();
+		}
+	}
+
+	public void setUp() throws Exception {
+		super.setUp();
+		LogService.getGlobal().setVerbosityLevel(LogService.OFF);
+		RapidMiner.init();
+		LogService.getGlobal().setVerbosityLevel(LogService.OFF);
+		process = new Process();
+		operator = new MemoryCleanUp(new OperatorDescription(getClass().getClassLoader(), "operator", MemoryCleanUp.class.getName(), "", "", "", null, null));
+		process.getRootOperator().addOperator(operator);
+		running = new AtomicInteger();
+		maxRunning = new AtomicInteger();
+		finished = new AtomicInteger();
+	}
+
+	public void tearDown() throws Exception {
+		process = null;
+		operator = null;
+		running = null;
+		maxRunning = null;
+		finished = null;
+		super.tearDown();
+	}
+
+	private void assertResults(String message, int numberOfResults, List<Integer> results) {
+		assertEquals(message + " handled tasks", numberOfResults, results.size());
+		assertOrder(message, results);
+	}
+
+	private void assertOrder(String message, List<Integer> results) {
+		for (int i = 0; i < results.size(); i++)
+			assertEquals(message + " result " + i, i, results.get(i).intValue());
+	}
+
+	public void testOrderAndWorkerReuse() throws OperatorException {
+		IndexProcessor processor = new IndexProcessor(4, -1, null);
+		processor.run(50);
+		assertResults("first run", 50, processor.results);
+		assertTrue("at most 4 threads", maxRunning.get() <= 4);
+		assertEquals("created workers", 4, processor.createdWorkers);
+		
+		processor.results.clear();
+		processor.preparedTasks = 0;
+		processor.run(30);
+		assertResults("second run", 30, processor.results);
+		assertEquals("reused workers", 4, processor.createdWorkers);
+	}
+
+	public void testSingleThread() throws OperatorException {
+		IndexProcessor processor = new IndexProcessor(1, -1, null);
+		processor.run(20);
+		assertResults("single thread", 20, processor.results);
+		assertEquals("running tasks", 1, maxRunning.get());
+		assertEquals("created workers", 1, processor.createdWorkers);
+	}
+
+	public void testStop() throws InterruptedException {
+		IndexProcessor processor = new IndexProcessor(2, -1, null);
+		processor.stopAfter = 3;
+		try {
+			processor.run(100);
+			fail("not stopped");
+		} catch (ProcessStoppedException e) {
+			// expected
+		} catch (OperatorException e) {
+			fail("unexpected error: " + e);
+		}
+		assertEquals("handled tasks", 3, processor.results.size());
+		assertTrue("prepared tasks", processor.preparedTasks <= 3 + 2 * 2);
+		// the remaining tasks are interrupted
+		long end = System.currentTimeMillis() + 5000;
+		while ((running.get() > 0) && (System.currentTimeMillis() < end))
+			Thread.sleep(10);
+		assertEquals("running tasks", 0, running.get());
+		assertTrue("finished tasks", finished.get() < 100);
+	}
+
+	public void testOperatorException() throws OperatorException {
+		IndexProcessor processor = new IndexProcessor(3, 7, null);
+		try {
+			processor.run(40);
+			fail("error not thrown");
+		} catch (OperatorException e) {
+			assertEquals("task 7 failed", e.getMessage());
+		}
+		// the error is thrown without waiting for the results of earlier tasks
+		assertTrue("handled tasks before the error", processor.results.size() <= 7);
+		assertOrder("before the error", processor.results);
+		
+		// the workers of the failed run are not reused
+		processor.results.clear();
+		processor.preparedTasks = 0;
+		int createdWorkers = processor.createdWorkers;
+		processor.run(5);
+		assertResults("after the error", 5, processor.results);
+		assertEquals("new workers", createdWorkers + 3, processor.createdWorkers);
+	}
+
+	public void testRuntimeException() {
+		RuntimeException error = new IllegalStateException("broken");
+		IndexProcessor processor = new IndexProcessor(3, 2, error);
+		try {
+			processor.run(10);
+			fail("error not thrown");
+		} catch (OperatorException e) {
+			assertSame(error, e.getCause());
+		}
+		assertTrue("handled tasks before the error", processor.results.size() <= 2);
+		assertOrder("before the error", processor.results);
+	}
+
+	public void testMetrics() throws OperatorException {
+		IndexProcessor processor = new IndexProcessor(2, -1, null);
+		processor.run(12);
+		assertEquals("tasks", 12, processor.getMetrics().getNumberOfTasks("work"));
+		assertTrue("time", processor.getMetrics().getNanos("work") > 0);
+		assertEquals("unknown phase", 0, processor.getMetrics().getNumberOfTasks("other"));
+		assertTrue("wall time", processor.getMetrics().getWallNanos() > 0);
+		
+		// the metrics are reset for each run
+		processor.results.clear();
+		processor.preparedTasks = 0;
+		processor.run(3);
+		assertEquals("tasks of the second run", 3, processor.getMetrics().getNumberOfTasks("work"));
+	}
+}
@@ -1,15 +1,12 @@
 package com.rapidminer.operator.uncertain;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.set.SimpleExampleSet;
-import com.rapidminer.example.table.DataRow;
-import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.DoubleArrayDataRow;
 import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.IOObject;
@@ -23,6 +20,7 @@ import com.rapidminer.parameter.ParameterTypeCategory;
 import com.rapidminer.parameter.ParameterTypeDouble;
 import com.rapidminer.parameter.ParameterTypeInt;
 import com.rapidminer.parameter.UndefinedParameterError;
+import com.rapidminer.tools.RandomGenerator;
 
 public abstract class AbstractPDFSampler extends Operator {
 
@@ -41,9 +39,7 @@ public abstract class AbstractPDFSampler extends Operator {
 	protected static final String ABSOLUTE_ERROR = "Absolute error";
 	protected static final String SPLIT_TO_NEW_EXAMPLE_SETS = "Splitt";
 	protected static final String NUM_THREADS = "Num Concurrent Threads for sampling";
-	private MemoryExampleTable newMT;
-	private AbstractSampleStrategy st;
-	private MemoryExampleTable[] resultMT;
+	protected static final String LOCAL_RANDOM_SEED = "local_random_seed";
 
 	public AbstractPDFSampler(OperatorDescription description) {
 		super(description);
@@ -51,86 +47,81 @@ public abstract class AbstractPDFSampler extends Operator {
 
 	@Override
 	public IOObject[] apply() throws OperatorException {
-		SimpleExampleSet es = (SimpleExampleSet) getInput(ExampleSet.class);
-		List<Attribute> listAtt = new LinkedList<Attribute>();
-		// create list
-		Iterator<Attribute> iAt = es.getAttributes().iterator();
-		while (iAt.hasNext()) {
-			Attribute a = iAt.next();
-			listAtt.add(a);
+		ExampleSet es = getInput(ExampleSet.class);
+		int sampleRate = getParameterAsInt(SAMPLE_FREQUENCY);
+		List<Attribute> listAtt = new ArrayList<Attribute>();
+		for (Attribute attribute : es.getAttributes())
+			listAtt.add((Attribute) attribute.clone());
+		double[][] elements = new double[es.size()][];
+		int index = 0;
+		for (Example e : es)
+			elements[index++] = getValues(e);
+
+		int numberOfThreads = getParameterAsInt(NUM_THREADS);
+		if (numberOfThreads <= 0)
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
+		AbstractSampleStrategy[] strategies = new AbstractSampleStrategy[numberOfThreads];
+		for (int t = 0; t < numberOfThreads; t++) {
+			strategies[t] = getSamplingStrategy();
+			strategies[t].setSampleRate(sampleRate);
 		}
+		long seed = RandomGenerator.getRandomGenerator(getParameterAsInt(LOCAL_RANDOM_SEED)).nextLong();
+		double[][] samples = new SamplingEngine(strategies, seed).sample(elements);
 
-		newMT = new MemoryExampleTable(listAtt);
-		st = getSamplingStrategy();
-		// copy to data to a new instance of the example set
-		st.setSampleRate(getParameterAsInt(SAMPLE_FREQUENCY));
-
-		resultMT = new MemoryExampleTable[getParameterAsInt(SAMPLE_FREQUENCY)];
-
-		for (int i = 0; i < getParameterAsInt(SAMPLE_FREQUENCY); i++) {
-			resultMT[i] = new MemoryExampleTable(listAtt);
-		}
-		getValues();
-		LinkedList<SamplingThread> ll = new LinkedList<SamplingThread>();
-		int size = es.size();
-		int sizePerThread = size / getParameterAsInt(NUM_THREADS);
-		for (int i = 1; i <= getParameterAsInt(NUM_THREADS); i++) {
-			// create the threads
-			if (i == getParameterAsInt(NUM_THREADS)) {
-				ll.add(new SamplingThread(sizePerThread * (i - 1), size, es,
-						this, st));
-			} else {
-				ll.add(new SamplingThread(sizePerThread * (i - 1),
-						sizePerThread * (i), es, this, st));
+		if (getParameterAsBoolean(SPLIT_TO_NEW_EXAMPLE_SETS)) {
+			IOObject[] result = new IOObject[sampleRate];
+			for (int s = 0; s < sampleRate; s++) {
+				MemoryExampleTable table = new MemoryExampleTable(listAtt);
+				for (int e = 0; e < elements.length; e++)
+					table.addDataRow(new DoubleArrayDataRow(samples[e * sampleRate + s]));
+				result[s] = new SimpleExampleSet(table);
 			}
-		}
-		System.err.println("Starting Sampling threads started");
-		for (SamplingThread ct : ll) {
-			ct.start();
-		}
-		System.err.println("All Sampling threads started");
-		for (SamplingThread ct : ll) {
-			try {
-				ct.join();
-			} catch (InterruptedException e) {
-
-				e.printStackTrace();
+			return result;
+		} else {
+			boolean addOriginal = getParameterAsBoolean(ADD_ORIGINAL_POINT);
+			MemoryExampleTable table = new MemoryExampleTable(listAtt);
+			for (int e = 0; e < elements.length; e++) {
+				if (addOriginal)
+					table.addDataRow(new DoubleArrayDataRow(elements[e]));
+				for (int s = 0; s < sampleRate; s++)
+					table.addDataRow(new DoubleArrayDataRow(samples[e * sampleRate + s]));
 			}
+			return new IOObject[] { new SimpleExampleSet(table) };
 		}
-		System.err.println("All threads for sampling joined.");
-		IOObject[] result = new IOObject[getParameterAsInt(SAMPLE_FREQUENCY)];
-		for (int i = 0; i < getParameterAsInt(SAMPLE_FREQUENCY); i++) {
-			result[i] = new SimpleExampleSet(resultMT[i]);
-		}
-
-		return result;
 	}
 
 	protected abstract AbstractProbabilityDensityFunction getPDF()
 			throws UndefinedParameterError;
 
-	private AbstractSampleStrategy getSamplingStrategy() {
-		try {
-			AbstractSampleStrategy st = null;
-			switch (getParameterAsInt(SAMPLE_STRATEGY)) {
-			case MONTE_CARLO: {
-				st = new MonteCarloSampling();
-				break;
-			}
-			case SIMPLE: {
-				st = new SimpleSampling();
-				break;
-			}
-			default:
-			}
-
-			st.setPdf(this.getPDF());
-			return st;
-		} catch (UndefinedParameterError e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+	/**
+	 * Creates a new sample strategy with its own probability density function.
+	 * Strategies are not thread safe, so each sampling thread needs its own.
+	 */
+	private AbstractSampleStrategy getSamplingStrategy() throws OperatorException {
+		AbstractSampleStrategy st = null;
+		switch (getParameterAsInt(SAMPLE_STRATEGY)) {
+		case MONTE_CARLO: {
+			st = new MonteCarloSampling();
+			break;
+		}
+		case SIMPLE: {
+			st = new SimpleSampling();
+			break;
 		}
-		return null;
+		case PDF: {
+			st = new PDFSampling();
+			break;
+		}
+		case INVERTED_PDF: {
+			st = new PDFInvertedSampling();
+			break;
+		}
+		default:
+			throw new OperatorException("Unknown sampling strategy: " + getParameterAsInt(SAMPLE_STRATEGY));
+		}
+
+		st.setPdf(this.getPDF());
+		return st;
 	}
 
 	@Override
@@ -168,7 +159,7 @@ public abstract class AbstractPDFSampler extends Operator {
 		type.setExpert(false);
 		types.add(type);
 		type = new ParameterTypeInt(NUM_THREADS,
-				"Specifies the number of concurrent threadsfor sampling", 1, 4,
+				"The number of threads used for sampling (0: number of available processors).", 0, Integer.MAX_VALUE,
 				1);
 		type.setExpert(false);
 		types.add(type);
@@ -197,25 +188,8 @@ public abstract class AbstractPDFSampler extends Operator {
 		type.setExpert(false);
 		types.add(type);
 
-		return types;
-	}
-
-	public void addDataRow(DataRow dataRow, int i) {
-		if (getParameterAsBoolean(SPLIT_TO_NEW_EXAMPLE_SETS)) {
-			resultMT[i].addDataRow(dataRow);
-		} else {
-			newMT.addDataRow(dataRow);
-		}
-
-	}
-
-	public void addOriginalPoint(DataRow dr) {
-		if (getParameterAsBoolean(ADD_ORIGINAL_POINT)) {
-			newMT.addDataRow(dr);
-		}
-	}
+		types.add(new ParameterTypeInt(LOCAL_RANDOM_SEED, "Use the given random seed instead of global random numbers (-1: use global).", -1, Integer.MAX_VALUE, -1));
 
-	public double[] getValuesFromExample(Example e) {
-		return getValues(e);
+		return types;
 	}
 }
@@ -1,5 +1,7 @@
 package com.rapidminer.operator.uncertain;
 
+import java.util.Random;
+
 import com.rapidminer.operator.similarity.attributebased.uncertain.ProbabilityDensityFunction;
 
 
@@ -9,8 +11,44 @@ public abstract class AbstractSampleStrategy {
 	protected ProbabilityDensityFunction pdf;
 	protected double[] element;
 	protected int sampleRate;
+	protected Random random;
 
 	public abstract Double[][] getSamples();
+
+	/**
+	 * Writes the <code>sampleRate</code> samples of the current element one
+	 * after another into the given buffer, starting at the given offset.
+	 * Missing samples or values are written as NaN. Subclasses should override
+	 * this method to avoid the creation of the intermediate object arrays.
+	 */
+	public void getSamples(double[] buffer, int offset) {
+		Double[][] samples = getSamples();
+		int dimension = element.length;
+		for (int i = 0; i < sampleRate; i++) {
+			Double[] sample = (samples != null) && (i < samples.length) ? samples[i] : null;
+			for (int j = 0; j < dimension; j++) {
+				Double value = (sample != null) && (j < sample.length) ? sample[j] : null;
+				buffer[offset++] = value == null ? Double.NaN : value.doubleValue();
+			}
+		}
+	}
+
+	/**
+	 * Writes the corners of the bounding box of the probability density
+	 * function into the buffer. The bits of the sample index select the
+	 * minimum or maximum value of the respective dimension.
+	 */
+	protected void getCornerSamples(double[] buffer, int offset) {
+		if (pdf == null)
+			throw new NullPointerException();
+		int dimension = element.length;
+		for (int i = 0; i < sampleRate; i++) {
+			for (int j = 0; j < dimension; j++) {
+				boolean max = (j < 31) && (((i >> j) & 1) != 0);
+				buffer[offset++] = max ? pdf.getMaxValue(j) : pdf.getMinValue(j);
+			}
+		}
+	}
 	
 	public void setValue(double[] ds) {
 		this.element = ds;
@@ -36,4 +74,16 @@ public abstract class AbstractSampleStrategy {
 	public void setSampleRate(int sampleRate) {
 		this.sampleRate = sampleRate;
 	}
+
+	/** Returns the random generator used for sampling, a new one is created if none was set. */
+	public Random getRandom() {
+		if (random == null)
+			random = new Random();
+		return random;
+	}
+
+	/** Sets the random generator used for sampling. */
+	public void setRandom(Random random) {
+		this.random = random;
+	}
 }
@@ -56,4 +56,9 @@ public class BorderSamplingEquidist extends AbstractSampleStrategy {
 		throw new NullPointerException();
 	}
 
+	@Override
+	public void getSamples(double[] buffer, int offset) {
+		getCornerSamples(buffer, offset);
+	}
+
 }
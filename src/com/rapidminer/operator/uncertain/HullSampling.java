@@ -64,4 +64,9 @@ public class HullSampling extends AbstractSampleStrategy {
 		throw new NullPointerException();
 	}
 
+	@Override
+	public void getSamples(double[] buffer, int offset) {
+		getCornerSamples(buffer, offset);
+	}
+
 }
@@ -1,5 +1,7 @@
 package com.rapidminer.operator.uncertain;
 
+import java.util.Arrays;
+
 /**
  * 
  * This method creates a minimum bounding box over a set of samples
@@ -19,6 +21,8 @@ public class MinimumBoundingRectangle {
 	//double[d][s]: d ist die Dimension und s sind die Samples
 	public MinimumBoundingRectangle(double[][] sample) {
 		this.dimension = sample.length;
+		this.minDimension = new double[dimension];
+		this.maxDimension = new double[dimension];
 		for(int i=0; i<dimension; i++) {
 			minDimension[i] = sample[i][0];
 			maxDimension[i] = sample[i][0];
@@ -31,6 +35,65 @@ public class MinimumBoundingRectangle {
 		}
 	}
 	
+	/**
+	 * Creates the MBR of samples stored in a flat array: the value of dimension d of
+	 * sample s is stored at index <code>s * dimension + d</code>. Dimensions in which
+	 * a sample is missing (NaN) are unbounded, since missing values are ignored by the
+	 * distance of two samples.
+	 */
+	public MinimumBoundingRectangle(double[] samples, int dimension) {
+		this.dimension = dimension;
+		this.minDimension = new double[dimension];
+		this.maxDimension = new double[dimension];
+		Arrays.fill(minDimension, Double.POSITIVE_INFINITY);
+		Arrays.fill(maxDimension, Double.NEGATIVE_INFINITY);
+		for (int s = 0; s + dimension <= samples.length; s += dimension) {
+			for (int d = 0; d < dimension; d++) {
+				double value = samples[s + d];
+				if (Double.isNaN(value)) {
+					minDimension[d] = Double.NEGATIVE_INFINITY;
+					maxDimension[d] = Double.POSITIVE_INFINITY;
+				} else {
+					minDimension[d] = Math.min(minDimension[d], value);
+					maxDimension[d] = Math.max(maxDimension[d], value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the smallest euclidean distance between a point of this and a point of
+	 * the other rectangle. This is a lower bound for the distance of all pairs of
+	 * samples of the two rectangles.
+	 */
+	public double minimalDistance(MinimumBoundingRectangle other) {
+		double sum = 0;
+		for (int d = 0; d < dimension; d++) {
+			double gap = Math.max(other.minDimension[d] - maxDimension[d], minDimension[d] - other.maxDimension[d]);
+			if (gap > 0)
+				sum += gap * gap;
+		}
+		return Math.sqrt(sum);
+	}
+
+	/** Returns the center of the rectangle. Contains NaN for unbounded dimensions. */
+	public double[] getCenter() {
+		double[] center = new double[dimension];
+		for (int d = 0; d < dimension; d++)
+			center[d] = (minDimension[d] + maxDimension[d]) / 2;
+		return center;
+	}
+
+	/** Returns the distance between the center and the corners of the rectangle. */
+	public double getRadius() {
+		double sum = 0;
+		for (int d = 0; d < dimension; d++) {
+			double width = maxDimension[d] - minDimension[d];
+			sum += width * width;
+		}
+		return Math.sqrt(sum) / 2;
+	}
+
 	public double getMinimumValue(int dimension) {
 		return minDimension[dimension];		
 	}
@@ -22,14 +22,14 @@ public class MonteCarloSampling extends AbstractSampleStrategy {
 	public Double[][] getSamples(boolean withOriginal) {
 		Double[][] ret = new Double[this.sampleRate][];
 		
-		Random r = new Random();
+		Random r = getRandom();
 		//get the random values an add them to the point list
 		for (int i = 0 ;i<this.sampleRate;){
 			Double tempVal[] = new Double[element.length];
 			
 			for(int j = 0;j<element.length;j++){
 				Double d = r.nextDouble();
-				double min = pdf.getMaxValue(j);
+				double min = pdf.getMinValue(j);
 				double max = pdf.getMaxValue(j);
 				double diff = max-min;
 				d = d-0.5;
@@ -45,6 +45,29 @@ public class MonteCarloSampling extends AbstractSampleStrategy {
 		return ret;
 	}
 
+	/**
+	 * Draws the samples directly into the buffer. The rejected candidates are
+	 * checked using a single reused array.
+	 */
+	@Override
+	public void getSamples(double[] buffer, int offset) {
+		Random r = getRandom();
+		int dimension = element.length;
+		double[] halfRanges = new double[dimension];
+		for (int j = 0; j < dimension; j++)
+			halfRanges[j] = (pdf.getMaxValue(j) - pdf.getMinValue(j)) / 2.0;
+		Double[] candidate = new Double[dimension];
+		for (int i = 0; i < this.sampleRate;) {
+			for (int j = 0; j < dimension; j++)
+				candidate[j] = this.element[j] + halfRanges[j] * (r.nextDouble() - 0.5);
+			if (pdf.isPointInPDF(candidate)) {
+				for (int j = 0; j < dimension; j++)
+					buffer[offset++] = candidate[j];
+				i++;
+			}
+		}
+	}
+
 	public double[] getSamplesFromValue(double value) {
 		throw new NotImplementedException();
 	}
@@ -63,4 +63,9 @@ public class PDFInvertedSampling extends AbstractSampleStrategy {
 		throw new NullPointerException();
 	}
 
+	@Override
+	public void getSamples(double[] buffer, int offset) {
+		getCornerSamples(buffer, offset);
+	}
+
 }
@@ -60,4 +60,9 @@ public class PDFSampling extends AbstractSampleStrategy {
 		throw new NullPointerException();
 	}
 
+	@Override
+	public void getSamples(double[] buffer, int offset) {
+		getCornerSamples(buffer, offset);
+	}
+
 }
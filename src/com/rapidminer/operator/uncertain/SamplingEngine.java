@@ -0,0 +1,149 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.uncertain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rapidminer.operator.OperatorException;
+import com.rapidminer.tools.RandomGenerator;
+
+/**
+ * Draws the samples of a {@link AbstractSampleStrategy} for a set of elements
+ * in parallel. The elements are split into chunks of fixed size which are
+ * taken by the worker threads one after another, so fast threads simply
+ * process more chunks. Each chunk uses its own {@link RandomGenerator} seeded
+ * from the base seed and the chunk index, hence the result only depends on
+ * the seed and not on the number of threads or the scheduling.
+ *
+ * <p>Since sample strategies keep the current element and probability density
+ * function as state, each thread needs its own strategy instance.</p>
+ *
+ * <p>Each sample is written into its own array which can directly be used as
+ * data of a {@link com.rapidminer.example.table.DoubleArrayDataRow}, so no
+ * second copy of the samples is needed. Sample <code>s</code> of element
+ * <code>e</code> is stored at <code>e * sampleRate + s</code>.</p>
+ */
+public class SamplingEngine {
+
+	/** The number of elements sampled by a single chunk. */
+	private static final int CHUNK_SIZE = 256;
+
+	/** Used to spread the chunk indices over the seed space. */
+	private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+	/** One strategy per thread. */
+	private final AbstractSampleStrategy[] strategies;
+
+	private final int sampleRate;
+
+	private final long seed;
+
+	/**
+	 * Creates a new engine. The number of threads is given by the number of
+	 * strategies, which all must use the same sample rate.
+	 */
+	public SamplingEngine(AbstractSampleStrategy[] strategies, long seed) {
+		if (strategies.length == 0)
+			throw new IllegalArgumentException("At least one sample strategy is needed.");
+		this.strategies = strategies;
+		this.sampleRate = strategies[0].getSampleRate();
+		this.seed = seed;
+	}
+
+	public int getSampleRate() {
+		return sampleRate;
+	}
+
+	/**
+	 * Draws <code>sampleRate</code> samples for each of the given elements, all
+	 * elements must have the same dimension. Returns one array per sample.
+	 */
+	public double[][] sample(final double[][] elements) throws OperatorException {
+		final int dimension = elements.length > 0 ? elements[0].length : 0;
+		long length = (long) elements.length * sampleRate;
+		if (length > Integer.MAX_VALUE)
+			throw new OperatorException("Cannot create " + length + " samples: too many samples.");
+		final double[][] rows = new double[(int) length][];
+		final int numberOfChunks = (elements.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		int numberOfThreads = Math.min(strategies.length, numberOfChunks);
+		if (numberOfThreads <= 1) {
+			for (int chunk = 0; chunk < numberOfChunks; chunk++)
+				sampleChunk(strategies[0], elements, chunk, rows, dimension);
+			return rows;
+		}
+
+		final AtomicInteger nextChunk = new AtomicInteger();
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(numberOfThreads);
+		for (int t = 0; t < numberOfThreads; t++) {
+			final AbstractSampleStrategy strategy = strategies[t];
+			tasks.add(new Callable<Object>() {
+				public Object call() {
+					int chunk;
+					while ((chunk = nextChunk.getAndIncrement()) < numberOfChunks)
+						sampleChunk(strategy, elements, chunk, rows, dimension);
+					return null;
+				}
+			});
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			for (Future<Object> future : executor.invokeAll(tasks))
+				future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperatorException("Interrupted while sampling.", e);
+		} catch (ExecutionException e) {
+			throw new OperatorException("Cannot create samples: " + e.getCause(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+		return rows;
+	}
+
+	/**
+	 * Samples all elements of the given chunk with the given strategy. The
+	 * samples of one element are drawn into a small buffer and then split
+	 * into the rows.
+	 */
+	private void sampleChunk(AbstractSampleStrategy strategy, double[][] elements, int chunk, double[][] rows, int dimension) {
+		strategy.setRandom(new RandomGenerator(seed + chunk * SEED_INCREMENT));
+		double[] buffer = new double[sampleRate * dimension];
+		int end = Math.min(elements.length, (chunk + 1) * CHUNK_SIZE);
+		for (int e = chunk * CHUNK_SIZE; e < end; e++) {
+			strategy.setValue(elements[e]);
+			strategy.getSamples(buffer, 0);
+			for (int s = 0; s < sampleRate; s++) {
+				double[] row = new double[dimension];
+				System.arraycopy(buffer, s * dimension, row, 0, dimension);
+				rows[e * sampleRate + s] = row;
+			}
+		}
+	}
+}
@@ -58,4 +58,9 @@ public class SimpleSampling extends AbstractSampleStrategy {
 		throw new NullPointerException();
 	}
 
+	@Override
+	public void getSamples(double[] buffer, int offset) {
+		getCornerSamples(buffer, offset);
+	}
+
 }
@@ -0,0 +1,101 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.uncertain.test;
+
+import java.util.Random;
+
+import com.rapidminer.operator.similarity.attributebased.uncertain.SimpleProbabilityDensityFunction;
+import com.rapidminer.operator.uncertain.AbstractSampleStrategy;
+import com.rapidminer.operator.uncertain.MonteCarloSampling;
+import com.rapidminer.operator.uncertain.SamplingEngine;
+import com.rapidminer.test.RapidMinerTestCase;
+
+/**
+ * Tests that the samples drawn by the sampling engine only depend on the seed
+ * and not on the number of threads.
+ */
+public class SamplingEngineTest extends RapidMinerTestCase {
+
+	private static final int SAMPLE_RATE = 7;
+
+	private double[][] elements;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		// more than one chunk, so that several threads are used
+		elements = new double[1000][3];
+		Random random = new Random(2001);
+		for (double[] element : elements)
+			for (int d = 0; d < element.length; d++)
+				element[d] = random.nextDouble() * 10;
+	}
+
+	public void tearDown() throws Exception {
+		elements = null;
+		super.tearDown();
+	}
+
+	private double[][] sample(int numberOfThreads, long seed) throws Exception {
+		AbstractSampleStrategy[] strategies = new AbstractSampleStrategy[numberOfThreads];
+		for (int t = 0; t < numberOfThreads; t++) {
+			strategies[t] = new MonteCarloSampling();
+			strategies[t].setPdf(new SimpleProbabilityDensityFunction(0.5, true));
+			strategies[t].setSampleRate(SAMPLE_RATE);
+		}
+		return new SamplingEngine(strategies, seed).sample(elements);
+	}
+
+	private void assertSamples(String message, double[][] expected, double[][] actual) {
+		assertEquals(message + " number of samples", expected.length, actual.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(message + " dimension", expected[i].length, actual[i].length);
+			for (int d = 0; d < expected[i].length; d++)
+				assertEquals(message + " sample " + i, expected[i][d], actual[i][d]);
+		}
+	}
+
+	public void testLayout() throws Exception {
+		double[][] samples = sample(1, 42);
+		assertEquals(elements.length * SAMPLE_RATE, samples.length);
+		for (int e = 0; e < elements.length; e++) {
+			for (int s = 0; s < SAMPLE_RATE; s++) {
+				double[] row = samples[e * SAMPLE_RATE + s];
+				assertEquals(elements[e].length, row.length);
+				for (int d = 0; d < row.length; d++)
+					assertTrue("sample within uncertainty", Math.abs(row[d] - elements[e][d]) <= 0.5);
+			}
+		}
+	}
+
+	public void testFixedSeed() throws Exception {
+		double[][] expected = sample(1, 42);
+		assertSamples("same seed", expected, sample(1, 42));
+		assertSamples("two threads", expected, sample(2, 42));
+		assertSamples("four threads", expected, sample(4, 42));
+		double[][] other = sample(1, 43);
+		boolean different = false;
+		for (int i = 0; (i < expected.length) && !different; i++)
+			different = expected[i][0] != other[i][0];
+		assertTrue("other seed", different);
+	}
+}
@@ -84,18 +84,26 @@ public abstract class AbstractBootstrappingValidation extends ValidationChain {
         number = getParameterAsInt(PARAMETER_NUMBER_OF_VALIDATIONS);
 
         // start bootstrapping loop
-        Random random = RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
-        List<AverageVector> averageVectors = new ArrayList<AverageVector>();
-        for (iteration = 0; iteration < number; iteration++) {
-            int[] mapping = createMapping(inputSet, (int)Math.round(inputSet.size() * getParameterAsDouble(PARAMETER_SAMPLE_RATIO)), random);
-            MappedExampleSet trainingSet = new MappedExampleSet((ExampleSet)inputSet.clone(), mapping, true);
-            learn(trainingSet);
-            
-            MappedExampleSet inverseExampleSet = new MappedExampleSet((ExampleSet)inputSet.clone(), mapping, false);
-            IOContainer evalOutput = evaluate(inverseExampleSet);
-            Tools.handleAverages(evalOutput, averageVectors, getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY));
-            inApplyLoop();
-        }
+        final Random random = RandomGenerator.getRandomGenerator(getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
+        final List<AverageVector> averageVectors = new ArrayList<AverageVector>();
+        final int sampleSize = (int)Math.round(inputSet.size() * getParameterAsDouble(PARAMETER_SAMPLE_RATIO));
+        final boolean averagePerformancesOnly = getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY);
+        final ExampleSet exampleSet = inputSet;
+        learnAndEvaluate(inputSet, number, new Folds() {
+            public ExampleSet[] getFold(int fold) throws OperatorException {
+                // the mappings are created in the order of the iterations, hence the samples do not depend on the number of threads
+                iteration = fold;
+                int[] mapping = createMapping(exampleSet, sampleSize, random);
+                MappedExampleSet trainingSet = new MappedExampleSet((ExampleSet)exampleSet.clone(), mapping, true);
+                MappedExampleSet inverseExampleSet = new MappedExampleSet((ExampleSet)exampleSet.clone(), mapping, false);
+                return new ExampleSet[] { trainingSet, inverseExampleSet };
+            }
+
+            public void handleResult(int fold, IOContainer result) throws OperatorException {
+                Tools.handleAverages(result, averageVectors, averagePerformancesOnly);
+            }
+        });
+        iteration = number;
         // end loop
 
         // set last result for plotting purposes. This is an average value and
@@ -110,6 +118,10 @@ public abstract class AbstractBootstrappingValidation extends ValidationChain {
         return result;
     }
     
+    protected boolean supportsParallelEstimation() {
+        return true;
+    }
+
     public List<ParameterType> getParameterTypes() {
         List<ParameterType> types = super.getParameterTypes();
         ParameterType type = new ParameterTypeInt(PARAMETER_NUMBER_OF_VALIDATIONS, "Number of subsets for the crossvalidation.", 2, Integer.MAX_VALUE, 10);
@@ -110,29 +110,35 @@ public class BatchSlidingWindowValidation extends ValidationChain {
         if (batchAttribute == null) {
             throw new UserError(this, 113, Attributes.BATCH_NAME);
         }
-        SplittedExampleSet splittedES = SplittedExampleSet.splitByAttribute((ExampleSet)inputSet.clone(), batchAttribute);
+        final SplittedExampleSet splittedES = SplittedExampleSet.splitByAttribute((ExampleSet)inputSet.clone(), batchAttribute);
 
         splittedES.clearSelection();
         
         // start window validation
-        List<AverageVector> averageVectors = new ArrayList<AverageVector>();
-        for (iteration = 0; iteration < splittedES.getNumberOfSubsets() - 1; iteration++) {
-
-            if (getParameterAsBoolean(PARAMETER_CUMULATIVE_TRAINING)) {
-                splittedES.clearSelection();
-                for (int s = 0; s <= iteration; s++ )
-                    splittedES.selectAdditionalSubset(s);
-            } else {
-                splittedES.selectSingleSubset(iteration);
+        final List<AverageVector> averageVectors = new ArrayList<AverageVector>();
+        final boolean cumulativeTraining = getParameterAsBoolean(PARAMETER_CUMULATIVE_TRAINING);
+        final boolean averagePerformancesOnly = getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY);
+        learnAndEvaluate(inputSet, splittedES.getNumberOfSubsets() - 1, new Folds() {
+            public ExampleSet[] getFold(int fold) {
+                iteration = fold;
+                SplittedExampleSet trainingSet = new SplittedExampleSet(splittedES);
+                if (cumulativeTraining) {
+                    trainingSet.clearSelection();
+                    for (int s = 0; s <= fold; s++ )
+                        trainingSet.selectAdditionalSubset(s);
+                } else {
+                    trainingSet.selectSingleSubset(fold);
+                }
+                SplittedExampleSet testSet = new SplittedExampleSet(splittedES);
+                testSet.selectSingleSubset(fold + 1);
+                return new ExampleSet[] { trainingSet, testSet };
             }
-            learn(splittedES);
-
-            splittedES.selectSingleSubset(iteration + 1);
-            IOContainer evalOutput = evaluate(splittedES);
-            Tools.handleAverages(evalOutput, averageVectors, getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY));
 
-            inApplyLoop();
-        }
+            public void handleResult(int fold, IOContainer result) throws OperatorException {
+                Tools.handleAverages(result, averageVectors, averagePerformancesOnly);
+            }
+        });
+        iteration = splittedES.getNumberOfSubsets() - 1;
         // end window validation
 
         // set last result for plotting purposes. This is an average value and
@@ -147,6 +153,10 @@ public class BatchSlidingWindowValidation extends ValidationChain {
         return result;
     }
 
+    protected boolean supportsParallelEstimation() {
+        return true;
+    }
+
     public List<ParameterType> getParameterTypes() {
         List<ParameterType> types = super.getParameterTypes();
         types.add(new ParameterTypeBoolean(PARAMETER_CUMULATIVE_TRAINING, "Indicates if each training batch should be added to the old one or should replace the old one.", false));
@@ -109,21 +109,26 @@ public class BatchXValidation extends ValidationChain {
         if (batchAttribute == null) {
             throw new UserError(this, 113, Attributes.BATCH_NAME);
         }
-        SplittedExampleSet splittedES = SplittedExampleSet.splitByAttribute(inputSet, batchAttribute);
+        final SplittedExampleSet splittedES = SplittedExampleSet.splitByAttribute(inputSet, batchAttribute);
 
         // start crossvalidation
-        List<AverageVector> averageVectors = new ArrayList<AverageVector>();
-        for (iteration = 0; iteration < splittedES.getNumberOfSubsets(); iteration++) {
-
-            splittedES.selectAllSubsetsBut(iteration);
-            learn(splittedES);
-
-            splittedES.selectSingleSubset(iteration);
-            IOContainer evalOutput = evaluate(splittedES);
-            Tools.handleAverages(evalOutput, averageVectors, getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY));
+        final List<AverageVector> averageVectors = new ArrayList<AverageVector>();
+        final boolean averagePerformancesOnly = getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY);
+        learnAndEvaluate(inputSet, splittedES.getNumberOfSubsets(), new Folds() {
+            public ExampleSet[] getFold(int fold) {
+                iteration = fold;
+                SplittedExampleSet trainingSet = new SplittedExampleSet(splittedES);
+                trainingSet.selectAllSubsetsBut(fold);
+                SplittedExampleSet testSet = new SplittedExampleSet(splittedES);
+                testSet.selectSingleSubset(fold);
+                return new ExampleSet[] { trainingSet, testSet };
+            }
 
-            inApplyLoop();
-        }
+            public void handleResult(int fold, IOContainer result) throws OperatorException {
+                Tools.handleAverages(result, averageVectors, averagePerformancesOnly);
+            }
+        });
+        iteration = splittedES.getNumberOfSubsets();
         // end crossvalidation
 
         // set last result for plotting purposes. This is an average value and
@@ -138,6 +143,10 @@ public class BatchXValidation extends ValidationChain {
         return result;
     }
 
+    protected boolean supportsParallelEstimation() {
+        return true;
+    }
+
     public List<ParameterType> getParameterTypes() {
         List<ParameterType> types = super.getParameterTypes();
         types.add(new ParameterTypeBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY, "Indicates if only performance vectors should be averaged or all types of averagable result vectors", true));
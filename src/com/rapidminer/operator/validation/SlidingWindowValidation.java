@@ -100,51 +100,61 @@ public class SlidingWindowValidation extends ValidationChain {
             stepSize = testWindowWidth;
         int horizon = getParameterAsInt(PARAMETER_HORIZON) - 1;
         
-        int[] partition = new int[inputSet.size()];
+        final int size = inputSet.size();
         
         int neededSize = trainingWindowWidth + horizon + testWindowWidth;
-        if (neededSize > partition.length) {
+        if (neededSize > size) {
             String reason = "(" + trainingWindowWidth + "+" + horizon + "+" + testWindowWidth + "=" + neededSize + ")";
             throw new UserError(this, 110, reason);
         }
         
         // evaluation loop
-        List<AverageVector> averageVectors = new ArrayList<AverageVector>();
-        for (int trainingStart = 0; trainingStart < partition.length; trainingStart += stepSize) {
-            if ((trainingStart + trainingWindowWidth + horizon + testWindowWidth) > partition.length)
-                break;
-            
-            // 0: training
-            // 1: testing
-            // 2: rest
-            int actualTrainingStart = trainingStart;
-            if (getParameterAsBoolean(PARAMETER_CUMULATIVE_TRAINING)) {
-                actualTrainingStart = 0;
-            }
-            for (int i = 0; i < partition.length; i++) {
-                if ((i >= actualTrainingStart) && (i < trainingStart + trainingWindowWidth)) {
-                    partition[i] = 0;
-                } else if ((i >= trainingStart + trainingWindowWidth + horizon) &&
-                           (i < trainingStart + trainingWindowWidth + horizon + testWindowWidth)) {
-                    partition[i] = 1;
-                } else {
-                    partition[i] = 2;
+        int numberOfWindows = 0;
+        for (int trainingStart = 0; (trainingStart + neededSize) <= size; trainingStart += stepSize)
+            numberOfWindows++;
+        
+        final ExampleSet exampleSet = inputSet;
+        final int trainingWidth = trainingWindowWidth;
+        final int testWidth = testWindowWidth;
+        final int windowStep = stepSize;
+        final int windowHorizon = horizon;
+        final boolean cumulativeTraining = getParameterAsBoolean(PARAMETER_CUMULATIVE_TRAINING);
+        final boolean averagePerformancesOnly = getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY);
+        final List<AverageVector> averageVectors = new ArrayList<AverageVector>();
+        learnAndEvaluate(inputSet, numberOfWindows, new Folds() {
+            public ExampleSet[] getFold(int fold) {
+                int trainingStart = fold * windowStep;
+                
+                // 0: training
+                // 1: testing
+                // 2: rest
+                int actualTrainingStart = trainingStart;
+                if (cumulativeTraining) {
+                    actualTrainingStart = 0;
                 }
+                int[] partition = new int[size];
+                for (int i = 0; i < partition.length; i++) {
+                    if ((i >= actualTrainingStart) && (i < trainingStart + trainingWidth)) {
+                        partition[i] = 0;
+                    } else if ((i >= trainingStart + trainingWidth + windowHorizon) &&
+                               (i < trainingStart + trainingWidth + windowHorizon + testWidth)) {
+                        partition[i] = 1;
+                    } else {
+                        partition[i] = 2;
+                    }
+                }
+                
+                SplittedExampleSet trainingSet = new SplittedExampleSet(exampleSet, new Partition(partition, 3));
+                trainingSet.selectSingleSubset(0);
+                SplittedExampleSet testSet = new SplittedExampleSet(trainingSet);
+                testSet.selectSingleSubset(1);
+                return new ExampleSet[] { trainingSet, testSet };
             }
-            
-            // train
-            SplittedExampleSet splittedES = new SplittedExampleSet(inputSet, new Partition(partition, 3));
-            splittedES.selectSingleSubset(0);
-            learn(splittedES);
-
-            
-            // evaluate
-            splittedES.selectSingleSubset(1);
-            IOContainer evalOutput = evaluate(splittedES);
-            Tools.handleAverages(evalOutput, averageVectors, getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY));
-
-            inApplyLoop();
-        }
+
+            public void handleResult(int fold, IOContainer result) throws OperatorException {
+                Tools.handleAverages(result, averageVectors, averagePerformancesOnly);
+            }
+        });
         // end evaluation loop
 
         // set last result for plotting purposes. This is an average value and
@@ -159,6 +169,10 @@ public class SlidingWindowValidation extends ValidationChain {
         return result;
     }
     
+    protected boolean supportsParallelEstimation() {
+        return true;
+    }
+
     public List<ParameterType> getParameterTypes() {
         List<ParameterType> types = super.getParameterTypes();
         ParameterType type = new ParameterTypeInt(PARAMETER_TRAINING_WINDOW_WIDTH, "Number of examples in the window which is used for training", 1, Integer.MAX_VALUE, 100);
@@ -22,10 +22,18 @@
  */
 package com.rapidminer.operator.validation;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import com.rapidminer.example.Attribute;
+import com.rapidminer.example.AttributeRole;
+import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.MemoryExampleTable;
 import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.InputDescription;
@@ -34,6 +42,7 @@ import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorChain;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ParallelTaskProcessor;
 import com.rapidminer.operator.ValueDouble;
 import com.rapidminer.operator.condition.CombinedInnerOperatorCondition;
 import com.rapidminer.operator.condition.InnerOperatorCondition;
@@ -43,6 +52,8 @@ import com.rapidminer.operator.performance.PerformanceCriterion;
 import com.rapidminer.operator.performance.PerformanceVector;
 import com.rapidminer.parameter.ParameterType;
 import com.rapidminer.parameter.ParameterTypeBoolean;
+import com.rapidminer.parameter.ParameterTypeInt;
+import com.rapidminer.parameter.UndefinedParameterError;
 
 
 /**
@@ -53,6 +64,13 @@ import com.rapidminer.parameter.ParameterTypeBoolean;
  * {@link PerformanceVector}. Hence the second inner operator usually is an
  * operator chain containing a model applier and a performance evaluator.
  * 
+ * <p>Subclasses which estimate the performance with {@link #learnAndEvaluate(ExampleSet, int, Folds)}
+ * can process several folds at the same time. Each thread uses its own clone of the inner
+ * operators, the training sets are shared read-only views of the data, and the test sets are
+ * copied to main memory so that the predictions of different folds do not interfere. The results
+ * are merged in the order of the folds and hence equal the results of the sequential estimation 
+ * as long as the inner operators do not use the global random generator.</p>
+ * 
  * @author Ingo Mierswa, Simon Fischer
  * @version $Id: ValidationChain.java,v 1.13 2008/08/05 08:14:29 ingomierswa Exp $
  */
@@ -60,6 +78,23 @@ public abstract class ValidationChain extends OperatorChain {
 
 	/** The parameter name for &quot;Indicates if a model of the complete data set should be additionally build after estimation.&quot; */
 	public static final String PARAMETER_CREATE_COMPLETE_MODEL = "create_complete_model";
+
+	/** The parameter name for &quot;The number of threads used for learning and evaluating the folds (0: number of available processors).&quot; */
+	public static final String PARAMETER_NUMBER_OF_THREADS = "number_of_threads";
+
+	/** Provides the training and test sets of the folds of an estimation and handles the results. */
+	protected interface Folds {
+
+		/** 
+		 * Returns the training set (first element) and the test set (second element) of the given
+		 * fold. The folds are requested in their order and never at the same time. The returned 
+		 * example sets must not be changed by requesting other folds.
+		 */
+		public ExampleSet[] getFold(int fold) throws OperatorException;
+
+		/** Handles the evaluation result of the given fold. The results are handled in the order of the folds. */
+		public void handleResult(int fold, IOContainer result) throws OperatorException;
+	}
 	
 	private double lastMainPerformance = Double.NaN;
 	private double lastMainVariance = Double.NaN;
@@ -170,6 +205,15 @@ public abstract class ValidationChain extends OperatorChain {
 		return getOperator(1);
 	}
 
+	/**
+	 * Returns true if the performance is estimated with {@link #learnAndEvaluate(ExampleSet, int, Folds)}.
+	 * In this case, the parameter for the number of threads is added. The default implementation 
+	 * returns false.
+	 */
+	protected boolean supportsParallelEstimation() {
+		return false;
+	}
+
 	/** Can be used by subclasses to set the performance of the example set. */
 	protected final void setResult(PerformanceVector pv) {
 		this.lastMainPerformance   = Double.NaN;
@@ -227,6 +271,99 @@ public abstract class ValidationChain extends OperatorChain {
 		return result;
 	}
 
+	/**
+	 * Learns and evaluates all folds of the given example set. If more than one thread should be 
+	 * used, the folds are processed in parallel, otherwise the inner operators are sequentially 
+	 * applied to the folds.
+	 */
+	protected void learnAndEvaluate(ExampleSet exampleSet, int numberOfFolds, Folds folds) throws OperatorException {
+		int numberOfThreads = Math.min(getNumberOfThreads(), numberOfFolds);
+		if ((numberOfThreads > 1) && ParallelTaskProcessor.containsRelationalAttributes(exampleSet)) {
+			logNote("Relational attributes cannot be copied, folds are processed sequentially.");
+			numberOfThreads = 1;
+		}
+		if (numberOfThreads <= 1) {
+			for (int fold = 0; fold < numberOfFolds; fold++) {
+				ExampleSet[] sets = folds.getFold(fold);
+				learn(sets[0]);
+				folds.handleResult(fold, evaluate(sets[1]));
+				inApplyLoop();
+			}
+		} else {
+			learnAndEvaluateInParallel(numberOfFolds, folds, numberOfThreads);
+		}
+	}
+
+	/** Processes the folds with the given number of threads, each thread uses its own clone of the inner operators. */
+	private void learnAndEvaluateInParallel(int numberOfFolds, final Folds folds, int numberOfThreads) throws OperatorException {
+		log("Processing " + numberOfFolds + " folds with " + numberOfThreads + " threads");
+		final ExampleSet[][] sets = new ExampleSet[numberOfFolds][];
+		new ParallelTaskProcessor<Operator[], IOContainer>(this, "learning and evaluating the folds", numberOfThreads) {
+
+			/** Returns clones of the learner and the evaluator. */
+			protected Operator[] createWorker() {
+				Operator learner = getLearner().cloneOperator(getLearner().getName());
+				Operator evaluator = getEvaluator().cloneOperator(getEvaluator().getName());
+				learner.setParent(ValidationChain.this);
+				evaluator.setParent(ValidationChain.this);
+				return new Operator[] { learner, evaluator };
+			}
+
+			/** The folds are created in their order. */
+			protected void prepareTask(int fold) throws OperatorException {
+				sets[fold] = folds.getFold(fold);
+			}
+
+			protected IOContainer process(Operator[] operators, int fold) throws OperatorException {
+				ExampleSet[] foldSets = sets[fold];
+				sets[fold] = null;
+				IOContainer learnResult = operators[0].apply(new IOContainer(new IOObject[] { foldSets[0] }));
+				return evaluate(operators[1], createTestSetCopy(foldSets[1]), learnResult);
+			}
+
+			protected void handleResult(int fold, IOContainer result) throws OperatorException {
+				folds.handleResult(fold, result);
+				inApplyLoop();
+			}
+		}.run(numberOfFolds);
+	}
+
+	/** Returns the number of threads used for the estimation. */
+	protected int getNumberOfThreads() throws UndefinedParameterError {
+		if (!supportsParallelEstimation())
+			return 1;
+		return ParallelTaskProcessor.getNumberOfThreads(getParameterAsInt(PARAMETER_NUMBER_OF_THREADS));
+	}
+
+	/** 
+	 * Copies the given example set into a new memory table. Copies of the attributes are used 
+	 * so that the predicted labels are added to the copy instead of the shared table.
+	 */
+	private static ExampleSet createTestSetCopy(ExampleSet exampleSet) {
+		List<Attribute> attributes = new ArrayList<Attribute>();
+		List<Attribute> copies = new ArrayList<Attribute>();
+		Map<Attribute, String> specialAttributes = new HashMap<Attribute, String>();
+		Iterator<AttributeRole> r = exampleSet.getAttributes().allAttributeRoles();
+		while (r.hasNext()) {
+			AttributeRole role = r.next();
+			Attribute copy = (Attribute)role.getAttribute().clone();
+			// the copied values are already transformed
+			copy.clearTransformations();
+			attributes.add(role.getAttribute());
+			copies.add(copy);
+			if (role.isSpecial())
+				specialAttributes.put(copy, role.getSpecialName());
+		}
+		MemoryExampleTable table = new MemoryExampleTable(copies);
+		for (Example example : exampleSet) {
+			double[] data = new double[attributes.size()];
+			for (int i = 0; i < data.length; i++)
+				data[i] = example.getValue(attributes.get(i));
+			table.addDataRow(new DoubleArrayDataRow(data));
+		}
+		return table.createExampleSet(specialAttributes);
+	}
+
 	/** Applies the learner (= first encapsulated inner operator). */
 	protected IOContainer learn(ExampleSet trainingSet) throws OperatorException {
 		return learnResult = getLearner().apply(new IOContainer(new IOObject[] { trainingSet }));
@@ -245,9 +382,14 @@ public abstract class ValidationChain extends OperatorChain {
 		if (learnResult == null) {
 			throw new RuntimeException("Wrong use of ValidationChain.evaluate(ExampleSet): " + "No preceding invocation of learn(ExampleSet)!");
 		}
+		return evaluate(getEvaluator(), testSet, learnResult);
+	}
+
+	/** Applies the given evaluator and removes a newly created predicted label, see {@link #evaluate(ExampleSet, IOContainer)}. */
+	private static IOContainer evaluate(Operator evaluator, ExampleSet testSet, IOContainer learnResult) throws OperatorException {
 		Attribute predictedBefore = testSet.getAttributes().getPredictedLabel();
 		IOContainer evalInput = learnResult.append(new IOObject[] { testSet });
-		IOContainer result = getEvaluator().apply(evalInput);
+		IOContainer result = evaluator.apply(evalInput);
 		Attribute predictedAfter = testSet.getAttributes().getPredictedLabel();
 
 		// remove predicted label and confidence attributes if there is a new prediction which is not equal to an old one
@@ -280,6 +422,8 @@ public abstract class ValidationChain extends OperatorChain {
 		ParameterType type = new ParameterTypeBoolean(PARAMETER_CREATE_COMPLETE_MODEL, "Indicates if a model of the complete data set should be additionally build after estimation.", false);
 		type.setExpert(false);
 		types.add(type);
+		if (supportsParallelEstimation())
+			types.add(new ParameterTypeInt(PARAMETER_NUMBER_OF_THREADS, "The number of threads used for learning and evaluating the folds (0: number of available processors).", 0, Integer.MAX_VALUE, 1));
 		return types;
 	}
 }
@@ -86,6 +86,10 @@ import com.rapidminer.tools.math.AverageVector;
  *     accessed where applicable.</li>
  * </ul>
  * 
+ * <p>If more than one thread is used, several folds are learned and evaluated at the 
+ * same time with copies of the inner operators. Please note that the inner learner must
+ * not change the training data in this case.</p>
+ * 
  * @rapidminer.index cross-validation
  * @author Ingo Mierswa
  * @version $Id: XValidation.java,v 1.11 2008/08/25 08:10:35 ingomierswa Exp $
@@ -130,21 +134,26 @@ public class XValidation extends ValidationChain {
 		// Split training / test set
 		int samplingType = getParameterAsInt(PARAMETER_SAMPLING_TYPE);
         int randomSeed = getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED);
-		SplittedExampleSet splittedES = new SplittedExampleSet(inputSet, number, samplingType, randomSeed);
+		final SplittedExampleSet splittedES = new SplittedExampleSet(inputSet, number, samplingType, randomSeed);
 
 		// start crossvalidation
-		List<AverageVector> averageVectors = new ArrayList<AverageVector>();
-		for (iteration = 0; iteration < number; iteration++) {
-			
-			splittedES.selectAllSubsetsBut(iteration);
-			learn(splittedES);
-			
-			splittedES.selectSingleSubset(iteration);
-			IOContainer evalOutput = evaluate(splittedES);
-			
-			Tools.handleAverages(evalOutput, averageVectors, getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY));
-			inApplyLoop();
-		}
+		final List<AverageVector> averageVectors = new ArrayList<AverageVector>();
+		final boolean averagePerformancesOnly = getParameterAsBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY);
+		learnAndEvaluate(inputSet, number, new Folds() {
+			public ExampleSet[] getFold(int fold) {
+				iteration = fold;
+				SplittedExampleSet trainingSet = new SplittedExampleSet(splittedES);
+				trainingSet.selectAllSubsetsBut(fold);
+				SplittedExampleSet testSet = new SplittedExampleSet(splittedES);
+				testSet.selectSingleSubset(fold);
+				return new ExampleSet[] { trainingSet, testSet };
+			}
+
+			public void handleResult(int fold, IOContainer result) throws OperatorException {
+				Tools.handleAverages(result, averageVectors, averagePerformancesOnly);
+			}
+		});
+		iteration = number;
 		// end crossvalidation
 
 		// set last result for plotting purposes. This is an average value and
@@ -159,6 +168,10 @@ public class XValidation extends ValidationChain {
 		return result;
 	}
 
+	protected boolean supportsParallelEstimation() {
+		return true;
+	}
+
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = super.getParameterTypes();
 		types.add(new ParameterTypeBoolean(PARAMETER_AVERAGE_PERFORMANCES_ONLY, "Indicates if only performance vectors should be averaged or all types of averagable result vectors", true));
@@ -0,0 +1,110 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.operator.validation.test;
+
+import com.rapidminer.example.AttributeWeights;
+import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.set.AttributeWeightedExampleSet;
+import com.rapidminer.example.test.ExampleTestTools;
+import com.rapidminer.operator.IOContainer;
+import com.rapidminer.operator.IOObject;
+import com.rapidminer.operator.ModelApplier;
+import com.rapidminer.operator.Operator;
+import com.rapidminer.operator.OperatorChain;
+import com.rapidminer.operator.OperatorDescription;
+import com.rapidminer.operator.SimpleOperatorChain;
+import com.rapidminer.operator.learner.lazy.KNNLearner;
+import com.rapidminer.operator.performance.PerformanceCriterion;
+import com.rapidminer.operator.performance.PerformanceVector;
+import com.rapidminer.operator.performance.PolynominalClassificationPerformanceEvaluator;
+import com.rapidminer.operator.validation.XValidation;
+import com.rapidminer.test.RapidMinerTestCase;
+
+/**
+ * Checks that the cross validation yields the same performance for the sequential
+ * and the parallel processing of the folds.
+ */
+public class ValidationChainTest extends RapidMinerTestCase {
+
+	private ExampleSet exampleSet;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		exampleSet = ExampleTestTools.createGaussianClassificationSet(300, 2);
+	}
+
+	public void tearDown() throws Exception {
+		exampleSet = null;
+		super.tearDown();
+	}
+
+	private Operator createOperator(Class<? extends Operator> operatorClass) throws Exception {
+		return operatorClass.getConstructor(OperatorDescription.class).newInstance(new OperatorDescription(getClass().getClassLoader(), operatorClass.getSimpleName(), operatorClass.getName(), "", "", "", null, null));
+	}
+
+	private PerformanceVector validate(ExampleSet exampleSet, int numberOfThreads) throws Exception {
+		XValidation validation = (XValidation)createOperator(XValidation.class);
+		validation.setParameter("number_of_validations", "7");
+		validation.setParameter("local_random_seed", "7");
+		validation.setParameter("number_of_threads", Integer.toString(numberOfThreads));
+		validation.addOperator(createOperator(KNNLearner.class));
+		OperatorChain evaluator = (OperatorChain)createOperator(SimpleOperatorChain.class);
+		evaluator.addOperator(createOperator(ModelApplier.class));
+		Operator performance = createOperator(PolynominalClassificationPerformanceEvaluator.class);
+		performance.setParameter("accuracy", "true");
+		performance.setParameter("kappa", "true");
+		evaluator.addOperator(performance);
+		validation.addOperator(evaluator);
+		IOContainer result = validation.apply(new IOContainer(new IOObject[] { exampleSet }));
+		return result.get(PerformanceVector.class);
+	}
+
+	private void assertSamePerformance(ExampleSet exampleSet) throws Exception {
+		PerformanceVector expected = validate(exampleSet, 1);
+		assertEquals("criteria", 2, expected.size());
+		for (int numberOfThreads = 2; numberOfThreads <= 8; numberOfThreads *= 2) {
+			PerformanceVector performance = validate(exampleSet, numberOfThreads);
+			assertEquals("criteria with " + numberOfThreads + " threads", expected.size(), performance.size());
+			for (int i = 0; i < expected.size(); i++) {
+				PerformanceCriterion criterion = expected.getCriterion(i);
+				String message = criterion.getName() + " with " + numberOfThreads + " threads";
+				assertEquals(message, criterion.getAverage(), performance.getCriterion(i).getAverage(), 0.0d);
+				assertEquals(message + " variance", criterion.getVariance(), performance.getCriterion(i).getVariance(), 0.0d);
+				assertEquals(message + " count", criterion.getAverageCount(), performance.getCriterion(i).getAverageCount());
+			}
+		}
+	}
+
+	public void testParallelFolds() throws Exception {
+		assertSamePerformance(exampleSet);
+	}
+
+	public void testParallelFoldsOfWeightedExampleSet() throws Exception {
+		// the test set copies must not apply the weights twice
+		AttributeWeights weights = new AttributeWeights();
+		weights.setWeight("a0", 5.0d);
+		weights.setWeight("a1", 0.5d);
+		weights.setWeight("a2", 0.0d);
+		assertSamePerformance(new AttributeWeightedExampleSet(exampleSet, weights));
+	}
+}
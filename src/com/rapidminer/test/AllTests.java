@@ -26,13 +26,36 @@ import junit.framework.Test;
 import junit.framework.TestSuite;
 
 import com.rapidminer.RapidMiner;
+import com.rapidminer.example.test.BlockCachedDatabaseExampleTableTest;
+import com.rapidminer.example.test.ColumnarExampleTableTest;
+import com.rapidminer.example.test.MappedExampleTableTest;
 import com.rapidminer.example.test.DataRowTest;
+import com.rapidminer.example.test.FileDataRowReaderTest;
+import com.rapidminer.example.test.RapidMinerLineReaderTest;
+import com.rapidminer.example.test.RelationalValuesTest;
 import com.rapidminer.example.test.SparseReaderTest;
+import com.rapidminer.operator.features.test.WeightedExampleSetEvaluatorTest;
+import com.rapidminer.operator.io.test.BinaryExampleSetFormatTest;
+import com.rapidminer.operator.io.test.HTTPCSVExampleSourceTest;
+import com.rapidminer.operator.learner.clustering.test.AgglomerativeEngineTest;
+import com.rapidminer.operator.learner.clustering.test.FDBScanClusteringTest;
+import com.rapidminer.operator.learner.clustering.test.KMeansEngineTest;
+import com.rapidminer.operator.learner.test.EnsembleLearnerTest;
+import com.rapidminer.operator.meta.test.ParameterOptimizationTest;
 import com.rapidminer.operator.performance.test.ClassificationCriterionTest;
 import com.rapidminer.operator.performance.test.EstimatedCriterionTest;
 import com.rapidminer.operator.performance.test.MeasuredCriterionTest;
+import com.rapidminer.operator.similarity.test.SymmetricDistanceMatrixTest;
+import com.rapidminer.operator.test.ParallelTaskProcessorTest;
+import com.rapidminer.operator.uncertain.test.SamplingEngineTest;
+import com.rapidminer.operator.validation.test.ValidationChainTest;
+import com.rapidminer.tools.math.container.test.GeometricDataCollectionTest;
 import com.rapidminer.tools.LogService;
 
+import de.tud.inf.example.test.ComplexValueFactoryTest;
+import de.tud.inf.example.test.UpdateableMemoryExampleTableTest;
+import de.tud.inf.operator.io.test.ComplexArffDataParserTest;
+
 /**
  * The main test class. Performs all Tests with help of JUnit.
  * 
@@ -46,9 +69,31 @@ public class AllTests {
 		
 		suite.addTest(new TestSuite(DataRowTest.class));
 		suite.addTest(new TestSuite(SparseReaderTest.class));
+		suite.addTest(new TestSuite(ColumnarExampleTableTest.class));
+		suite.addTest(new TestSuite(MappedExampleTableTest.class));
+		suite.addTest(new TestSuite(BlockCachedDatabaseExampleTableTest.class));
+		suite.addTest(new TestSuite(RelationalValuesTest.class));
+		suite.addTest(new TestSuite(RapidMinerLineReaderTest.class));
+		suite.addTest(new TestSuite(FileDataRowReaderTest.class));
+		suite.addTest(new TestSuite(BinaryExampleSetFormatTest.class));
+		suite.addTest(new TestSuite(HTTPCSVExampleSourceTest.class));
 		suite.addTest(new TestSuite(EstimatedCriterionTest.class));
 		suite.addTest(new TestSuite(ClassificationCriterionTest.class));
 		suite.addTest(new TestSuite(MeasuredCriterionTest.class));
+		suite.addTest(new TestSuite(GeometricDataCollectionTest.class));
+		suite.addTest(new TestSuite(KMeansEngineTest.class));
+		suite.addTest(new TestSuite(AgglomerativeEngineTest.class));
+		suite.addTest(new TestSuite(FDBScanClusteringTest.class));
+		suite.addTest(new TestSuite(SamplingEngineTest.class));
+		suite.addTest(new TestSuite(UpdateableMemoryExampleTableTest.class));
+		suite.addTest(new TestSuite(ComplexValueFactoryTest.class));
+		suite.addTest(new TestSuite(ComplexArffDataParserTest.class));
+		suite.addTest(new TestSuite(SymmetricDistanceMatrixTest.class));
+		suite.addTest(new TestSuite(ParallelTaskProcessorTest.class));
+		suite.addTest(new TestSuite(ValidationChainTest.class));
+		suite.addTest(new TestSuite(ParameterOptimizationTest.class));
+		suite.addTest(new TestSuite(WeightedExampleSetEvaluatorTest.class));
+		suite.addTest(new TestSuite(EnsembleLearnerTest.class));
 
 		suite.addTest(new TestSuite(ApplicationTest.class));
 		
@@ -0,0 +1,127 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+
+/**
+ * Maps a file of doubles in segments of a fixed maximal size. The segments are
+ * mapped on demand and are enlarged when entries beyond their current end are
+ * requested, mapping beyond the end of the file enlarges the file. A fresh
+ * segment is mapped for the initial number of entries, growing segments for
+ * twice their entries, so the file grows with the data instead of occupying
+ * full segments. Reading the segments is thread safe.
+ */
+public class MappedSegments implements Serializable {
+
+	private static final long serialVersionUID = 2974116081354927185L;
+
+	/** The file containing the values. */
+	private final File file;
+
+	/** The maximal number of doubles of a segment. */
+	private final int segmentEntries;
+
+	/** The number of doubles for which a fresh segment is mapped. */
+	private final int initialEntries;
+
+	/** The mapped segments. Replaced by a copy if a segment is added or grows, null after closing. */
+	private transient volatile DoubleBuffer[] segments = new DoubleBuffer[0];
+
+	/**
+	 * Creates segments of at most segmentEntries doubles for the given file.
+	 * Fresh segments are mapped for initialEntries doubles.
+	 */
+	public MappedSegments(File file, int segmentEntries, int initialEntries) {
+		this.file = file;
+		this.segmentEntries = segmentEntries;
+		this.initialEntries = Math.max(1, Math.min(segmentEntries, initialEntries));
+	}
+
+	/** Returns the mapped file. */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the segment with the given index which is mapped for at least the
+	 * given number of doubles. Maps or enlarges the segment if necessary.
+	 */
+	public DoubleBuffer getSegment(int index, int entries) {
+		DoubleBuffer[] current = segments;
+		if ((current != null) && (index < current.length) && (current[index] != null) && (current[index].capacity() >= entries))
+			return current[index];
+		return mapSegment(index, entries);
+	}
+
+	/**
+	 * Releases the mapped segments. The operating system frees the mapped memory
+	 * as soon as the segments are garbage collected. The segments must not be
+	 * used afterwards.
+	 */
+	public synchronized void close() {
+		segments = null;
+	}
+
+	/** Maps the segment with the given index for at least the given entries unless another thread already did. */
+	private synchronized DoubleBuffer mapSegment(int index, int entries) {
+		DoubleBuffer[] current = segments;
+		if (current == null)
+			throw new IllegalStateException("The mapped file '" + file + "' was already closed!");
+		DoubleBuffer segment = index < current.length ? current[index] : null;
+		int mappedEntries = segment == null ? 0 : segment.capacity();
+		if (mappedEntries < entries) {
+			int newEntries = segment == null ? initialEntries : (int) Math.min(Integer.MAX_VALUE, 2L * mappedEntries);
+			newEntries = Math.min(segmentEntries, Math.max(entries, newEntries));
+			try {
+				RandomAccessFile in = new RandomAccessFile(file, "rw");
+				try {
+					// mapping beyond the end of the file enlarges the file
+					segment = in.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) index * segmentEntries * 8, (long) newEntries * 8).asDoubleBuffer();
+				} finally {
+					in.close();
+				}
+			} catch (IOException e) {
+				throw new RuntimeException("Cannot map file '" + file + "': " + e, e);
+			}
+			DoubleBuffer[] newSegments = Arrays.copyOf(current, Math.max(current.length, index + 1));
+			newSegments[index] = segment;
+			segments = newSegments;
+		}
+		return segment;
+	}
+
+	/** The segments are mapped again on demand after deserialization. */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		segments = new DoubleBuffer[0];
+	}
+}
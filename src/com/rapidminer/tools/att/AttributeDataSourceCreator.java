@@ -54,13 +54,21 @@ public class AttributeDataSourceCreator {
     }
     
     public void loadData(File file, char[] commentChars, String columnSeparators, char decimalPointCharacter, boolean useQuotes, boolean trimLines, boolean firstLineAsNames, int maxCounter, Charset encoding) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding));
+        loadData(in, file, commentChars, columnSeparators, decimalPointCharacter, useQuotes, trimLines, firstLineAsNames, maxCounter);
+    }
+
+    /** 
+     * Reads the data from the given reader which is closed afterwards. The file is only used for the 
+     * attribute data sources and the default names. 
+     */
+    public void loadData(BufferedReader in, File file, char[] commentChars, String columnSeparators, char decimalPointCharacter, boolean useQuotes, boolean trimLines, boolean firstLineAsNames, int maxCounter) throws IOException {
         this.sources.clear();        
         String[] columnNames = null;        
         int maxColumns = -1;
         int[] valueTypes = null;
 
         RapidMinerLineReader lineReader = new RapidMinerLineReader(columnSeparators, commentChars, useQuotes, trimLines);
-        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), encoding));
 
         int counter = 0;
         boolean first = true;
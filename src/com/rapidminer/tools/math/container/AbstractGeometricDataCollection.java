@@ -0,0 +1,70 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools.math.container;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.rapidminer.tools.Tupel;
+
+/**
+ * This class implements the batch queries of the {@link GeometricDataCollection} by
+ * delivering each query point to the single point queries of the subclasses.
+ * 
+ * @param <T> The type of the values stored within each point in data space
+ */
+public abstract class AbstractGeometricDataCollection<T> implements GeometricDataCollection<T> {
+
+	public List<Collection<T>> getNearestValues(int k, double[][] values) {
+		List<Collection<T>> result = new ArrayList<Collection<T>>(values.length);
+		for (double[] queryValues : values) {
+			result.add(getNearestValues(k, queryValues));
+		}
+		return result;
+	}
+
+	public List<Collection<Tupel<Double, T>>> getNearestValueDistances(int k, double[][] values) {
+		List<Collection<Tupel<Double, T>>> result = new ArrayList<Collection<Tupel<Double, T>>>(values.length);
+		for (double[] queryValues : values) {
+			result.add(getNearestValueDistances(k, queryValues));
+		}
+		return result;
+	}
+
+	public List<Collection<T>> getValuesInRange(double maxDistance, double[][] values) {
+		List<Collection<T>> result = new ArrayList<Collection<T>>(values.length);
+		for (double[] queryValues : values) {
+			result.add(getValuesInRange(maxDistance, queryValues));
+		}
+		return result;
+	}
+
+	public List<Collection<Tupel<Double, T>>> getValueDistancesInRange(double maxDistance, double[][] values) {
+		List<Collection<Tupel<Double, T>>> result = new ArrayList<Collection<Tupel<Double, T>>>(values.length);
+		for (double[] queryValues : values) {
+			result.add(getValueDistancesInRange(maxDistance, queryValues));
+		}
+		return result;
+	}
+}
@@ -22,8 +22,11 @@
  */
 package com.rapidminer.tools.math.container;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
 import java.util.Stack;
 
@@ -44,7 +47,7 @@ import com.rapidminer.tools.math.similarity.DistanceMeasure;
  * @author Sebastian Land
  * @version $Id: BallTree.java,v 1.4 2008/07/13 20:38:24 ingomierswa Exp $
  */
-public class BallTree<T> implements GeometricDataCollection<T> {
+public class BallTree<T> extends AbstractGeometricDataCollection<T> {
 	
 	private BallTreeNode<T> root;
 	private int k;
@@ -55,6 +58,87 @@ public class BallTree<T> implements GeometricDataCollection<T> {
 		this.distance = distance;
 	}
 	
+	/**
+	 * Builds a tree containing the given points top down, where the i-th row of 
+	 * points is stored with the i-th store value. Each range of points is split at
+	 * the median of the dimension with the largest spread, which is much cheaper 
+	 * than the successive insertion via {@link #add(double[], Object)}.
+	 */
+	public BallTree(double[][] points, List<T> storeValues, DistanceMeasure distance) {
+		this(distance);
+		if (points.length > 0) {
+			k = points[0].length;
+			dimensionFactor = Math.sqrt(Math.PI) / Math.pow(gammaFunction(k / 2), 1d / (double)k);
+			root = buildTree(points, storeValues);
+		}
+	}
+
+	private BallTreeNode<T> buildTree(final double[][] points, List<T> storeValues) {
+		Integer[] order = new Integer[points.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+		
+		// the ranges of order which still have to be split, the father and the side of the new node
+		Stack<int[]> rangeStack = new Stack<int[]>();
+		Stack<BallTreeNode<T>> fatherStack = new Stack<BallTreeNode<T>>();
+		rangeStack.push(new int[] { 0, order.length, 0 });
+		fatherStack.push(null);
+		BallTreeNode<T> treeRoot = null;
+		while (!rangeStack.isEmpty()) {
+			int[] range = rangeStack.pop();
+			BallTreeNode<T> father = fatherStack.pop();
+			int start = range[0];
+			int end = range[1];
+			
+			// finding dimension with largest spread
+			int splitDimension = 0;
+			double largestSpread = -1;
+			for (int d = 0; d < k; d++) {
+				double min = Double.POSITIVE_INFINITY;
+				double max = Double.NEGATIVE_INFINITY;
+				for (int i = start; i < end; i++) {
+					min = Math.min(min, points[order[i]][d]);
+					max = Math.max(max, points[order[i]][d]);
+				}
+				if (max - min > largestSpread) {
+					largestSpread = max - min;
+					splitDimension = d;
+				}
+			}
+			final int dimension = splitDimension;
+			Arrays.sort(order, start, end, new Comparator<Integer>() {
+				public int compare(Integer i1, Integer i2) {
+					return Double.compare(points[i1][dimension], points[i2][dimension]);
+				}
+			});
+			int median = (start + end) / 2;
+			double[] center = points[order[median]];
+			
+			// the ball has to contain all points of the range
+			double radius = 0;
+			for (int i = start; i < end; i++) {
+				radius = Math.max(radius, distance.calculateDistance(center, points[order[i]]));
+			}
+			BallTreeNode<T> node = new BallTreeNode<T>(center, radius, storeValues.get(order[median]));
+			if (father == null) {
+				treeRoot = node;
+			} else if (range[2] < 0) {
+				father.setLeftChild(node);
+			} else {
+				father.setRightChild(node);
+			}
+			if (start < median) {
+				rangeStack.push(new int[] { start, median, -1 });
+				fatherStack.push(node);
+			}
+			if (median + 1 < end) {
+				rangeStack.push(new int[] { median + 1, end, 1 });
+				fatherStack.push(node);
+			}
+		}
+		return treeRoot;
+	}
+	
 
 	public void add(double[] values, T storeValue) {
 		if (root == null) {
@@ -62,7 +146,7 @@ public class BallTree<T> implements GeometricDataCollection<T> {
 			
 			// setting dimension
 			k = values.length;
-			dimensionFactor = Math.sqrt(Math.PI) / Math.pow((double)gammaFunction(k / 2), 1d / (double)k);  			
+			dimensionFactor = Math.sqrt(Math.PI) / Math.pow(gammaFunction(k / 2), 1d / (double)k);  			
 		} else {
 			double totalAncestorIncrease = 0;
 			double bestVolumeIncrease = Double.POSITIVE_INFINITY;
@@ -170,6 +254,48 @@ public class BallTree<T> implements GeometricDataCollection<T> {
 		
 	}
 	
+	/**
+	 * Returns the values of all points within maxDistance of the given point. Since the
+	 * ball of each node contains all of its descendants, subtrees are skipped if the ball
+	 * lies completely outside the query radius.
+	 */
+	public Collection<T> getValuesInRange(double maxDistance, double[] values) {
+		LinkedList<T> resultList = new LinkedList<T>();
+		searchRange(maxDistance, values, resultList, null);
+		return resultList;
+	}
+
+	public Collection<Tupel<Double, T>> getValueDistancesInRange(double maxDistance, double[] values) {
+		LinkedList<Tupel<Double, T>> resultList = new LinkedList<Tupel<Double, T>>();
+		searchRange(maxDistance, values, null, resultList);
+		return resultList;
+	}
+
+	/** Adds the values (and distances if a tupel list is given) of all points in range to the given lists. */
+	private void searchRange(double maxDistance, double[] values, List<T> valueList, List<Tupel<Double, T>> tupelList) {
+		if (root == null)
+			return;
+		Stack<BallTreeNode<T>> nodeStack = new Stack<BallTreeNode<T>>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			BallTreeNode<T> currentNode = nodeStack.pop();
+			double currentDistance = distance.calculateDistance(currentNode.getCenter(), values);
+			if (currentDistance <= maxDistance) {
+				if (tupelList != null) {
+					tupelList.add(new Tupel<Double, T>(currentDistance, currentNode.getStoreValue()));
+				} else {
+					valueList.add(currentNode.getStoreValue());
+				}
+			}
+			if (currentDistance - currentNode.getRadius() <= maxDistance) {
+				if (currentNode.hasLeftChild())
+					nodeStack.push(currentNode.getLeftChild());
+				if (currentNode.hasRightChild())
+					nodeStack.push(currentNode.getRightChild());
+			}
+		}
+	}
+	
 	private BoundedPriorityQueue<Tupel<Double, BallTreeNode<T>>> getNearestNodes(int k, double[] values) {
 		Stack<BallTreeNode<T>> nodeStack = new Stack<BallTreeNode<T>>();
 		Stack<Integer> sideStack = new Stack<Integer>();
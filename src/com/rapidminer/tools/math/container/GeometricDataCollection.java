@@ -23,13 +23,14 @@
 package com.rapidminer.tools.math.container;
 
 import java.util.Collection;
+import java.util.List;
 
 import com.rapidminer.tools.Tupel;
 
 /**
  * This interface provides the methods for multidimensional data structures
  * providing efficient search in data space for the next k neighbours and its
- * distances
+ * distances as well as for all neighbours within a given range. 
  * 
  * @author Sebastian Land
  * @version $Id: GeometricDataCollection.java,v 1.5 2008/07/13 23:25:24 ingomierswa Exp $
@@ -62,5 +63,48 @@ public interface GeometricDataCollection<T> {
 	 * @param values the coordinate of the querry point in the sample dimension
 	 */
 	public abstract Collection<Tupel<Double, T>> getNearestValueDistances(int k, double[] values);
+	
+	/**
+	 * This method returns a collection of the stored data values of all sample points
+	 * with a distance of at most maxDistance to the query point. Please note that
+	 * tree based implementations use the distance bounds for pruning and hence assume
+	 * a metric distance measure.
+	 * @param maxDistance the maximal distance of the returned sample points
+	 * @param values the coordinate of the querry point in the sample dimension
+	 */
+	public abstract Collection<T> getValuesInRange(double maxDistance, double[] values);
+
+	/**
+	 * This method returns a collection of Tupels containing the distance to the query
+	 * point and the stored value of all sample points with a distance of at most 
+	 * maxDistance to the query point.
+	 * @param maxDistance the maximal distance of the returned sample points
+	 * @param values the coordinate of the querry point in the sample dimension
+	 */
+	public abstract Collection<Tupel<Double, T>> getValueDistancesInRange(double maxDistance, double[] values);
+
+	/**
+	 * Returns the result of {@link #getNearestValues(int, double[])} for each of the 
+	 * given query points, i.e. for each row of the values matrix.
+	 */
+	public abstract List<Collection<T>> getNearestValues(int k, double[][] values);
+
+	/**
+	 * Returns the result of {@link #getNearestValueDistances(int, double[])} for each of the 
+	 * given query points, i.e. for each row of the values matrix.
+	 */
+	public abstract List<Collection<Tupel<Double, T>>> getNearestValueDistances(int k, double[][] values);
+
+	/**
+	 * Returns the result of {@link #getValuesInRange(double, double[])} for each of the 
+	 * given query points, i.e. for each row of the values matrix.
+	 */
+	public abstract List<Collection<T>> getValuesInRange(double maxDistance, double[][] values);
+
+	/**
+	 * Returns the result of {@link #getValueDistancesInRange(double, double[])} for each of the 
+	 * given query points, i.e. for each row of the values matrix.
+	 */
+	public abstract List<Collection<Tupel<Double, T>>> getValueDistancesInRange(double maxDistance, double[][] values);
 
 }
@@ -22,8 +22,11 @@
  */
 package com.rapidminer.tools.math.container;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Stack;
 
 import com.rapidminer.tools.Tupel;
@@ -40,7 +43,7 @@ import com.rapidminer.tools.math.similarity.DistanceMeasure;
  * @param <T> This is the type of value with is stored with the points and retrieved on nearest
  * neighbour search
  */
-public class KDTree<T> implements GeometricDataCollection<T> {
+public class KDTree<T> extends AbstractGeometricDataCollection<T> {
 	
 	private KDTreeNode<T> root;
 	private int k; // the number of dimensions
@@ -52,8 +55,66 @@ public class KDTree<T> implements GeometricDataCollection<T> {
 		this.distance = distance;
 	}
 
+	/**
+	 * Builds a balanced tree containing the given points, where the i-th row of 
+	 * points is stored with the i-th store value. In contrast to the successive
+	 * insertion via {@link #add(double[], Object)} the depth of the tree does not
+	 * depend on the order of the points.
+	 */
+	public KDTree(double[][] points, List<T> storeValues, DistanceMeasure distance) {
+		this((points.length > 0) ? points[0].length : 0, distance);
+		if (points.length > 0)
+			this.root = buildTree(points, storeValues);
+	}
+
+	private KDTreeNode<T> buildTree(final double[][] points, List<T> storeValues) {
+		Integer[] order = new Integer[points.length];
+		for (int i = 0; i < order.length; i++)
+			order[i] = i;
+
+		// the ranges of order which still have to be split, their depth and their father
+		Stack<int[]> rangeStack = new Stack<int[]>();
+		Stack<KDTreeNode<T>> fatherStack = new Stack<KDTreeNode<T>>();
+		rangeStack.push(new int[] { 0, order.length, 0 });
+		fatherStack.push(null);
+		KDTreeNode<T> treeRoot = null;
+		while (!rangeStack.isEmpty()) {
+			int[] range = rangeStack.pop();
+			KDTreeNode<T> father = fatherStack.pop();
+			int start = range[0];
+			int end = range[1];
+			final int dimension = range[2] % k;
+			Arrays.sort(order, start, end, new Comparator<Integer>() {
+				public int compare(Integer i1, Integer i2) {
+					return Double.compare(points[i1][dimension], points[i2][dimension]);
+				}
+			});
+			// all points equal to the median in this dimension have to become greater children
+			int median = (start + end) / 2;
+			while (median > start && points[order[median - 1]][dimension] == points[order[median]][dimension])
+				median--;
+			KDTreeNode<T> node = new KDTreeNode<T>(points[order[median]], storeValues.get(order[median]), dimension);
+			if (father == null) {
+				treeRoot = node;
+			} else {
+				father.setChild(node);
+			}
+			if (start < median) {
+				rangeStack.push(new int[] { start, median, range[2] + 1 });
+				fatherStack.push(node);
+			}
+			if (median + 1 < end) {
+				rangeStack.push(new int[] { median + 1, end, range[2] + 1 });
+				fatherStack.push(node);
+			}
+		}
+		return treeRoot;
+	}
+
 	public void add(double[] values, T storeValue) {
 		if (root == null) {
+			if (k == 0)
+				k = values.length;
 			this.root = new KDTreeNode<T>(values, storeValue, 0);			
 		} else {
 			int currentDimension = 0;
@@ -93,6 +154,48 @@ public class KDTree<T> implements GeometricDataCollection<T> {
 		return neighboursList;
 	}
 	
+	/**
+	 * Returns the values of all points within maxDistance of the given point. The far
+	 * child of a node is only visited if the distance in the compare dimension alone
+	 * does not exceed maxDistance, which holds for all Minkowski distances.
+	 */
+	public Collection<T> getValuesInRange(double maxDistance, double[] values) {
+		LinkedList<T> resultList = new LinkedList<T>();
+		searchRange(maxDistance, values, resultList, null);
+		return resultList;
+	}
+
+	public Collection<Tupel<Double, T>> getValueDistancesInRange(double maxDistance, double[] values) {
+		LinkedList<Tupel<Double, T>> resultList = new LinkedList<Tupel<Double, T>>();
+		searchRange(maxDistance, values, null, resultList);
+		return resultList;
+	}
+
+	/** Adds the values (and distances if a tupel list is given) of all points in range to the given lists. */
+	private void searchRange(double maxDistance, double[] values, List<T> valueList, List<Tupel<Double, T>> tupelList) {
+		if (root == null)
+			return;
+		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
+		nodeStack.push(root);
+		while (!nodeStack.isEmpty()) {
+			KDTreeNode<T> currentNode = nodeStack.pop();
+			double currentDistance = distance.calculateDistance(currentNode.getValues(), values);
+			if (currentDistance <= maxDistance) {
+				if (tupelList != null) {
+					tupelList.add(new Tupel<Double, T>(currentDistance, currentNode.getStoreValue()));
+				} else {
+					valueList.add(currentNode.getStoreValue());
+				}
+			}
+			// lesser child contains values smaller than compare value, greater all others
+			double difference = values[currentNode.getCompareDimension()] - currentNode.getCompareValue();
+			if (currentNode.getLesserChild() != null && difference < maxDistance)
+				nodeStack.push(currentNode.getLesserChild());
+			if (currentNode.getGreaterChild() != null && -difference <= maxDistance)
+				nodeStack.push(currentNode.getGreaterChild());
+		}
+	}
+	
 	private BoundedPriorityQueue<Tupel<Double, KDTreeNode<T>>> getNearestNodes(int k, double[] values) {
 		Stack<KDTreeNode<T>> nodeStack = new Stack<KDTreeNode<T>>();
 		// first doing initial search for nearest Node
@@ -107,9 +210,10 @@ public class KDTree<T> implements GeometricDataCollection<T> {
 			KDTreeNode<T> currentNode = nodeStack.pop();
 			Tupel<Double, KDTreeNode<T>> currentTupel = new Tupel<Double, KDTreeNode<T>>(distance.calculateDistance(currentNode.getValues(), values), currentNode);
 			priorityQueue.add(currentTupel);
-			// now check if far children has to be regarded
+			// now check if far children has to be regarded: all points there differ at least by the
+			// distance to the compare value in the compare dimension
 			if (!priorityQueue.isFilled() || 
-					priorityQueue.peek().getFirst().doubleValue() > currentNode.getCompareValue() - values[currentNode.getCompareDimension()]) {
+					priorityQueue.peek().getFirst().doubleValue() >= Math.abs(currentNode.getCompareValue() - values[currentNode.getCompareDimension()])) {
 				// if needs to be checked, traverse tree to nearest leaf
 				if (currentNode.hasFarChild(values))
 					traverseTree(nodeStack, currentNode.getFarChild(values), values);
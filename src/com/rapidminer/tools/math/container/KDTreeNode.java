@@ -84,7 +84,7 @@ public class KDTreeNode<T> {
 		return storeValue;
 	}
 
-	public KDTreeNode getLesserChild() {
+	public KDTreeNode<T> getLesserChild() {
 		return lesserChild;
 	}
 
@@ -24,6 +24,7 @@ package com.rapidminer.tools.math.container;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import com.rapidminer.tools.Tupel;
 import com.rapidminer.tools.math.similarity.DistanceMeasure;
@@ -39,7 +40,7 @@ import com.rapidminer.tools.math.similarity.DistanceMeasure;
  * @param <T> This is the type of value with is stored with the points and retrieved on nearest
  * neighbour search
  */
-public class LinearList<T> implements GeometricDataCollection<T> {
+public class LinearList<T> extends AbstractGeometricDataCollection<T> {
 
 	DistanceMeasure distance;
 	ArrayList<double[]> samples = new ArrayList<double[]>();
@@ -48,6 +49,16 @@ public class LinearList<T> implements GeometricDataCollection<T> {
 	public LinearList(DistanceMeasure distance) {
 		this.distance = distance;
 	}
+
+	/** Creates a list containing the given points, where the i-th row of points is stored with the i-th store value. */
+	public LinearList(double[][] points, List<T> storeValues, DistanceMeasure distance) {
+		this(distance);
+		this.samples.ensureCapacity(points.length);
+		this.storedValues.ensureCapacity(points.length);
+		for (int i = 0; i < points.length; i++) {
+			add(points[i], storeValues.get(i));
+		}
+	}
 	
 	public void add(double[] values, T storeValue) {
 		this.samples.add(values);
@@ -83,4 +94,27 @@ public class LinearList<T> implements GeometricDataCollection<T> {
 		}
 		return result;
 	}
+
+	public Collection<T> getValuesInRange(double maxDistance, double[] values) {
+		Collection<T> result = new ArrayList<T>();
+		int i = 0;
+		for (double[] sample: this.samples) {
+			if (distance.calculateDistance(sample, values) <= maxDistance)
+				result.add(storedValues.get(i));
+			i++;
+		}
+		return result;
+	}
+
+	public Collection<Tupel<Double, T>> getValueDistancesInRange(double maxDistance, double[] values) {
+		Collection<Tupel<Double, T>> result = new ArrayList<Tupel<Double, T>>();
+		int i = 0;
+		for (double[] sample: this.samples) {
+			double currentDistance = distance.calculateDistance(sample, values);
+			if (currentDistance <= maxDistance)
+				result.add(new Tupel<Double, T>(currentDistance, storedValues.get(i)));
+			i++;
+		}
+		return result;
+	}
 }
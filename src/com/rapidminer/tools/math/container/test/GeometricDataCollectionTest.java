@@ -0,0 +1,156 @@
+/*
+ *  RapidMiner
+ *
+ *  Copyright (C) 2001-2008 by Rapid-I and the contributors
+ *
+ *  Complete list of developers available at our web site:
+ *
+ *       http://rapid-i.com
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU Affero General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU Affero General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Affero General Public License
+ *  along with this program.  If not, see http://www.gnu.org/licenses/.
+ */
+package com.rapidminer.tools.math.container.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.tools.Tupel;
+import com.rapidminer.tools.math.container.BallTree;
+import com.rapidminer.tools.math.container.GeometricDataCollection;
+import com.rapidminer.tools.math.container.KDTree;
+import com.rapidminer.tools.math.container.LinearList;
+import com.rapidminer.tools.math.similarity.DistanceMeasure;
+import com.rapidminer.tools.math.similarity.numerical.EuclideanDistance;
+import com.rapidminer.tools.math.similarity.numerical.ManhattanDistance;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the range queries of the trees against the linear search.
+ */
+public class GeometricDataCollectionTest extends TestCase {
+
+	private static final int NUMBER_OF_POINTS = 500;
+	
+	private double[][] points;
+	
+	public void setUp() throws Exception {
+		super.setUp();
+		Random random = new Random(0);
+		points = new double[NUMBER_OF_POINTS][];
+		for (int i = 0; i < points.length; i++) {
+			// sorted first dimension and duplicates to check degenerated cases
+			points[i] = new double[] { i / 10, random.nextDouble() * 10, random.nextGaussian() };
+		}
+	}
+
+	private void fill(GeometricDataCollection<Integer> collection) {
+		for (int i = 0; i < points.length; i++) {
+			collection.add(points[i], i);
+		}
+	}
+
+	private List<Integer> sorted(GeometricDataCollection<Integer> collection, double maxDistance, double[] query) {
+		List<Integer> result = new ArrayList<Integer>(collection.getValuesInRange(maxDistance, query));
+		Collections.sort(result);
+		return result;
+	}
+
+	private List<Double> sortedDistances(Collection<Tupel<Double, Integer>> tupels) {
+		List<Double> result = new ArrayList<Double>();
+		for (Tupel<Double, Integer> tupel : tupels)
+			result.add(tupel.getFirst());
+		Collections.sort(result);
+		return result;
+	}
+
+	/** Compares the distances with a tolerance, since the results of Math.pow might differ in the last bit after compilation. */
+	private void assertDistancesEqual(Collection<Tupel<Double, Integer>> expectedTupels, Collection<Tupel<Double, Integer>> tupels) {
+		List<Double> expectedDistances = sortedDistances(expectedTupels);
+		List<Double> distances = sortedDistances(tupels);
+		assertEquals(expectedDistances.size(), distances.size());
+		for (int i = 0; i < distances.size(); i++)
+			assertEquals(expectedDistances.get(i), distances.get(i), 1e-10);
+	}
+
+	private List<Integer> getIndices() {
+		List<Integer> indices = new ArrayList<Integer>(points.length);
+		for (int i = 0; i < points.length; i++)
+			indices.add(i);
+		return indices;
+	}
+
+	private void checkBulkLoadedQueries(DistanceMeasure distance) {
+		LinearList<Integer> linearList = new LinearList<Integer>(points, getIndices(), distance);
+		List<GeometricDataCollection<Integer>> trees = new ArrayList<GeometricDataCollection<Integer>>();
+		trees.add(new KDTree<Integer>(points, getIndices(), distance));
+		trees.add(new BallTree<Integer>(points, getIndices(), distance));
+		Random random = new Random(2);
+		double[][] queries = new double[20][];
+		for (int i = 0; i < queries.length; i++)
+			queries[i] = (i % 2 == 0) ? points[random.nextInt(points.length)] : new double[] { random.nextDouble() * 50, random.nextDouble() * 10, 0 };
+		List<Collection<Tupel<Double, Integer>>> expectedRanges = linearList.getValueDistancesInRange(2.0d, queries);
+		List<Collection<Tupel<Double, Integer>>> expectedNeighbours = linearList.getNearestValueDistances(7, queries);
+		for (GeometricDataCollection<Integer> tree : trees) {
+			List<Collection<Integer>> ranges = tree.getValuesInRange(2.0d, queries);
+			List<Collection<Tupel<Double, Integer>>> rangeDistances = tree.getValueDistancesInRange(2.0d, queries);
+			List<Collection<Tupel<Double, Integer>>> neighbours = tree.getNearestValueDistances(7, queries);
+			for (int i = 0; i < queries.length; i++) {
+				assertEquals(sorted(linearList, 2.0d, queries[i]), sorted(tree, 2.0d, queries[i]));
+				assertEquals(expectedRanges.get(i).size(), ranges.get(i).size());
+				assertDistancesEqual(expectedRanges.get(i), rangeDistances.get(i));
+				assertDistancesEqual(expectedNeighbours.get(i), neighbours.get(i));
+			}
+		}
+	}
+
+	private void checkRangeQueries(DistanceMeasure distance) {
+		LinearList<Integer> linearList = new LinearList<Integer>(distance);
+		KDTree<Integer> kdTree = new KDTree<Integer>(3, distance);
+		BallTree<Integer> ballTree = new BallTree<Integer>(distance);
+		fill(linearList);
+		fill(kdTree);
+		fill(ballTree);
+		Random random = new Random(1);
+		for (int i = 0; i < 50; i++) {
+			double[] query = (i % 2 == 0) ? points[random.nextInt(points.length)] : new double[] { random.nextDouble() * 50, random.nextDouble() * 10, 0 };
+			double maxDistance = random.nextDouble() * 5;
+			List<Integer> expected = sorted(linearList, maxDistance, query);
+			assertEquals(expected, sorted(kdTree, maxDistance, query));
+			assertEquals(expected, sorted(ballTree, maxDistance, query));
+		}
+	}
+	
+	public void testEuclideanRangeQueries() {
+		checkRangeQueries(new EuclideanDistance());
+	}
+
+	public void testManhattanRangeQueries() {
+		checkRangeQueries(new ManhattanDistance());
+	}
+
+	public void testBulkLoadedQueries() {
+		checkBulkLoadedQueries(new EuclideanDistance());
+		checkBulkLoadedQueries(new ManhattanDistance());
+	}
+	
+	public void testEmptyCollection() {
+		assertTrue(new KDTree<Integer>(2, new EuclideanDistance()).getValuesInRange(1.0d, new double[] { 0, 0 }).isEmpty());
+		assertTrue(new BallTree<Integer>(new EuclideanDistance()).getValuesInRange(1.0d, new double[] { 0, 0 }).isEmpty());
+		assertTrue(new KDTree<Integer>(new double[0][], new ArrayList<Integer>(), new EuclideanDistance()).getValuesInRange(1.0d, new double[] { 0, 0 }).isEmpty());
+	}
+}
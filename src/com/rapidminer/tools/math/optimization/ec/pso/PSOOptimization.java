@@ -84,6 +84,19 @@ public abstract class PSOOptimization implements Optimization {
 	 */
 	public abstract PerformanceVector evaluateIndividual(double[] individual) throws OperatorException;
 
+	/**
+	 * Calculates the fitness of all given individuals. The default implementation
+	 * invokes {@link #evaluateIndividual(double[])} for each individual but subclasses 
+	 * might override this method in order to evaluate several individuals at the same time.
+	 */
+	public PerformanceVector[] evaluateIndividuals(double[][] individuals) throws OperatorException {
+		PerformanceVector[] fitnessValues = new PerformanceVector[individuals.length];
+		for (int i = 0; i < individuals.length; i++) {
+			fitnessValues[i] = evaluateIndividual(individuals[i]);
+		}
+		return fitnessValues;
+	}
+
 	/**
 	 * This method is invoked after each evaluation. The default implementation
 	 * does nothing but subclasses might implement this method to support online
@@ -160,12 +173,11 @@ public abstract class PSOOptimization implements Optimization {
 	 * to the population.
 	 */
 	private void evaluate(Population population) throws OperatorException {
-		PerformanceVector[] fitnessValues = new PerformanceVector[population.getNumberOfIndividuals()];
-		for (int i = 0; i < fitnessValues.length; i++) {
-			double[] individual = population.getValues(i);
-			fitnessValues[i] = evaluateIndividual(individual);
+		double[][] individuals = new double[population.getNumberOfIndividuals()][];
+		for (int i = 0; i < individuals.length; i++) {
+			individuals[i] = population.getValues(i);
 		}
-		population.setFitnessVector(fitnessValues);
+		population.setFitnessVector(evaluateIndividuals(individuals));
 	}
 
 	/** Returns the current generation. */
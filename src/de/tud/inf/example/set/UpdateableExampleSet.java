@@ -1,6 +1,8 @@
 package de.tud.inf.example.set;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -10,6 +12,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
+import com.rapidminer.example.ExampleSet;
 import com.rapidminer.example.SimpleAttributes;
 import com.rapidminer.example.set.AbstractExampleSet;
 import com.rapidminer.example.set.SimpleExampleReader;
@@ -75,6 +78,32 @@ public class UpdateableExampleSet extends AbstractExampleSet {
 		}
 	}
 	
+	/**
+	 * Creates an updateable example set with the attributes and attribute roles
+	 * of the given example set. If copyExamples is true, the new set contains the
+	 * data rows of all examples of the given set in their order, otherwise it is
+	 * empty. The data rows are shared with the given example set.
+	 */
+	public static UpdateableExampleSet create(ExampleSet exampleSet, boolean copyExamples) {
+		Map<Attribute, String> specialAttributes = new HashMap<Attribute, String>();
+		Iterator<AttributeRole> roles = exampleSet.getAttributes().specialAttributes();
+		while (roles.hasNext()) {
+			AttributeRole role = roles.next();
+			specialAttributes.put(role.getAttribute(), role.getSpecialName());
+		}
+		List<Attribute> regularAttributes = new ArrayList<Attribute>();
+		Iterator<Attribute> attributes = exampleSet.getAttributes().allAttributes();
+		while (attributes.hasNext()) {
+			regularAttributes.add(attributes.next());
+		}
+		UpdateableMemoryExampleTable table = new UpdateableMemoryExampleTable(Arrays.asList(exampleSet.getExampleTable().getAttributes()));
+		if (copyExamples) {
+			for (Example example : exampleSet)
+				table.addDataRow(example.getDataRow());
+		}
+		return new UpdateableExampleSet(table, regularAttributes, specialAttributes);
+	}
+
 	/** Clone constructor. */
 	public UpdateableExampleSet(UpdateableExampleSet exampleSet) {
 		this.attributes = (Attributes) exampleSet.getAttributes().clone();
@@ -112,6 +141,24 @@ public class UpdateableExampleSet extends AbstractExampleSet {
 		exampleTable.addDataRow(example.getDataRow());
 	}
 	
+	/**
+	 * Removes the example with the given index. The indices of the following
+	 * examples are decreased by one. Use {@link #removeExamples(int[])} for
+	 * removing several examples since each removal from the middle of the set
+	 * causes a pass over the remaining examples before the next indexed access.
+	 */
+	public void removeExample(int index) {
+		exampleTable.removeDataRow(index);
+	}
+	
+	/**
+	 * Removes the examples with the given indices in one pass. The indices refer
+	 * to the example set before the removal and might be given in any order.
+	 */
+	public void removeExamples(int[] indices) {
+		exampleTable.removeDataRows(indices);
+	}
+	
 	public void clear() {
 		exampleTable.clear();
 	}
@@ -1,5 +1,6 @@
 package de.tud.inf.example.set.attributevalues;
 
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 /**
  * 
@@ -53,6 +54,15 @@ public class ArrayValue implements ComplexValue{
 				values[i][j] = val[i*dim[1]+j][0];
 	}
 	
+	public void setValues(int d1, int d2, RelationalValues val){
+		this.dim[0] = d1;
+		this.dim[1] = d2;
+		values = new double[dim[0]][dim[1]];
+		for(int i=0;i<values.length;i++)
+			for(int j=0;j<values[i].length;j++)
+				values[i][j] = val.get(i*dim[1]+j, 0);
+	}
+	
 
 }
 	
@@ -11,13 +11,21 @@ import de.tud.inf.example.table.ComplexAttribute;
 
 
 /***
- * creates and manages a list of instantiated ComplexValues
+ * creates and manages a list of instantiated ComplexValues. 
+ * The flyweights are kept per thread, so operators may read complex values on several threads 
+ * at the same time. Values which must survive the next call of getComplexValueFunction on the 
+ * same thread have to be created by createComplexValueFunction.
  * @author Antje Gruner
  * @see ComplexValue
  */
 public class ComplexValueFactory {
 
-	private static Map<String, ComplexValue> flyweightList = new HashMap<String, ComplexValue>();
+	private static final ThreadLocal<Map<String, ComplexValue>> flyweightList = new ThreadLocal<Map<String, ComplexValue>>() {
+		@Override
+		protected Map<String, ComplexValue> initialValue() {
+			return new HashMap<String, ComplexValue>();
+		}
+	};
 	
 	public static ComplexValue getComplexValueFunction(ComplexAttribute a){
 		return getComplexValueFunction(a.getInnerAttributeCount(),a.getValueType(),a.getHint());
@@ -27,12 +35,34 @@ public class ComplexValueFactory {
     	return getComplexValueFunction(0,valueType,hint);
     }
     
+    /**
+     * returns the flyweight of the current thread for the given value type and hint. The instance is 
+     * shared by all callers on this thread, but never by different threads
+     */
     public static ComplexValue getComplexValueFunction(int nrAttributes,int valueType,String hint) throws RuntimeException{
-    	//first of all, check if symbol is already instantiated (appears in flyweightList)
-    	String key = valueType+ getParameterSep()+hint;
-    	if(flyweightList.containsKey(key))
-    		return flyweightList.get(key);
-    	
+    	//first of all, check if symbol is already instantiated (appears in flyweightList of this thread)
+    	Map<String, ComplexValue> threadList = flyweightList.get();
+    	String key = valueType + getParameterSep() + hint;
+    	//the number of inner attributes defines the size of these values
+    	if((valueType == Ontology.HISTOGRAM) || (valueType == Ontology.GAUSS))
+    		key += getParameterSep() + nrAttributes;
+    	ComplexValue cFunc = threadList.get(key);
+    	if(cFunc == null){
+    		cFunc = createComplexValueFunction(nrAttributes, valueType, hint);
+    		if(cFunc != null)
+    			threadList.put(key, cFunc);
+    	}
+    	return cFunc;
+    }
+    
+    public static ComplexValue createComplexValueFunction(ComplexAttribute a){
+		return createComplexValueFunction(a.getInnerAttributeCount(),a.getValueType(),a.getHint());
+	}
+    
+    /**
+     * creates a new ComplexValue which is not shared with any other caller
+     */
+    public static ComplexValue createComplexValueFunction(int nrAttributes,int valueType,String hint) throws RuntimeException{
     	ComplexValue cFunc = null;
 		if((valueType == Ontology.SPARSE_MATRIX) 
 								|| (valueType == Ontology.MATRIX) 
@@ -57,10 +87,8 @@ public class ComplexValueFactory {
 						cFunc = new SimpleMatrixValue(x,y);
 					else if (valueType == Ontology.TENSOR)
 						cFunc = new TensorValue(x,y,false); //TODO: how to check whether simple or sparse tensor????
-					if(cFunc != null){
-						flyweightList.put(key, cFunc);
+					if(cFunc != null)
 						return cFunc;
-					}
 				}
 			}
 			catch(Exception e){
@@ -99,11 +127,7 @@ public class ComplexValueFactory {
 		
 		else if (valueType == Ontology.COMPLEX_VALUE)
 			cFunc = new LinearKorrelation();
-		if(cFunc != null){
-			flyweightList.put(key, cFunc);
-			return cFunc;
-		}
-		return null;  
+		return cFunc;
     }
     
  
@@ -1,5 +1,6 @@
 package de.tud.inf.example.set.attributevalues;
 
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 
 /**
@@ -65,6 +66,16 @@ public class ConstantArrayValue implements ComplexValue{
 				values[i][j] = relationalValues[i*values[0].length + j][0];
 	}
 	
+	/**
+	 * set values from the stored tuples of the relational attribute which is an inner attribute of ArrayAttribute
+	 * @param relationalValues stored tuples of an relationalAttribute with one inner attribute
+	 */
+	public void setValues(RelationalValues relationalValues) {
+		for(int i=0;i<values.length;i++)
+			for(int j=0;j<values[0].length;j++)
+				values[i][j] = relationalValues.get(i*values[0].length + j, 0);
+	}
+	
 	
 	public void setValues2(double[][] val) {
 		for(int i=0;i<values.length;i++)
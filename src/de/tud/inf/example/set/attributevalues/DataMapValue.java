@@ -5,6 +5,7 @@ import java.util.Map;
 
 import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.example.table.PolynominalMapping;
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 
 /**
@@ -75,6 +76,17 @@ public class DataMapValue implements ComplexValue{
 			map.put((int)values[i][0],values[i][1]);
 	}
 	
+	/**
+	 * builds the map from the stored key/value tuples of a data row
+	 */
+	public void setValues(RelationalValues values,NominalMapping keyMapping){
+		if(keyMapping != null)
+			this.keyMapping = keyMapping;
+		map = new HashMap<Integer,Double>();
+		for (int i =0;i<values.getNumberOfTuples();i++)
+			map.put((int)values.get(i, 0),values.get(i, 1));
+	}
+	
 	public void setValues(String[] keys, double[] values){
 		map = new HashMap<Integer, Double>();
 		keyMapping = new PolynominalMapping();
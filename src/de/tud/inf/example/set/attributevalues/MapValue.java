@@ -2,6 +2,7 @@ package de.tud.inf.example.set.attributevalues;
 
 import com.rapidminer.example.table.NominalMapping;
 import com.rapidminer.example.table.PolynominalMapping;
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 
 /**
@@ -37,6 +38,17 @@ public class MapValue implements ComplexValue {
 	 * features z = f(x,y) of this map
 	 */
 	private double[] zValues = new double[0];
+	
+	/**
+	 * position of the first z value in zValues and number of z values 
+	 */
+	private int zOffset = 0;
+	private int zLength = 0;
+	
+	/**
+	 * true if zValues is the storage of a data row, which must not be modified
+	 */
+	private boolean zShared = false;
 
 	private NominalMapping nm; 
 	
@@ -48,6 +60,7 @@ public class MapValue implements ComplexValue {
 		this.origin = origin;
 		this.dimension = dimension;
 		zValues =  new double[dimension[0] * dimension[1]];
+		zLength = zValues.length;
 		int min = Math.min(values.length, zValues.length);
 		// set values
 		for (int i = 0; i < min; i++)
@@ -66,27 +79,27 @@ public class MapValue implements ComplexValue {
 
 	public String getStringRepresentation(int digits, boolean quoteWhitespace) {
 		StringBuffer buf = new StringBuffer();
-		int plotNr = Math.min(zValues.length,mxPlotValues);
+		int plotNr = Math.min(zLength,mxPlotValues);
 		if(nm == null){
 
 			switch (digits) {
 			case UNLIMITED_NUMBER_OF_DIGITS:
 				for (int i=0; i< plotNr;i++){
-					buf.append(zValues[i]);
+					buf.append(zValues[zOffset + i]);
 					buf.append(" ");
 					if(i % dimension[1] == (dimension[1])-1)
 						buf.append("| ");
 				}
 			case DEFAULT_NUMBER_OF_DIGITS:
 				for (int i=0; i< plotNr;i++){
-					buf.append(com.rapidminer.tools.Tools.formatIntegerIfPossible(zValues[i],-1));
+					buf.append(com.rapidminer.tools.Tools.formatIntegerIfPossible(zValues[zOffset + i],-1));
 					buf.append(" ");
 					if(i % dimension[1] == (dimension[1])-1)
 						buf.append("| ");
 				}
 			default:
 				for (int i=0; i< plotNr;i++){
-					buf.append(com.rapidminer.tools.Tools.formatIntegerIfPossible(zValues[i],digits));
+					buf.append(com.rapidminer.tools.Tools.formatIntegerIfPossible(zValues[zOffset + i],digits));
 					buf.append(" ");
 					if(i % dimension[1] == (dimension[1])-1)
 						buf.append("| ");
@@ -96,7 +109,7 @@ public class MapValue implements ComplexValue {
 		}
 		else{
 			for (int i=0; i< plotNr;i++){
-				buf.append(nm.mapIndex((int)zValues[i]));
+				buf.append(nm.mapIndex((int)zValues[zOffset + i]));
 				buf.append(" ");
 				if(i % dimension[1] == (dimension[1])-1)
 					buf.append("| ");
@@ -123,7 +136,7 @@ public class MapValue implements ComplexValue {
 			// -> yes
 			int ix = (int) ((x - origin[0]) / spacing[0]);
 			int iy = (int) ((y - origin[1]) / spacing[1]);
-			return zValues[ix * dimension[1] + iy];
+			return zValues[zOffset + ix * dimension[1] + iy];
 		} else {
 			
 			// do a bilinear interpolation
@@ -140,7 +153,7 @@ public class MapValue implements ComplexValue {
 	 * @return z value 
 	 */
 	public double getValueAtId(int idX, int idY) {
-		return zValues[idX * dimension[1] + idY];
+		return zValues[zOffset + idX * dimension[1] + idY];
 	}
 	
 
@@ -160,7 +173,7 @@ public class MapValue implements ComplexValue {
 	 * @return z value 
 	 */
 	public String getStringValueAtId(int idX, int idY) {
-		return nm.mapIndex((int)zValues[idX * dimension[1] + idY]);
+		return nm.mapIndex((int)zValues[zOffset + idX * dimension[1] + idY]);
 	}
 	
 
@@ -174,7 +187,7 @@ public class MapValue implements ComplexValue {
 	public String getStringValueAt(double x, double y) {
 		int ix = (int) ((x - origin[0]) / spacing[0]);
 		int iy = (int) ((y - origin[1]) / spacing[1]);
-		return nm.mapIndex((int) zValues[ix * dimension[1] + iy]);
+		return nm.mapIndex((int) zValues[zOffset + ix * dimension[1] + iy]);
 	}
 	
 	/**
@@ -183,7 +196,7 @@ public class MapValue implements ComplexValue {
 	 * @return mapped value
 	 */
 	public String getStringValueAt(int id) {
-		return nm.mapIndex((int)zValues[id]);
+		return nm.mapIndex((int)zValues[zOffset + id]);
 	}
 	
 
@@ -206,6 +219,9 @@ public class MapValue implements ComplexValue {
 		dimension[1] = dim[1];
 		// create new map array
 		zValues = new double[dimension[0] * dimension[1]];
+		zOffset = 0;
+		zLength = zValues.length;
+		zShared = false;
 		
 		int min = Math.min(z.length, zValues.length);
 		// set values
@@ -213,6 +229,49 @@ public class MapValue implements ComplexValue {
 			zValues[i] = z[i];
 		this.nm = nm;
 	}
+	
+	/**
+	 * sets the values of this map without copying the z values, if possible. The z values are only 
+	 * copied if they are modified later on
+	 * @param z
+	 *            stored values of f(x,y), one value per tuple
+	 * @param o
+	 *            origin
+	 * @param s
+	 *            spacing
+	 * @param dim   dimension vector (nr entries)
+	 */
+	public void setValues(RelationalValues z, double[] o, double[] s, int[] dim, NominalMapping nm) {
+		int length = dim[0] * dim[1];
+		if ((z.getTupleSize() == 1) && (z.getNumberOfTuples() >= length)) {
+			spacing[0] = s[0];
+			spacing[1] = s[1];
+			origin[0] = o[0];
+			origin[1] = o[1];
+			dimension[0] = dim[0];
+			dimension[1] = dim[1];
+			zValues = z.getData();
+			zOffset = z.getOffset();
+			zLength = length;
+			zShared = true;
+			this.nm = nm;
+		} else {
+			setValues(z.getColumn(0), o, s, dim, nm);
+		}
+	}
+	
+	/**
+	 * copies the z values into an array of its own if they are shared with the data row
+	 */
+	private void ensureOwnValues() {
+		if (zShared) {
+			double[] own = new double[zLength];
+			System.arraycopy(zValues, zOffset, own, 0, zLength);
+			zValues = own;
+			zOffset = 0;
+			zShared = false;
+		}
+	}
 
 	public double[] getSpacing() {
 		return spacing;
@@ -226,31 +285,43 @@ public class MapValue implements ComplexValue {
 		return dimension;
 	}
 
+	/**
+	 * returns the z values of this map, changes of the returned array change this map
+	 */
 	public double[] getZValues() {
+		ensureOwnValues();
 		return zValues;
 	}
 	
+	/**
+	 * @param id position in z array
+	 * @return z value at the given position
+	 */
+	public double getZValue(int id) {
+		return zValues[zOffset + id];
+	}
+	
 	public int getMapSize(){
-		return zValues.length;
+		return zLength;
 	}
 	
 	public double getAverage(){
 		double sum =0;
-		for(int i =0;i<zValues.length;i++)
-			sum += zValues[i];
-		return sum/zValues.length;
+		for(int i =0;i<zLength;i++)
+			sum += zValues[zOffset + i];
+		return sum/zLength;
 	}
 	
 	public double getVariance(){
 		 double avg = getAverage();
 		 double squaredSum =0;
 		 double deviation;
-		 for(int i =0;i<zValues.length;i++) {
-			 deviation = zValues[i] - avg;
+		 for(int i =0;i<zLength;i++) {
+			 deviation = zValues[zOffset + i] - avg;
 			 squaredSum += deviation*deviation;
 		 }
 			// squaredSum += zValues[i]*zValues[i];
-		 return squaredSum / (zValues.length-1);
+		 return squaredSum / (zLength-1);
 	}
 	
 	/**
@@ -276,6 +347,7 @@ public class MapValue implements ComplexValue {
 	 * @param str
 	 */
 	public void mapValueAt(int zId, String str){
+		ensureOwnValues();
 		zValues[zId] = nm.mapString(str);	
 	}
 	
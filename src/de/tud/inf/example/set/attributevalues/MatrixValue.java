@@ -1,10 +1,17 @@
 package de.tud.inf.example.set.attributevalues;
 
+import com.rapidminer.example.table.RelationalValues;
+
 public interface MatrixValue {
 
 	public void print(int cWidth, int nrDig);
 	
 	public void setValues(double[][] values);
 	
+	/**
+	 * reads the entries directly from the stored relational values of a data row
+	 */
+	public void setValues(RelationalValues values);
+	
 	public Double getValueAt(int x, int y);
 }
@@ -1,5 +1,7 @@
 package de.tud.inf.example.set.attributevalues;
 
+import com.rapidminer.example.table.RelationalValues;
+
 
 /**
  * manages a simple matrix
@@ -38,5 +40,14 @@ public class SimpleMatrixValue extends AbstractMatrixValue{
 		}
 	}
 
+	public void setValues(RelationalValues values) {
+		if(values != null){
+			int nrColumns = m.getColumnDimension();
+			int size = Math.min(values.getNumberOfTuples(),m.getRowDimension()*nrColumns);
+			for(int i=0;i< size;i++)
+				m.set(i/nrColumns, i%nrColumns, values.get(i, 0));
+		}
+	}
+
 	
 }
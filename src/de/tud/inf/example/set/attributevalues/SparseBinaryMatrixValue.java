@@ -1,5 +1,7 @@
 package de.tud.inf.example.set.attributevalues;
 
+import com.rapidminer.example.table.RelationalValues;
+
 
 public class SparseBinaryMatrixValue extends SparseMatrixValue{
 
@@ -18,6 +20,13 @@ public class SparseBinaryMatrixValue extends SparseMatrixValue{
 			this.set((int)values[i][0]);
 		}
 	}
+
+	@Override
+	public void setValues(RelationalValues values) {
+		//assume that all tuples have one entry
+		for(int i=0;i<values.getNumberOfTuples();i++)
+			this.set((int)values.get(i, 0));
+	}
 	
 
 }
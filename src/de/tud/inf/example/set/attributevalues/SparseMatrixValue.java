@@ -1,5 +1,7 @@
 package de.tud.inf.example.set.attributevalues;
 
+import com.rapidminer.example.table.RelationalValues;
+
 
 /**
  * creates a matrix from key/value pairs, i.e. entries which are not set remain zero 
@@ -31,6 +33,12 @@ public class SparseMatrixValue extends AbstractMatrixValue{
 		}
 	}
 
+	public void setValues(RelationalValues values) {
+		//assume that all tuples have two entries
+		for(int i=0;i<values.getNumberOfTuples();i++)
+			this.set((int)values.get(i, 0),values.get(i, 1));
+	}
+
 	
 	
 	
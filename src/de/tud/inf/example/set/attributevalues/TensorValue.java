@@ -1,5 +1,6 @@
 package de.tud.inf.example.set.attributevalues;
 
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 /**
  * d-tensor implementation with the same number of entries for each dimension d
@@ -82,6 +83,21 @@ public class TensorValue implements ComplexValue{
 				values[i] = newValues[i][0];
 		}
 	}
+	
+	public void setValues(RelationalValues newValues){
+		if(isSparse){ //sparse tensor -> key value tuples
+			for(int i =0;i<newValues.getNumberOfTuples();i++)
+				values[(int)newValues.get(i, 0)] = newValues.get(i, 1);
+		}
+		else{ //simple tensor -> one entry per tuple
+			int end = Math.min(newValues.getNumberOfTuples(),values.length);
+			if(newValues.getTupleSize() == 1)
+				System.arraycopy(newValues.getData(), newValues.getOffset(), values, 0, end);
+			else
+				for(int i=0;i<end;i++)
+					values[i] = newValues.get(i, 0);
+		}
+	}
 
 	public String getStringRepresentation(int digits, boolean quoteWhitespace) {
 		return "NA";
@@ -2,6 +2,7 @@ package de.tud.inf.example.table;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.RelationalValues;
 
 import de.tud.inf.example.set.attributevalues.ArrayValue;
 import de.tud.inf.example.set.attributevalues.ComplexValue;
@@ -40,12 +41,12 @@ public class ArrayAttribute extends ComplexProxyAttribute{
 	@Override
 	public ComplexValue getComplexValue(DataRow row) {
 		ArrayValue mv = (ArrayValue)ComplexValueFactory.getComplexValueFunction(1, getValueType(), this.getHint());
-		double[][]  values = row.getRelativeValuesFor(this.innerAttribute.getTableIndex());
+		RelationalValues values = row.getRelationalValuesFor(this.innerAttribute.getTableIndex());
 		int x = (int)row.get(dim1);
 		int y = (int)row.get(dim2);
 
 		mv.setValues( x,y,values);
-		return null;
+		return mv;
 	}
 
 	@Override
@@ -2,6 +2,7 @@ package de.tud.inf.example.table;
 
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 
 import de.tud.inf.example.set.attributevalues.ComplexValue;
@@ -38,7 +39,7 @@ public class ConstantArrayAttribute extends ComplexProxyAttribute{
 	@Override
 	public ComplexValue getComplexValue(DataRow row) {
 		ConstantArrayValue aValue = (ConstantArrayValue)ComplexValueFactory.getComplexValueFunction(getValueType(), getHint());
-		double[][] values = row.getRelativeValuesFor(innerAttribute.getTableIndex());
+		RelationalValues values = row.getRelationalValuesFor(innerAttribute.getTableIndex());
 		aValue.setValues(values);
 		return aValue;
 	}
@@ -51,11 +52,11 @@ public class ConstantArrayAttribute extends ComplexProxyAttribute{
 	@Override
 	public void setComplexValue(DataRow row, ComplexValue value) {
 		double[][] values = ((ConstantArrayValue)value).getValues(); 
-		double[][] relValues = new double[values.length * values[0].length][1];
+		double[] relValues = new double[values.length * values[0].length];
 		for (int i=0;i<values.length;i++)
 			for (int j=0;j<values[0].length;j++)
-				relValues[i*values[0].length + j][0] = values[i][j];
-		row.setRelationalValues(this.innerAttribute.getTableIndex(),relValues);	
+				relValues[i*values[0].length + j] = values[i][j];
+		row.setRelationalValues(this.innerAttribute.getTableIndex(),new RelationalValues(relValues));	
 	}
 
 	@Override
@@ -5,6 +5,7 @@ import java.util.Map;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 
 import de.tud.inf.example.set.attributevalues.ComplexValue;
@@ -50,11 +51,11 @@ public class DataMapAttribute extends ComplexProxyAttribute{
 	@Override
 	public DataMapValue getComplexValue(DataRow row) {
 		DataMapValue dMapVal = (DataMapValue)ComplexValueFactory.getComplexValueFunction(getValueType(),this.hint);
-		double[][]  values = row.getRelativeValuesFor(this.innerAttribute.getTableIndex());
+		RelationalValues values = row.getRelationalValuesFor(this.innerAttribute.getTableIndex());
 		//build map
 		if(innerAttribute.getInnerAttributeAt(0).isNominal())
 			dMapVal.setValues(values,innerAttribute.getInnerAttributeAt(0).getMapping());		
-		else 		dMapVal.setValues(values);
+		else 		dMapVal.setValues(values,null);
 		return dMapVal;
 	}
 
@@ -7,6 +7,7 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.table.AttributeFactory;
 import com.rapidminer.example.table.DataRow;
 import com.rapidminer.example.table.NominalMapping;
+import com.rapidminer.example.table.RelationalValues;
 import com.rapidminer.tools.Ontology;
 
 import de.tud.inf.example.set.attributevalues.ComplexValue;
@@ -61,14 +62,12 @@ public class MapAttribute extends ComplexProxyAttribute{
 		double[] origin  = {parameters.get(0).getValue(row), parameters.get(1).getValue(row)};
 		double[] spacing = {parameters.get(2).getValue(row), parameters.get(3).getValue(row)}; 
 		int[]    extent  = {(int)parameters.get(4).getValue(row), (int)parameters.get(5).getValue(row)}; 
-		double[][] values = row.getRelativeValuesFor(getInnerAttribute().getTableIndex());
-		double[] zValues = new double[values.length];
+		RelationalValues values = row.getRelationalValuesFor(getInnerAttribute().getTableIndex());
 		NominalMapping nm = null;
 		if( innerAttribute.getInnerAttributeAt(0).isNominal())
 			nm = innerAttribute.getInnerAttributeAt(0).getMapping();
-		for(int i =0;i<values.length;i++)
-				zValues[i] = values[i][0];
-		mv.setValues(zValues,origin,spacing,extent,nm);
+		//wraps the stored z values without copying them
+		mv.setValues(values,origin,spacing,extent,nm);
 		return mv;
 	}
 
@@ -98,26 +97,23 @@ public class MapAttribute extends ComplexProxyAttribute{
 		if(mv.hasMapping()){
 			NominalMapping attrMapping = innerAttribute.getInnerAttributeAt(0).getMapping();
 			NominalMapping objMapping = mv.getMapping();
-			double[] values = mv.getZValues();
-			//create 2d-double array
-			double[][] rValues = new double[values.length][1];
+			//create flat array with one value per tuple
+			double[] rValues = new double[mv.getMapSize()];
 			for(int i=0;i<rValues.length;i++){
 				//get string value at position i from object mapping, map that string to an index (via attribute mapping)
 				//store resulting index into dataRow
-				rValues[i][0] =  attrMapping.mapString(objMapping.mapIndex((int)values[i]));
+				rValues[i] =  attrMapping.mapString(objMapping.mapIndex((int)mv.getZValue(i)));
 			}		
-			row.setRelationalValues(innerAttribute.getTableIndex(), rValues);
+			row.setRelationalValues(innerAttribute.getTableIndex(), new RelationalValues(rValues));
 			
 		}
 		else{
-			//set z values
-			double[] values = mv.getZValues();
-			//create 2d-double array
-			double[][] rValues = new double[values.length][1];
+			//set z values, the row gets a copy of its own
+			double[] rValues = new double[mv.getMapSize()];
 			for(int i=0;i<rValues.length;i++){
-				rValues[i][0] = values[i];
+				rValues[i] = mv.getZValue(i);
 			}		
-			row.setRelationalValues(innerAttribute.getTableIndex(), rValues);
+			row.setRelationalValues(innerAttribute.getTableIndex(), new RelationalValues(rValues));
 		}
 	}
 
@@ -1,6 +1,7 @@
 package de.tud.inf.example.table;
 
 import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.RelationalValues;
 
 import de.tud.inf.example.set.attributevalues.AbstractMatrixValue;
 import de.tud.inf.example.set.attributevalues.ComplexValue;
@@ -19,7 +20,7 @@ public class MatrixAttribute extends ComplexProxyAttribute{
 	public AbstractMatrixValue getComplexValue(DataRow row) {
 		//all matrices are instantiated with one relational attribute, which can have different number of inner attributes,
 		//but checking in complexArffChecker
-		double[][]  values = row.getRelativeValuesFor(this.innerAttribute.getTableIndex());
+		RelationalValues values = row.getRelationalValuesFor(this.innerAttribute.getTableIndex());
 		AbstractMatrixValue m = (AbstractMatrixValue)ComplexValueFactory.getComplexValueFunction(getValueType(),this.hint);
 		if(m != null)
 			m.setValues(values);
@@ -1,6 +1,7 @@
 package de.tud.inf.example.table;
 
 import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.RelationalValues;
 
 import de.tud.inf.example.set.attributevalues.ComplexValue;
 import de.tud.inf.example.set.attributevalues.ComplexValueFactory;
@@ -28,9 +29,9 @@ public class TensorAttribute extends ComplexProxyAttribute{
 	public TensorValue getComplexValue(DataRow row) {
 		//all matrices are instantiated with one relational attribute, which can have different number of inner attributes,
 		//but checking in complexArffChecker
-		double[][]  values    = row.getRelativeValuesFor(this.innerAttribute.getTableIndex());
+		RelationalValues values = row.getRelationalValuesFor(this.innerAttribute.getTableIndex());
 		TensorValue t = (TensorValue)ComplexValueFactory.getComplexValueFunction(getValueType(),this.hint);
-		if(t != null)
+		if((t != null) && (values != null))
 			t.setValues(values);
 		return t;
 	}
@@ -9,6 +9,17 @@ public interface UpdateableExampleTable extends ExampleTable {
 	 */
 	public void addDataRow(DataRow dataRow);
 	
+	/**
+	 * Removes the data row with the given index and returns it.
+	 */
+	public DataRow removeDataRow(int index);
+	
+	/**
+	 * Removes the data rows with the given indices. The indices refer to the
+	 * table before the removal.
+	 */
+	public void removeDataRows(int[] indices);
+	
 	/**
 	 * Clear the example table.
 	 */
@@ -1,9 +1,8 @@
 package de.tud.inf.example.table;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Random;
 
 import com.rapidminer.example.Attribute;
@@ -13,13 +12,31 @@ import com.rapidminer.example.table.DataRowFactory;
 import com.rapidminer.example.table.DataRowReader;
 import com.rapidminer.example.table.DoubleArrayDataRow;
 import com.rapidminer.example.table.ExampleTable;
-import com.rapidminer.example.table.ListDataRowReader;
 
+/**
+ * An example table which allows to add and remove data rows. The data rows are
+ * kept in an array, so indexed access and appending take constant (amortized)
+ * time. Rows removed from the front or the end of the table are dropped
+ * immediately, rows removed from the middle are only marked as removed and the
+ * array is compacted once before the next indexed access. Hence removing many
+ * rows costs a single pass over the table.
+ */
 public class UpdateableMemoryExampleTable extends AbstractExampleTable implements UpdateableExampleTable {
 	private static final long serialVersionUID = 6185821259728827238L;
+
+	private static final int INITIAL_CAPACITY = 16;
 	
-	/** List of {@link DataRow}s. */
-	private List<DataRow> dataList = new LinkedList<DataRow>();
+	/** The {@link DataRow}s. Removed rows are null. */
+	private DataRow[] dataRows = new DataRow[INITIAL_CAPACITY];
+
+	/** The position of the first row in the array. */
+	private int start = 0;
+
+	/** The position after the last row in the array. */
+	private int end = 0;
+
+	/** The number of rows between start and end which are marked as removed. */
+	private int removed = 0;
 	
 	public UpdateableMemoryExampleTable(List<Attribute> attributes) {
 		super(attributes);
@@ -36,25 +53,16 @@ public class UpdateableMemoryExampleTable extends AbstractExampleTable implement
 
 	public UpdateableMemoryExampleTable(List<Attribute> attributes, DataRowFactory factory, int size) {
 		this(attributes);
-		dataList = new ArrayList<DataRow>(size);
+		dataRows = new DataRow[Math.max(size, INITIAL_CAPACITY)];
 		for (int i = 0; i < size; i++) {
 			DataRow dataRow = factory.create(attributes.size());
 			for (Attribute attribute : attributes) {
 				dataRow.set(attribute, Double.NaN);
 			}
-			dataList.add(dataRow);
+			dataRows[i] = dataRow;
 		}
+		end = size;
 	}
-	
-//	public UpdateableMemoryExampleTable(UpdateableMemoryExampleTable exampleTable) {
-//		Attribute[] attribs = exampleTable.getAttributes();
-//		List<Attribute> attribList = new LinkedList<Attribute>();
-//		for (Attribute attribute : attribs) {
-//			attribList.add(attribute);
-//		}
-//		addAttributes(attribList);
-//		this.dataList = new LinkedList(exampleTable.dataList);
-//	}
 
 	public void readExamples(DataRowReader i) {
 		readExamples(i, false);
@@ -65,48 +73,135 @@ public class UpdateableMemoryExampleTable extends AbstractExampleTable implement
     }
     
 	public void readExamples(DataRowReader i, boolean permutate, Random random) {
-		dataList.clear();
-		while (i.hasNext()) {
-			if (permutate) {
-				int index = random.nextInt(dataList.size() + 1);
-				dataList.add(index, i.next());
-			} else {
-				dataList.add(i.next());
+		clear();
+		while (i.hasNext())
+			addDataRow(i.next());
+		if (permutate) {
+			// Fisher-Yates shuffle of the rows
+			for (int r = end - 1; r > start; r--) {
+				int other = start + random.nextInt(r - start + 1);
+				DataRow swap = dataRows[r];
+				dataRows[r] = dataRows[other];
+				dataRows[other] = swap;
 			}
 		}
 	}
 
+	/** Returns a reader delivering all rows which are not removed. */
 	public DataRowReader getDataRowReader() {
-		return new ListDataRowReader(dataList.iterator());
+		return new UpdateableDataRowReader();
 	}
 
 	public DataRow getDataRow(int index) {
-		return dataList.get(index);
+		if ((index < 0) || (index >= size()))
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+		compact();
+		return dataRows[start + index];
 	}
 
 	public int size() {
-		return dataList.size();
+		return end - start - removed;
 	}
 
 	public void addDataRow(DataRow dataRow) {
-		dataList.add(dataRow);
+		if (end == dataRows.length) {
+			int size = end - start;
+			if ((removed > 0) || (start >= dataRows.length / 2)) {
+				// reuse the space of the removed rows
+				compact();
+				if (start > 0) {
+					System.arraycopy(dataRows, start, dataRows, 0, size);
+					Arrays.fill(dataRows, size, end, null);
+					start = 0;
+					end = size;
+				}
+			}
+			if (end == dataRows.length)
+				dataRows = Arrays.copyOf(dataRows, dataRows.length + (dataRows.length >> 1) + 1);
+		}
+		dataRows[end++] = dataRow;
 	}
 
+	/** Removes the given data row. The rows are compared by identity. */
 	public boolean removeDataRow(DataRow dataRow) {
-		return dataList.remove(dataRow);
+		for (int i = start; i < end; i++) {
+			if (dataRows[i] == dataRow) {
+				removePosition(i);
+				return true;
+			}
+		}
+		return false;
 	}
 	
 	public DataRow removeDataRow(int index) {
-		return dataList.remove(index);
+		DataRow dataRow = getDataRow(index);
+		removePosition(start + index);
+		return dataRow;
+	}
+
+	/**
+	 * Removes the data rows with the given indices. The indices refer to the
+	 * table before the removal and might be given in any order. The remaining
+	 * rows are compacted once before the next indexed access.
+	 */
+	public void removeDataRows(int[] indices) {
+		compact();
+		for (int index : indices) {
+			if ((index < 0) || (index >= end - start))
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + (end - start));
+			if (dataRows[start + index] != null) {
+				dataRows[start + index] = null;
+				removed++;
+			}
+		}
+		trimRemoved();
 	}
 	
 	public void clear() {
-		dataList.clear();
+		Arrays.fill(dataRows, start, end, null);
+		start = 0;
+		end = 0;
+		removed = 0;
 	}
 	
 	public synchronized int addAttribute(Attribute attribute) {
 		return super.addAttribute(attribute);
 	}
+
+	/** Removes the row at the given position of the array. */
+	private void removePosition(int position) {
+		dataRows[position] = null;
+		removed++;
+		trimRemoved();
+	}
+
+	/** Drops removed rows at the front and the end of the table. */
+	private void trimRemoved() {
+		while ((start < end) && (dataRows[start] == null)) {
+			start++;
+			removed--;
+		}
+		while ((end > start) && (dataRows[end - 1] == null)) {
+			end--;
+			removed--;
+		}
+		if (start == end)
+			start = end = 0;
+	}
+
+	/** Moves all rows which are not removed to the front of the used range. */
+	private void compact() {
+		if (removed == 0)
+			return;
+		int target = start;
+		for (int i = start; i < end; i++) {
+			if (dataRows[i] != null)
+				dataRows[target++] = dataRows[i];
+		}
+		Arrays.fill(dataRows, target, end, null);
+		end = target;
+		removed = 0;
+	}
     
 	public static UpdateableMemoryExampleTable createCompleteCopy(ExampleTable oldTable) {
 		UpdateableMemoryExampleTable table = new UpdateableMemoryExampleTable(Arrays.asList(oldTable.getAttributes()));
@@ -126,4 +221,28 @@ public class UpdateableMemoryExampleTable extends AbstractExampleTable implement
         }
         return table;
     }
+
+	/** Iterates over all rows which are not removed. */
+	private class UpdateableDataRowReader implements DataRowReader {
+
+		private int next = start;
+
+		public boolean hasNext() {
+			while ((next < end) && (dataRows[next] == null))
+				next++;
+			return next < end;
+		}
+
+		public DataRow next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			return dataRows[next++];
+		}
+
+		/** Will throw a new {@link UnsupportedOperationException} since {@link DataRowReader} does not have
+		 *  to implement remove. */
+		public void remove() {
+			throw new UnsupportedOperationException("The method 'remove' is not supported by DataRowReaders!");
+		}
+	}
 }
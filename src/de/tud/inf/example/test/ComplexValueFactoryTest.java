@@ -0,0 +1,57 @@
+package de.tud.inf.example.test;
+
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+import de.tud.inf.example.set.attributevalues.ComplexValue;
+import de.tud.inf.example.set.attributevalues.ComplexValueFactory;
+
+/**
+ * Tests that the flyweights of the complex value factory are kept per thread
+ * and that values of different sizes do not share a flyweight.
+ */
+public class ComplexValueFactoryTest extends RapidMinerTestCase {
+
+	/** Returns the flyweight which the given values are mapped to on a new thread. */
+	private ComplexValue getOnOtherThread(final int nrAttributes, final int valueType, final String hint) throws InterruptedException {
+		final ComplexValue[] result = new ComplexValue[1];
+		Thread thread = new Thread() {
+			public void run() {
+				result[0] = ComplexValueFactory.getComplexValueFunction(nrAttributes, valueType, hint);
+			}
+		};
+		thread.start();
+		thread.join();
+		return result[0];
+	}
+
+	public void testSameInstanceOnOneThread() {
+		ComplexValue value = ComplexValueFactory.getComplexValueFunction(Ontology.MATRIX, "2_3");
+		assertNotNull(value);
+		assertSame(value, ComplexValueFactory.getComplexValueFunction(Ontology.MATRIX, "2_3"));
+		assertNotSame("other hint", value, ComplexValueFactory.getComplexValueFunction(Ontology.MATRIX, "3_2"));
+		assertNotSame("created value", value, ComplexValueFactory.createComplexValueFunction(0, Ontology.MATRIX, "2_3"));
+	}
+
+	public void testInstancesPerThread() throws InterruptedException {
+		ComplexValue value = ComplexValueFactory.getComplexValueFunction(Ontology.MATRIX, "2_3");
+		ComplexValue other = getOnOtherThread(0, Ontology.MATRIX, "2_3");
+		assertNotNull(other);
+		assertNotSame(value, other);
+		assertNotSame("another thread", other, getOnOtherThread(0, Ontology.MATRIX, "2_3"));
+		assertSame("this thread", value, ComplexValueFactory.getComplexValueFunction(Ontology.MATRIX, "2_3"));
+	}
+
+	public void testSizesNotShared() {
+		int[] valueTypes = { Ontology.HISTOGRAM, Ontology.GAUSS };
+		for (int valueType : valueTypes) {
+			String name = Ontology.ATTRIBUTE_VALUE_TYPE.mapIndex(valueType);
+			ComplexValue small = ComplexValueFactory.getComplexValueFunction(2, valueType, "4");
+			ComplexValue large = ComplexValueFactory.getComplexValueFunction(3, valueType, "4");
+			assertNotNull(name, small);
+			assertNotNull(name, large);
+			assertNotSame(name + " of different sizes", small, large);
+			assertSame(name + " of the same size", small, ComplexValueFactory.getComplexValueFunction(2, valueType, "4"));
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package de.tud.inf.example.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowReader;
+import com.rapidminer.example.table.DoubleArrayDataRow;
+import com.rapidminer.example.table.ListDataRowReader;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+import de.tud.inf.example.table.UpdateableMemoryExampleTable;
+
+/**
+ * Tests the removal of rows from the updateable memory example table against
+ * a list of the expected rows. Rows removed from the middle are only marked
+ * and compacted lazily, so the indices must stay stable in between.
+ */
+public class UpdateableMemoryExampleTableTest extends RapidMinerTestCase {
+
+	private Attribute attribute;
+
+	private UpdateableMemoryExampleTable table;
+
+	private List<DataRow> expected;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		attribute = AttributeFactory.createAttribute("value", Ontology.REAL);
+		expected = new ArrayList<DataRow>();
+		for (int i = 0; i < 40; i++)
+			expected.add(new DoubleArrayDataRow(new double[] { i }));
+		table = new UpdateableMemoryExampleTable(Arrays.asList(new Attribute[] { attribute }), new ListDataRowReader(expected.iterator()));
+		expected = new ArrayList<DataRow>(expected);
+	}
+
+	public void tearDown() throws Exception {
+		attribute = null;
+		table = null;
+		expected = null;
+		super.tearDown();
+	}
+
+	private void assertRows(String message) {
+		assertEquals(message + " size", expected.size(), table.size());
+		for (int i = 0; i < expected.size(); i++)
+			assertSame(message + " indexed row " + i, expected.get(i), table.getDataRow(i));
+		DataRowReader reader = table.getDataRowReader();
+		for (DataRow dataRow : expected)
+			assertSame(message + " read row", dataRow, reader.next());
+		assertFalse(message + " reader exhausted", reader.hasNext());
+	}
+
+	public void testRemove() {
+		assertSame("removed row", expected.remove(5), table.removeDataRow(5));
+		assertSame("removed first row", expected.remove(0), table.removeDataRow(0));
+		assertSame("removed last row", expected.remove(expected.size() - 1), table.removeDataRow(table.size() - 1));
+		DataRow dataRow = expected.remove(10);
+		assertTrue("removed by identity", table.removeDataRow(dataRow));
+		assertFalse("already removed", table.removeDataRow(dataRow));
+		assertRows("remove");
+	}
+
+	public void testRemoveRowsInOnePass() {
+		int[] indices = { 30, 2, 17, 0, 39, 2, 18 };
+		List<DataRow> removed = new ArrayList<DataRow>();
+		for (int index : indices)
+			removed.add(expected.get(index));
+		expected.removeAll(removed);
+		table.removeDataRows(indices);
+		assertRows("batched removal");
+		try {
+			table.removeDataRows(new int[] { table.size() });
+			fail("index out of bounds");
+		} catch (IndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	public void testIndicesStableUntilCompaction() {
+		// the reader skips the marked rows without compacting the table
+		table.removeDataRows(new int[] { 3, 4, 20 });
+		expected.remove(20);
+		expected.remove(4);
+		expected.remove(3);
+		DataRowReader reader = table.getDataRowReader();
+		for (DataRow dataRow : expected)
+			assertSame("read before compaction", dataRow, reader.next());
+		assertFalse("reader exhausted", reader.hasNext());
+		// indices given to one batch refer to the table before this batch
+		table.removeDataRows(new int[] { 3, 0 });
+		expected.remove(3);
+		expected.remove(0);
+		assertRows("after compaction");
+	}
+
+	public void testAddAfterRemove() {
+		table.removeDataRows(new int[] { 1, 7, 8, 9 });
+		expected.remove(9);
+		expected.remove(8);
+		expected.remove(7);
+		expected.remove(1);
+		for (int i = 0; i < 10; i++) {
+			DataRow dataRow = new DoubleArrayDataRow(new double[] { 100 + i });
+			expected.add(dataRow);
+			table.addDataRow(dataRow);
+			assertSame("removed front row", expected.remove(0), table.removeDataRow(0));
+		}
+		assertRows("add after remove");
+		table.clear();
+		expected.clear();
+		assertRows("clear");
+	}
+
+	public void testPermutation() {
+		List<DataRow> rows = new ArrayList<DataRow>(expected);
+		table.readExamples(new ListDataRowReader(rows.iterator()), true, new Random(2001));
+		List<DataRow> permutated = new ArrayList<DataRow>();
+		DataRowReader reader = table.getDataRowReader();
+		while (reader.hasNext())
+			permutated.add(reader.next());
+		assertFalse("permutated", rows.equals(permutated));
+		table.readExamples(new ListDataRowReader(rows.iterator()), true, new Random(2001));
+		expected = permutated;
+		assertRows("same seed");
+		List<Double> values = new ArrayList<Double>();
+		for (DataRow dataRow : permutated)
+			values.add(dataRow.get(attribute));
+		Collections.sort(values);
+		for (int i = 0; i < values.size(); i++)
+			assertEquals("all rows", (double) i, values.get(i).doubleValue());
+	}
+}
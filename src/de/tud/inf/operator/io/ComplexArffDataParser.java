@@ -0,0 +1,422 @@
+package de.tud.inf.operator.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.RelationalValueMap;
+import com.rapidminer.example.table.RelationalValueStore;
+import com.rapidminer.example.table.RelationalValues;
+import com.rapidminer.tools.LogService;
+
+import de.tud.inf.example.table.RelationalAttribute;
+
+/**
+ * Streaming parser for the data section of a (complex) ARFF file. The characters are
+ * read in large blocks from the underlying reader and the values of dense rows are
+ * converted directly from the block into the data row, i.e. no token strings are
+ * created for numerical values and the tuples of relational attributes are parsed
+ * directly into a shared {@link RelationalValueStore}. Sparse rows are rare in complex
+ * ARFF files and are delegated to {@link DataRowFactory#create(String[], Attribute[])}.
+ * 
+ * The syntax is the same as the one of the tokenizer used by the
+ * {@link com.rapidminer.operator.io.ArffReader}: values are separated by whitespace or
+ * commas, <code>%</code> starts a comment, values may be quoted with single or double
+ * quotes (with backslash escapes) and <code>?</code> denotes a missing value.
+ */
+public class ComplexArffDataParser {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final int EOF = -1;
+
+	/** The largest exponent for which a power of ten is an exact double. */
+	private static final int MAX_EXACT_EXPONENT = 22;
+
+	/** The number of significant digits which can always be represented exactly as long and double. */
+	private static final int MAX_EXACT_DIGITS = 15;
+
+	private static final double[] POWERS_OF_TEN = new double[MAX_EXACT_EXPONENT + 1];
+
+	static {
+		POWERS_OF_TEN[0] = 1.0d;
+		for (int i = 1; i < POWERS_OF_TEN.length; i++)
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0d;
+	}
+
+	private final Reader in;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position = 0;
+
+	private int limit = 0;
+
+	private long charactersRead = 0;
+
+	private int lineNumber;
+
+	private final DataRowFactory factory;
+
+	private final Attribute[] attributes;
+
+	private final char decimalPointCharacter;
+
+	private final RelationalValueStore relationalValueStore = new RelationalValueStore();
+
+	/** The characters of the current value. */
+	private char[] value = new char[64];
+
+	private int valueLength;
+
+	/**
+	 * Creates a new parser. The reader must be positioned directly behind the
+	 * <code>@data</code> keyword, the given line number is used for error messages.
+	 */
+	public ComplexArffDataParser(Reader in, DataRowFactory factory, Attribute[] attributes, char decimalPointCharacter, int lineNumber) {
+		this.in = in;
+		this.factory = factory;
+		this.attributes = attributes;
+		this.decimalPointCharacter = decimalPointCharacter;
+		this.lineNumber = lineNumber;
+	}
+
+	/** Returns the number of characters consumed so far. */
+	public long getCharactersRead() {
+		return charactersRead - (limit - position);
+	}
+
+	/** Returns the next data row or null if the end of the file was reached. */
+	public DataRow next() throws IOException {
+		int c;
+		// skip empty lines and comments
+		while ((c = skipWhitespace()) == '\n')
+			nextLine();
+		if (c == EOF)
+			return null;
+		if (c == '{') {
+			position++;
+			return readSparseRow();
+		}
+
+		DataRow dataRow = factory.create(attributes.length);
+		RelationalValueMap relationalValues = null;
+		for (int i = 0; i < attributes.length; i++) {
+			if (!readValue())
+				throw new IOException("unexpected end of line " + lineNumber);
+			Attribute attribute = attributes[i];
+			int start = trimStart(value, 0, valueLength);
+			int end = trimEnd(value, start, valueLength);
+			if ((start == end) || ((end - start == 1) && (value[start] == '?'))) {
+				if (attribute.isRelational())
+					dataRow.initRelationalMap();
+				if (attribute.isNominal())
+					dataRow.set(attribute, attribute.getMapping().mapString(""));
+				else
+					dataRow.set(attribute, Double.NaN);
+			} else if (attribute.isNominal()) {
+				dataRow.set(attribute, attribute.getMapping().mapString(new String(value, start, end - start)));
+			} else if (attribute.isRelational()) {
+				dataRow.initRelationalMap();
+				if (relationalValues == null)
+					relationalValues = new RelationalValueMap();
+				relationalValues.put(i, parseRelationalValues((RelationalAttribute) attribute, start, end));
+			} else {
+				dataRow.set(attribute, parseDouble(value, start, end));
+			}
+		}
+		checkEndOfLine();
+		dataRow.trim();
+		if (relationalValues != null)
+			dataRow.setRelationalValues(relationalValues);
+		return dataRow;
+	}
+
+	private DataRow readSparseRow() throws IOException {
+		String[] tokens = new String[attributes.length];
+		for (int t = 0; t < tokens.length; t++)
+			tokens[t] = "0";
+		while (true) {
+			int c = skipWhitespace();
+			if (c == '\n')
+				throw new IOException("unexpected end of line " + lineNumber);
+			if (c == EOF)
+				throw new IOException("unexpected end of file in line " + lineNumber);
+			if (c == '}') {
+				position++;
+				break;
+			}
+			readValue();
+			int index;
+			try {
+				index = Integer.parseInt(new String(value, 0, valueLength));
+			} catch (NumberFormatException e) {
+				throw new IOException("not a valid index '" + new String(value, 0, valueLength) + "' in line " + lineNumber);
+			}
+			if ((index < 0) || (index >= tokens.length))
+				throw new IOException("index " + index + " out of range in line " + lineNumber);
+			if (!readValue())
+				throw new IOException("unexpected end of line " + lineNumber);
+			tokens[index] = new String(value, 0, valueLength);
+		}
+		checkEndOfLine();
+		return factory.create(tokens, attributes);
+	}
+
+	/**
+	 * Parses the tuples of a relational value. Tuples are separated by line breaks, the
+	 * values within a tuple by commas.
+	 */
+	private RelationalValues parseRelationalValues(RelationalAttribute attribute, int start, int end) throws IOException {
+		List<Attribute> innerAttributes = attribute.getInnerAttributes();
+		int tupleSize = innerAttributes.size();
+		int numberOfTuples = 1;
+		for (int i = start; i < end; i++)
+			if (value[i] == '\n')
+				numberOfTuples++;
+		RelationalValues result = relationalValueStore.allocate(numberOfTuples, tupleSize);
+		int tupleStart = start;
+		int t = 0;
+		while (t < numberOfTuples) {
+			int tupleEnd = tupleStart;
+			while ((tupleEnd < end) && (value[tupleEnd] != '\n'))
+				tupleEnd++;
+			int valueStart = tupleStart;
+			for (int a = 0; a < tupleSize; a++) {
+				if (valueStart > tupleEnd)
+					throw new IOException("tuple " + (t + 1) + " of attribute '" + attribute.getName() + "' contains less than " + tupleSize + " values in line " + lineNumber);
+				int valueEnd = valueStart;
+				while ((valueEnd < tupleEnd) && (value[valueEnd] != ','))
+					valueEnd++;
+				Attribute innerAttribute = innerAttributes.get(a);
+				if (innerAttribute.isNominal())
+					result.set(t, a, innerAttribute.getMapping().mapString(new String(value, valueStart, valueEnd - valueStart)));
+				else
+					result.set(t, a, parseDouble(value, valueStart, valueEnd));
+				valueStart = valueEnd + 1;
+			}
+			t++;
+			tupleStart = tupleEnd + 1;
+		}
+		return result;
+	}
+
+	/** Parses a number, the fast path handles all numbers which can be converted exactly with one multiplication or division. */
+	private double parseDouble(char[] chars, int start, int end) {
+		start = trimStart(chars, start, end);
+		end = trimEnd(chars, start, end);
+		int i = start;
+		boolean negative = false;
+		if ((i < end) && ((chars[i] == '-') || (chars[i] == '+'))) {
+			negative = chars[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int significantDigits = 0;
+		int exponent = 0;
+		boolean digits = false;
+		while ((i < end) && (chars[i] >= '0') && (chars[i] <= '9')) {
+			mantissa = mantissa * 10 + (chars[i] - '0');
+			if (mantissa != 0)
+				significantDigits++;
+			digits = true;
+			i++;
+		}
+		if ((i < end) && (chars[i] == decimalPointCharacter)) {
+			i++;
+			while ((i < end) && (chars[i] >= '0') && (chars[i] <= '9')) {
+				mantissa = mantissa * 10 + (chars[i] - '0');
+				if (mantissa != 0)
+					significantDigits++;
+				exponent--;
+				digits = true;
+				i++;
+			}
+		}
+		if (digits && (i < end) && ((chars[i] == 'e') || (chars[i] == 'E'))) {
+			i++;
+			boolean negativeExponent = false;
+			if ((i < end) && ((chars[i] == '-') || (chars[i] == '+'))) {
+				negativeExponent = chars[i] == '-';
+				i++;
+			}
+			int explicitExponent = 0;
+			boolean exponentDigits = false;
+			while ((i < end) && (chars[i] >= '0') && (chars[i] <= '9') && (explicitExponent < 10000)) {
+				explicitExponent = explicitExponent * 10 + (chars[i] - '0');
+				exponentDigits = true;
+				i++;
+			}
+			if (!exponentDigits)
+				digits = false;
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+		if (digits && (i == end) && (significantDigits <= MAX_EXACT_DIGITS)) {
+			double result = mantissa;
+			if (mantissa == 0 || exponent == 0) {
+				return negative ? -result : result;
+			} else if ((exponent > 0) && (exponent <= MAX_EXACT_EXPONENT)) {
+				result *= POWERS_OF_TEN[exponent];
+				return negative ? -result : result;
+			} else if ((exponent < 0) && (exponent >= -MAX_EXACT_EXPONENT)) {
+				result /= POWERS_OF_TEN[-exponent];
+				return negative ? -result : result;
+			}
+		}
+		// slow path for long mantissas, large exponents and special values
+		String string = new String(chars, start, end - start).replace(decimalPointCharacter, '.');
+		try {
+			return Double.parseDouble(string);
+		} catch (NumberFormatException e) {
+			LogService.getGlobal().log("ComplexArffDataParser: '" + string + "' is not a valid number in line " + lineNumber + "!", LogService.ERROR);
+			return Double.NaN;
+		}
+	}
+
+	private static int trimStart(char[] chars, int start, int end) {
+		while ((start < end) && (chars[start] <= ' '))
+			start++;
+		return start;
+	}
+
+	private static int trimEnd(char[] chars, int start, int end) {
+		while ((end > start) && (chars[end - 1] <= ' '))
+			end--;
+		return end;
+	}
+
+	/** Checks that the rest of the current line contains no further values. */
+	private void checkEndOfLine() throws IOException {
+		int c = skipWhitespace();
+		if (c == '\n')
+			nextLine();
+		else if (c != EOF)
+			throw new IOException("expected the end of the line " + lineNumber);
+	}
+
+	/** Consumes the line end at the current position. Both "\r\n" and a single '\r' count as one line end. */
+	private void nextLine() throws IOException {
+		if (buffer[position++] == '\r' && peek() == '\n')
+			position++;
+		lineNumber++;
+	}
+
+	/**
+	 * Skips whitespace, commas and comments and returns the next character without
+	 * consuming it. Line ends are reported as '\n'.
+	 */
+	private int skipWhitespace() throws IOException {
+		while (true) {
+			int c = peek();
+			if (c == EOF)
+				return EOF;
+			if ((c == '\n') || (c == '\r'))
+				return '\n';
+			if (c == '%') {
+				// comments reach until the end of the line
+				while (((c = peek()) != EOF) && (c != '\n') && (c != '\r'))
+					position++;
+			} else if ((c <= ' ') || (c == ',')) {
+				position++;
+			} else {
+				return c;
+			}
+		}
+	}
+
+	/**
+	 * Reads the next value into the value buffer. Returns false if the end of the line or
+	 * the file was reached before a value was found.
+	 */
+	private boolean readValue() throws IOException {
+		int c = skipWhitespace();
+		if ((c == EOF) || (c == '\n'))
+			return false;
+		valueLength = 0;
+		if ((c == '"') || (c == '\'')) {
+			position++;
+			readQuoted((char) c);
+		} else if ((c == '{') || (c == '}')) {
+			position++;
+			append((char) c);
+		} else {
+			while (((c = peek()) != EOF) && (c > ' ') && (c != ',') && (c != '%') && (c != '"') && (c != '\'') && (c != '{') && (c != '}')) {
+				append((char) c);
+				position++;
+			}
+		}
+		return true;
+	}
+
+	/** Reads a quoted value, the escape sequences are the same as for {@link java.io.StreamTokenizer}. */
+	private void readQuoted(char quote) throws IOException {
+		int c;
+		while (((c = peek()) != EOF) && (c != quote) && (c != '\n') && (c != '\r')) {
+			position++;
+			if (c == '\\') {
+				c = peek();
+				if (c == EOF)
+					break;
+				position++;
+				switch (c) {
+					case 'a': c = 0x7; break;
+					case 'b': c = '\b'; break;
+					case 'f': c = 0xC; break;
+					case 'n': c = '\n'; break;
+					case 'r': c = '\r'; break;
+					case 't': c = '\t'; break;
+					case 'v': c = 0xB; break;
+					default:
+						if ((c >= '0') && (c <= '7')) {
+							int first = c;
+							c = c - '0';
+							int next = peek();
+							if ((next >= '0') && (next <= '7')) {
+								position++;
+								c = (c << 3) + (next - '0');
+								next = peek();
+								if ((first <= '3') && (next >= '0') && (next <= '7')) {
+									position++;
+									c = (c << 3) + (next - '0');
+								}
+							}
+						}
+						break;
+				}
+			}
+			append((char) c);
+		}
+		if (c == quote)
+			position++;
+	}
+
+	private void append(char c) {
+		if (valueLength == value.length) {
+			char[] newValue = new char[value.length * 2];
+			System.arraycopy(value, 0, newValue, 0, valueLength);
+			value = newValue;
+		}
+		value[valueLength++] = c;
+	}
+
+	/** Returns the character at the current position without consuming it. */
+	private int peek() throws IOException {
+		if (position < limit)
+			return buffer[position];
+		int read;
+		do {
+			read = in.read(buffer, 0, buffer.length);
+		} while (read == 0);
+		if (read < 0) {
+			position = limit = 0;
+			return EOF;
+		}
+		position = 0;
+		limit = read;
+		charactersRead += read;
+		return buffer[position];
+	}
+}
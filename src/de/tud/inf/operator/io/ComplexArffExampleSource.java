@@ -67,6 +67,7 @@ public class ComplexArffExampleSource extends ArffExampleSource{
 	        	//first read relations which exists (if just one, normal case, if two should be dependency case, three are not supported yet (and make no sense))
 	        	
 	            reader = new ComplexArffReader(tokenizer,
+	            								in,
 	            		 						this,
 	            		 						PARAMETER_SAMPLE_SIZE,
 	    										PARAMETER_SAMPLE_RATIO,
@@ -77,6 +78,7 @@ public class ComplexArffExampleSource extends ArffExampleSource{
 	        	
 	        	else
 	        		   reader = new FlatComplexArffReader(tokenizer,
+	        		   	in,
 		 						this,
 		 						PARAMETER_SAMPLE_SIZE,
 								PARAMETER_SAMPLE_RATIO,
@@ -1,6 +1,7 @@
 package de.tud.inf.operator.io;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StreamTokenizer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -8,6 +9,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import com.rapidminer.example.Attribute;
 import com.rapidminer.example.table.AttributeFactory;
@@ -20,6 +22,7 @@ import com.rapidminer.operator.io.ArffExampleSource;
 import com.rapidminer.operator.io.ArffReader;
 import com.rapidminer.parameter.UndefinedParameterError;
 import com.rapidminer.tools.Ontology;
+import com.rapidminer.tools.RandomGenerator;
 import com.rapidminer.tools.Tools;
 
 import de.tud.inf.example.table.ComplexAttributeDescription;
@@ -29,6 +32,8 @@ import de.tud.inf.example.table.RelationalAttribute;
 
 public class ComplexArffReader extends ArffReader{
 
+	/** the reader underlying the tokenizer, if known the data section is streamed directly from it */
+	private Reader dataReader;
 	
 	public ComplexArffReader(StreamTokenizer tokenizer,
 			ArffExampleSource arffES, String parameter_sample_size,
@@ -36,9 +41,25 @@ public class ComplexArffReader extends ArffReader{
 			String parameter_local_random_seed,
 			String parameter_decimal_point_character) {
 		
+		this(tokenizer, null, arffES, parameter_sample_size, parameter_sample_ratio,
+				parameter_datamanagement, parameter_local_random_seed,
+				parameter_decimal_point_character);
+	}
+
+	/**
+	 * @param dataReader the reader the tokenizer reads from, the data section is parsed directly from this reader
+	 * with a {@link ComplexArffDataParser} (if null, the tokenizer is used)
+	 */
+	public ComplexArffReader(StreamTokenizer tokenizer, Reader dataReader,
+			ArffExampleSource arffES, String parameter_sample_size,
+			String parameter_sample_ratio, String parameter_datamanagement,
+			String parameter_local_random_seed,
+			String parameter_decimal_point_character) {
+		
 		super(tokenizer, arffES, parameter_sample_size, parameter_sample_ratio,
 				parameter_datamanagement, parameter_local_random_seed,
 				parameter_decimal_point_character);
+		this.dataReader = dataReader;
 	}
 
 	
@@ -115,8 +136,8 @@ public class ComplexArffReader extends ArffReader{
 	 * @throws IOException
 	 */
 	protected ComplexExampleTable buildTable(List<Attribute> attributes,ExampleTable depEt) throws UndefinedParameterError, IOException{
-		//read the "real" dataset
-		ExampleTable et = readData(attributes);
+		//create the table first: the constraints only depend on the attributes, so an invalid file fails before its data is read
+		MemoryExampleTable et = createDataTable(attributes);
 
 		List<ComplexAttributeDescription> depList = createValidDependencyList(depEt,et);
 		try{
@@ -126,8 +147,75 @@ public class ComplexArffReader extends ArffReader{
 		}catch(RuntimeException e){
 			throw new IOException(e.getMessage());
 		}
+		//read the "real" dataset
+		readData(et);
 		return new ComplexExampleTable(et,depList);
 	}
+
+	@Override
+	public MemoryExampleTable readData(List<Attribute> attributes) throws IOException, UndefinedParameterError{
+		MemoryExampleTable table = createDataTable(attributes);
+		readData(table);
+		return table;
+	}
+
+	/**
+	 * checks the data declaration and creates the empty data table for the given attributes
+	 */
+	protected MemoryExampleTable createDataTable(List<Attribute> attributes) throws IOException, UndefinedParameterError{
+		if (!"@data".equalsIgnoreCase(tokenizer.sval)) {
+			throw new IOException("expected keyword '@data' in line " + tokenizer.lineno());
+		}
+		if (attributes.size() == 0) {
+			throw new IOException("no attributes were declared in the ARFF file, please declare attributes with the '@attribute' keyword.");
+		}
+		return createDataRowFactory().createExampleTable(attributes);
+	}
+
+	/**
+	 * reads the rows of the data section into the given table, sample size and ratio are handled like in {@link ArffReader}
+	 */
+	protected void readData(MemoryExampleTable table) throws IOException, UndefinedParameterError{
+		DataRowFactory factory = createDataRowFactory();
+		Attribute[] attributeArray = table.getAttributes();
+		int maxRows = arffES.getParameterAsInt(PARAMETER_SAMPLE_SIZE);
+		double sampleProb = arffES.getParameterAsDouble(PARAMETER_SAMPLE_RATIO);
+		Random random = RandomGenerator.getRandomGenerator(arffES.getParameterAsInt(PARAMETER_LOCAL_RANDOM_SEED));
+
+		ComplexArffDataParser parser = null;
+		if (dataReader != null)
+			parser = new ComplexArffDataParser(dataReader, factory, attributeArray, getDecimalPointCharacter(), tokenizer.lineno() + 1);
+		long start = System.currentTimeMillis();
+		
+		DataRow dataRow = null;
+		int counter = 0;
+		while ((dataRow = (parser != null ? parser.next() : createDataRow(tokenizer, true, factory, attributeArray))) != null) {
+			if ((maxRows > -1) && (counter >= maxRows))
+				break;
+			counter++;
+
+			if (maxRows == -1) {
+				if (random.nextDouble() > sampleProb)
+					continue;
+			}
+			table.addDataRow(dataRow);
+		}
+
+		if (parser != null) {
+			double seconds = Math.max(System.currentTimeMillis() - start, 1) / 1000.0d;
+			double megaBytes = parser.getCharactersRead() / (1024.0d * 1024.0d);
+			arffES.log("Read " + counter + " rows (" + Tools.formatNumber(megaBytes) + " MB) in " + Tools.formatNumber(seconds) + " s: " + 
+					Tools.formatNumber(counter / seconds) + " rows/s, " + Tools.formatNumber(megaBytes / seconds) + " MB/s");
+		}
+	}
+
+	private DataRowFactory createDataRowFactory() throws UndefinedParameterError{
+		return new DataRowFactory(arffES.getParameterAsInt(PARAMETER_DATAMANAGEMENT), getDecimalPointCharacter());
+	}
+
+	private char getDecimalPointCharacter() throws UndefinedParameterError{
+		return arffES.getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0);
+	}
 	
 
 	/***  
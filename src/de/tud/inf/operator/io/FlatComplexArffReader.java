@@ -1,6 +1,7 @@
 package de.tud.inf.operator.io;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StreamTokenizer;
 import java.util.ArrayList;
 import java.util.List;
@@ -33,6 +34,16 @@ public class FlatComplexArffReader extends ComplexArffReader{
 				parameter_datamanagement, parameter_local_random_seed,
 				parameter_decimal_point_character);
 	}
+
+	public FlatComplexArffReader(StreamTokenizer tokenizer, Reader dataReader,
+			ArffExampleSource arffES, String parameter_sample_size,
+			String parameter_sample_ratio, String parameter_datamanagement,
+			String parameter_local_random_seed,
+			String parameter_decimal_point_character) {
+		super(tokenizer, dataReader, arffES, parameter_sample_size, parameter_sample_ratio,
+				parameter_datamanagement, parameter_local_random_seed,
+				parameter_decimal_point_character);
+	}
 	
 	/***
 	 * 
@@ -24,28 +24,44 @@ package de.tud.inf.operator.io;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
 
-import com.rapidminer.Process;
+import com.rapidminer.example.Attributes;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.example.table.ExampleTable;
+import com.rapidminer.example.table.FileDataRowReader;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
-import com.rapidminer.operator.ProcessRootOperator;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.io.SimpleExampleSource;
 import com.rapidminer.parameter.ParameterType;
+import com.rapidminer.parameter.ParameterTypeDirectory;
 import com.rapidminer.parameter.ParameterTypeFile;
 import com.rapidminer.parameter.ParameterTypeString;
+import com.rapidminer.tools.RandomGenerator;
+import com.rapidminer.tools.att.AttributeDataSource;
+import com.rapidminer.tools.att.AttributeDataSourceCreator;
+import com.rapidminer.tools.att.AttributeDataSources;
+import com.rapidminer.tools.att.AttributeSet;
 
 
 /**
@@ -53,9 +69,18 @@ import com.rapidminer.parameter.ParameterTypeString;
  * &quot;,&quot;, by &quot;;&quot;, or by white space like tabs. 
  * The first line is used for attribute names as default.</p> 
  * 
+ * <p>The value types are guessed while the data is downloaded. The response is
+ * stored in a local file at the same time and the examples are read from this
+ * file afterwards, so the downloaded lines are never kept in memory. Gzip 
+ * compressed responses are supported. If a cache directory is given, the
+ * response is stored there together with its ETag and Last-Modified headers,
+ * otherwise in a temporary file which is deleted after reading. Later runs send
+ * a conditional request and read the cached copy if the server answers that the
+ * data was not modified.</p>
+ * 
  * <p>For other file formats or column separators you can
  * use in almost all cases the operator {@link SimpleExampleSource}
- * or, if this is not sufficient, the operator {@link ExampleSource}.</p>
+ * or, if this is not sufficient, the operator {@link com.rapidminer.operator.io.ExampleSource}.</p>
  * 
  * @rapidminer.index HTTP-CSV
  * @author Ingo Mierswa, Peter Benjamin Volk
@@ -64,7 +89,38 @@ import com.rapidminer.parameter.ParameterTypeString;
 public class HTTPCSVExampleSource extends SimpleExampleSource {
 
 	public static final String URL = "connectString";
-	
+
+	/** The parameter name for &quot;Directory for caching the downloaded data (empty: no caching)&quot; */
+	public static final String PARAMETER_CACHE_DIRECTORY = "cache_directory";
+
+	private static final int BUFFER_SIZE = 65536;
+
+	private static final String CACHE_URL = "url";
+
+	private static final String CACHE_ETAG = "etag";
+
+	private static final String CACHE_LAST_MODIFIED = "last_modified";
+
+	private static final String CACHE_CHARSET = "charset";
+
+	/** The cache files of the current download. Null if nothing should be cached. */
+	private File cacheFile, cacheTempFile, cacheInfoFile;
+
+	/** The headers of the current download which are stored together with the cached data. */
+	private Properties cacheInfo;
+
+	/** The stream the downloaded data is copied to. */
+	private OutputStream cacheOut;
+
+	/** The local copy of the current download which the examples are read from. */
+	private File dataFile;
+
+	/** The encoding of the local copy. */
+	private Charset dataEncoding;
+
+	/** The temporary copy of the current download which must be deleted after reading. Null if the data is cached. */
+	private File spoolFile;
+
 	public HTTPCSVExampleSource(OperatorDescription description) {
 		super(description);
 	}
@@ -77,42 +133,271 @@ public class HTTPCSVExampleSource extends SimpleExampleSource {
 		return new Class[] { ExampleSet.class };
 	}
 	
-	public IOObject[] apply() throws OperatorException{
-		//open HTTP connection and read data from proxy
-
-		Random r = new Random();
-		File tmpFile;
+	public IOObject[] apply() throws OperatorException {
+		String urlString = getParameterAsString(URL);
+		URL url;
 		try {
-			tmpFile = File.createTempFile("httpcvssource_"+r.nextInt(), null);
-			URL page;
-			page = new URL(getParameterAsString(URL));
-			 // Process the URL far enough to find the right handler
-	    	URLConnection urlc = page.openConnection();
-		    urlc.setUseCaches(false); // Don't look at possibly cached data
-		    BufferedReader br = new BufferedReader(new InputStreamReader(urlc.getInputStream()));
-		    String tmp = null;
-		    FileWriter fw = new FileWriter(tmpFile);
-		    while ((tmp = br.readLine() ) != null) {
-		            fw.write(tmp+"\n");
-		    }
-		    // Close file writer
-		    fw.close();
-		    setParameter(super.PARAMETER_FILENAME, tmpFile.getCanonicalPath());
+			url = new URL(urlString);
 		} catch (MalformedURLException e) {
-			throw new UserError(this, e, 302, new Object[] { e.getMessage() });
-		} catch (IOException e1) {
-			throw new UserError(this, e1, 302, new Object[] { e1.getMessage() });
+			throw new UserError(this, e, 302, new Object[] { urlString, e.getMessage() });
+		}
+		String separatorRegExpr = getParameterAsString(PARAMETER_COLUMN_SEPARATORS);
+		char[] comments = null;
+		if (getParameterAsBoolean(PARAMETER_USE_COMMENT_CHARACTERS)) {
+			comments = getParameterAsString(PARAMETER_COMMENT_CHARS).toCharArray(); 
+		}
+		boolean useQuotes = getParameterAsBoolean(PARAMETER_USE_QUOTES);
+		boolean trimLines = getParameterAsBoolean(PARAMETER_TRIM_LINES);
+		char decimalPointCharacter = getParameterAsString(PARAMETER_DECIMAL_POINT_CHARACTER).charAt(0);
+
+		int numberOfThreads = getParameterAsInt(PARAMETER_NUMBER_OF_THREADS);
+		if (numberOfThreads == 0)
+			numberOfThreads = Runtime.getRuntime().availableProcessors();
+
+		try {
+			// guess the value types while the data is downloaded into the local copy
+			String name = url.getPath();
+			name = name.substring(name.lastIndexOf('/') + 1);
+			File source = new File(name.length() > 0 ? name : url.getHost());
+			AttributeDataSourceCreator adsCreator = new AttributeDataSourceCreator();
+			try {
+				BufferedReader in = openReader(url);
+				adsCreator.loadData(in, source, comments, separatorRegExpr, decimalPointCharacter, useQuotes, trimLines, getParameterAsBoolean(PARAMETER_READ_ATTRIBUTE_NAMES), -1);
+				commitCache();
+			} catch (IOException e) {
+				discardCache();
+				throw new UserError(this, e, 302, new Object[] { urlString, e.getMessage() });
+			}
+
+			// the columns are read from the local copy
+			List<AttributeDataSource> attributeDataSources = new ArrayList<AttributeDataSource>();
+			for (AttributeDataSource attributeDataSource : adsCreator.getAttributeDataSources())
+				attributeDataSources.add(new AttributeDataSource(attributeDataSource.getAttribute(), dataFile, attributeDataSource.getColumn(), attributeDataSource.getType()));
+
+			// set special attributes
+			resetAttributeType(attributeDataSources, "label_name", "label_column", Attributes.LABEL_NAME);
+			resetAttributeType(attributeDataSources, "id_name", "id_column", Attributes.ID_NAME);
+			resetAttributeType(attributeDataSources, "weight_name", "weight_column", Attributes.WEIGHT_NAME);
+
+			// read data
+			FileDataRowReader reader = null;
+			DataRowFactory factory = new DataRowFactory(getParameterAsInt(PARAMETER_DATAMANAGEMENT), decimalPointCharacter);
+			try {
+				reader = new FileDataRowReader(factory, attributeDataSources, getParameterAsDouble(PARAMETER_SAMPLE_RATIO), getParameterAsInt(PARAMETER_SAMPLE_SIZE), separatorRegExpr, comments, useQuotes, trimLines, dataEncoding, RandomGenerator.getRandomGenerator(-1), numberOfThreads);
+			} catch (IOException e) {
+				throw new UserError(this, e, 302, new Object[] { urlString, e.getMessage() });
+			}
+			if (getParameterAsBoolean(PARAMETER_READ_ATTRIBUTE_NAMES))
+				reader.skipLine();
+
+			AttributeSet attributeSet = new AttributeSet(new AttributeDataSources(attributeDataSources, dataFile));
+
+			// create table and example set
+			ExampleTable table;
+			try {
+				table = factory.createExampleTable(attributeSet.getAllAttributes(), reader, false);
+			} finally {
+				reader.close();
+			}
+			ExampleSet result = table.createExampleSet(attributeSet);
+
+			return new IOObject[] { result };
+		} finally {
+			if (spoolFile != null)
+				spoolFile.delete();
+			spoolFile = null;
+			dataFile = null;
 		}
-		
-		
-		IOObject[] retValues =  super.apply();
-		
-		return retValues;
+	}
+
+	// ------------------------------------------------------------
+
+	/**
+	 * Opens a reader for the data at the given URL. If a cached copy exists and the
+	 * server reports it as not modified, the cached copy is read instead. Otherwise
+	 * the (possibly gzip compressed) response is read and copied to the cache or,
+	 * if nothing should be cached, to a temporary file while reading.
+	 */
+	private BufferedReader openReader(URL url) throws IOException, OperatorException {
+		cacheFile = cacheTempFile = cacheInfoFile = null;
+		cacheInfo = null;
+		cacheOut = null;
+		dataFile = spoolFile = null;
+
+		Properties cachedInfo = null;
+		String cacheDirectory = getParameterAsString(PARAMETER_CACHE_DIRECTORY);
+		if ((cacheDirectory != null) && (cacheDirectory.length() > 0)) {
+			File directory = new File(cacheDirectory);
+			directory.mkdirs();
+			String key = "httpcsv_" + Integer.toHexString(url.toString().hashCode());
+			cacheFile = new File(directory, key + ".csv");
+			cacheInfoFile = new File(directory, key + ".properties");
+			cacheTempFile = new File(directory, key + ".tmp");
+			cachedInfo = readCacheInfo(url);
+		}
+
+		URLConnection connection = url.openConnection();
+		connection.setUseCaches(false); // Don't look at possibly cached data
+		connection.setRequestProperty("Accept-Encoding", "gzip");
+		if (cachedInfo != null) {
+			String etag = cachedInfo.getProperty(CACHE_ETAG);
+			if (etag != null)
+				connection.setRequestProperty("If-None-Match", etag);
+			String lastModified = cachedInfo.getProperty(CACHE_LAST_MODIFIED);
+			if (lastModified != null)
+				connection.setRequestProperty("If-Modified-Since", lastModified);
+		}
+		connection.connect();
+
+		if (connection instanceof HttpURLConnection) {
+			HttpURLConnection httpConnection = (HttpURLConnection)connection;
+			int responseCode = httpConnection.getResponseCode();
+			if ((responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) && (cachedInfo != null)) {
+				httpConnection.disconnect();
+				log("Data at " + url + " not modified, reading cached copy " + cacheFile);
+				dataFile = cacheFile;
+				dataEncoding = Charset.forName(cachedInfo.getProperty(CACHE_CHARSET));
+				return new BufferedReader(new InputStreamReader(new FileInputStream(cacheFile), dataEncoding), BUFFER_SIZE);
+			}
+			if (responseCode >= 400)
+				throw new IOException("server returned " + responseCode + " " + httpConnection.getResponseMessage());
+		}
+
+		Charset encoding = getEncoding();
+		String charset = getCharset(connection.getContentType());
+		if (charset != null) {
+			try {
+				encoding = Charset.forName(charset);
+			} catch (IllegalArgumentException e) {
+				logWarning("Unknown charset '" + charset + "' of " + url + ", using " + encoding);
+			}
+		}
+
+		InputStream in = connection.getInputStream();
+		if ("gzip".equalsIgnoreCase(connection.getContentEncoding()))
+			in = new GZIPInputStream(in, BUFFER_SIZE);
+		if (cacheFile != null) {
+			cacheInfo = new Properties();
+			cacheInfo.setProperty(CACHE_URL, url.toString());
+			cacheInfo.setProperty(CACHE_CHARSET, encoding.name());
+			String etag = connection.getHeaderField("ETag");
+			if (etag != null)
+				cacheInfo.setProperty(CACHE_ETAG, etag);
+			String lastModified = connection.getHeaderField("Last-Modified");
+			if (lastModified != null)
+				cacheInfo.setProperty(CACHE_LAST_MODIFIED, lastModified);
+			if ((etag == null) && (lastModified == null)) {
+				// nothing to validate the cached copy with
+				cacheInfo = null;
+			} else {
+				dataFile = cacheTempFile;
+			}
+		}
+		if (dataFile == null) {
+			spoolFile = File.createTempFile("httpcsv", ".csv");
+			spoolFile.deleteOnExit();
+			dataFile = spoolFile;
+		}
+		dataEncoding = encoding;
+		cacheOut = new FileOutputStream(dataFile);
+		in = new CopyingInputStream(in, cacheOut);
+		return new BufferedReader(new InputStreamReader(in, encoding), BUFFER_SIZE);
+	}
+
+	/** Returns the cache information if a valid cached copy of the given URL exists, null otherwise. */
+	private Properties readCacheInfo(URL url) {
+		if (!cacheFile.exists() || !cacheInfoFile.exists())
+			return null;
+		Properties info = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(cacheInfoFile);
+			info.load(in);
+		} catch (IOException e) {
+			logWarning("Cannot read cache information " + cacheInfoFile + ": " + e.getMessage());
+			return null;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
+					logWarning("Cannot close cache information " + cacheInfoFile + ": " + e.getMessage());
+				}
+			}
+		}
+		// hash collision or incomplete entry
+		if (!url.toString().equals(info.getProperty(CACHE_URL)) || (info.getProperty(CACHE_CHARSET) == null))
+			return null;
+		try {
+			Charset.forName(info.getProperty(CACHE_CHARSET));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+		return info;
+	}
+
+	/**
+	 * Completes the local copy of the download. If the data should be cached, the
+	 * cached copy is replaced by the download.
+	 */
+	private void commitCache() throws IOException {
+		if (cacheOut == null)
+			return;
+		cacheOut.close();
+		cacheOut = null;
+		if (spoolFile != null)
+			return;
+		cacheInfoFile.delete();
+		cacheFile.delete();
+		if (!cacheTempFile.renameTo(cacheFile)) {
+			// read the download once and delete it afterwards
+			spoolFile = cacheTempFile;
+			logWarning("Cannot store cached copy " + cacheFile);
+			return;
+		}
+		dataFile = cacheFile;
+		OutputStream out = new FileOutputStream(cacheInfoFile);
+		try {
+			cacheInfo.store(out, "HTTPCSVExampleSource cache entry");
+		} finally {
+			out.close();
+		}
+	}
+
+	/** Removes an incomplete local copy after a failed download. */
+	private void discardCache() {
+		if (cacheOut == null)
+			return;
+		try {
+			cacheOut.close();
+		} catch (IOException e) {
+			// the file is deleted anyway
+		}
+		cacheOut = null;
+		dataFile.delete();
+	}
+
+	/** Returns the charset parameter of the given content type or null. */
+	static String getCharset(String contentType) {
+		if (contentType == null)
+			return null;
+		String[] parameters = contentType.split(";");
+		for (int i = 1; i < parameters.length; i++) {
+			String parameter = parameters[i].trim();
+			if (parameter.regionMatches(true, 0, "charset=", 0, 8)) {
+				String charset = parameter.substring(8).trim();
+				if ((charset.length() > 1) && charset.startsWith("\"") && charset.endsWith("\""))
+					charset = charset.substring(1, charset.length() - 1);
+				return charset;
+			}
+		}
+		return null;
 	}
 
 	public List<ParameterType> getParameterTypes() {
 		List<ParameterType> types = new LinkedList<ParameterType>();
 		types.add(new ParameterTypeString(URL, "Defines the URL that the csv file is read from", false));
+		types.add(new ParameterTypeDirectory(PARAMETER_CACHE_DIRECTORY, "Directory for caching the downloaded data. The data is downloaded again only if the server reports it as modified (empty: no caching).", true));
 		types.addAll(super.getParameterTypes());
 		Iterator<ParameterType> p = types.iterator();
 		while (p.hasNext()) {
@@ -133,4 +418,40 @@ public class HTTPCSVExampleSource extends SimpleExampleSource {
 		
 		return types;
 	}
+
+	/** Copies all data read from the underlying stream to an output stream. */
+	private static class CopyingInputStream extends FilterInputStream {
+
+		private final OutputStream copy;
+
+		private CopyingInputStream(InputStream in, OutputStream copy) {
+			super(in);
+			this.copy = copy;
+		}
+
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1)
+				copy.write(b);
+			return b;
+		}
+
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0)
+				copy.write(buffer, offset, read);
+			return read;
+		}
+
+		public long skip(long n) throws IOException {
+			// skipped data must be copied as well
+			byte[] buffer = new byte[(int)Math.min(n, 4096)];
+			int read = read(buffer, 0, buffer.length);
+			return Math.max(read, 0);
+		}
+
+		public boolean markSupported() {
+			return false;
+		}
+	}
 }
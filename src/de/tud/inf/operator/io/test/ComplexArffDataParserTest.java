@@ -0,0 +1,178 @@
+package de.tud.inf.operator.io.test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import com.rapidminer.example.Attribute;
+import com.rapidminer.example.table.AttributeFactory;
+import com.rapidminer.example.table.DataRow;
+import com.rapidminer.example.table.DataRowFactory;
+import com.rapidminer.test.RapidMinerTestCase;
+import com.rapidminer.tools.Ontology;
+
+import de.tud.inf.operator.io.ComplexArffDataParser;
+
+/**
+ * Tests the streaming parser of the data section of complex ARFF files. The
+ * numbers converted by the fast path must be identical to the ones delivered
+ * by {@link Double#parseDouble(String)}.
+ */
+public class ComplexArffDataParserTest extends RapidMinerTestCase {
+
+	private Attribute real;
+
+	private Attribute nominal;
+
+	private Attribute other;
+
+	public void setUp() throws Exception {
+		super.setUp();
+		real = AttributeFactory.createAttribute("real", Ontology.REAL);
+		real.setTableIndex(0);
+		nominal = AttributeFactory.createAttribute("nominal", Ontology.NOMINAL);
+		nominal.setTableIndex(1);
+		other = AttributeFactory.createAttribute("other", Ontology.REAL);
+		other.setTableIndex(2);
+	}
+
+	public void tearDown() throws Exception {
+		real = null;
+		nominal = null;
+		other = null;
+		super.tearDown();
+	}
+
+	private ComplexArffDataParser createParser(String data, char decimalPointCharacter, Attribute... attributes) {
+		return new ComplexArffDataParser(new StringReader(data), new DataRowFactory(DataRowFactory.TYPE_DOUBLE_ARRAY, decimalPointCharacter), attributes, decimalPointCharacter, 1);
+	}
+
+	private String getNominal(DataRow dataRow) {
+		return nominal.getMapping().mapIndex((int) dataRow.get(nominal));
+	}
+
+	public void testQuotedValues() throws Exception {
+		ComplexArffDataParser parser = createParser("1, 'a b', 2\n" + "\"3\", \"it\\\"s\", '4'\n" + "5 'it\\'s\\tnow' 6\n" + "7,'\\101\\60',8\n", '.', real, nominal, other);
+		DataRow dataRow = parser.next();
+		assertEquals(1.0d, dataRow.get(real));
+		assertEquals("a b", getNominal(dataRow));
+		assertEquals(2.0d, dataRow.get(other));
+		dataRow = parser.next();
+		assertEquals(3.0d, dataRow.get(real));
+		assertEquals("it\"s", getNominal(dataRow));
+		assertEquals(4.0d, dataRow.get(other));
+		dataRow = parser.next();
+		assertEquals("it's\tnow", getNominal(dataRow));
+		dataRow = parser.next();
+		assertEquals("octal escapes", "A0", getNominal(dataRow));
+		assertEquals(8.0d, dataRow.get(other));
+		assertNull(parser.next());
+	}
+
+	public void testSparseRows() throws Exception {
+		other.setTableIndex(1);
+		Attribute third = AttributeFactory.createAttribute("third", Ontology.REAL);
+		third.setTableIndex(2);
+		ComplexArffDataParser parser = createParser("{0 1.5, 2 3}\n" + "{}\n" + "4, ?, 5\n" + "{2 -1}\n", '.', real, other, third);
+		DataRow dataRow = parser.next();
+		assertEquals(1.5d, dataRow.get(real));
+		assertEquals(0.0d, dataRow.get(other));
+		assertEquals(3.0d, dataRow.get(third));
+		dataRow = parser.next();
+		assertEquals(0.0d, dataRow.get(real));
+		assertEquals(0.0d, dataRow.get(third));
+		dataRow = parser.next();
+		assertEquals(4.0d, dataRow.get(real));
+		assertTrue(Double.isNaN(dataRow.get(other)));
+		assertEquals(5.0d, dataRow.get(third));
+		dataRow = parser.next();
+		assertEquals(0.0d, dataRow.get(real));
+		assertEquals(-1.0d, dataRow.get(third));
+		assertNull(parser.next());
+	}
+
+	public void testComments() throws Exception {
+		ComplexArffDataParser parser = createParser("% a comment\n\n1, x, 2 % a trailing comment\n%\n  % indented comment\n3,y,4\n% last line", '.', real, nominal, other);
+		DataRow dataRow = parser.next();
+		assertEquals(1.0d, dataRow.get(real));
+		assertEquals("x", getNominal(dataRow));
+		assertEquals(2.0d, dataRow.get(other));
+		dataRow = parser.next();
+		assertEquals(3.0d, dataRow.get(real));
+		assertEquals("y", getNominal(dataRow));
+		assertEquals(4.0d, dataRow.get(other));
+		assertNull(parser.next());
+	}
+
+	public void testLineEnds() throws Exception {
+		String data = "1,a,2\r\n\r\n3,b,4\r5,c,6\n7,d,8";
+		ComplexArffDataParser parser = createParser(data, '.', real, nominal, other);
+		for (int i = 0; i < 4; i++) {
+			DataRow dataRow = parser.next();
+			assertNotNull("row " + i, dataRow);
+			assertEquals(2.0d * i + 1, dataRow.get(real));
+			assertEquals(String.valueOf((char) ('a' + i)), getNominal(dataRow));
+			assertEquals(2.0d * i + 2, dataRow.get(other));
+		}
+		assertNull(parser.next());
+		assertEquals("all characters consumed", data.length(), parser.getCharactersRead());
+	}
+
+	public void testWrongNumberOfValues() throws Exception {
+		try {
+			createParser("1, a\r\n", '.', real, nominal, other).next();
+			fail("too few values");
+		} catch (IOException e) {
+			// expected
+		}
+		try {
+			createParser("1, a, 2, 3\r\n", '.', real, nominal, other).next();
+			fail("too many values");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	public void testDecimalPointCharacter() throws Exception {
+		other.setTableIndex(1);
+		ComplexArffDataParser parser = createParser("'1,5' '-2,25e2'\n\"0,125\" ?\n", ',', real, other);
+		DataRow dataRow = parser.next();
+		assertEquals(1.5d, dataRow.get(real));
+		assertEquals(-225.0d, dataRow.get(other));
+		dataRow = parser.next();
+		assertEquals(0.125d, dataRow.get(real));
+		assertTrue(Double.isNaN(dataRow.get(other)));
+		assertNull(parser.next());
+	}
+
+	private void assertParsed(String string) throws Exception {
+		DataRow dataRow = createParser(string + "\n", '.', real).next();
+		double expected = Double.parseDouble(string);
+		assertEquals(string, Double.doubleToLongBits(expected), Double.doubleToLongBits(dataRow.get(real)));
+	}
+
+	public void testNumbers() throws Exception {
+		String[] numbers = { "0", "-0", "+0.0", "1", "-1.5", "3.14159", ".5", "5.", "+7", "0.1", "0.30000000000000004", "1e10", "1E-5", "2.5e+3", "-2.5E-3", "1e22", "1e23", "1e-22", "1e-23", "123456789012345", "1234567890123456", "123456789012345678", "9007199254740993", "0.000001234567890123456789", "1e300", "-1e-300", "4.9e-324", "1.7976931348623157e308", "1e400", "NaN", "Infinity", "-Infinity", "00012.5000" };
+		for (String number : numbers)
+			assertParsed(number);
+		Random random = new Random(2001);
+		for (int i = 0; i < 2000; i++) {
+			assertParsed(Double.toString(random.nextDouble()));
+			assertParsed(Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(60) - 30)));
+			assertParsed(Long.toString(random.nextInt(1000000)) + "." + Integer.toString(random.nextInt(1000)));
+		}
+	}
+
+	public void testUnknownValues() throws Exception {
+		ComplexArffDataParser parser = createParser("?,?,?\n ? , '?' , ''\nx,y,z\n", '.', real, nominal, other);
+		DataRow dataRow = parser.next();
+		assertTrue(Double.isNaN(dataRow.get(real)));
+		assertTrue(Double.isNaN(dataRow.get(other)));
+		dataRow = parser.next();
+		assertTrue(Double.isNaN(dataRow.get(real)));
+		assertTrue(Double.isNaN(dataRow.get(other)));
+		dataRow = parser.next();
+		assertTrue("not a number", Double.isNaN(dataRow.get(real)));
+		assertEquals("y", getNominal(dataRow));
+	}
+}
@@ -7,6 +7,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -14,7 +15,6 @@ import com.rapidminer.example.Attribute;
 import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.set.AttributeValueFilter;
 import com.rapidminer.example.set.AttributeValueFilterSingleCondition;
 import com.rapidminer.example.set.Condition;
 import com.rapidminer.example.set.ConditionedExampleSet;
@@ -36,6 +36,8 @@ import com.rapidminer.parameter.ParameterTypeBoolean;
 import com.rapidminer.parameter.ParameterTypeFile;
 import com.rapidminer.parameter.ParameterTypeInt;
 
+import de.tud.inf.example.set.UpdateableExampleSet;
+
 public class SlidingWindowLearner extends AbstractMetaLearner {
 	
 	public static final String ENSAMBLE_WINDOW_SIZE = "window size";
@@ -101,10 +103,17 @@ public class SlidingWindowLearner extends AbstractMetaLearner {
 			
 			/* train the new model*/
 			
-			Condition windowCondition = new AttributeValueFilter(updatedSet, 
-					"id >= " + learningModel.getLeastId() + " && id <= " + learningModel.getRecentId());
+			/* the examples outside of the window are removed in one pass */
+			UpdateableExampleSet trainingSet = UpdateableExampleSet.create(updatedSet, true);
 			
-			ConditionedExampleSet trainingSet = new ConditionedExampleSet(updatedSet,windowCondition);
+			int[] outside = new int[trainingSet.size()];
+			int numberOfOutside = 0;
+			for (int i = 0; i < trainingSet.size(); i++) {
+				double id = trainingSet.getExample(i).getId();
+				if ((id < learningModel.getLeastId()) || (id > learningModel.getRecentId()))
+					outside[numberOfOutside++] = i;
+			}
+			trainingSet.removeExamples(Arrays.copyOf(outside, numberOfOutside));
 			
 			learningModel.setTraining(exampleSet);
 			
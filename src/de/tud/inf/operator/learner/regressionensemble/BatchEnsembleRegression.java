@@ -16,6 +16,7 @@ import com.rapidminer.example.Attributes;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleReader;
 import com.rapidminer.example.ExampleSet;
+import com.rapidminer.example.Tools;
 import com.rapidminer.example.set.AttributeValueFilter;
 import com.rapidminer.example.set.Condition;
 import com.rapidminer.example.set.ConditionedExampleSet;
@@ -26,6 +27,7 @@ import com.rapidminer.operator.Model;
 import com.rapidminer.operator.Operator;
 import com.rapidminer.operator.OperatorDescription;
 import com.rapidminer.operator.OperatorException;
+import com.rapidminer.operator.ParallelTaskProcessor;
 import com.rapidminer.operator.UserError;
 import com.rapidminer.operator.learner.Learner;
 import com.rapidminer.operator.learner.LearnerCapability;
@@ -51,10 +53,7 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 	private static final String ENSEMBLE_PENALTY_WEIGHT		= "penalty weight";
 	private static final String ENSEMBLE_SAMPLING_INTERVAL	= "sampling interval";
 	private static final String ENSEMBLE_USE_THREADS		= "use threads";
-	
-	private MemberGatherer gatherer = null; 
-	
-	private Object lock = new Object();
+	private static final String ENSEMBLE_NUMBER_OF_THREADS	= "number of threads";
 
 	public BatchEnsembleRegression(OperatorDescription description) {
 		super(description);
@@ -74,6 +73,7 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 		boolean sliding_test = getParameterAsBoolean(ENSEMBLE_SLIDING_TEST);
 		boolean materialize_full = getParameterAsBoolean(ENSEMBLE_FULL_MATERIALIZED);
 		boolean use_threads = getParameterAsBoolean(ENSEMBLE_USE_THREADS);
+		int number_of_threads = getParameterAsInt(ENSEMBLE_NUMBER_OF_THREADS);
 		
 		String similarity_measure_type = getParameterAsString(ENSEMBLE_SIMILARITY_MEASURE);
 		Distance distance = null;
@@ -87,11 +87,7 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 		}  
 		
 		if(use_threads == true) {
-			try {
-				ensemble = createEnsembleThreaded(exampleSet, learner, distance, max_members, local_threshold, penalty_weight, sliding_test, leaf_out_size, sampling_interval);
-			} catch (InterruptedException ie) {
-				throw new OperatorException("Threading Problem", ie);
-			}
+			ensemble = createEnsembleThreaded(exampleSet, learner, distance, max_members, local_threshold, penalty_weight, sliding_test, leaf_out_size, sampling_interval, number_of_threads);
 		} else {
 			if(materialize_full == true) {
 				ensemble = createEnsembleTotalMaterialized(exampleSet, learner, distance, max_members, local_threshold, penalty_weight, sliding_test, leaf_out_size, sampling_interval); 
@@ -123,169 +119,117 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 		return ensemble;
 	}
 	
-	protected class MemberGatherer {
-		HashMap<Integer, EnsembleMember> candidates;
-		TreeMultiMap<Double, Integer> ratios;
-		boolean exceptionOccured;
-		
-		public MemberGatherer(HashMap<Integer, EnsembleMember> candidates, 	TreeMultiMap<Double, Integer> ratios) {
-			this.candidates = candidates;
-			this.ratios = ratios;
-			this.exceptionOccured = false;
-		}
-
-		public HashMap<Integer, EnsembleMember> getCandidates() {
-			return candidates;
-		}
-
-		public TreeMultiMap<Double, Integer> getRatios() {
-			return ratios;
-		}
+	protected static final String PHASE_ESTIMATE = "estimate";
+	
+	protected static final String PHASE_TEST = "test";
+	
+	/** The estimated and tested member of a single round. */
+	protected static class Candidate {
+		protected int round;
+		protected EnsembleMember member;
+		protected double penalizedRatio;
 		
-		public void flagException() {		
-			exceptionOccured = true;
+		protected Candidate(int round, EnsembleMember member, double penalizedRatio) {
+			this.round = round;
+			this.member = member;
+			this.penalizedRatio = penalizedRatio;
 		}
+	}
+	
+	/** The private state of a worker thread: a clone of the learner and a copy of the example set in main memory. */
+	protected class Worker {
+		protected Learner learner;
+		protected ExampleSet exampleSet;
+		protected Attribute idAttribute;
+		protected Attribute predictedLabel;
 		
-		public boolean getExceptionOccured() {
-			return exceptionOccured;
+		protected Worker(ExampleSet exampleSet, Operator learnerOperator) {
+			Operator clone = learnerOperator.cloneOperator(learnerOperator.getName());
+			clone.setParent(BatchEnsembleRegression.this);
+			this.learner = (Learner) clone;
+			// the predictions of a worker are only written into its own copy
+			this.exampleSet = Tools.getLinearSubsetCopy(exampleSet, exampleSet.size(), 0);
+			this.idAttribute = this.exampleSet.getAttributes().getId();
+			this.predictedLabel = this.exampleSet.getAttributes().getPredictedLabel();
 		}
 	}
 	
-	protected class EstimateAndTest implements Runnable {
-		protected ExampleSet exampleSet;
+	/** Estimates and tests the candidate of a single round, the settings are shared by all rounds. */
+	protected class EstimateAndTest {
+		protected ParallelTaskProcessor.PhaseMetrics metrics;
 		protected Distance distance;
 		protected ArrayList<Integer> ids;
-		protected Learner learner;
-		protected Attribute idAttribute;
-		protected Attribute predictedLabel;
-		protected int round;
 		protected int trainingEndId;
 		protected boolean sliding_test;
-		protected int max_members;
 		protected double local_threshold;
 		protected double penalty_weight;
-		protected int leaf_out_size;
-		protected int sampling_interval;
 		protected int testBeginId;
 		protected int maxId;
 		protected int size;
-		protected BatchEnsembleRegression parent;
 
 		protected EstimateAndTest(
-				ExampleSet exampleSet, 
+				ParallelTaskProcessor.PhaseMetrics metrics,
 				Distance distance,
 				ArrayList<Integer> ids, 
-				Learner learner, 
-				int round, 
 				int trainingEndId, 
 				int testBeginId,
 				int maxId,
-				Attribute idAttribute,
-				Attribute predictedLabel,
 				boolean sliding_test,
-				int max_members, 
 				double local_threshold, 
 				double penalty_weight,
-				int leaf_out_size, 
-				int sampling_interval,
-				int size,
-				BatchEnsembleRegression parent
+				int size
 		) {
-			this.exampleSet = exampleSet;
+			this.metrics = metrics;
 			this.ids = ids;
 			this.distance = distance;
-			this.round = round;
-			this.idAttribute = idAttribute;
 			this.trainingEndId = trainingEndId;
-			this.learner = learner;
 			this.sliding_test = sliding_test;
-			this.predictedLabel = predictedLabel;
-			this.max_members = max_members;
 			this.local_threshold = local_threshold;
 			this.penalty_weight = penalty_weight;
-			this.leaf_out_size = leaf_out_size;
-			this.sampling_interval = sampling_interval;
 			this.testBeginId = testBeginId; 
 			this.maxId = maxId;
 			this.size = size;
-			this.parent = parent;
 		}
 		
-		public void run() {
+		public Candidate execute(Worker worker, int round) throws OperatorException {
 			int currentId = ids.get(round - 1);
-			String windowConditionExpression = idAttribute.getName() + " >= " + currentId + " && " + idAttribute.getName() + " <= " + trainingEndId;
-			Condition windowCondition = new AttributeValueFilter(exampleSet, windowConditionExpression);
-			ConditionedExampleSet window = new ConditionedExampleSet(exampleSet, windowCondition);
+			String windowConditionExpression = worker.idAttribute.getName() + " >= " + currentId + " && " + worker.idAttribute.getName() + " <= " + trainingEndId;
+			Condition windowCondition = new AttributeValueFilter(worker.exampleSet, windowConditionExpression);
+			ConditionedExampleSet window = new ConditionedExampleSet(worker.exampleSet, windowCondition);
 			
-			PredictionModel model = null;
+			// estimation
+			long start = System.nanoTime();
+			PredictionModel model = (PredictionModel) worker.learner.learn(window);
+			metrics.add(PHASE_ESTIMATE, System.nanoTime() - start);
 			
-			try {
-				model = (PredictionModel) learner.learn(window);
-			} catch(OperatorException oe) {
-				gatherer.flagException();
-				oe.printStackTrace();
-				return;
+			// testing
+			start = System.nanoTime();
+			ExampleSet testSet = window;
+			if (sliding_test == false) {
+				String testSetConditionExpression = worker.idAttribute.getName() + " >= " + testBeginId + " && " + worker.idAttribute.getName() + " <= " + maxId;
+				Condition testSetCondition = new AttributeValueFilter(worker.exampleSet, testSetConditionExpression);
+				testSet = new ConditionedExampleSet(worker.exampleSet, testSetCondition);
 			}
+			model.performPrediction(testSet, worker.predictedLabel);
 			
-			EnsembleMember member = new EnsembleMember();
 			int positives = 0;
 			int negatives = 0;
-			
-			// testing
-			if (sliding_test == true) {
-				// sliding test -> test on all values used in training!
-				// iterate over all examples in the window and test [e.g. batch predict]; result will be written to predictedLabel
-				try {
-					model.performPrediction(window, predictedLabel);
-				} catch (OperatorException oe) {
-					gatherer.flagException();
-					oe.printStackTrace();
-					return;
-				}
+			Iterator<Example> iter = testSet.iterator();
+			while (iter.hasNext()) {
+				Example example = iter.next();
+				double label = example.getLabel();
+				double prediction = example.getNumericalValue(worker.predictedLabel);
+				double dist = distance.distance(label, prediction);
 				
-				// test on window! --> iterate for classification
-				Iterator<Example> iter = window.iterator();
-				while (iter.hasNext()) {
-					Example example = iter.next();
-					double label = example.getLabel();
-					double prediction = example.getNumericalValue(predictedLabel);
-					double dist = distance.distance(label, prediction);
-					
-					if(dist < local_threshold) {
-						positives++;
-					} else {
-						negatives++;
-					}
-				}
-			} else {
-				String testSetConditionExpression = idAttribute.getName() + " >= " + testBeginId + " && " + idAttribute.getName() + " <= " + maxId;
-				Condition testSetCondition = new AttributeValueFilter(exampleSet, testSetConditionExpression);
-				ConditionedExampleSet testSet = new ConditionedExampleSet(exampleSet, testSetCondition);
-
-				try {
-					model.performPrediction(testSet, predictedLabel);
-				} catch (OperatorException oe) {
-					gatherer.flagException();
-					oe.printStackTrace();
-					return;
-				}
-				
-				Iterator<Example> iter = testSet.iterator();
-				while (iter.hasNext()) {
-					Example example = iter.next();
-					double label = example.getLabel();
-					double prediction = example.getNumericalValue(predictedLabel);
-					double dist = distance.distance(label, prediction);
-					
-					if(dist < local_threshold) {
-						positives++;
-					} else {
-						negatives++;
-					}
+				if(dist < local_threshold) {
+					positives++;
+				} else {
+					negatives++;
 				}
 			}
+			metrics.add(PHASE_TEST, System.nanoTime() - start);
 			
-			//log(Double.toString(dist));
+			EnsembleMember member = new EnsembleMember();
 			member.setPositive(positives);
 			member.setNegative(negatives);
 			member.setIntroducedAt(currentId);		
@@ -294,134 +238,109 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 			member.setState(MemberState.STABLE);
 			member.setModel(model);
 			
-			//candidates[round - 1] = member;
 			double ratio = member.getRatio();
 			double size_penalty = ((double) ((size + 1) - round)) / ((double)size);   
 			double currentPenalizedRatio = penalty_weight * size_penalty + (1 - penalty_weight) * ratio;
-			
-			synchronized(lock) {
-				if(parent.getGatherer().getCandidates().size() < max_members) {
-					// can safely use round as "index" here
-					parent.getGatherer().getCandidates().put(round, member);
-					parent.getGatherer().getRatios().put(currentPenalizedRatio, round);
-					//ensemble_positives += member.getPositive();
-				} else {
-					// check weather there is a lower ranking member to replace; always replace in the lowest Key
-					double leastKey = parent.getGatherer().getRatios().firstKey();
-					
-					if(leastKey < currentPenalizedRatio) {
-						// there is at least one entry
-						int leastMemberIndex = parent.getGatherer().getRatios().get(leastKey).get(0);
-						
-						// remove it
-						parent.getGatherer().getRatios().remove(leastKey, leastMemberIndex);
-						parent.getGatherer().getCandidates().remove(leastMemberIndex);
-						
-						// now put the new member
-						parent.getGatherer().getCandidates().put(round, member);
-						parent.getGatherer().getRatios().put(currentPenalizedRatio, round);
-						//ensemble_positives += member.getPositive();
-					}
-				}
-			}
+			return new Candidate(round, member, currentPenalizedRatio);
 		}
 	}
 	
+	/**
+	 * Estimates and tests the candidates of all rounds with several threads. Each thread uses 
+	 * its own learner and its own copy of the example set. The candidates are 
+	 * gathered in the order of the rounds, hence the ensemble is the same as the one of
+	 * {@link #createEnsembleScanMaterialized}.
+	 */
 	protected EnsembleRegressionModel createEnsembleThreaded(
-			ExampleSet exampleSet, 
-			Operator learnerOperator, 
-			Distance distance,
-			int max_members, 
-			double local_threshold, 
-			double penalty_weight,
-			boolean sliding_test, 
+			final ExampleSet exampleSet, 
+			final Operator learnerOperator, 
+			final Distance distance,
+			final int max_members, 
+			final double local_threshold, 
+			final double penalty_weight,
+			final boolean sliding_test, 
 			int leaf_out_size, 
-			int sampling_interval
-	) throws OperatorException, InterruptedException {
+			final int sampling_interval,
+			int number_of_threads
+	) throws OperatorException {
+		if (ParallelTaskProcessor.containsRelationalAttributes(exampleSet)) {
+			logNote("Relational attributes cannot be copied for the worker threads, using a single thread.");
+			return createEnsembleScanMaterialized(exampleSet, learnerOperator, distance, max_members, local_threshold, penalty_weight, sliding_test, leaf_out_size, sampling_interval);
+		}
+		
 		EnsembleRegressionModel ensemble = new EnsembleRegressionModel(exampleSet);
-		// candidate set; is maintained while iterating through the windows!
-		HashMap<Integer, EnsembleMember> candidates = new HashMap<Integer, EnsembleMember>();
+		// candidate set; is maintained while gathering the results of the workers!
+		final HashMap<Integer, EnsembleMember> candidates = new HashMap<Integer, EnsembleMember>();
 		// the ratios for maintaining the candidates!
-		TreeMultiMap<Double, Integer> ratios = new TreeMultiMap<Double, Integer>();
-		// all threads
-		ArrayList<Thread> threads = new ArrayList<Thread>();
-		// access object for the threads
-		gatherer = new MemberGatherer(candidates, ratios);
+		final TreeMultiMap<Double, Integer> ratios = new TreeMultiMap<Double, Integer>();
 		
 		Attribute idAttribute = exampleSet.getAttributes().getId();
 		Attribute labelAttribute = exampleSet.getAttributes().getLabel();
 		Attribute predictedLabel = createPredictedLabel(exampleSet, labelAttribute);
 		
-		ArrayList<Integer> ids = getAllIds(exampleSet);
-		int maxId = ids.get(ids.size() - 1);
+		final ArrayList<Integer> ids = getAllIds(exampleSet);
+		final int maxId = ids.get(ids.size() - 1);
 		
-		Learner learner = (Learner) learnerOperator;
-		int first = 1;
-		int last;
-		int testBeginId;
-		int trainingEndId;
+		final int first = 1;
+		final int last;
+		final int testBeginId;
+		final int trainingEndId;
 		
 		if (sliding_test == true) {
 			last = exampleSet.size();
 			trainingEndId = ids.get(last - 1);
 			testBeginId = 0; // does not matter
-			//testBeginId = ids.get(last); 
 		} else {
 			int leaf_out_count = exampleSet.size() * leaf_out_size / 100;
 			if(leaf_out_count == 0) {
 				//FIXME
 				leaf_out_count = 1;
 			}
-			//log(Integer.toString(leaf_out_count));
 			last = exampleSet.size() - leaf_out_count;
 			trainingEndId = ids.get(last - 1);
 			testBeginId = ids.get(last);
 		}
-		int size = last - first + 1;
-		
-		threads.ensureCapacity(size);
-		
-		// build the threads
-		for(int round = last; round >= first; round = round - sampling_interval) {
-			EstimateAndTest runnable = new EstimateAndTest(
-				exampleSet, 
-				distance,
-				ids, 
-				learner, 
-				round, 
-				trainingEndId, 
-				testBeginId,
-				maxId,
-				idAttribute,
-				predictedLabel,
-				sliding_test,
-				max_members, 
-				local_threshold, 
-				penalty_weight,
-				leaf_out_size, 
-				sampling_interval,
-				size,
-				this
-			);
-			threads.add(new Thread(runnable));
-		}
-		
-		// start threads
-		for(Thread t : threads) {
-			t.start();
-		}
-		
-		// wait for threads
-		for(Thread t : threads) {
-			t.join();
-		}
-		
-		candidates = gatherer.getCandidates();
-		ratios = gatherer.getRatios();
+		final int size = last - first + 1;
 		
-		if(gatherer.getExceptionOccured() == true) {
-			throw new OperatorException("Exception in one of the worker threads");
-		}
+		ParallelTaskProcessor<Worker, Candidate> processor = new ParallelTaskProcessor<Worker, Candidate>(this, "estimating and testing the candidates", number_of_threads) {
+			private final EstimateAndTest estimateAndTest = new EstimateAndTest(getMetrics(), distance, ids, trainingEndId, testBeginId, maxId, sliding_test, local_threshold, penalty_weight, size);
+			
+			protected Worker createWorker() {
+				return new Worker(exampleSet, learnerOperator);
+			}
+			
+			/** The rounds are processed from the last one downwards. */
+			protected Candidate process(Worker worker, int task) throws OperatorException {
+				return estimateAndTest.execute(worker, last - task * sampling_interval);
+			}
+			
+			protected void handleResult(int task, Candidate candidate) throws OperatorException {
+				if(candidates.size() < max_members) {
+					// can safely use round as "index" here
+					candidates.put(candidate.round, candidate.member);
+					ratios.put(candidate.penalizedRatio, candidate.round);
+				} else {
+					// check weather there is a lower ranking member to replace; always replace in the lowest Key
+					double leastKey = ratios.firstKey();
+					
+					if(leastKey < candidate.penalizedRatio) {
+						// there is at least one entry
+						int leastMemberIndex = ratios.get(leastKey).get(0);
+						
+						// remove it
+						ratios.remove(leastKey, leastMemberIndex);
+						candidates.remove(leastMemberIndex);
+						
+						// now put the new member
+						candidates.put(candidate.round, candidate.member);
+						ratios.put(candidate.penalizedRatio, candidate.round);
+					}
+				}
+				checkForStop();
+			}
+		};
+		processor.run((last - first) / sampling_interval + 1);
+		log("Phases of " + processor.getNumberOfThreads() + " worker threads: " + processor.getMetrics());
 		
 		int ensemble_positives = 0;
 		
@@ -451,14 +370,12 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 			String windowConditionExpression = idAttribute.getName() + " >= " + mem.getIntroducedAt() + " && " + idAttribute.getName() + " <= " + maxId;	
 			Condition windowCondition = new AttributeValueFilter(exampleSet, windowConditionExpression);
 			ConditionedExampleSet window = new ConditionedExampleSet(exampleSet, windowCondition);
-			PredictionModel model = (PredictionModel) learner.learn(window);
+			PredictionModel model = (PredictionModel) ((Learner) learnerOperator).learn(window);
 			mem.setModel(model);
 		}
 
 		// clean up
 		removePredictedLabel(exampleSet, predictedLabel);
-	
-		gatherer = null;
 		
 		return ensemble;
 	}
@@ -969,6 +886,16 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 		use_threads.setExpert(true);
 		types.add(use_threads);
 		
+		ParameterTypeInt number_of_threads = new ParameterTypeInt(
+				ENSEMBLE_NUMBER_OF_THREADS,
+				"number of worker threads if threads are used (0: number of available processors)",
+				0,
+				Integer.MAX_VALUE,
+				0
+				);
+		number_of_threads.setExpert(true);
+		types.add(number_of_threads);
+		
 		return types;
 	}
 	
@@ -1012,9 +939,4 @@ public class BatchEnsembleRegression extends AbstractMetaLearner {
 	protected static String getDefaultMeasureNames() {
 		return ENSEMBLE_SIMILARITY_MEASURES.EuclideanDistance.toString();
 	}
-	
-
-	private MemberGatherer getGatherer() {
-		return gatherer;
-	}
 }
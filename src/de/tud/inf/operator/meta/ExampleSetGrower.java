@@ -1,16 +1,10 @@
 package de.tud.inf.operator.meta;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
-import com.rapidminer.example.Attribute;
-import com.rapidminer.example.AttributeRole;
 import com.rapidminer.example.Example;
 import com.rapidminer.example.ExampleSet;
-import com.rapidminer.example.table.ExampleTable;
 import com.rapidminer.operator.IOContainer;
 import com.rapidminer.operator.IOObject;
 import com.rapidminer.operator.OperatorChain;
@@ -33,31 +27,9 @@ public class ExampleSetGrower extends OperatorChain {
 	public IOObject[] apply() throws OperatorException {
 		// get the input
 		ExampleSet completeExampleSet = getInput(ExampleSet.class);
-		// copy the input
-		ExampleSet completeExampleSetCopy = (ExampleSet) completeExampleSet.copy();
-		// get the example table
-		ExampleTable completeExampleTable = completeExampleSetCopy.getExampleTable();
-		// create the mapping file for the new example set 
-		Map<Attribute, String> specialAttributes = new HashMap<Attribute, String>();
-		// get the info on the special attributes in the passed example set
-		Iterator<AttributeRole> attribRoles = completeExampleSet.getAttributes().specialAttributes();
-		// build the map 
-		while(attribRoles.hasNext()) {
-			AttributeRole curr = attribRoles.next();
-			specialAttributes.put(curr.getAttribute(), curr.getSpecialName());
-		}
-		// iterator over all attributes of the example set
-		Iterator<Attribute> allAttribs = completeExampleSetCopy.getAttributes().allAttributes();
-		// list of all attributes of the example set
-		List<Attribute> regularAttributes = new ArrayList<Attribute>();
-		while (allAttribs.hasNext()) {
-			regularAttributes.add(allAttribs.next());
-		}
-		
-		UpdateableExampleSet incrementalExampleSet = 
-			new UpdateableExampleSet(completeExampleTable, regularAttributes, specialAttributes);
+		// create an empty example set with the same attributes and roles instead of copying and clearing the table
+		UpdateableExampleSet incrementalExampleSet = UpdateableExampleSet.create(completeExampleSet, false);
 		
-		incrementalExampleSet.clear();
 		innerResult = new IOContainer(new IOObject[0]);
 		Iterator<Example> iter = completeExampleSet.iterator();
 		while (iter.hasNext()) {